@@ -52,7 +52,25 @@ public interface Bot extends Actor {
 
     public void setGroupDataModel(GroupDataModel model);
 
-    public abstract class SimpleBot implements Bot, Serializable {
+    /**
+     * Returns a shallow copy of this bot that belongs to the given group instead, e.g., to send a partial copy of its
+     * group to a client. The copy is only meant to be looked at, not activated.
+     */
+    public Bot copyFor(GroupDataModel model);
+
+    /**
+     * Replaces this bot's source of randomness, e.g., with a stream derived from the experiment's random seed.
+     */
+    public void setRandom(Random random);
+
+    /**
+     * Replaces the policy that decides what this bot does when it is activated.
+     */
+    public void setPolicy(BotPolicy policy);
+
+    public BotPolicy getPolicy();
+
+    public abstract class SimpleBot implements Bot, Serializable, Cloneable {
 
         private static final long serialVersionUID = 2437093153712520070L;
         public final static int DEFAULT_ACTIONS_PER_SECOND = 8;
@@ -74,7 +92,10 @@ public interface Bot extends Actor {
         private GroupDataModel model;
         private int ticksToWait;
 
-        private final transient Random random = new Random();
+        private transient Random random = new Random();
+
+        private transient BotPolicy policy;
+        private transient BotNeighborhood neighborhood;
 
         protected final transient Logger logger = Logger.getLogger(getClass().getName());
 
@@ -101,25 +122,74 @@ public interface Bot extends Actor {
                 ticksToWait--;
                 return;
             }
-            // if neither, check if we are sitting on top of a token
-            if (model.isResourceAt(getPosition())) {
-                if (random.nextDouble() <= getHarvestProbability()) {
-                    model.collectToken(this);
-                }
-            }
-            // or figure out our next move and roll the dice to see if we can go.
-            else {
-                Direction nextMove = getNextMove();
-                if (random.nextDouble() <= getMovementProbability()) {
-                    // FIXME: need a more sophisticated pathfinding algorithm if we want to enable 
-                    // max cell occupancy and blockage so the bot can move around a player if they are directly
-                    // in their way
-                    model.move(this, nextMove);
-                }
+            // if neither, let our policy look around and decide
+            BotPolicy botPolicy = getPolicy();
+            BotNeighborhood botNeighborhood = getNeighborhood(botPolicy.getRadius());
+            Point position = getPosition();
+            botNeighborhood.update(model, position.x, position.y, currentTokens);
+            BotAction action = botPolicy.decide(botNeighborhood);
+            switch (action) {
+                case WAIT:
+                    break;
+                case HARVEST:
+                    if (random.nextDouble() <= getHarvestProbability()) {
+                        model.collectToken(this);
+                    }
+                    break;
+                default:
+                    // figure out our next move and roll the dice to see if we can go.
+                    Direction nextMove = getNextMove(action, botNeighborhood);
+                    if (random.nextDouble() <= getMovementProbability()) {
+                        // FIXME: need a more sophisticated pathfinding algorithm if we want to enable 
+                        // max cell occupancy and blockage so the bot can move around a player if they are directly
+                        // in their way
+                        model.move(this, nextMove);
+                    }
             }
             numberOfActionsTaken++;
         }
 
+        protected Direction getNextMove(BotAction action, BotNeighborhood neighborhood) {
+            switch (action) {
+                case RANDOM:
+                    return Direction.random(random);
+                case PURSUE:
+                    Direction direction = neighborhood.getDirectionToNearestToken();
+                    if (direction != null) {
+                        return direction;
+                    }
+                    // nothing in view, fall through and explore
+                default:
+                    return getNextMove();
+            }
+        }
+
+        public BotPolicy getPolicy() {
+            if (policy == null) {
+                policy = BotPolicy.DEFAULT;
+            }
+            return policy;
+        }
+
+        public void setPolicy(BotPolicy policy) {
+            this.policy = policy;
+        }
+
+        private BotNeighborhood getNeighborhood(int radius) {
+            if (neighborhood == null || neighborhood.getRadius() != radius) {
+                neighborhood = new BotNeighborhood(radius);
+            }
+            return neighborhood;
+        }
+
+        public void setRandom(Random random) {
+            this.random = random;
+        }
+
+        protected Random getRandom() {
+            return random;
+        }
+
         public void resetActionsTakenPerSecond() {
             this.numberOfActionsTaken = 0;
         }
@@ -130,6 +200,9 @@ public interface Bot extends Actor {
 
         public void setCurrentPosition(Point currentPosition) {
             this.currentPosition = currentPosition;
+            if (model != null) {
+                model.actorMoved(this);
+            }
         }
 
         public Direction getNextMove() {
@@ -161,19 +234,7 @@ public interface Bot extends Actor {
         }
 
         protected Point getNearestToken() {
-            Point currentLocation = getPosition();
-            Point nearestToken = null;
-            double nearestTokenDistance = Double.MAX_VALUE;
-            // naive implementation, scans all positions
-            // Could instead scan in a concentric ring around the current location and stop at the first hit.
-            for (Point resourcePosition : model.getResourcePositions()) {
-                double distance = currentLocation.distanceSq(resourcePosition);
-                if (distance < nearestTokenDistance) {
-                    nearestTokenDistance = distance;
-                    nearestToken = resourcePosition;
-                }
-            }
-            return nearestToken;
+            return model.getNearestResourcePosition(getPosition());
         }
 
         public void setHarvestProbability(double harvestProbability) {
@@ -201,7 +262,11 @@ public interface Bot extends Actor {
         }
 
         public void initialize(RoundConfiguration roundConfiguration) {
-            int actionsPerSecond = roundConfiguration.getRobotMovesPerSecond();
+            actionsPerSecond = roundConfiguration.getBotActionsPerSecond(actionsPerSecond);
+            String policyRules = roundConfiguration.getBotPolicy();
+            if (policyRules != null && ! policyRules.trim().isEmpty()) {
+                setPolicy(DecisionTablePolicy.compile(policyRules, roundConfiguration.getBotViewRadius()));
+            }
             setCurrentPosition(model.getInitialPosition(getBotNumber()));
             logger.info("setting current bot position to " + getPosition());
             currentTokens = 0;
@@ -224,6 +289,16 @@ public interface Bot extends Actor {
         }
         public GroupDataModel getGroupDataModel() { return model; }
 
+        public Bot copyFor(GroupDataModel groupDataModel) {
+            try {
+                SimpleBot copy = (SimpleBot) clone();
+                copy.model = groupDataModel;
+                return copy;
+            } catch (CloneNotSupportedException exception) {
+                throw new IllegalStateException(exception);
+            }
+        }
+
         public Point getTargetLocation() {
             return targetLocation;
         }
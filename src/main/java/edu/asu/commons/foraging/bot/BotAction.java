@@ -0,0 +1,33 @@
+package edu.asu.commons.foraging.bot;
+
+/**
+ * $Id$
+ *
+ * Actions a BotPolicy can choose for a bot on a single activation. Harvesting and moving are still subject to the
+ * bot's harvest and movement probabilities.
+ *
+ * @author <a href='mailto:Allen.Lee@asu.edu'>Allen Lee</a>
+ * @version $Revision$
+ */
+public enum BotAction {
+    /**
+     * Do nothing this activation.
+     */
+    WAIT,
+    /**
+     * Collect the token at the bot's current position.
+     */
+    HARVEST,
+    /**
+     * Take the bot's own next move, e.g., towards the nearest token on the board or a random target.
+     */
+    EXPLORE,
+    /**
+     * Move towards the nearest token in the bot's neighborhood, or explore if there are none.
+     */
+    PURSUE,
+    /**
+     * Move in a random direction.
+     */
+    RANDOM;
+}
@@ -0,0 +1,140 @@
+package edu.asu.commons.foraging.bot;
+
+import edu.asu.commons.foraging.model.Direction;
+import edu.asu.commons.foraging.model.GroupDataModel;
+
+/**
+ * $Id$
+ *
+ * Read-only view of the square window of cells around a bot, handed to its BotPolicy. Each bot reuses a single
+ * instance that is refilled in place before every decision, so building the view doesn't allocate. Cells are
+ * addressed by their offset from the bot's position, e.g., hasToken(0, -1) for the cell directly above the bot.
+ *
+ * @author <a href='mailto:Allen.Lee@asu.edu'>Allen Lee</a>
+ * @version $Revision$
+ */
+public class BotNeighborhood {
+
+    private final int radius;
+    private final int side;
+    private final boolean[] tokens;
+    private final int[] occupancy;
+
+    private int x;
+    private int y;
+    private int ownTokens;
+    private int tokensInView;
+    private int otherActorsInView;
+    private int nearestTokenDx;
+    private int nearestTokenDy;
+
+    public BotNeighborhood(int radius) {
+        this.radius = Math.max(radius, 0);
+        this.side = 2 * this.radius + 1;
+        this.tokens = new boolean[side * side];
+        this.occupancy = new int[side * side];
+    }
+
+    void update(GroupDataModel group, int x, int y, int ownTokens) {
+        this.x = x;
+        this.y = y;
+        this.ownTokens = ownTokens;
+        group.copyNeighborhood(x, y, radius, tokens, occupancy);
+        tokensInView = 0;
+        otherActorsInView = 0;
+        long nearestDistance = Long.MAX_VALUE;
+        for (int dy = -radius; dy <= radius; dy++) {
+            for (int dx = -radius; dx <= radius; dx++) {
+                int index = toIndex(dx, dy);
+                if (occupancy[index] > 0) {
+                    // don't count the bot itself
+                    otherActorsInView += (dx == 0 && dy == 0) ? occupancy[index] - 1 : occupancy[index];
+                }
+                if (tokens[index]) {
+                    tokensInView++;
+                    long distance = dx * dx + dy * dy;
+                    if (distance < nearestDistance) {
+                        nearestDistance = distance;
+                        nearestTokenDx = dx;
+                        nearestTokenDy = dy;
+                    }
+                }
+            }
+        }
+    }
+
+    public int getRadius() {
+        return radius;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    /**
+     * Returns the number of tokens the bot has collected this round.
+     */
+    public int getOwnTokens() {
+        return ownTokens;
+    }
+
+    public boolean isOnBoard(int dx, int dy) {
+        return isInView(dx, dy) && occupancy[toIndex(dx, dy)] >= 0;
+    }
+
+    public boolean hasToken(int dx, int dy) {
+        return isInView(dx, dy) && tokens[toIndex(dx, dy)];
+    }
+
+    /**
+     * Returns the number of actors in the given cell, including the bot itself, or 0 for cells off the board or
+     * outside the neighborhood.
+     */
+    public int getOccupancy(int dx, int dy) {
+        return isInView(dx, dy) ? Math.max(occupancy[toIndex(dx, dy)], 0) : 0;
+    }
+
+    public boolean isOnToken() {
+        return tokens[toIndex(0, 0)];
+    }
+
+    public boolean isTokenAdjacent() {
+        return hasToken(-1, 0) || hasToken(1, 0) || hasToken(0, -1) || hasToken(0, 1);
+    }
+
+    public boolean isActorAdjacent() {
+        return getOccupancy(-1, 0) > 0 || getOccupancy(1, 0) > 0 || getOccupancy(0, -1) > 0 || getOccupancy(0, 1) > 0;
+    }
+
+    public int getTokensInView() {
+        return tokensInView;
+    }
+
+    public int getOtherActorsInView() {
+        return otherActorsInView;
+    }
+
+    /**
+     * Returns the direction towards the nearest token in view, NONE if the bot is on a token or null if there are no
+     * tokens in view.
+     */
+    public Direction getDirectionToNearestToken() {
+        if (tokensInView == 0) {
+            return null;
+        }
+        return Direction.towards(0, 0, nearestTokenDx, nearestTokenDy);
+    }
+
+    private boolean isInView(int dx, int dy) {
+        return dx >= -radius && dx <= radius && dy >= -radius && dy <= radius;
+    }
+
+    private int toIndex(int dx, int dy) {
+        return (dy + radius) * side + dx + radius;
+    }
+
+}
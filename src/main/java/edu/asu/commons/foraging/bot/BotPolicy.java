@@ -0,0 +1,40 @@
+package edu.asu.commons.foraging.bot;
+
+/**
+ * $Id$
+ *
+ * Decides what a bot does each time it is activated, given a view of the cells around it. Implementations are
+ * invoked once per bot action and may be invoked concurrently for bots in different groups, so they should not
+ * allocate or keep per-bot state.
+ *
+ * @author <a href='mailto:Allen.Lee@asu.edu'>Allen Lee</a>
+ * @version $Revision$
+ */
+public interface BotPolicy {
+
+    /**
+     * The default policy, harvests when standing on a token and otherwise explores.
+     */
+    public final static BotPolicy DEFAULT = new BotPolicy() {
+        @Override
+        public int getRadius() {
+            return 0;
+        }
+
+        @Override
+        public BotAction decide(BotNeighborhood neighborhood) {
+            return neighborhood.isOnToken() ? BotAction.HARVEST : BotAction.EXPLORE;
+        }
+    };
+
+    /**
+     * Returns how many cells around the bot in each direction this policy needs to see.
+     */
+    public int getRadius();
+
+    /**
+     * Returns the action the bot should take. The neighborhood is only valid for the duration of this call.
+     */
+    public BotAction decide(BotNeighborhood neighborhood);
+
+}
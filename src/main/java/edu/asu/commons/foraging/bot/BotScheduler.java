@@ -0,0 +1,63 @@
+package edu.asu.commons.foraging.bot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import edu.asu.commons.event.Event;
+import edu.asu.commons.foraging.model.GroupDataModel;
+import edu.asu.commons.foraging.model.ServerDataModel;
+
+/**
+ * $Id$
+ *
+ * Activates the bots in every group once per bot tick. Bots only ever read and modify their own group, so when
+ * parallel activation is enabled each group is activated as its own task on the common ForkJoinPool, with the
+ * group's task as the single writer for that group. The movement and token collection events the bots generate are
+ * held back until every task has finished and are then handed to the event channel in group id order, so the
+ * persister sees the same event order as sequential activation with the same seed.
+ *
+ * @author <a href='mailto:Allen.Lee@asu.edu'>Allen Lee</a>
+ * @version $Revision$
+ */
+public class BotScheduler {
+
+    private final ServerDataModel serverDataModel;
+
+    private boolean parallelActivationEnabled;
+
+    public BotScheduler(ServerDataModel serverDataModel) {
+        this.serverDataModel = serverDataModel;
+    }
+
+    public void activateBots(boolean resetBotActions) {
+        List<GroupDataModel> groups = serverDataModel.getOrderedGroups();
+        if (! parallelActivationEnabled || groups.size() < 2) {
+            for (GroupDataModel group : groups) {
+                group.activateBots(resetBotActions);
+            }
+            return;
+        }
+        List<ForkJoinTask<List<Event>>> tasks = new ArrayList<>(groups.size());
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        for (final GroupDataModel group : groups) {
+            tasks.add(pool.submit(() -> group.activateBotsDeferringEvents(resetBotActions)));
+        }
+        for (int i = 0; i < groups.size(); i++) {
+            GroupDataModel group = groups.get(i);
+            for (Event event : tasks.get(i).join()) {
+                group.getEventChannel().handle(event);
+            }
+        }
+    }
+
+    public boolean isParallelActivationEnabled() {
+        return parallelActivationEnabled;
+    }
+
+    public void setParallelActivationEnabled(boolean parallelActivationEnabled) {
+        this.parallelActivationEnabled = parallelActivationEnabled;
+    }
+
+}
@@ -0,0 +1,135 @@
+package edu.asu.commons.foraging.bot;
+
+import java.util.Arrays;
+
+/**
+ * $Id$
+ *
+ * BotPolicy driven by an ordered list of rules from the round configuration, e.g.,
+ *
+ * <pre>
+ * bot-policy=on-token -&gt; harvest; token-adjacent -&gt; pursue; actor-adjacent &amp; !token-in-view -&gt; random; * -&gt; explore
+ * </pre>
+ *
+ * Each rule is a conjunction of conditions, optionally negated with !, and the first rule that matches picks the
+ * action. States no rule matches fall back to explore. Since there are only a handful of boolean conditions the
+ * rules are compiled up front into a table with an action for every combination, so deciding is a few bit operations
+ * and an array lookup.
+ *
+ * @author <a href='mailto:Allen.Lee@asu.edu'>Allen Lee</a>
+ * @version $Revision$
+ */
+public class DecisionTablePolicy implements BotPolicy {
+
+    public final static int DEFAULT_RADIUS = 2;
+
+    public enum Condition {
+        ON_TOKEN, TOKEN_ADJACENT, TOKEN_IN_VIEW, ACTOR_ADJACENT, ACTOR_IN_VIEW, HAS_TOKENS;
+
+        private final int mask = 1 << ordinal();
+
+        public String getName() {
+            return name().toLowerCase().replace('_', '-');
+        }
+
+        public static Condition forName(String name) {
+            for (Condition condition : values()) {
+                if (condition.getName().equals(name)) {
+                    return condition;
+                }
+            }
+            throw new IllegalArgumentException("Unknown bot policy condition: " + name);
+        }
+    }
+
+    private final int radius;
+    private final BotAction[] table;
+
+    private DecisionTablePolicy(int radius, BotAction[] table) {
+        this.radius = radius;
+        this.table = table;
+    }
+
+    /**
+     * Compiles the given rules, throwing an IllegalArgumentException if they can't be parsed.
+     */
+    public static DecisionTablePolicy compile(String rules, int radius) {
+        BotAction[] table = new BotAction[1 << Condition.values().length];
+        for (String rule : rules.split(";")) {
+            rule = rule.trim();
+            if (rule.isEmpty()) {
+                continue;
+            }
+            int arrow = rule.indexOf("->");
+            if (arrow < 0) {
+                throw new IllegalArgumentException("Bot policy rule is missing an action: " + rule);
+            }
+            BotAction action = BotAction.valueOf(rule.substring(arrow + 2).trim().toUpperCase());
+            int mask = 0;
+            int value = 0;
+            for (String term : rule.substring(0, arrow).split("&")) {
+                term = term.trim();
+                if (term.isEmpty() || term.equals("*")) {
+                    continue;
+                }
+                boolean negated = term.startsWith("!");
+                Condition condition = Condition.forName(negated ? term.substring(1).trim() : term);
+                mask |= condition.mask;
+                if (! negated) {
+                    value |= condition.mask;
+                }
+            }
+            // earlier rules take precedence, only fill in states that no previous rule matched
+            for (int state = 0; state < table.length; state++) {
+                if (table[state] == null && (state & mask) == value) {
+                    table[state] = action;
+                }
+            }
+        }
+        for (int state = 0; state < table.length; state++) {
+            if (table[state] == null) {
+                table[state] = BotAction.EXPLORE;
+            }
+        }
+        return new DecisionTablePolicy(radius, table);
+    }
+
+    @Override
+    public int getRadius() {
+        return radius;
+    }
+
+    @Override
+    public BotAction decide(BotNeighborhood neighborhood) {
+        return table[getState(neighborhood)];
+    }
+
+    static int getState(BotNeighborhood neighborhood) {
+        int state = 0;
+        if (neighborhood.isOnToken()) {
+            state |= Condition.ON_TOKEN.mask;
+        }
+        if (neighborhood.isTokenAdjacent()) {
+            state |= Condition.TOKEN_ADJACENT.mask;
+        }
+        if (neighborhood.getTokensInView() > 0) {
+            state |= Condition.TOKEN_IN_VIEW.mask;
+        }
+        if (neighborhood.isActorAdjacent()) {
+            state |= Condition.ACTOR_ADJACENT.mask;
+        }
+        if (neighborhood.getOtherActorsInView() > 0) {
+            state |= Condition.ACTOR_IN_VIEW.mask;
+        }
+        if (neighborhood.getOwnTokens() > 0) {
+            state |= Condition.HAS_TOKENS.mask;
+        }
+        return state;
+    }
+
+    @Override
+    public String toString() {
+        return "DecisionTablePolicy[radius=" + radius + ", table=" + Arrays.toString(table) + "]";
+    }
+
+}
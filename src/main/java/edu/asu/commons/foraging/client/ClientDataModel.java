@@ -1,26 +1,37 @@
 package edu.asu.commons.foraging.client;
 
 import java.awt.Point;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
 import java.util.logging.Logger;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 
+import edu.asu.commons.client.BaseClient;
+import edu.asu.commons.event.EventChannel;
+import edu.asu.commons.foraging.conf.RoundConfiguration;
+import edu.asu.commons.foraging.conf.ServerConfiguration;
 import edu.asu.commons.foraging.event.ClientPositionUpdateEvent;
 import edu.asu.commons.foraging.event.ExplicitCollectionModeRequest;
 import edu.asu.commons.foraging.event.RealTimeSanctionRequest;
 import edu.asu.commons.foraging.event.SinglePlayerClientUpdateEvent;
 import edu.asu.commons.foraging.graphics.Point3D;
+import edu.asu.commons.foraging.model.BitSetResourceGrid;
 import edu.asu.commons.foraging.model.ClientData;
 import edu.asu.commons.foraging.model.Direction;
 import edu.asu.commons.foraging.model.ForagingDataModel;
 import edu.asu.commons.foraging.model.GroupDataModel;
 import edu.asu.commons.foraging.model.Resource;
+import edu.asu.commons.foraging.model.ResourceGrid;
 import edu.asu.commons.foraging.rules.Strategy;
 import edu.asu.commons.net.Identifier;
 import edu.asu.commons.util.Duration;
@@ -29,6 +40,11 @@ import edu.asu.commons.util.Duration;
  * 
  * Provides game state relevant to a particular client.
  * 
+ * In multiplayer rounds moves are predicted: predictMove() applies a move locally right away and tags it with a
+ * sequence number that the server acknowledges in its position updates. Every position update resets this client to
+ * the authoritative state and replays the moves the server hasn't acknowledged yet on top of it, so a move the server
+ * rejected, e.g., because someone else moved into the cell first, is rolled back along with any token it collected.
+ * 
  * @author Allen Lee
  */
 
@@ -49,7 +65,7 @@ public class ClientDataModel extends ForagingDataModel {
     private Map<Identifier, Duration> sanctioners = new HashMap<>();
 
     private List<Strategy> selectedStrategies = new ArrayList<>();
-    private ForagingClient client;
+    private BaseClient<ServerConfiguration, RoundConfiguration> client;
 
     private volatile boolean explicitCollectionMode = false;
 
@@ -57,11 +73,22 @@ public class ClientDataModel extends ForagingDataModel {
 
     private Map<Identifier, Integer> clientTokens;
 
+    // maps participant assigned numbers and bot numbers back to Identifiers for compact position updates
+    private final Map<Integer, Identifier> actorIdentifiers = new HashMap<>();
+
+    private int lastUpdateSequenceNumber;
+
     // Clients need to know the zones of all other clients in the group. This
     // maps client ID's to zone numbers.
     private Map<Identifier, Integer> clientZones;
 
-    private Map<Point, Resource> resourceDistribution = new HashMap<>();
+    private final ResourceGrid resourceGrid = new BitSetResourceGrid();
+
+    // where tokens were added or removed since the view last asked, null once too many changed to be worth tracking.
+    // Guarded by resourceGrid.
+    private Set<Point> changedTokenPositions = new HashSet<>();
+
+    private final static int MAXIMUM_CHANGED_TOKEN_POSITIONS = 256;
 
     private Logger logger = Logger.getLogger(getClass().getName());
 
@@ -71,9 +98,39 @@ public class ClientDataModel extends ForagingDataModel {
 
     private int maximumOccupancyPerCell = 1;
 
-    public ClientDataModel(ForagingClient client) {
+    // predicted moves the server hasn't acknowledged yet, oldest first. Also guards reconciliation.
+    private final Deque<PredictedMove> predictedMoves = new ArrayDeque<>();
+
+    // predicted moves that never make it to the server, e.g., dropped input, are rolled back after this long
+    private final static long PREDICTED_MOVE_TIMEOUT = TimeUnit.SECONDS.toMillis(2);
+
+    // never reset, the server keeps the last sequence number it applied for this client across rounds
+    private int movementSequenceNumber;
+
+    private boolean clientPredictionEnabled;
+
+    private int mispredictions;
+
+    // only used when there's no client, see the test constructor
+    private final Identifier id;
+
+    private final LongSupplier clock;
+
+    public ClientDataModel(BaseClient<ServerConfiguration, RoundConfiguration> client) {
         super(client.getEventChannel());
         this.client = client;
+        this.id = null;
+        this.clock = System::currentTimeMillis;
+    }
+
+    /**
+     * Creates a data model for the given id that isn't attached to a client and reads the time from the given clock,
+     * used for testing.
+     */
+    ClientDataModel(EventChannel channel, Identifier id, LongSupplier clock) {
+        super(channel);
+        this.id = id;
+        this.clock = clock;
     }
 
     public void toggleExplicitCollectionMode() {
@@ -103,16 +160,24 @@ public class ClientDataModel extends ForagingDataModel {
     }
 
     /**
-     * Returns a Set containing the positions of food pellets.
+     * Returns a new Set containing the positions of food pellets.
      */
     public Set<Point> getResourcePositions() {
-        synchronized (resourceDistribution) {
-            return Collections.unmodifiableSet(resourceDistribution.keySet());
+        synchronized (resourceGrid) {
+            return resourceGrid.getResourcePositions();
+        }
+    }
+
+    public boolean isResourceAt(int x, int y) {
+        synchronized (resourceGrid) {
+            return resourceGrid.isResourceAt(x, y);
         }
     }
 
     public Map<Point, Resource> getResourceDistribution() {
-        return resourceDistribution;
+        synchronized (resourceGrid) {
+            return resourceGrid.toMap();
+        }
     }
 
     public Point getClientPosition(Identifier sanctionee) {
@@ -128,11 +193,16 @@ public class ClientDataModel extends ForagingDataModel {
     }
 
     public Identifier getId() {
-        return client.getId();
+        return (client == null) ? id : client.getId();
     }
 
     public void clear() {
         allClientIdentifiers.clear();
+        lastUpdateSequenceNumber = 0;
+        synchronized (predictedMoves) {
+            predictedMoves.clear();
+            mispredictions = 0;
+        }
         sanctioned.clear();
         sanctioners.clear();
         // FIXME: replace
@@ -143,6 +213,7 @@ public class ClientDataModel extends ForagingDataModel {
         singlePlayer = getRoundConfiguration().isSinglePlayer();
         shouldCheckOccupancy = getRoundConfiguration().shouldCheckOccupancy();
         maximumOccupancyPerCell = getRoundConfiguration().getMaximumOccupancyPerCell();
+        clientPredictionEnabled = !singlePlayer && getRoundConfiguration().isClientPredictionEnabled();
         Map<Identifier, ClientData> clientDataMap = groupDataModel.getClientDataMap();
         Identifier[] ids = new Identifier[clientDataMap.size()];
         clientZones = new HashMap<>();
@@ -174,8 +245,13 @@ public class ClientDataModel extends ForagingDataModel {
         if (groupDataModel == null) {
             return;
         }
-        synchronized (resourceDistribution) {
-            resourceDistribution = groupDataModel.getResourceDistribution();
+        synchronized (resourceGrid) {
+            resourceGrid.copyFrom(groupDataModel.getResourceGrid());
+            changedTokenPositions = null;
+        }
+        synchronized (actorIdentifiers) {
+            actorIdentifiers.clear();
+            groupDataModel.getActorNumbers().forEach((id, actorNumber) -> actorIdentifiers.put(actorNumber, id));
         }
         if (clientData == null || !singlePlayer) {
             // only update clientData if we are not in single player mode
@@ -187,7 +263,14 @@ public class ClientDataModel extends ForagingDataModel {
             clientPositions.put(getId(), clientData.getPosition());
             clientData.setCurrentTokens(clientTokens.get(getId()));
         } else {
-            update(groupDataModel.getClientTokens(), groupDataModel.getClientPositions(), clientData.getLatestSanctions(), null, null);
+            synchronized (predictedMoves) {
+                update(groupDataModel.getClientTokens(), groupDataModel.getClientPositions(), clientData.getLatestSanctions(), null, null);
+                // the tokens were just copied from the server, there are no predicted collections left to roll back
+                for (PredictedMove move : predictedMoves) {
+                    move.collectedToken = null;
+                }
+                reconcile(clientData.getLastMovementSequenceNumber(), new Point[0], new Resource[0]);
+            }
         }
     }
 
@@ -200,6 +283,12 @@ public class ClientDataModel extends ForagingDataModel {
         throw new UnsupportedOperationException("This is now deprecated.");
     }
 
+    public Identifier getActorId(int actorNumber) {
+        synchronized (actorIdentifiers) {
+            return actorIdentifiers.get(actorNumber);
+        }
+    }
+
     public int getAssignedNumber(Identifier id) {
         return allClientIdentifiers.indexOf(id) + 1;
     }
@@ -208,10 +297,139 @@ public class ClientDataModel extends ForagingDataModel {
      * Updates client positions, current tokens, etc.
      */
     public void update(ClientPositionUpdateEvent event) {
-        update(event.getClientTokens(), event.getClientPositions(), event.getLatestSanctions(), event.getAddedTokens(), event.getRemovedTokens());
-        Identifier id = getId();
-        clientData.setPosition(clientPositions.get(id));
-        clientData.setCurrentTokens(clientTokens.get(id));
+        if (event.getSequenceNumber() <= lastUpdateSequenceNumber) {
+            logger.warning("ignoring stale position update " + event.getSequenceNumber() + ", already applied " + lastUpdateSequenceNumber);
+            return;
+        }
+        lastUpdateSequenceNumber = event.getSequenceNumber();
+        event.resolveActors(this::getActorId);
+        synchronized (predictedMoves) {
+            update(event.getClientTokens(), event.getClientPositions(), event.getLatestSanctions(), event.getAddedTokens(), event.getRemovedTokens());
+            Identifier id = getId();
+            clientData.setPosition(clientPositions.get(id));
+            clientData.setCurrentTokens(clientTokens.get(id));
+            reconcile(event.getLastMovementSequenceNumber(), event.getCollectedTokenPositions(), event.getRemovedTokens());
+        }
+    }
+
+    /**
+     * Applies a move locally without waiting for the server and returns the sequence number to send with its
+     * ClientMovementRequest. Moves are only predicted in multiplayer rounds with client-side prediction enabled,
+     * otherwise this only hands out the sequence number.
+     */
+    public int predictMove(Direction direction) {
+        synchronized (predictedMoves) {
+            PredictedMove move = new PredictedMove(++movementSequenceNumber, direction, clock.getAsLong());
+            if (clientPredictionEnabled && clientData != null) {
+                apply(move);
+                predictedMoves.addLast(move);
+                clientData.setCurrentTokens(clientData.getCurrentTokens() + (move.collectedToken == null ? 0 : 1));
+            }
+            return move.sequenceNumber;
+        }
+    }
+
+    /**
+     * Called with the authoritative state already applied. Rolls back the tokens collected by predicted moves that
+     * the server didn't collect, drops the moves it has acknowledged and replays the remaining ones.
+     */
+    private void reconcile(int lastMovementSequenceNumber, Point[] collectedTokenPositions, Resource[] removedTokens) {
+        if (predictedMoves.isEmpty()) {
+            return;
+        }
+        Point predictedPosition = predictedMoves.getLast().destination;
+        long now = clock.getAsLong();
+        synchronized (resourceGrid) {
+            for (Iterator<PredictedMove> iterator = predictedMoves.iterator(); iterator.hasNext();) {
+                PredictedMove move = iterator.next();
+                Resource token = move.collectedToken;
+                // the token is gone on the server too if it shows up as collected by this client or removed by anyone
+                if (token != null && !contains(collectedTokenPositions, removedTokens, token)) {
+                    resourceGrid.add(token);
+                    tokenChanged(token.getX(), token.getY());
+                }
+                move.collectedToken = null;
+                if (move.sequenceNumber <= lastMovementSequenceNumber || now - move.creationTime > PREDICTED_MOVE_TIMEOUT) {
+                    iterator.remove();
+                }
+            }
+        }
+        int predictedTokens = 0;
+        for (PredictedMove move : predictedMoves) {
+            apply(move);
+            if (move.collectedToken != null) {
+                predictedTokens++;
+            }
+        }
+        clientData.setCurrentTokens(clientData.getCurrentTokens() + predictedTokens);
+        if (predictedPosition != null && !predictedPosition.equals(getCurrentPosition())) {
+            mispredictions++;
+            logger.fine("predicted position " + predictedPosition + " rolled back to " + getCurrentPosition());
+        }
+    }
+
+    private void apply(PredictedMove move) {
+        Point currentPosition = getCurrentPosition();
+        move.destination = currentPosition;
+        move.collectedToken = null;
+        if (currentPosition == null) {
+            return;
+        }
+        Point newPosition = move.direction.apply(currentPosition);
+        if (isValidPosition(newPosition) && isCellAvailable(newPosition) && isCellAllowed(newPosition)) {
+            clientData.setPosition(newPosition);
+            clientPositions.put(getId(), newPosition);
+            move.destination = newPosition;
+            if (!explicitCollectionMode && !getRoundConfiguration().isAlwaysInExplicitCollectionMode()) {
+                synchronized (resourceGrid) {
+                    Resource token = resourceGrid.get(newPosition.x, newPosition.y);
+                    if (token != null) {
+                        resourceGrid.remove(newPosition.x, newPosition.y);
+                        tokenChanged(newPosition.x, newPosition.y);
+                        move.collectedToken = token;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Mirrors the server's zone rules for travel restricted zones.
+     */
+    private boolean isCellAllowed(Point position) {
+        RoundConfiguration roundConfiguration = getRoundConfiguration();
+        if (roundConfiguration.areZonesAssigned() && roundConfiguration.isTravelRestricted(clientData.getZone())) {
+            int positionZone = position.y < getBoardHeight() / 2 ? 0 : 1;
+            return positionZone == clientData.getZone();
+        }
+        return true;
+    }
+
+    private static boolean contains(Point[] collectedTokenPositions, Resource[] removedTokens, Resource token) {
+        if (collectedTokenPositions != null) {
+            for (Point position : collectedTokenPositions) {
+                if (token.equals(position)) {
+                    return true;
+                }
+            }
+        }
+        if (removedTokens != null) {
+            for (Resource removedToken : removedTokens) {
+                if (token.equals(removedToken)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of position updates that moved this client somewhere other than where it predicted.
+     */
+    public int getMispredictions() {
+        synchronized (predictedMoves) {
+            return mispredictions;
+        }
     }
 
     public void update(SinglePlayerClientUpdateEvent event) {
@@ -221,12 +439,14 @@ public class ClientDataModel extends ForagingDataModel {
         event.getClientPositions().put(id, clientData.getPoint());
         clientPositions = event.getClientPositions();
         clientData.setCurrentTokens(clientTokens.get(id));
-        synchronized (resourceDistribution) {
+        synchronized (resourceGrid) {
             for (Point p : event.getRemovedResources()) {
-                resourceDistribution.remove(p);
+                resourceGrid.remove(p.x, p.y);
+                tokenChanged(p.x, p.y);
             }
             for (Resource r : event.getAddedResources()) {
-                resourceDistribution.put(r.getPosition(), r);
+                resourceGrid.add(r);
+                tokenChanged(r.getX(), r.getY());
             }
         }
     }
@@ -239,20 +459,44 @@ public class ClientDataModel extends ForagingDataModel {
         this.clientTokens = clientTokens;
         this.clientPositions = currentPositions;
         handleRealTimeSanctions(latestSanctions);
-        synchronized (resourceDistribution) {
+        synchronized (resourceGrid) {
             if (removedResources != null) {
                 for (Resource resource : removedResources) {
-                    resourceDistribution.remove(resource.getPosition());
+                    resourceGrid.remove(resource.getX(), resource.getY());
+                    tokenChanged(resource.getX(), resource.getY());
                 }
             }
             if (addedResources != null) {
                 for (Resource resource : addedResources) {
-                    resourceDistribution.put(resource.getPosition(), resource);
+                    resourceGrid.add(resource);
+                    tokenChanged(resource.getX(), resource.getY());
                 }
             }
         }
     }
 
+    // must hold the resourceGrid lock
+    private void tokenChanged(int x, int y) {
+        if (changedTokenPositions != null) {
+            changedTokenPositions.add(new Point(x, y));
+            if (changedTokenPositions.size() > MAXIMUM_CHANGED_TOKEN_POSITIONS) {
+                changedTokenPositions = null;
+            }
+        }
+    }
+
+    /**
+     * Returns the positions where tokens were added or removed since the last call, or null if every position may
+     * have changed, e.g., after a full synchronization.
+     */
+    public Set<Point> drainChangedTokenPositions() {
+        synchronized (resourceGrid) {
+            Set<Point> changed = changedTokenPositions;
+            changedTokenPositions = new HashSet<>();
+            return changed;
+        }
+    }
+
     private synchronized void handleRealTimeSanctions(Queue<RealTimeSanctionRequest> latestSanctions) {
         for (RealTimeSanctionRequest sanctionRequest : latestSanctions) {
             System.err.println("Processing real time sanction: from " + sanctionRequest.getSource() + " to " + sanctionRequest.getTarget());
@@ -369,5 +613,19 @@ public class ClientDataModel extends ForagingDataModel {
         return true;
     }
 
+    private static class PredictedMove {
+        private final int sequenceNumber;
+        private final Direction direction;
+        private final long creationTime;
+        // where the move led and the token it collected the last time it was applied
+        private Point destination;
+        private Resource collectedToken;
+
+        PredictedMove(int sequenceNumber, Direction direction, long creationTime) {
+            this.sequenceNumber = sequenceNumber;
+            this.direction = direction;
+            this.creationTime = creationTime;
+        }
+    }
 
 }
@@ -4,7 +4,11 @@ import java.awt.BorderLayout;
 import java.awt.Color;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
 import javax.swing.JFrame;
@@ -25,6 +29,7 @@ import edu.asu.commons.foraging.conf.RoundConfiguration;
 import edu.asu.commons.foraging.conf.ServerConfiguration;
 import edu.asu.commons.foraging.event.AgentInfoRequest;
 import edu.asu.commons.foraging.event.BeginChatRoundRequest;
+import edu.asu.commons.foraging.event.ClientMovementBatchRequest;
 import edu.asu.commons.foraging.event.ClientMovementRequest;
 import edu.asu.commons.foraging.event.ClientPositionUpdateEvent;
 import edu.asu.commons.foraging.event.CollectTokenRequest;
@@ -49,14 +54,12 @@ import edu.asu.commons.foraging.event.SynchronizeClientEvent;
 import edu.asu.commons.foraging.event.TrustGameSubmissionRequest;
 import edu.asu.commons.foraging.model.GroupDataModel;
 import edu.asu.commons.foraging.rules.iu.ForagingStrategy;
-import edu.asu.commons.foraging.server.ForagingServer;
 import edu.asu.commons.foraging.ui.GameWindow;
 import edu.asu.commons.foraging.ui.GameWindow2D;
 import edu.asu.commons.foraging.ui.GameWindow3D;
+import edu.asu.commons.foraging.util.TokenBucket;
 import edu.asu.commons.net.SocketIdentifier;
 import edu.asu.commons.ui.UserInterfaceUtils;
-import edu.asu.commons.util.Duration;
-import edu.asu.commons.util.Utils;
 
 /**
  * Foraging experiment client, for 2D / 3D experiments (3D now defunct, need to refactor out)
@@ -285,26 +288,34 @@ public class ForagingClient extends BaseClient<ServerConfiguration, RoundConfigu
     }
 
     /**
-     * Utility class for throttling client-side messages.
-     * 
+     * Throttles client-side messages. Input is queued on a bounded blocking queue and sent in order by a single
+     * thread. Moves and real-time sanctions each need a token from a token bucket; consecutive moves that queue up
+     * while waiting for a token are coalesced into a single ClientMovementBatchRequest. Input is only dropped when the
+     * queue is full.
      */
     private class MessageQueue implements Runnable {
-        private final static int DEFAULT_MESSAGES_PER_SECOND = 10;
+        private final static int MAXIMUM_QUEUED_EVENTS = 64;
 
-        private final LinkedList<Event> actions = new LinkedList<>();
+        // single player movements are sent to the server once a second
+        private final static long SINGLE_PLAYER_FLUSH_INTERVAL = 1000;
+
+        private final BlockingQueue<Event> actions = new LinkedBlockingQueue<>(MAXIMUM_QUEUED_EVENTS);
 
         private final ArrayList<MovementEvent> batchedMovements = new ArrayList<>();
 
-        private boolean running;
+        private final int messagesPerSecond;
+
+        private final TokenBucket tokenBucket;
 
-        private int messagesPerSecond = DEFAULT_MESSAGES_PER_SECOND;
-        private int messagesSent;
+        private final AtomicInteger droppedEvents = new AtomicInteger();
 
-        private int averageMessagesPerSecond;
+        private final AtomicInteger coalescedMovements = new AtomicInteger();
 
-        private Duration secondTick = Duration.create(1);
+        private volatile Thread thread;
 
         public MessageQueue() {
+            messagesPerSecond = Math.max(getConfiguration().getClientMessagesPerSecond(), 1);
+            tokenBucket = new TokenBucket(messagesPerSecond, Math.max(getConfiguration().getClientMessageBurst(), 1));
             EventChannel channel = ForagingClient.this.getEventChannel();
             channel.add(this, new EventTypeProcessor<RealTimeSanctionRequest>(RealTimeSanctionRequest.class) {
                 public void handle(RealTimeSanctionRequest event) {
@@ -318,17 +329,18 @@ public class ForagingClient extends BaseClient<ServerConfiguration, RoundConfigu
                     }
                 }
             });
+            // not throttled, but queued so they never overtake the moves in front of them
             channel.add(this, new EventTypeProcessor<CollectTokenRequest>(CollectTokenRequest.class) {
                 public void handle(CollectTokenRequest request) {
                     if (isRoundInProgress()) {
-                        transmit(request);
+                        add(request);
                     }
                 }
             });
             channel.add(this, new EventTypeProcessor<ResetTokenDistributionRequest>(ResetTokenDistributionRequest.class) {
                 public void handle(ResetTokenDistributionRequest event) {
                     if (isRoundInProgress() && dataModel.getRoundConfiguration().isPracticeRound()) {
-                        transmit(event);
+                        add(event);
                     }
                 }
             });
@@ -342,64 +354,92 @@ public class ForagingClient extends BaseClient<ServerConfiguration, RoundConfigu
         }
 
         private void add(Event request) {
-            if (messagesSent == 0 && actions.isEmpty()) {
-                // first message this second, bypass the queue and send it right away.
-                transmit(request);
-                messagesSent++;
-            } else if (messagesSent < messagesPerSecond) {
-                actions.addLast(request);
-            } else {
-                // otherwise, discard the event (and notify the participant?)
-                System.err.println("Discarding event: " + request + " - already sent " + messagesSent);
+            if (! actions.offer(request)) {
+                droppedEvents.incrementAndGet();
+                logger.warning("Discarding event: " + request + " - " + actions.size() + " events already queued");
             }
         }
 
         public void start() {
-            running = true;
-            new Thread(this).start();
+            Thread messageThread = new Thread(this, "foraging-client-message-queue");
+            thread = messageThread;
+            messageThread.start();
         }
 
         public void stop() {
-            running = false;
+            Thread messageThread = thread;
+            thread = null;
+            if (messageThread != null) {
+                messageThread.interrupt();
+            }
             actions.clear();
-            messagesSent = 0;
+            logger.info(String.format("%d events dropped, %d moves coalesced so far", droppedEvents.get(), coalescedMovements.get()));
         }
 
         public void run() {
             getGameWindow().startRound();
             state = ClientState.RUNNING;
-            secondTick.start();
-            while (running) {
-                Event request = get();
-                if (request != null) {
-                    transmit(request);
+            long nextFlushTime = System.currentTimeMillis() + SINGLE_PLAYER_FLUSH_INTERVAL;
+            try {
+                while (thread == Thread.currentThread()) {
+                    Event request = actions.poll(Math.max(nextFlushTime - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+                    if (request != null) {
+                        send(request);
+                    }
+                    if (System.currentTimeMillis() >= nextFlushTime) {
+                        flushSinglePlayerMovements();
+                        nextFlushTime = System.currentTimeMillis() + SINGLE_PLAYER_FLUSH_INTERVAL;
+                    }
                 }
-                Utils.sleep(ForagingServer.SERVER_SLEEP_INTERVAL);
-                Thread.yield();
+            } catch (InterruptedException exception) {
+                // stopped at the end of the round
             }
         }
 
-        public Event get() {
-            secondTick.onTick((duration) -> {
-                messagesSent = 0;
-                synchronized (batchedMovements) {
-                    if (!batchedMovements.isEmpty()) {
-                        transmit(new SinglePlayerUpdateRequest(getDataModel().getClientData(), batchedMovements));
-                        batchedMovements.clear();
-                    }
+        private void send(Event request) throws InterruptedException {
+            if (request instanceof ClientMovementRequest) {
+                tokenBucket.acquire();
+                // moves that queued up while waiting for a token go out together, but every move still pays for its
+                // own token so batching never raises the number of moves per second
+                List<ClientMovementRequest> movements = new ArrayList<>();
+                movements.add((ClientMovementRequest) request);
+                while (movements.size() < messagesPerSecond && actions.peek() instanceof ClientMovementRequest
+                        && tokenBucket.tryAcquire()) {
+                    movements.add((ClientMovementRequest) actions.poll());
+                }
+                if (movements.size() == 1) {
+                    transmit(request);
+                } else {
+                    coalescedMovements.addAndGet(movements.size() - 1);
+                    transmit(new ClientMovementBatchRequest(getId(), movements));
                 }
+            } else {
+                if (request instanceof RealTimeSanctionRequest) {
+                    tokenBucket.acquire();
+                }
+                transmit(request);
+            }
+        }
 
-            });
-            if (actions.isEmpty()) {
-                return null;
+        private void flushSinglePlayerMovements() {
+            synchronized (batchedMovements) {
+                if (!batchedMovements.isEmpty()) {
+                    transmit(new SinglePlayerUpdateRequest(getDataModel().getClientData(), batchedMovements));
+                    batchedMovements.clear();
+                }
             }
-            messagesSent++;
-            return actions.removeFirst();
         }
 
         public int getEnergyLevel() {
-            int energyLevel = messagesPerSecond - averageMessagesPerSecond;
-            return energyLevel <= 0 ? 1 : energyLevel;
+            return Math.max(tokenBucket.getAvailableTokens(), 1);
+        }
+
+        public int getDroppedEvents() {
+            return droppedEvents.get();
+        }
+
+        public int getCoalescedMovements() {
+            return coalescedMovements.get();
         }
     }
 
@@ -407,6 +447,20 @@ public class ForagingClient extends BaseClient<ServerConfiguration, RoundConfigu
         return messageQueue.getEnergyLevel();
     }
 
+    /**
+     * Returns the number of input events discarded because the message queue was full.
+     */
+    public int getDroppedInput() {
+        return messageQueue.getDroppedEvents();
+    }
+
+    /**
+     * Returns the number of moves that were sent as part of a ClientMovementBatchRequest instead of on their own.
+     */
+    public int getCoalescedMoves() {
+        return messageQueue.getCoalescedMovements();
+    }
+
     public ClientDataModel getDataModel() {
         return dataModel;
     }
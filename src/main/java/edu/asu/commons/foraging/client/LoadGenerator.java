@@ -0,0 +1,145 @@
+package edu.asu.commons.foraging.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import edu.asu.commons.foraging.conf.ServerConfiguration;
+import edu.asu.commons.foraging.util.LatencyHistogram;
+
+/**
+ * $Id$
+ *
+ * Connects a number of headless SyntheticClients to a running ForagingServer and periodically reports the movement
+ * latency they see, e.g., to find out how many participants a server box can handle. The server is driven as
+ * usual, via the facilitator or the server's REPL; synthetic clients answer quizzes on their own and send input for
+ * as long as a round is running.
+ *
+ * All clients share a single scheduler for their input, the connections themselves are managed by BaseClient.
+ *
+ * @author <a href='mailto:Allen.Lee@asu.edu'>Allen Lee</a>
+ * @version $Revision$
+ */
+public class LoadGenerator {
+
+    private final static Logger logger = Logger.getLogger(LoadGenerator.class.getName());
+
+    private final ServerConfiguration configuration;
+    private final ScheduledExecutorService scheduler;
+    private final Statistics statistics = new Statistics();
+    private final List<SyntheticClient> clients = new ArrayList<>();
+
+    public LoadGenerator(ServerConfiguration configuration, int schedulerThreads) {
+        this.configuration = configuration;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(schedulerThreads, (runnable) -> {
+            Thread thread = new Thread(runnable, "foraging-load-generator-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Connects the given number of synthetic clients, each seeded from the given seed so runs can be repeated.
+     */
+    public void connect(int numberOfClients, int movesPerSecond, double collectProbability, long seed) {
+        for (int i = 0; i < numberOfClients; i++) {
+            Random random = new Random(ServerConfiguration.deriveSeed(seed, "synthetic-client-" + i));
+            SyntheticClient client = new SyntheticClient(configuration, scheduler, statistics, random, movesPerSecond, collectProbability);
+            client.connect();
+            clients.add(client);
+        }
+        logger.info(String.format("Connected %d synthetic clients", clients.size()));
+    }
+
+    public Statistics getStatistics() {
+        return statistics;
+    }
+
+    public List<SyntheticClient> getClients() {
+        return clients;
+    }
+
+    public void reportEvery(long period, TimeUnit unit) {
+        scheduler.scheduleAtFixedRate(() -> System.out.print(statistics.dump()), period, period, unit);
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Aggregate input and movement latency counters for all synthetic clients.
+     */
+    public static class Statistics {
+        private final LatencyHistogram movementLatency = new LatencyHistogram();
+        private final LongAdder movesSent = new LongAdder();
+        private final LongAdder collectsSent = new LongAdder();
+        private final LongAdder movesUnconfirmed = new LongAdder();
+        private final long startTime = System.nanoTime();
+
+        void moveSent() {
+            movesSent.increment();
+        }
+
+        void collectSent() {
+            collectsSent.increment();
+        }
+
+        void moveConfirmed(long latency) {
+            movementLatency.record(latency);
+        }
+
+        void unconfirmed(int moves) {
+            movesUnconfirmed.add(moves);
+        }
+
+        public LatencyHistogram getMovementLatency() {
+            return movementLatency;
+        }
+
+        public long getMovesSent() {
+            return movesSent.sum();
+        }
+
+        public long getMovesUnconfirmed() {
+            return movesUnconfirmed.sum();
+        }
+
+        public String dump() {
+            double elapsedSeconds = (System.nanoTime() - startTime) / 1.0e9d;
+            return String.format("moves: %d sent (%.1f/s), %d confirmed, %d unconfirmed, %d collects | latency (ms) p50 %.1f p90 %.1f p99 %.1f max %.1f%n",
+                    getMovesSent(), getMovesSent() / Math.max(elapsedSeconds, 1.0e-9d), movementLatency.getCount(), getMovesUnconfirmed(),
+                    collectsSent.sum(),
+                    movementLatency.getPercentile(50, TimeUnit.MILLISECONDS), movementLatency.getPercentile(90, TimeUnit.MILLISECONDS),
+                    movementLatency.getPercentile(99, TimeUnit.MILLISECONDS), movementLatency.getMax(TimeUnit.MICROSECONDS) / 1000.0d);
+        }
+    }
+
+    /**
+     * Usage: LoadGenerator &lt;clients&gt; [moves-per-second] [collect-probability] [scheduler-threads]
+     */
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length == 0) {
+            System.err.println("Usage: LoadGenerator <clients> [moves-per-second] [collect-probability] [scheduler-threads]");
+            System.exit(1);
+        }
+        int numberOfClients = Integer.parseInt(args[0]);
+        int movesPerSecond = (args.length > 1) ? Integer.parseInt(args[1]) : 10;
+        double collectProbability = (args.length > 2) ? Double.parseDouble(args[2]) : 0.1d;
+        int schedulerThreads = (args.length > 3) ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        ServerConfiguration configuration = new ServerConfiguration();
+        final LoadGenerator loadGenerator = new LoadGenerator(configuration, schedulerThreads);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.print(loadGenerator.getStatistics().dump())));
+        loadGenerator.connect(numberOfClients, movesPerSecond, collectProbability, configuration.getRandomSeed());
+        loadGenerator.reportEvery(5, TimeUnit.SECONDS);
+        Thread.currentThread().join();
+    }
+
+}
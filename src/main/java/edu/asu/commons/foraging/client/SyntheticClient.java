@@ -0,0 +1,235 @@
+package edu.asu.commons.foraging.client;
+
+import java.awt.Point;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import edu.asu.commons.client.BaseClient;
+import edu.asu.commons.event.EventTypeProcessor;
+import edu.asu.commons.event.SetConfigurationEvent;
+import edu.asu.commons.event.ShowInstructionsRequest;
+import edu.asu.commons.event.SocketIdentifierUpdateRequest;
+import edu.asu.commons.foraging.conf.RoundConfiguration;
+import edu.asu.commons.foraging.conf.ServerConfiguration;
+import edu.asu.commons.foraging.event.ClientMovementRequest;
+import edu.asu.commons.foraging.event.ClientPositionUpdateEvent;
+import edu.asu.commons.foraging.event.CollectTokenRequest;
+import edu.asu.commons.foraging.event.EndRoundEvent;
+import edu.asu.commons.foraging.event.QuizResponseEvent;
+import edu.asu.commons.foraging.event.RoundStartedEvent;
+import edu.asu.commons.foraging.event.SynchronizeClientEvent;
+import edu.asu.commons.foraging.model.Direction;
+import edu.asu.commons.net.SocketIdentifier;
+
+/**
+ * $Id$
+ *
+ * Headless, protocol-level participant for load testing. Speaks the same protocol as ForagingClient but has no
+ * GameWindow: it answers quizzes correctly as soon as the instructions arrive and, while a round is running, sends
+ * random movements and token collections at a fixed rate on a ScheduledExecutorService shared by every synthetic
+ * client, so hundreds of them only need a handful of threads for their input.
+ *
+ * Movement latency is measured from sending a ClientMovementRequest to receiving the first ClientPositionUpdateEvent
+ * that acknowledges its sequence number. The server acknowledges moves in order once it has applied them, whether or
+ * not they succeeded, so a move is never confirmed by a position that merely happens to match where it leads.
+ *
+ * @author <a href='mailto:Allen.Lee@asu.edu'>Allen Lee</a>
+ * @version $Revision$
+ */
+public class SyntheticClient extends BaseClient<ServerConfiguration, RoundConfiguration> {
+
+    private final static Logger logger = Logger.getLogger(SyntheticClient.class.getName());
+
+    private final static Direction[] DIRECTIONS = { Direction.UP, Direction.DOWN, Direction.LEFT, Direction.RIGHT };
+
+    // moves that haven't shown up in a position update after this long are given up on
+    private final static long UNCONFIRMED_MOVE_TIMEOUT = TimeUnit.SECONDS.toNanos(5);
+
+    private final ClientDataModel dataModel;
+    private final ScheduledExecutorService scheduler;
+    private final LoadGenerator.Statistics statistics;
+    private final Random random;
+    private final int movesPerSecond;
+    private final double collectProbability;
+
+    // guarded by pendingMoves
+    private final Deque<PendingMove> pendingMoves = new ArrayDeque<>();
+    private Point expectedPosition;
+    // never reset between rounds, so an acknowledgement left over from the previous round can't confirm new moves
+    private int lastSequenceNumber;
+
+    private volatile ScheduledFuture<?> input;
+
+    public SyntheticClient(ServerConfiguration configuration, ScheduledExecutorService scheduler, LoadGenerator.Statistics statistics,
+            Random random, int movesPerSecond, double collectProbability) {
+        super(configuration);
+        this.dataModel = new ClientDataModel(this);
+        this.scheduler = scheduler;
+        this.statistics = statistics;
+        this.random = random;
+        this.movesPerSecond = movesPerSecond;
+        this.collectProbability = collectProbability;
+    }
+
+    @Override
+    protected void postConnect() {
+        SocketIdentifier socketId = (SocketIdentifier) getId();
+        transmit(new SocketIdentifierUpdateRequest(socketId, socketId.getStationNumber()));
+    }
+
+    @Override
+    protected void initializeEventProcessors() {
+        addEventProcessor(new EventTypeProcessor<SetConfigurationEvent>(SetConfigurationEvent.class) {
+            public void handle(SetConfigurationEvent event) {
+                dataModel.setRoundConfiguration((RoundConfiguration) event.getParameters());
+            }
+        });
+        addEventProcessor(new EventTypeProcessor<ShowInstructionsRequest>(ShowInstructionsRequest.class) {
+            public void handle(ShowInstructionsRequest request) {
+                RoundConfiguration roundConfiguration = dataModel.getRoundConfiguration();
+                if (roundConfiguration != null && roundConfiguration.isQuizEnabled()) {
+                    submitQuiz(roundConfiguration);
+                }
+            }
+        });
+        addEventProcessor(new EventTypeProcessor<RoundStartedEvent>(RoundStartedEvent.class) {
+            public void handle(RoundStartedEvent event) {
+                setId(event.getId());
+                dataModel.initialize(event.getGroupDataModel());
+                startRound();
+            }
+        });
+        addEventProcessor(new EventTypeProcessor<ClientPositionUpdateEvent>(ClientPositionUpdateEvent.class) {
+            public void handle(ClientPositionUpdateEvent event) {
+                if (input != null) {
+                    long receivedTime = System.nanoTime();
+                    dataModel.update(event);
+                    confirmMoves(dataModel.getClientData().getPoint(), event.getLastMovementSequenceNumber(), receivedTime);
+                }
+            }
+        });
+        addEventProcessor(new EventTypeProcessor<SynchronizeClientEvent>(SynchronizeClientEvent.class) {
+            public void handle(SynchronizeClientEvent event) {
+                dataModel.setGroupDataModel(event.getGroupDataModel());
+            }
+        });
+        addEventProcessor(new EventTypeProcessor<EndRoundEvent>(EndRoundEvent.class) {
+            public void handle(EndRoundEvent event) {
+                stopRound();
+                dataModel.setGroupDataModel(event.getGroupDataModel());
+            }
+        });
+    }
+
+    private void submitQuiz(RoundConfiguration roundConfiguration) {
+        Properties answers = new Properties();
+        for (Map.Entry<String, String> entry : roundConfiguration.getQuizAnswers().entrySet()) {
+            answers.setProperty(entry.getKey(), entry.getValue());
+        }
+        transmit(new QuizResponseEvent(getId(), answers, new ArrayList<String>()));
+    }
+
+    private void startRound() {
+        synchronized (pendingMoves) {
+            pendingMoves.clear();
+            expectedPosition = new Point(dataModel.getClientData().getPoint());
+        }
+        long period = TimeUnit.SECONDS.toNanos(1) / Math.max(movesPerSecond, 1);
+        // spread the clients out over the first period so they don't all send at once
+        long initialDelay = (long) (random.nextDouble() * period);
+        input = scheduler.scheduleAtFixedRate(this::act, initialDelay, period, TimeUnit.NANOSECONDS);
+    }
+
+    private void stopRound() {
+        ScheduledFuture<?> currentInput = input;
+        input = null;
+        if (currentInput != null) {
+            currentInput.cancel(false);
+        }
+        synchronized (pendingMoves) {
+            statistics.unconfirmed(pendingMoves.size());
+            pendingMoves.clear();
+        }
+    }
+
+    private void act() {
+        try {
+            RoundConfiguration roundConfiguration = dataModel.getRoundConfiguration();
+            Direction direction;
+            int sequenceNumber;
+            synchronized (pendingMoves) {
+                List<Direction> directions = new ArrayList<>(DIRECTIONS.length);
+                for (Direction candidate : DIRECTIONS) {
+                    Point candidatePosition = candidate.apply(expectedPosition);
+                    if (candidatePosition.x >= 0 && candidatePosition.x < roundConfiguration.getResourceWidth()
+                            && candidatePosition.y >= 0 && candidatePosition.y < roundConfiguration.getResourceDepth()) {
+                        directions.add(candidate);
+                    }
+                }
+                direction = directions.get(random.nextInt(directions.size()));
+                expectedPosition = direction.apply(expectedPosition);
+                sequenceNumber = ++lastSequenceNumber;
+                pendingMoves.addLast(new PendingMove(sequenceNumber, direction, System.nanoTime()));
+            }
+            transmit(new ClientMovementRequest(getId(), direction, sequenceNumber));
+            statistics.moveSent();
+            if (random.nextDouble() < collectProbability) {
+                transmit(new CollectTokenRequest(getId()));
+                statistics.collectSent();
+            }
+        } catch (RuntimeException exception) {
+            // an exception would silently cancel the scheduled input
+            logger.warning("synthetic client " + getId() + " couldn't send input: " + exception);
+        }
+    }
+
+    private void confirmMoves(Point position, int acknowledgedSequenceNumber, long receivedTime) {
+        if (position == null) {
+            return;
+        }
+        synchronized (pendingMoves) {
+            // everything up to the acknowledged move has been applied, possibly several moves in the same tick
+            while (! pendingMoves.isEmpty() && pendingMoves.peekFirst().sequenceNumber <= acknowledgedSequenceNumber) {
+                statistics.moveConfirmed(receivedTime - pendingMoves.removeFirst().sentTime);
+            }
+            for (Iterator<PendingMove> iterator = pendingMoves.iterator(); iterator.hasNext();) {
+                if (receivedTime - iterator.next().sentTime > UNCONFIRMED_MOVE_TIMEOUT) {
+                    iterator.remove();
+                    statistics.unconfirmed(1);
+                }
+            }
+            // chain the moves still in flight from where the server says we are, in case one was rejected
+            expectedPosition = new Point(position);
+            for (PendingMove move : pendingMoves) {
+                expectedPosition = move.direction.apply(expectedPosition);
+            }
+        }
+    }
+
+    public ClientDataModel getDataModel() {
+        return dataModel;
+    }
+
+    private static class PendingMove {
+        private final int sequenceNumber;
+        private final Direction direction;
+        private final long sentTime;
+
+        PendingMove(int sequenceNumber, Direction direction, long sentTime) {
+            this.sequenceNumber = sequenceNumber;
+            this.direction = direction;
+            this.sentTime = sentTime;
+        }
+    }
+
+}
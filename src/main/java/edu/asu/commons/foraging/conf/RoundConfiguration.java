@@ -16,6 +16,7 @@ import java.util.concurrent.TimeUnit;
 import org.stringtemplate.v4.ST;
 
 import edu.asu.commons.conf.ExperimentRoundParameters;
+import edu.asu.commons.foraging.bot.DecisionTablePolicy;
 import edu.asu.commons.foraging.graphics.Point3D;
 import edu.asu.commons.foraging.model.ClientData;
 import edu.asu.commons.foraging.model.EnforcementMechanism;
@@ -180,6 +181,20 @@ public class RoundConfiguration extends ExperimentRoundParameters.Base<ServerCon
         return getBooleanProperty("use-token-image", getParentConfiguration().isTokenImageEnabled());
     }
 
+    /**
+     * Returns true if participants' moves should be shown right away instead of after the server echoes them back.
+     */
+    public boolean isClientPredictionEnabled() {
+        return getBooleanProperty("client-side-prediction", getParentConfiguration().isClientPredictionEnabled());
+    }
+
+    /**
+     * Returns true if the game board should only redraw the cells that changed instead of the whole board.
+     */
+    public boolean isIncrementalRenderingEnabled() {
+        return getBooleanProperty("incremental-rendering", getParentConfiguration().isIncrementalRenderingEnabled());
+    }
+
     public boolean isAvatarImageEnabled() {
         return getBooleanProperty("use-avatar-image", getParentConfiguration().isAvatarImageEnabled());
     }
@@ -211,6 +226,14 @@ public class RoundConfiguration extends ExperimentRoundParameters.Base<ServerCon
         throw new UnsupportedOperationException("view tokens field of vision is not enabled.");
     }
 
+    /**
+     * Extra distance beyond the tokens field of vision that the server keeps each client up to date on, so tokens
+     * don't pop into view as the client moves between updates.
+     */
+    public double getViewTokensMargin() {
+        return getDoubleProperty("view-tokens-margin", 2.0d);
+    }
+
     /**
      * Returns a double between [0, 1] used as a scaling factor modifying the probability
      * that a token grows in a neighboring cell.
@@ -996,6 +1019,13 @@ public class RoundConfiguration extends ExperimentRoundParameters.Base<ServerCon
         return getIntProperty("robot-moves-per-second", 10);
     }
 
+    /**
+     * Maximum number of actions each bot may take per second, defaults to the bot's own budget.
+     */
+    public int getBotActionsPerSecond(int defaultActionsPerSecond) {
+        return getIntProperty("bot-actions-per-second", defaultActionsPerSecond);
+    }
+
     /**
      * Probability that a robot-controlled player will attempt to harvest after
      * making a move
@@ -1024,6 +1054,21 @@ public class RoundConfiguration extends ExperimentRoundParameters.Base<ServerCon
         return getProperty("bot-type", getParentConfiguration().getBotType());
     }
 
+    /**
+     * Decision table rules for bots in this round, see DecisionTablePolicy for the format. Bots harvest when
+     * standing on a token and otherwise move towards the nearest token when unset.
+     */
+    public String getBotPolicy() {
+        return getProperty("bot-policy");
+    }
+
+    /**
+     * Number of cells in each direction a bot's policy can see.
+     */
+    public int getBotViewRadius() {
+        return getIntProperty("bot-view-radius", DecisionTablePolicy.DEFAULT_RADIUS);
+    }
+
     public static final Color DEFAULT_BROWN_BACKGROUND_COLOR = new Color(205, 175, 149);
     public Color getBackgroundColor() {
         String color = getProperty("background-color", "BLACK");
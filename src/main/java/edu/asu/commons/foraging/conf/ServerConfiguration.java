@@ -1,6 +1,8 @@
 package edu.asu.commons.foraging.conf;
 
+import java.io.File;
 import java.text.NumberFormat;
+import java.util.Random;
 import java.util.concurrent.TimeUnit;
 
 import org.stringtemplate.v4.ST;
@@ -35,6 +37,9 @@ public class ServerConfiguration extends ExperimentConfiguration.Base<ServerConf
     private static final String DEFAULT_LOG_FILE_DESTINATION = "foraging-server.log";
     private static final double DEFAULT_DOLLARS_PER_TOKEN = .02d;
     private static final int DEFAULT_CLIENTS_PER_GROUP = 5;
+    private static final int DEFAULT_TICK_INTERVAL = 75;
+
+    private Long randomSeed;
 
     public ServerConfiguration() {
         super();
@@ -49,6 +54,36 @@ public class ServerConfiguration extends ExperimentConfiguration.Base<ServerConf
         return new RoundConfiguration(roundConfigurationResource);
     }
 
+    /**
+     * Returns the experiment-level seed that all server side random streams are derived from. Uses the random-seed
+     * property if it is set, otherwise picks a seed once for this session so that it can be recorded and reused.
+     */
+    public synchronized long getRandomSeed() {
+        if (randomSeed == null) {
+            String seed = getProperty("random-seed");
+            randomSeed = (seed == null || seed.trim().isEmpty()) ? new Random().nextLong() : Long.parseLong(seed.trim());
+        }
+        return randomSeed;
+    }
+
+    /**
+     * Returns a new Random for the named stream, derived from the experiment-level seed.
+     */
+    public Random createRandom(String stream) {
+        return new Random(deriveSeed(getRandomSeed(), stream));
+    }
+
+    /**
+     * Derives an independent seed for the named stream by mixing it into the experiment seed with the SplitMix64
+     * finalizer, so that nearby seeds and similarly named streams don't produce correlated sequences.
+     */
+    public static long deriveSeed(long seed, String stream) {
+        long z = seed + 0x9E3779B97F4A7C15L * (stream.hashCode() + 1L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
     public String getLogFileDestination() {
         return getStringProperty("log", DEFAULT_LOG_FILE_DESTINATION);
     }
@@ -57,6 +92,50 @@ public class ServerConfiguration extends ExperimentConfiguration.Base<ServerConf
         return getBooleanProperty("update-facilitator", false);
     }
 
+    /**
+     * Returns the interval in milliseconds between live group updates sent to the facilitator during a round when
+     * update-facilitator is enabled.
+     */
+    public long getFacilitatorUpdateInterval() {
+        return getIntProperty("facilitator-update-interval", 1000);
+    }
+
+    /**
+     * Append every persisted event to a per-round journal on disk as it happens, so a crash mid-round doesn't lose
+     * the round.
+     */
+    public boolean isEventJournalEnabled() {
+        return getBooleanProperty("event-journal-enabled", true);
+    }
+
+    /**
+     * Defaults to a journal directory inside the save directory, so journals stay with the rounds they belong to.
+     */
+    public String getEventJournalDirectory() {
+        return getProperty("event-journal-directory", new File(getPersistenceDirectory(), "journal").getPath());
+    }
+
+    /**
+     * Number of rounds to replay concurrently when converting save files.
+     */
+    public int getSaveFileConversionThreads() {
+        return getIntProperty("save-file-conversion-threads", Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Number of throttled messages, i.e., moves and real-time sanctions, each client may send per second.
+     */
+    public int getClientMessagesPerSecond() {
+        return getIntProperty("client-messages-per-second", 10);
+    }
+
+    /**
+     * Number of throttled messages a client may send back to back after being idle for a while.
+     */
+    public int getClientMessageBurst() {
+        return getIntProperty("client-message-burst", 3);
+    }
+
     public boolean isCensoredChat() {
         return getBooleanProperty("censored-chat-enabled", false);
     }
@@ -163,6 +242,21 @@ public class ServerConfiguration extends ExperimentConfiguration.Base<ServerConf
         return getIntProperty("server-sleep-interval", 50);
     }
 
+    /**
+     * Returns the fixed period in milliseconds at which the server processes a round in progress.
+     */
+    public int getTickInterval() {
+        return getIntProperty("tick-interval", DEFAULT_TICK_INTERVAL);
+    }
+
+    /**
+     * Returns the number of missed ticks the server will run back to back to catch up after an overrun before giving
+     * up and resetting its schedule.
+     */
+    public int getMaxCatchUpTicks() {
+        return getIntProperty("max-catch-up-ticks", 3);
+    }
+
     public String getInRoundChatInstructions() {
         return getProperty("in-round-chat-instructions", "<p>You can chat during this round with all players visible on the screen.</p>");
     }
@@ -219,6 +313,14 @@ public class ServerConfiguration extends ExperimentConfiguration.Base<ServerConf
     public boolean isTokenImageEnabled() {
         return getBooleanProperty("use-token-image", true);
     }
+
+    public boolean isClientPredictionEnabled() {
+        return getBooleanProperty("client-side-prediction", true);
+    }
+
+    public boolean isIncrementalRenderingEnabled() {
+        return getBooleanProperty("incremental-rendering", true);
+    }
     
     public String getTokenImagePath() {
         return getProperty("token-image-path", "images/gem-token.gif");
@@ -232,6 +334,20 @@ public class ServerConfiguration extends ExperimentConfiguration.Base<ServerConf
         return getProperty("avatar-image-path", "images/gem-self.gif");
     }
 
+    /**
+     * Regenerate resources for all groups concurrently, useful for sessions with many groups.
+     */
+    public boolean isParallelResourceGenerationEnabled() {
+        return getBooleanProperty("parallel-resource-generation", false);
+    }
+
+    /**
+     * Activate the bots in each group concurrently, useful for sessions with many bot groups.
+     */
+    public boolean isParallelBotActivationEnabled() {
+        return getBooleanProperty("parallel-bot-activation", false);
+    }
+
     public boolean isBotGroupsEnabled() {
         return getBooleanProperty("bot-groups-enabled", false);
     }
@@ -8,15 +8,9 @@ import java.util.Map;
 import java.util.TreeSet;
 
 import edu.asu.commons.event.PersistableEvent;
-import edu.asu.commons.experiment.SaveFileProcessor;
-import edu.asu.commons.experiment.SavedRoundData;
 import edu.asu.commons.foraging.bot.BotIdentifier;
 import edu.asu.commons.foraging.conf.RoundConfiguration;
-import edu.asu.commons.foraging.event.MovementEvent;
-import edu.asu.commons.foraging.event.ResourceAddedEvent;
-import edu.asu.commons.foraging.event.ResourcesAddedEvent;
 import edu.asu.commons.foraging.event.TokenCollectedEvent;
-import edu.asu.commons.foraging.model.ClientData;
 import edu.asu.commons.foraging.model.GroupDataModel;
 import edu.asu.commons.foraging.model.ServerDataModel;
 import edu.asu.commons.foraging.ui.Circle;
@@ -33,7 +27,7 @@ import edu.asu.commons.util.Utils;
  * @author <a href='mailto:allen.lee@asu.edu'>Allen Lee</a>
  * @version $Rev: 526 $
  */
-public class AggregateCollectedTokenNeighborProcessor extends SaveFileProcessor.Base {
+public class AggregateCollectedTokenNeighborProcessor extends ReplayProcessor {
 	
 	private final static Object[] NEIGHBORING_TOKEN_HEADER = {
 		"0", "1", "2", "3", "4", "5", "6", "7", "8"
@@ -62,17 +56,12 @@ public class AggregateCollectedTokenNeighborProcessor extends SaveFileProcessor.
     	return true;
     }
 	
-	public void process(SavedRoundData savedRoundData, PrintWriter writer) {
+	@Override
+	public RoundReplayListener createListener(RoundReplay replay, PrintWriter writer) {
         // populate the ordered identifiers, try directly from the participant tokens map that
         // is persisted in later versions of the experiment.
-        ServerDataModel serverDataModel = (ServerDataModel) savedRoundData.getDataModel();
+        ServerDataModel serverDataModel = replay.getServerDataModel();
         TreeSet<Identifier> orderedIdentifiers = new TreeSet<>(serverDataModel.getClientDataMap().keySet());
-        // write out header for collected tokens statistics.  
-        // second token header is the distribution for token harvests when other subjects are in the field of view.
-        writer.println(
-        		Utils.join(',', "Time", "Client ID", 
-        				Utils.join(',', NEIGHBORING_TOKEN_HEADER), 
-        				Utils.join(',', NEIGHBORING_TOKEN_HEADER)));
         Map<Identifier, Integer[]> collectedTokenNeighborsWithOtherSubjectsInView = new LinkedHashMap<>();
         Map<Identifier, Integer[]> collectedTokenNeighbors = new LinkedHashMap<>();
         for (Identifier id: orderedIdentifiers) {
@@ -83,46 +72,45 @@ public class AggregateCollectedTokenNeighborProcessor extends SaveFileProcessor.
         	collectedTokenNeighbors.put(id, neighbors);
         	collectedTokenNeighborsWithOtherSubjectsInView.put(id, neighborsWithOtherSubjectsInView);
         }
-        // initialize client positions
-        for (ClientData clientData: serverDataModel.getClientDataMap().values()) {
-            clientData.initializePosition();
-        }
-        for (PersistableEvent event: savedRoundData.getActions()) {
-        	if (event.getId() instanceof BotIdentifier) {
-        	    continue;
+        return new RoundReplayListener() {
+            @Override
+            public void roundStarted() {
+                // write out header for collected tokens statistics.
+                // second token header is the distribution for token harvests when other subjects are in the field of view.
+                writer.println(
+                        Utils.join(',', "Time", "Client ID",
+                                Utils.join(',', NEIGHBORING_TOKEN_HEADER),
+                                Utils.join(',', NEIGHBORING_TOKEN_HEADER)));
             }
-        	long elapsedTimeInSeconds = savedRoundData.getElapsedTimeInSeconds(event);
-        	if (isIntervalElapsed(elapsedTimeInSeconds)) {
-        	    writeAggregateStatistics(writer, collectedTokenNeighbors, collectedTokenNeighborsWithOtherSubjectsInView);
-        	}
-    		if (event instanceof ResourceAddedEvent) {
-    			ResourceAddedEvent rae = (ResourceAddedEvent) event;
-    			assert serverDataModel.getGroup(rae.getId()).equals(rae.getGroup());
-    			rae.getGroup().addResource(rae.getResource());
-    		}
-    		else if (event instanceof ResourcesAddedEvent) {
-    			ResourcesAddedEvent rae = (ResourcesAddedEvent) event;
-    			assert serverDataModel.getGroup(rae.getId()).equals(rae.getGroup());
-    			rae.getGroup().addResources(rae.getResources());
-    		}
-    		else if (event instanceof TokenCollectedEvent) {
-    			TokenCollectedEvent tce = (TokenCollectedEvent) event;
-    			Identifier id = tce.getId();
-    			Point location = tce.getLocation();
-    			GroupDataModel group = serverDataModel.getGroup(id);
-    			int numberOfNeighboringTokens = group.getNumberOfNeighboringTokens(location);
-    			collectedTokenNeighbors.get(id)[numberOfNeighboringTokens]++;
-    			if (hasOtherSubjectsInView(id, location, group)) {
-    				collectedTokenNeighborsWithOtherSubjectsInView.get(id)[numberOfNeighboringTokens]++;
-    			}
-    		}
-    		else if (event instanceof MovementEvent) {
-    			MovementEvent movementEvent = (MovementEvent) event;
-    			serverDataModel.moveClient(movementEvent.getId(), movementEvent.getDirection());
-    		}
-        }
-        // write out last interval
-        writeAggregateStatistics(writer, collectedTokenNeighbors, collectedTokenNeighborsWithOtherSubjectsInView);
+
+            @Override
+            public void beforeEvent(PersistableEvent event, long elapsedTimeInSeconds) {
+                // bots still move and collect tokens in the replay but aren't counted here
+                if (event.getId() instanceof BotIdentifier) {
+                    return;
+                }
+                if (isIntervalElapsed(elapsedTimeInSeconds)) {
+                    writeAggregateStatistics(writer, collectedTokenNeighbors, collectedTokenNeighborsWithOtherSubjectsInView);
+                }
+                if (event instanceof TokenCollectedEvent) {
+                    TokenCollectedEvent tce = (TokenCollectedEvent) event;
+                    Identifier id = tce.getId();
+                    Point location = tce.getLocation();
+                    GroupDataModel group = serverDataModel.getGroup(id);
+                    int numberOfNeighboringTokens = group.getNumberOfNeighboringTokens(location);
+                    collectedTokenNeighbors.get(id)[numberOfNeighboringTokens]++;
+                    if (hasOtherSubjectsInView(id, location, group)) {
+                        collectedTokenNeighborsWithOtherSubjectsInView.get(id)[numberOfNeighboringTokens]++;
+                    }
+                }
+            }
+
+            @Override
+            public void roundEnded() {
+                // write out last interval
+                writeAggregateStatistics(writer, collectedTokenNeighbors, collectedTokenNeighborsWithOtherSubjectsInView);
+            }
+        };
 	}
 
     private void writeAggregateStatistics(PrintWriter writer,
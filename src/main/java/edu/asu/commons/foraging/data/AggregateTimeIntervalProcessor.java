@@ -1,6 +1,5 @@
 package edu.asu.commons.foraging.data;
 
-import java.awt.Point;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -9,17 +8,12 @@ import java.util.Map;
 import java.util.TreeSet;
 
 import edu.asu.commons.event.PersistableEvent;
-import edu.asu.commons.experiment.SaveFileProcessor;
-import edu.asu.commons.experiment.SavedRoundData;
 import edu.asu.commons.foraging.conf.RoundConfiguration;
 import edu.asu.commons.foraging.event.ClientPoseUpdate;
 import edu.asu.commons.foraging.event.HarvestFruitRequest;
 import edu.asu.commons.foraging.event.HarvestResourceRequest;
 import edu.asu.commons.foraging.event.MovementEvent;
-import edu.asu.commons.foraging.event.ResourceAddedEvent;
-import edu.asu.commons.foraging.event.ResourcesAddedEvent;
 import edu.asu.commons.foraging.event.TokenCollectedEvent;
-import edu.asu.commons.foraging.model.ClientData;
 import edu.asu.commons.foraging.model.GroupDataModel;
 import edu.asu.commons.foraging.model.ResourceDispenser;
 import edu.asu.commons.foraging.model.ServerDataModel;
@@ -35,22 +29,64 @@ import edu.asu.commons.util.Utils;
  * @author <a href='mailto:allen.lee@asu.edu'>Allen Lee</a>
  * @version $Rev: 526 $
  */
-public class AggregateTimeIntervalProcessor extends SaveFileProcessor.Base {
+public class AggregateTimeIntervalProcessor extends ReplayProcessor {
     public AggregateTimeIntervalProcessor() {
         setSecondsPerInterval(ForagingSaveFileConverter.DEFAULT_AGGREGATE_TIME_INTERVAL);
     }
-    public void process(SavedRoundData savedRoundData, PrintWriter writer) {
-        // populate the ordered identifiers, try directly from the participant tokens map that
-        // is persisted in later versions of the experiment.
-        ServerDataModel serverDataModel = (ServerDataModel) savedRoundData.getDataModel();
-        Map<Identifier, ClientMovementTokenCount> clientStatistics = ClientMovementTokenCount.createMap(serverDataModel);
-        for (ClientData clientData: serverDataModel.getClientDataMap().values()) {
-            clientData.initializePosition();
-        }
-        RoundConfiguration roundConfiguration = (RoundConfiguration) savedRoundData.getRoundParameters();
-        TreeSet<Identifier> orderedIdentifiers = new TreeSet<Identifier>(serverDataModel.getClientDataMap().keySet());
-        List<GroupDataModel> groups = serverDataModel.getOrderedGroups();
-        
+
+    @Override
+    public RoundReplayListener createListener(RoundReplay replay, PrintWriter writer) {
+        return new RoundReplayListener() {
+            private final ServerDataModel serverDataModel = replay.getServerDataModel();
+            private final RoundConfiguration roundConfiguration = replay.getRoundConfiguration();
+            private final Map<Identifier, ClientMovementTokenCount> clientStatistics = ClientMovementTokenCount.createMap(serverDataModel);
+            private final TreeSet<Identifier> orderedIdentifiers = new TreeSet<Identifier>(serverDataModel.getClientDataMap().keySet());
+            private final List<GroupDataModel> groups = serverDataModel.getOrderedGroups();
+
+            @Override
+            public void roundStarted() {
+                writeHeader(writer, orderedIdentifiers, groups);
+            }
+
+            @Override
+            public void beforeEvent(PersistableEvent event, long secondsElapsed) {
+                // see if the current persistable event is past the threshold,
+                // meaning we should take a snapshot of our currently
+                // accumulated stats
+                if (isIntervalElapsed(secondsElapsed)) {
+                    // generate group expected token counts
+                    writeAggregateStatistics(writer, serverDataModel,
+                            clientStatistics, orderedIdentifiers, groups);
+                }
+            }
+
+            @Override
+            public void afterEvent(PersistableEvent event, long secondsElapsed) {
+                ClientMovementTokenCount stats = clientStatistics.get(event.getId());
+                if (event instanceof MovementEvent || event instanceof ClientPoseUpdate) {
+                    stats.moves++;
+                }
+                else if (event instanceof TokenCollectedEvent) {
+                    stats.tokens++;
+                }
+                else if (event instanceof HarvestFruitRequest) {
+                    stats.tokens += roundConfiguration.getTokensPerFruits();
+                }
+                else if (event instanceof HarvestResourceRequest) {
+                    HarvestResourceRequest request = (HarvestResourceRequest) event;
+                    stats.tokens += roundConfiguration.ageToTokens(request.getResource().getAge());
+                }
+            }
+
+            @Override
+            public void roundEnded() {
+                writeAggregateStatistics(writer, serverDataModel,
+                        clientStatistics, orderedIdentifiers, groups);
+            }
+        };
+    }
+
+    private void writeHeader(PrintWriter writer, TreeSet<Identifier> orderedIdentifiers, List<GroupDataModel> groups) {
         List<String> movementHeader = new ArrayList<String>();
         List<String> collectedTokensHeader = new ArrayList<String>();
         for (Identifier id: orderedIdentifiers) {
@@ -93,57 +129,6 @@ public class AggregateTimeIntervalProcessor extends SaveFileProcessor.Base {
                 Utils.join(',', distanceHeader)
         );
         writer.println(header);
-
-        for (PersistableEvent event: savedRoundData.getActions()) {
-            long secondsElapsed = savedRoundData.getElapsedTimeInSeconds(event);
-            // see if the current persistable event is past the threshold,
-            // meaning we should take a snapshot of our currently
-            // accumulated stats
-            if (isIntervalElapsed(secondsElapsed)) {
-                // generate group expected token counts
-                writeAggregateStatistics(writer, serverDataModel,
-                        clientStatistics, orderedIdentifiers, groups);
-            }
-            // next, process the current persistable event 
-            ClientMovementTokenCount stats = clientStatistics.get(event.getId());
-            if (event instanceof MovementEvent) {
-                MovementEvent movementEvent = (MovementEvent) event;
-                serverDataModel.moveClient(movementEvent.getId(), movementEvent.getDirection());
-                stats.moves++;
-            }
-            else if (event instanceof ClientPoseUpdate) {
-                ClientPoseUpdate clientPoseUpdate = (ClientPoseUpdate) event;
-                serverDataModel.getClientDataMap().get(event.getId()).setPosition(clientPoseUpdate.getPosition());
-                stats.moves++;
-            }
-            else if (event instanceof TokenCollectedEvent) {
-                stats.tokens++;
-                TokenCollectedEvent tokenCollectedEvent = (TokenCollectedEvent) event;
-                GroupDataModel group = serverDataModel.getGroup(tokenCollectedEvent.getId());
-                assert serverDataModel.getGroups().contains(group);
-                group.removeResource(tokenCollectedEvent.getLocation());
-            }
-            else if (event instanceof HarvestFruitRequest) {
-//                HarvestFruitRequest request = (HarvestFruitRequest) event;
-                stats.tokens += roundConfiguration.getTokensPerFruits();
-            }
-            else if (event instanceof HarvestResourceRequest) {
-                HarvestResourceRequest request = (HarvestResourceRequest) event;
-                stats.tokens += roundConfiguration.ageToTokens(request.getResource().getAge());
-            }
-            else if (event instanceof ResourceAddedEvent) {
-                ResourceAddedEvent resourceAddedEvent = (ResourceAddedEvent) event;
-                assert serverDataModel.getGroups().contains(resourceAddedEvent.getGroup());
-                resourceAddedEvent.getGroup().addResource(resourceAddedEvent.getPosition());
-            }
-            else if (event instanceof ResourcesAddedEvent) {
-                ResourcesAddedEvent resourcesAddedEvent = (ResourcesAddedEvent) event;
-                assert serverDataModel.getGroups().contains(resourcesAddedEvent.getGroup());
-                resourcesAddedEvent.getGroup().addResources(resourcesAddedEvent.getResources());
-            }
-        }
-        writeAggregateStatistics(writer, serverDataModel,
-                clientStatistics, orderedIdentifiers, groups);
     }
 
     private void writeAggregateStatistics(PrintWriter writer,
@@ -198,7 +183,7 @@ public class AggregateTimeIntervalProcessor extends SaveFileProcessor.Base {
             double tokenProbabilitySum = 0;
             for (int x = 0; x < serverDataModel.getBoardWidth(); x++) {
                 for (int y = 0; y < serverDataModel.getBoardHeight(); y++) {
-                    if (! group.getResourcePositions().contains(new Point(x, y))) {
+                    if (! group.isResourceAt(x, y)) {
                         tokenProbabilitySum += generator.getProbabilityForCell(group, x, y);    
                     }
                 }
@@ -7,7 +7,6 @@ import java.util.SortedSet;
 
 import edu.asu.commons.event.ChatRequest;
 import edu.asu.commons.event.PersistableEvent;
-import edu.asu.commons.experiment.SaveFileProcessor;
 import edu.asu.commons.experiment.SavedRoundData;
 import edu.asu.commons.foraging.bot.Bot;
 import edu.asu.commons.foraging.bot.BotIdentifier;
@@ -29,12 +28,13 @@ import edu.asu.commons.net.Identifier;
 import edu.asu.commons.util.Utils;
 
 /**
- * Serializes all data in the save file into a CSV string format, ordered by time.
+ * Serializes all data in the save file into a CSV string format, ordered by time. Movement events are written with
+ * the actor's position after the movement has been replayed.
  * 
  * 
  * @author <a href='mailto:allen.lee@asu.edu'>Allen Lee</a>
  */
-class AllDataProcessor extends SaveFileProcessor.Base {
+class AllDataProcessor extends ReplayProcessor {
 
     @Override
     public String getOutputFileExtension() {
@@ -42,8 +42,13 @@ class AllDataProcessor extends SaveFileProcessor.Base {
     }
 
     @Override
-    public void process(SavedRoundData savedRoundData, PrintWriter writer) {
-        processData(savedRoundData, writer);
+    public RoundReplayListener createListener(RoundReplay replay, PrintWriter writer) {
+        return new AllDataListener(replay, writer);
+    }
+
+    @Override
+    public boolean requiresSavedRoundData() {
+        return true;
     }
 
     private void handleBotEvent(PersistableEvent event, Bot bot) {
@@ -52,18 +57,37 @@ class AllDataProcessor extends SaveFileProcessor.Base {
         }
     }
 
-    private void processData(SavedRoundData savedRoundData, PrintWriter writer) {
-    	RoundConfiguration roundConfiguration = (RoundConfiguration) savedRoundData.getRoundParameters();
-        SortedSet<PersistableEvent> actions = savedRoundData.getActions();
-        ServerDataModel dataModel = (ServerDataModel) savedRoundData.getDataModel();
-        Map<Identifier, ClientMovementTokenCount> clientMovementTokenCounts = ClientMovementTokenCount.createMap(dataModel);
-        boolean restrictedVisibility = roundConfiguration.isSubjectsFieldOfVisionEnabled();
-        dataModel.reinitialize(roundConfiguration);
-        Map<Identifier, Actor> actorMap = dataModel.getActorMap();
-        for (PersistableEvent event: actions) {
+    private static class AllDataListener implements RoundReplayListener {
+        private final SavedRoundData savedRoundData;
+        private final RoundConfiguration roundConfiguration;
+        private final ServerDataModel dataModel;
+        private final PrintWriter writer;
+        private final boolean restrictedVisibility;
+        private Map<Identifier, ClientMovementTokenCount> clientMovementTokenCounts;
+        private Map<Identifier, Actor> actorMap;
+
+        AllDataListener(RoundReplay replay, PrintWriter writer) {
+            this.savedRoundData = replay.getSavedRoundData();
+            this.roundConfiguration = replay.getRoundConfiguration();
+            this.dataModel = replay.getServerDataModel();
+            this.writer = writer;
+            this.restrictedVisibility = roundConfiguration.isSubjectsFieldOfVisionEnabled();
+        }
+
+        @Override
+        public void roundLoaded() {
+            clientMovementTokenCounts = ClientMovementTokenCount.createMap(dataModel);
+        }
+
+        @Override
+        public void roundStarted() {
+            actorMap = dataModel.getActorMap();
+        }
+
+        @Override
+        public void afterEvent(PersistableEvent event, long secondsElapsed) {
             if (event instanceof MovementEvent) {
                 MovementEvent movementEvent = (MovementEvent) event;
-                dataModel.apply(movementEvent);
                 Actor actor = actorMap.get(event.getId());
                 ClientMovementTokenCount client = clientMovementTokenCounts.get(event.getId());
                 client.moves++;
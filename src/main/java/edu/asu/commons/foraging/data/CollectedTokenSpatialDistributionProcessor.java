@@ -6,11 +6,8 @@ import java.io.PrintWriter;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.SortedSet;
 
 import edu.asu.commons.event.PersistableEvent;
-import edu.asu.commons.experiment.SaveFileProcessor;
-import edu.asu.commons.experiment.SavedRoundData;
 import edu.asu.commons.foraging.event.TokenCollectedEvent;
 import edu.asu.commons.foraging.model.ClientData;
 import edu.asu.commons.foraging.model.GroupDataModel;
@@ -26,29 +23,35 @@ import edu.asu.commons.net.Identifier;
  * @author <a href='mailto:allen.lee@asu.edu'>Allen Lee</a>
  * @version $Rev: 526 $
  */
-class CollectedTokenSpatialDistributionProcessor extends SaveFileProcessor.Base {
+class CollectedTokenSpatialDistributionProcessor extends ReplayProcessor {
         @Override
-        public void process(SavedRoundData savedRoundData, PrintWriter writer) {
-            ServerDataModel serverDataModel = (ServerDataModel) savedRoundData.getDataModel();
-            SortedSet<PersistableEvent> actions = savedRoundData.getActions();
+        public RoundReplayListener createListener(RoundReplay replay, PrintWriter writer) {
+            ServerDataModel serverDataModel = replay.getServerDataModel();
             Map<Identifier, ClientSpatialDistribution> clientSpatialDistributionMap = new HashMap<>();
             Dimension boardSize = serverDataModel.getRoundConfiguration().getBoardSize();
             for (Identifier id : serverDataModel.getActorMap().keySet()) {
                 clientSpatialDistributionMap.put(id, new ClientSpatialDistribution(boardSize));
             }
-            for (PersistableEvent event : actions) {
-                if (event instanceof TokenCollectedEvent) {
-                    TokenCollectedEvent tokenCollectedEvent = (TokenCollectedEvent) event;
-                    Point point = tokenCollectedEvent.getLocation();
-                    Identifier id = tokenCollectedEvent.getId();
-                    ClientSpatialDistribution spatialDistribution = clientSpatialDistributionMap.get(id);
-                    spatialDistribution.columnCounts[point.x]++;
-                    spatialDistribution.rowCounts[point.y]++;
-                    spatialDistribution.tokens++;
+            return new RoundReplayListener() {
+                @Override
+                public void beforeEvent(PersistableEvent event, long secondsElapsed) {
+                    if (event instanceof TokenCollectedEvent) {
+                        TokenCollectedEvent tokenCollectedEvent = (TokenCollectedEvent) event;
+                        Point point = tokenCollectedEvent.getLocation();
+                        Identifier id = tokenCollectedEvent.getId();
+                        ClientSpatialDistribution spatialDistribution = clientSpatialDistributionMap.get(id);
+                        spatialDistribution.columnCounts[point.x]++;
+                        spatialDistribution.rowCounts[point.y]++;
+                        spatialDistribution.tokens++;
+                    }
                 }
-            }
-            // calculate for group
-            writeData(writer, serverDataModel, clientSpatialDistributionMap);
+
+                @Override
+                public void roundEnded() {
+                    // calculate for group
+                    writeData(writer, serverDataModel, clientSpatialDistributionMap);
+                }
+            };
         }
 
 		private void writeData(
@@ -0,0 +1,365 @@
+package edu.asu.commons.foraging.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import edu.asu.commons.event.PersistableEvent;
+import edu.asu.commons.foraging.model.Direction;
+import edu.asu.commons.foraging.util.VarInt;
+import edu.asu.commons.net.Identifier;
+
+/**
+ * $Id$
+ *
+ * Random access reader for files written by ColumnarRoundWriter. Opening a file only reads its footer; events are
+ * read through a Cursor that decompresses one block at a time into primitive columns, so scanning a round doesn't
+ * create an object per event and skipping to a point in time only touches the blocks after it. Metadata and
+ * serialized events are only deserialized on request.
+ *
+ * @author <a href='mailto:Allen.Lee@asu.edu'>Allen Lee</a>
+ * @version $Revision$
+ */
+public class ColumnarRoundReader implements Closeable {
+
+    private final RandomAccessFile file;
+    private final List<Identifier> actors = new ArrayList<>();
+    private final long[] blockOffsets;
+    private final long[] blockStartTimes;
+    private final int[] blockSizes;
+    private final int numberOfEvents;
+
+    public ColumnarRoundReader(File path) throws IOException {
+        file = new RandomAccessFile(path, "r");
+        try {
+            if (file.length() < 17 || file.readInt() != ColumnarRoundWriter.MAGIC) {
+                throw new IOException(path + " is not a columnar round file");
+            }
+            int version = file.readByte();
+            // version 1 files are the same, they just never contain RESOURCE_ADDED events
+            if (version < 1 || version > ColumnarRoundWriter.VERSION) {
+                throw new IOException("Unsupported columnar round file version " + version);
+            }
+            file.seek(file.length() - 12);
+            long footerOffset = file.readLong();
+            if (file.readInt() != ColumnarRoundWriter.MAGIC) {
+                throw new IOException(path + " is truncated");
+            }
+            file.seek(footerOffset);
+            int numberOfActors = VarInt.readVarInt(file);
+            for (int i = 0; i < numberOfActors; i++) {
+                actors.add((Identifier) deserialize(readBytes(file)));
+            }
+            int numberOfBlocks = VarInt.readVarInt(file);
+            blockOffsets = new long[numberOfBlocks];
+            blockStartTimes = new long[numberOfBlocks];
+            blockSizes = new int[numberOfBlocks];
+            int total = 0;
+            for (int i = 0; i < numberOfBlocks; i++) {
+                blockOffsets[i] = file.readLong();
+                blockStartTimes[i] = file.readLong();
+                blockSizes[i] = file.readInt();
+                total += blockSizes[i];
+            }
+            numberOfEvents = total;
+        } catch (IOException | RuntimeException exception) {
+            file.close();
+            throw exception;
+        }
+    }
+
+    /**
+     * Returns the metadata written with the events, e.g., the round configuration and data model.
+     */
+    public synchronized Object[] getMetadata() throws IOException {
+        file.seek(5);
+        return (Object[]) deserialize(inflate(readBytes(file), -1));
+    }
+
+    public int getNumberOfEvents() {
+        return numberOfEvents;
+    }
+
+    public int getNumberOfBlocks() {
+        return blockOffsets.length;
+    }
+
+    public List<Identifier> getActors() {
+        return actors;
+    }
+
+    /**
+     * Returns a cursor positioned before the first event.
+     */
+    public Cursor cursor() {
+        return new Cursor(0);
+    }
+
+    /**
+     * Returns a cursor positioned before the first block that could contain events created at or after the given
+     * time, events are stored in the order they were persisted so a few earlier events may come first.
+     */
+    public Cursor cursor(long fromTime) {
+        int block = 0;
+        for (int low = 0, high = blockStartTimes.length - 1; low <= high;) {
+            int middle = (low + high) >>> 1;
+            if (blockStartTimes[middle] <= fromTime) {
+                block = middle;
+                low = middle + 1;
+            }
+            else {
+                high = middle - 1;
+            }
+        }
+        return new Cursor(block);
+    }
+
+    private synchronized byte[] readBlock(int block, int[] uncompressedLength) throws IOException {
+        file.seek(blockOffsets[block]);
+        VarInt.readVarInt(file);
+        uncompressedLength[0] = VarInt.readVarInt(file);
+        return readBytes(file);
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    private static byte[] readBytes(DataInput in) throws IOException {
+        byte[] bytes = new byte[VarInt.readVarInt(in)];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static byte[] inflate(byte[] bytes, int length) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes);
+            byte[] inflated = new byte[(length >= 0) ? length : Math.max(bytes.length * 4, 64)];
+            int offset = 0;
+            while (! inflater.finished()) {
+                if (offset == inflated.length) {
+                    inflated = Arrays.copyOf(inflated, inflated.length * 2);
+                }
+                int inflatedBytes = inflater.inflate(inflated, offset, inflated.length - offset);
+                if (inflatedBytes == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Corrupt columnar round block");
+                }
+                offset += inflatedBytes;
+            }
+            return (offset == inflated.length) ? inflated : Arrays.copyOf(inflated, offset);
+        } catch (DataFormatException exception) {
+            throw new IOException(exception);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static Object deserialize(byte[] bytes) throws IOException {
+        try (ObjectInputStream objectIn = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return objectIn.readObject();
+        } catch (ClassNotFoundException exception) {
+            throw new IOException(exception);
+        }
+    }
+
+    private static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Forward-only cursor over the events in the file, e.g.,
+     * <code>while (cursor.next()) { if (cursor.getType() == MOVEMENT) ... }</code>. Column arrays are reused between
+     * blocks. Not thread-safe, but any number of cursors can be open on the same reader.
+     */
+    public class Cursor {
+
+        private int block;
+        private int size;
+        private int position = -1;
+
+        private long[] times = new long[0];
+        private byte[] types = new byte[0];
+        private int[] actorColumn = new int[0];
+        private int[] xs = new int[0];
+        private int[] ys = new int[0];
+        private int[] payloadOffsets = new int[0];
+        private int[] payloadLengths = new int[0];
+        private byte[] data;
+
+        private int decodedResourcesPosition = -1;
+        private long groupId;
+        private int[] resources = new int[0];
+        private int numberOfResources;
+
+        private Cursor(int block) {
+            this.block = block;
+        }
+
+        /**
+         * Advances to the next event, returning false once every event has been read.
+         */
+        public boolean next() throws IOException {
+            while (position + 1 >= size) {
+                if (block >= blockOffsets.length) {
+                    return false;
+                }
+                load(block++);
+            }
+            position++;
+            return true;
+        }
+
+        private void load(int blockToLoad) throws IOException {
+            int[] uncompressedLength = new int[1];
+            byte[] compressed = readBlock(blockToLoad, uncompressedLength);
+            data = inflate(compressed, uncompressedLength[0]);
+            size = blockSizes[blockToLoad];
+            position = -1;
+            decodedResourcesPosition = -1;
+            if (times.length < size) {
+                times = new long[size];
+                types = new byte[size];
+                actorColumn = new int[size];
+                xs = new int[size];
+                ys = new int[size];
+                payloadOffsets = new int[size];
+                payloadLengths = new int[size];
+            }
+            ByteArrayInputStream bytes = new ByteArrayInputStream(data);
+            DataInputStream in = new DataInputStream(bytes);
+            times[0] = VarInt.readVarLong(in);
+            for (int i = 1; i < size; i++) {
+                times[i] = times[i - 1] + unZigZag(VarInt.readVarLong(in));
+            }
+            in.readFully(types, 0, size);
+            for (int i = 0; i < size; i++) {
+                actorColumn[i] = VarInt.readVarInt(in) - 1;
+            }
+            for (int i = 0; i < size; i++) {
+                xs[i] = unZigZag(VarInt.readVarInt(in));
+            }
+            for (int i = 0; i < size; i++) {
+                ys[i] = unZigZag(VarInt.readVarInt(in));
+            }
+            for (int i = 0; i < size; i++) {
+                payloadLengths[i] = VarInt.readVarInt(in);
+            }
+            int offset = data.length - bytes.available();
+            for (int i = 0; i < size; i++) {
+                payloadOffsets[i] = offset;
+                offset += payloadLengths[i];
+            }
+        }
+
+        public long getCreationTime() {
+            return times[position];
+        }
+
+        public byte getType() {
+            return types[position];
+        }
+
+        /**
+         * Returns the index of the current event's actor in getActors(), or NO_ACTOR.
+         */
+        public int getActorIndex() {
+            return actorColumn[position];
+        }
+
+        public Identifier getActor() {
+            int actor = actorColumn[position];
+            return (actor == ColumnarRoundWriter.NO_ACTOR) ? null : actors.get(actor);
+        }
+
+        public Direction getDirection() {
+            return Direction.values()[xs[position]];
+        }
+
+        public int getX() {
+            return xs[position];
+        }
+
+        public int getY() {
+            return ys[position];
+        }
+
+        /**
+         * Returns the group of the current RESOURCES_ADDED or RESOURCE_ADDED event, whose tokens are read with
+         * getResourceX(int) and friends.
+         */
+        public long getGroupId() {
+            decodeResources();
+            return groupId;
+        }
+
+        public int getNumberOfResources() {
+            decodeResources();
+            return numberOfResources;
+        }
+
+        public int getResourceX(int index) {
+            decodeResources();
+            return resources[index * 3];
+        }
+
+        public int getResourceY(int index) {
+            decodeResources();
+            return resources[index * 3 + 1];
+        }
+
+        public int getResourceAge(int index) {
+            decodeResources();
+            return resources[index * 3 + 2];
+        }
+
+        private void decodeResources() {
+            if (decodedResourcesPosition == position) {
+                return;
+            }
+            try {
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, payloadOffsets[position], payloadLengths[position]));
+                groupId = VarInt.readVarLong(in);
+                numberOfResources = VarInt.readVarInt(in);
+                if (resources.length < numberOfResources * 3) {
+                    resources = new int[numberOfResources * 3];
+                }
+                for (int i = 0; i < numberOfResources * 3; i++) {
+                    resources[i] = VarInt.readVarInt(in);
+                }
+                decodedResourcesPosition = position;
+            } catch (IOException exception) {
+                throw new IllegalStateException("Current event isn't a resources added event", exception);
+            }
+        }
+
+        /**
+         * Deserializes the current event, only available for SERIALIZED events.
+         */
+        public PersistableEvent getEvent() throws IOException {
+            if (types[position] != ColumnarRoundWriter.SERIALIZED) {
+                throw new IllegalStateException("Only serialized events can be deserialized, this is a " + types[position]);
+            }
+            byte[] bytes = new byte[payloadLengths[position]];
+            System.arraycopy(data, payloadOffsets[position], bytes, 0, bytes.length);
+            return (PersistableEvent) deserialize(bytes);
+        }
+
+    }
+
+}
@@ -0,0 +1,281 @@
+package edu.asu.commons.foraging.data;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import edu.asu.commons.event.PersistableEvent;
+import edu.asu.commons.foraging.event.MovementEvent;
+import edu.asu.commons.foraging.event.ResourceAddedEvent;
+import edu.asu.commons.foraging.event.ResourcesAddedEvent;
+import edu.asu.commons.foraging.event.TokenCollectedEvent;
+import edu.asu.commons.foraging.model.Resource;
+import edu.asu.commons.foraging.util.VarInt;
+import edu.asu.commons.net.Identifier;
+
+/**
+ * $Id$
+ *
+ * Writes a round's events in a compact columnar format that can be scanned without deserializing every event, see
+ * ColumnarRoundReader.
+ *
+ * Layout: a header (magic, version and a deflated, Java-serialized metadata section holding the round configuration
+ * and data model), then blocks of up to BLOCK_SIZE events, then a footer with the actor dictionary and the block
+ * index, ending with the footer's offset and the magic number again. Within a block each column (creation times as
+ * deltas, event types, actor indices, x, y and payloads) is stored contiguously and the whole block is deflated.
+ * Movements store their direction in x, token collections their location in x and y, regrowth its group id and
+ * tokens in the payload, including the single token regrowth of older save files, and all other events are
+ * Java-serialized into the payload.
+ *
+ * @author <a href='mailto:Allen.Lee@asu.edu'>Allen Lee</a>
+ * @version $Revision$
+ */
+public class ColumnarRoundWriter {
+
+    public final static int MAGIC = 0x46434f4c;
+    public final static int VERSION = 2;
+    public final static int BLOCK_SIZE = 4096;
+
+    public final static byte MOVEMENT = 1;
+    public final static byte TOKEN_COLLECTED = 2;
+    public final static byte RESOURCES_ADDED = 3;
+    public final static byte SERIALIZED = 4;
+    // a single token's regrowth, added in version 2
+    public final static byte RESOURCE_ADDED = 5;
+
+    // events without an actor, e.g., regrowth
+    public final static int NO_ACTOR = -1;
+
+    private final CountingOutputStream counter;
+    private final DataOutputStream out;
+    private final Map<Identifier, Integer> actorIndices = new HashMap<>();
+    private final List<Identifier> actors = new ArrayList<>();
+    private final List<long[]> blockIndex = new ArrayList<>();
+
+    // current block, one entry per event in each column
+    private final long[] times = new long[BLOCK_SIZE];
+    private final byte[] types = new byte[BLOCK_SIZE];
+    private final int[] actorColumn = new int[BLOCK_SIZE];
+    private final int[] xs = new int[BLOCK_SIZE];
+    private final int[] ys = new int[BLOCK_SIZE];
+    private final byte[][] payloads = new byte[BLOCK_SIZE][];
+    private int size;
+
+    private ColumnarRoundWriter(OutputStream stream) {
+        counter = new CountingOutputStream(new BufferedOutputStream(stream));
+        out = new DataOutputStream(counter);
+    }
+
+    /**
+     * Writes the given events, in iteration order, along with the round's metadata, e.g., its round configuration and
+     * data model. Doesn't close the stream.
+     */
+    public static void write(Iterable<? extends PersistableEvent> events, Object[] metadata, OutputStream stream) throws IOException {
+        ColumnarRoundWriter writer = new ColumnarRoundWriter(stream);
+        writer.writeHeader(metadata);
+        for (PersistableEvent event : events) {
+            writer.add(event);
+        }
+        writer.finish();
+    }
+
+    private void writeHeader(Object[] metadata) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        writeBytes(out, deflate(serialize(metadata)));
+    }
+
+    private void add(PersistableEvent event) throws IOException {
+        times[size] = event.getCreationTime();
+        xs[size] = 0;
+        ys[size] = 0;
+        payloads[size] = null;
+        if (event instanceof MovementEvent && ((MovementEvent) event).getDirection() != null) {
+            types[size] = MOVEMENT;
+            actorColumn[size] = getActorIndex(event.getId());
+            xs[size] = ((MovementEvent) event).getDirection().ordinal();
+        }
+        else if (event instanceof TokenCollectedEvent && ((TokenCollectedEvent) event).getLocation() != null) {
+            types[size] = TOKEN_COLLECTED;
+            actorColumn[size] = getActorIndex(event.getId());
+            xs[size] = ((TokenCollectedEvent) event).getLocation().x;
+            ys[size] = ((TokenCollectedEvent) event).getLocation().y;
+        }
+        else if (event instanceof ResourcesAddedEvent && ((ResourcesAddedEvent) event).getGroup() != null) {
+            ResourcesAddedEvent resourcesAddedEvent = (ResourcesAddedEvent) event;
+            types[size] = RESOURCES_ADDED;
+            actorColumn[size] = NO_ACTOR;
+            payloads[size] = encodeResources(resourcesAddedEvent.getGroup().getGroupId(), resourcesAddedEvent.getResources());
+        }
+        else if (event instanceof ResourceAddedEvent && ((ResourceAddedEvent) event).getGroup() != null
+                && ((ResourceAddedEvent) event).getResource() != null) {
+            // serializing these would write out their whole group every time
+            ResourceAddedEvent resourceAddedEvent = (ResourceAddedEvent) event;
+            types[size] = RESOURCE_ADDED;
+            actorColumn[size] = NO_ACTOR;
+            payloads[size] = encodeResources(resourceAddedEvent.getGroup().getGroupId(),
+                    Collections.singletonList(resourceAddedEvent.getResource()));
+        }
+        else {
+            types[size] = SERIALIZED;
+            actorColumn[size] = (event.getId() == null) ? NO_ACTOR : getActorIndex(event.getId());
+            payloads[size] = serialize(event);
+        }
+        size++;
+        if (size == BLOCK_SIZE) {
+            writeBlock();
+        }
+    }
+
+    private static byte[] encodeResources(long groupId, Collection<Resource> resources) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream payload = new DataOutputStream(bytes);
+        List<Resource> resourceList = new ArrayList<>(resources);
+        VarInt.writeVarLong(payload, groupId);
+        VarInt.writeVarInt(payload, resourceList.size());
+        for (Resource resource : resourceList) {
+            VarInt.writeVarInt(payload, resource.getX());
+            VarInt.writeVarInt(payload, resource.getY());
+            VarInt.writeVarInt(payload, resource.getAge());
+        }
+        return bytes.toByteArray();
+    }
+
+    private int getActorIndex(Identifier id) {
+        Integer index = actorIndices.get(id);
+        if (index == null) {
+            index = actors.size();
+            actors.add(id);
+            actorIndices.put(id, index);
+        }
+        return index;
+    }
+
+    private void writeBlock() throws IOException {
+        if (size == 0) {
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream block = new DataOutputStream(bytes);
+        long previousTime = times[0];
+        VarInt.writeVarLong(block, times[0]);
+        for (int i = 1; i < size; i++) {
+            VarInt.writeVarLong(block, zigZag(times[i] - previousTime));
+            previousTime = times[i];
+        }
+        block.write(types, 0, size);
+        for (int i = 0; i < size; i++) {
+            // shifted so that NO_ACTOR fits in a single byte
+            VarInt.writeVarInt(block, actorColumn[i] + 1);
+        }
+        for (int i = 0; i < size; i++) {
+            VarInt.writeVarInt(block, zigZag(xs[i]));
+        }
+        for (int i = 0; i < size; i++) {
+            VarInt.writeVarInt(block, zigZag(ys[i]));
+        }
+        for (int i = 0; i < size; i++) {
+            VarInt.writeVarInt(block, (payloads[i] == null) ? 0 : payloads[i].length);
+        }
+        for (int i = 0; i < size; i++) {
+            if (payloads[i] != null) {
+                block.write(payloads[i]);
+                payloads[i] = null;
+            }
+        }
+        block.flush();
+        byte[] uncompressed = bytes.toByteArray();
+        blockIndex.add(new long[] { counter.getCount(), times[0], size });
+        VarInt.writeVarInt(out, size);
+        VarInt.writeVarInt(out, uncompressed.length);
+        writeBytes(out, deflate(uncompressed));
+        size = 0;
+    }
+
+    private void finish() throws IOException {
+        writeBlock();
+        long footerOffset = counter.getCount();
+        VarInt.writeVarInt(out, actors.size());
+        for (Identifier actor : actors) {
+            writeBytes(out, serialize(actor));
+        }
+        VarInt.writeVarInt(out, blockIndex.size());
+        for (long[] entry : blockIndex) {
+            out.writeLong(entry[0]);
+            out.writeLong(entry[1]);
+            out.writeInt((int) entry[2]);
+        }
+        out.writeLong(footerOffset);
+        out.writeInt(MAGIC);
+        out.flush();
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        VarInt.writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] deflate(byte[] bytes) throws IOException {
+        ByteArrayOutputStream deflated = new ByteArrayOutputStream(bytes.length / 4 + 16);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DeflaterOutputStream deflaterOut = new DeflaterOutputStream(deflated, deflater)) {
+            deflaterOut.write(bytes);
+        } finally {
+            deflater.end();
+        }
+        return deflated.toByteArray();
+    }
+
+    static byte[] serialize(Object object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOut = new ObjectOutputStream(bytes)) {
+            objectOut.writeObject(object);
+        }
+        return bytes.toByteArray();
+    }
+
+    static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            out.write(bytes, offset, length);
+            count += length;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+
+}
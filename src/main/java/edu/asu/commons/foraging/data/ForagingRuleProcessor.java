@@ -2,21 +2,17 @@ package edu.asu.commons.foraging.data;
 
 import java.awt.Point;
 import java.io.PrintWriter;
-import java.util.Comparator;
 import java.util.Map;
-import java.util.SortedSet;
 import java.util.TreeMap;
 
 import edu.asu.commons.event.PersistableEvent;
-import edu.asu.commons.experiment.SaveFileProcessor;
-import edu.asu.commons.experiment.SavedRoundData;
 import edu.asu.commons.foraging.bot.BotIdentifier;
 import edu.asu.commons.foraging.event.TokenCollectedEvent;
 import edu.asu.commons.foraging.model.ClientData;
 import edu.asu.commons.foraging.model.ServerDataModel;
 import edu.asu.commons.net.Identifier;
 
-public class ForagingRuleProcessor extends SaveFileProcessor.Base {
+public class ForagingRuleProcessor extends ReplayProcessor {
 
     // rules are based on ForagingStrategy enum and ordered accordingly
     // rule 1: collect tokens for 10 seconds than wait 10 seconds
@@ -134,41 +130,46 @@ public class ForagingRuleProcessor extends SaveFileProcessor.Base {
     }
 
     @Override
-    public void process(SavedRoundData savedRoundData, PrintWriter writer) {
-        SortedSet<PersistableEvent> actions = savedRoundData.getActions();
-        ServerDataModel dataModel = (ServerDataModel) savedRoundData.getDataModel();
+    public RoundReplayListener createListener(RoundReplay replay, PrintWriter writer) {
+        ServerDataModel dataModel = replay.getServerDataModel();
         Map<Identifier, ClientData> clientDataMap = dataModel.getClientDataMap();
         Map<ClientData, RuleData> dataMap = new TreeMap<>((a, b) -> a.getId().getStationId().compareTo(b.getId().getStationId()));
         for (ClientData data: clientDataMap.values()) {
             dataMap.put(data, new RuleData());
         }
-        for (PersistableEvent event: actions) {
-            if (event instanceof TokenCollectedEvent) {
-                if (event.getId() instanceof BotIdentifier) {
-                    continue;
+        return new RoundReplayListener() {
+            @Override
+            public void beforeEvent(PersistableEvent event, long elapsedTimeInSeconds) {
+                if (event instanceof TokenCollectedEvent) {
+                    if (event.getId() instanceof BotIdentifier) {
+                        return;
+                    }
+                    TokenCollectedEvent tokenCollectedEvent = (TokenCollectedEvent) event;
+                    ClientData clientData = clientDataMap.get(event.getId());
+                    Point location = tokenCollectedEvent.getLocation();
+                    dataMap.get(clientData).addTokenCollected(location, (int) elapsedTimeInSeconds);
                 }
-                TokenCollectedEvent tokenCollectedEvent = (TokenCollectedEvent) event;
-                ClientData clientData = clientDataMap.get(event.getId());
-                Point location = tokenCollectedEvent.getLocation();
-                long elapsedTimeInSeconds = savedRoundData.getElapsedTimeInSeconds(event);
-                dataMap.get(clientData).addTokenCollected(location, (int) elapsedTimeInSeconds);
             }
-        }
-        writer.println("Participant, 10 Second Rule, 60 Second Rule, 40 Second Rule, Q1 Tokens, Q2 Tokens, Q3 Tokens, Q4 Tokens");
-        for (Map.Entry<ClientData, RuleData> entry: dataMap.entrySet()) {
-            RuleData data = entry.getValue();
-            String line = String.format("%s, %3.2f, %3.2f, %3.2f, %d, %d, %d, %d",
-                    entry.getKey(),
-                    data.getRuleOneBreaking(),
-                    data.getRuleThreeBreaking(),
-                    data.getRuleFourBreaking(),
-                    data.q1Tokens,
-                    data.q2Tokens,
-                    data.q3Tokens,
-                    data.q4Tokens
-                    );
-            writer.println(line);
-        }
+
+            @Override
+            public void roundEnded() {
+                writer.println("Participant, 10 Second Rule, 60 Second Rule, 40 Second Rule, Q1 Tokens, Q2 Tokens, Q3 Tokens, Q4 Tokens");
+                for (Map.Entry<ClientData, RuleData> entry: dataMap.entrySet()) {
+                    RuleData data = entry.getValue();
+                    String line = String.format("%s, %3.2f, %3.2f, %3.2f, %d, %d, %d, %d",
+                            entry.getKey(),
+                            data.getRuleOneBreaking(),
+                            data.getRuleThreeBreaking(),
+                            data.getRuleFourBreaking(),
+                            data.q1Tokens,
+                            data.q2Tokens,
+                            data.q3Tokens,
+                            data.q4Tokens
+                            );
+                    writer.println(line);
+                }
+            }
+        };
     }
 
 }
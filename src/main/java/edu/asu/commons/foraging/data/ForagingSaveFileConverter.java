@@ -1,11 +1,21 @@
 package edu.asu.commons.foraging.data;
 
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -23,40 +33,152 @@ import edu.asu.commons.net.Identifier;
  */
 public class ForagingSaveFileConverter {
     
+    private final static Logger logger = Logger.getLogger(ForagingSaveFileConverter.class.getName());
+
     static final int DEFAULT_AGGREGATE_TIME_INTERVAL = 5;
 
+    static final String CONVERSION_LOG = "conversion-log.txt";
+
     public static boolean convert(String saveDataDirectory, boolean useXml) {
+        return convert(saveDataDirectory, useXml, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Converts every save file in the given directory, replaying up to the given number of rounds concurrently. The
+     * rounds converted are listed in save file order in a conversion log in the save data directory.
+     *
+     * Only the replays run concurrently: Persister.processSaveFiles walks the sessions and deserializes their save
+     * files one at a time on the calling thread, so a conversion is bound by loading once the replays keep up with it.
+     * Use reconvert() to rerun the analyses without loading the save files again.
+     */
+    public static boolean convert(String saveDataDirectory, boolean useXml, int threads) {
         File allSaveFilesDirectory = new File(saveDataDirectory);
         if (allSaveFilesDirectory.exists() && allSaveFilesDirectory.isDirectory()) {
+            FusedReplayProcessor replayProcessor = createReplayProcessor();
+            // keeps a columnar copy of each round so it can be reconverted without the save file, see reconvert()
+            replayProcessor.setWriteColumnarCopies(true);
             List<SaveFileProcessor> processors = new ArrayList<>();
             processors.addAll(Arrays.asList(
-                    new AllDataProcessor(),
-                    new ResourceOverTimeProcessor(),
-                    new AggregateTimeIntervalProcessor(), 
-                    new SummaryProcessor(),
-                    new AggregateTokenSpatialDistributionProcessor(),
-                    new CollectedTokenSpatialDistributionProcessor(),  
-                    new MovementStatisticsProcessor(),
+                    // replays each round once for all of the analyses
+                    replayProcessor
 //                    new MovieCreatorProcessor(),
-                    new ForagingRuleProcessor(),
-                    new AggregateCollectedTokenNeighborProcessor()
             ));
-            Persister.processSaveFiles(allSaveFilesDirectory, processors, useXml);
+            ExecutorService executor = createExecutor(replayProcessor, threads);
+            try {
+                Persister.processSaveFiles(allSaveFilesDirectory, processors, useXml);
+                writeConversionLog(allSaveFilesDirectory, replayProcessor.awaitConversions());
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (IOException exception) {
+                logger.log(Level.WARNING, "Unable to write conversion log in " + allSaveFilesDirectory, exception);
+            } finally {
+                if (executor != null) {
+                    executor.shutdownNow();
+                }
+            }
             return true;
         }
         return false;
     }
 
+    /**
+     * Reconverts every round in the given directory from the columnar copies written by convert(), which is much
+     * faster than deserializing the save files again. Only the analyses that don't need the save file itself are
+     * rerun, i.e., everything but the all data and summary files.
+     */
+    public static boolean reconvert(String saveDataDirectory, int threads) {
+        File allSaveFilesDirectory = new File(saveDataDirectory);
+        File[] columnarFiles = allSaveFilesDirectory.listFiles((directory, name) -> name.endsWith(FusedReplayProcessor.COLUMNAR_EXTENSION));
+        if (columnarFiles == null || columnarFiles.length == 0) {
+            return false;
+        }
+        Arrays.sort(columnarFiles);
+        FusedReplayProcessor replayProcessor = createReplayProcessor();
+        ExecutorService executor = createExecutor(replayProcessor, threads);
+        File replayLog = new File(allSaveFilesDirectory, "reconversion" + replayProcessor.getOutputFileExtension());
+        try {
+            try (PrintWriter log = new PrintWriter(new BufferedWriter(new FileWriter(replayLog)))) {
+                for (File columnarFile : columnarFiles) {
+                    replayProcessor.process(columnarFile, log);
+                }
+            }
+            writeConversionLog(allSaveFilesDirectory, replayProcessor.awaitConversions());
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (IOException exception) {
+            logger.log(Level.WARNING, "Unable to write conversion logs in " + allSaveFilesDirectory, exception);
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+        return true;
+    }
+
+    private static FusedReplayProcessor createReplayProcessor() {
+        return new FusedReplayProcessor(
+                AllDataProcessor::new,
+                ResourceOverTimeProcessor::new,
+                AggregateTimeIntervalProcessor::new,
+                SummaryProcessor::new,
+                AggregateTokenSpatialDistributionProcessor::new,
+                CollectedTokenSpatialDistributionProcessor::new,
+                MovementStatisticsProcessor::new,
+                ForagingRuleProcessor::new,
+                AggregateCollectedTokenNeighborProcessor::new
+        );
+    }
+
+    private static ExecutorService createExecutor(FusedReplayProcessor replayProcessor, int threads) {
+        if (threads <= 1) {
+            return null;
+        }
+        // bounded so that the Persister can't load rounds much faster than they're replayed, once the queue is
+        // full the Persister's thread replays the round itself.
+        ExecutorService executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads),
+                (runnable) -> {
+                    Thread thread = new Thread(runnable, "foraging-save-file-conversion");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        replayProcessor.setExecutor(executor);
+        return executor;
+    }
+
+    private static void writeConversionLog(File directory, List<FusedReplayProcessor.RoundConversion> conversions) throws IOException {
+        File logFile = new File(directory, CONVERSION_LOG);
+        File temporaryFile = new File(directory, CONVERSION_LOG + ".tmp");
+        int failures = 0;
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(temporaryFile)))) {
+            for (FusedReplayProcessor.RoundConversion conversion : conversions) {
+                writer.println(conversion);
+                if (! conversion.isSuccessful()) {
+                    failures++;
+                }
+            }
+        }
+        FusedReplayProcessor.moveIntoPlace(temporaryFile, logFile);
+        logger.info(String.format("Converted %d rounds in %s, %d failed", conversions.size() - failures, directory, failures));
+    }
+
     public static void main(String[] args) {
         if (args.length == 0) {
-            System.err.println("Usage: java " + ForagingSaveFileConverter.class + " <save-data-directory> <xml>");
+            System.err.println("Usage: java " + ForagingSaveFileConverter.class + " <save-data-directory> <xml|columnar> [threads]");
             System.exit(0);
         }
         boolean useXml = false;
-        if (args.length == 2) {
+        boolean columnar = false;
+        if (args.length >= 2) {
             useXml = "xml".equals(args[1]);
+            columnar = "columnar".equals(args[1]);
         }
-        if (convert(args[0], useXml)) {
+        int threads = (args.length > 2) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        boolean converted = columnar ? reconvert(args[0], threads) : convert(args[0], useXml, threads);
+        if (converted) {
         	System.err.println("Successfully converted files in " + args[0]);
         }
         else {
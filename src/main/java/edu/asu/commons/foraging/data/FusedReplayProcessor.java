@@ -0,0 +1,308 @@
+package edu.asu.commons.foraging.data;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import edu.asu.commons.event.PersistableEvent;
+import edu.asu.commons.experiment.SaveFileProcessor;
+import edu.asu.commons.experiment.SavedRoundData;
+
+/**
+ * $Id$
+ *
+ * Replays each round once for a number of ReplayProcessors, writing each one's output next to the save file with
+ * its own output file extension, exactly as if it had been run on its own. Its own output only lists the files
+ * written for the round, the Persister closes it before an executor is done replaying the round, so the outcome of
+ * each replay is reported by awaitConversions() instead.
+ *
+ * Every round gets fresh ReplayProcessors from the given suppliers, so with an executor rounds are replayed
+ * concurrently while the Persister moves on to the next save file; awaitConversions() waits for all of them. Output
+ * files are written to a temporary file first and moved into place once the round has been replayed, so a failed or
+ * interrupted conversion never leaves a partial output file behind.
+ *
+ * Optionally each round is also written to a columnar copy next to its save file, see ColumnarRoundWriter, taken
+ * before the replay changes the data model. process(File, PrintWriter) reconverts a round from that copy without
+ * deserializing its save file, skipping the processors that need the round's SavedRoundData.
+ *
+ * @author <a href='mailto:Allen.Lee@asu.edu'>Allen Lee</a>
+ * @version $Revision$
+ */
+public class FusedReplayProcessor extends SaveFileProcessor.Base {
+
+    private final static Logger logger = Logger.getLogger(FusedReplayProcessor.class.getName());
+
+    public final static String COLUMNAR_EXTENSION = "-events.columnar";
+
+    private final List<Supplier<? extends ReplayProcessor>> processors;
+    private final List<Future<RoundConversion>> conversions = new ArrayList<>();
+    private ExecutorService executor;
+    private boolean writeColumnarCopies;
+
+    @SafeVarargs
+    public FusedReplayProcessor(Supplier<? extends ReplayProcessor>... processors) {
+        this.processors = new ArrayList<>(Arrays.asList(processors));
+    }
+
+    /**
+     * Replays rounds on the given executor instead of the Persister's thread, null to replay them in place.
+     */
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Also writes a columnar copy of each round next to its save file, with the COLUMNAR_EXTENSION.
+     */
+    public void setWriteColumnarCopies(boolean writeColumnarCopies) {
+        this.writeColumnarCopies = writeColumnarCopies;
+    }
+
+    @Override
+    public void process(SavedRoundData savedRoundData, PrintWriter log) {
+        List<ReplayProcessor> roundProcessors = createProcessors(false);
+        String saveFilePath = getCanonicalPath(new File(savedRoundData.getSaveFilePath()));
+        for (ReplayProcessor processor : roundProcessors) {
+            log.println(saveFilePath + processor.getOutputFileExtension());
+        }
+        if (writeColumnarCopies) {
+            log.println(saveFilePath + COLUMNAR_EXTENSION);
+        }
+        convert(() -> replay(savedRoundData, saveFilePath, roundProcessors));
+    }
+
+    /**
+     * Reconverts a round from the given columnar copy, writing the output of every processor that doesn't require the
+     * round's SavedRoundData next to the round's save file.
+     */
+    public void process(File columnarFile, PrintWriter log) {
+        String columnarPath = getCanonicalPath(columnarFile);
+        if (! columnarPath.endsWith(COLUMNAR_EXTENSION)) {
+            throw new IllegalArgumentException(columnarFile + " isn't a columnar copy of a round");
+        }
+        List<ReplayProcessor> roundProcessors = createProcessors(true);
+        String saveFilePath = columnarPath.substring(0, columnarPath.length() - COLUMNAR_EXTENSION.length());
+        for (ReplayProcessor processor : roundProcessors) {
+            log.println(saveFilePath + processor.getOutputFileExtension());
+        }
+        convert(() -> replay(columnarFile, saveFilePath, roundProcessors));
+    }
+
+    private List<ReplayProcessor> createProcessors(boolean columnar) {
+        List<ReplayProcessor> roundProcessors = new ArrayList<>();
+        for (Supplier<? extends ReplayProcessor> supplier : processors) {
+            ReplayProcessor processor = supplier.get();
+            if (columnar && processor.requiresSavedRoundData()) {
+                processor.dispose();
+            }
+            else {
+                roundProcessors.add(processor);
+            }
+        }
+        return roundProcessors;
+    }
+
+    private static String getCanonicalPath(File file) {
+        try {
+            return file.getCanonicalPath();
+        } catch (IOException exception) {
+            return file.getAbsolutePath();
+        }
+    }
+
+    private void convert(Supplier<RoundConversion> replay) {
+        if (executor == null) {
+            conversions.add(CompletableFuture.completedFuture(replay.get()));
+        }
+        else {
+            conversions.add(executor.submit(replay::get));
+        }
+    }
+
+    private RoundConversion replay(SavedRoundData savedRoundData, String saveFilePath, List<ReplayProcessor> roundProcessors) {
+        long startTime = System.currentTimeMillis();
+        try {
+            if (writeColumnarCopies) {
+                writeColumnarCopy(savedRoundData, saveFilePath);
+            }
+            return replay(new RoundReplay(savedRoundData), saveFilePath, roundProcessors, startTime);
+        } finally {
+            for (ReplayProcessor processor : roundProcessors) {
+                processor.dispose();
+            }
+        }
+    }
+
+    private RoundConversion replay(File columnarFile, String saveFilePath, List<ReplayProcessor> roundProcessors) {
+        long startTime = System.currentTimeMillis();
+        try (ColumnarRoundReader reader = new ColumnarRoundReader(columnarFile)) {
+            return replay(new RoundReplay(reader), saveFilePath, roundProcessors, startTime);
+        } catch (IOException exception) {
+            logger.log(Level.SEVERE, "Unable to read " + columnarFile, exception);
+            return new RoundConversion(saveFilePath, 0, System.currentTimeMillis() - startTime, exception);
+        } finally {
+            for (ReplayProcessor processor : roundProcessors) {
+                processor.dispose();
+            }
+        }
+    }
+
+    private void writeColumnarCopy(SavedRoundData savedRoundData, String saveFilePath) {
+        SortedSet<PersistableEvent> actions = savedRoundData.getActions();
+        // stored so a replay from the copy can work out the same elapsed times as the save file
+        long roundStartTime = 0;
+        if (! actions.isEmpty()) {
+            PersistableEvent firstAction = actions.first();
+            roundStartTime = firstAction.getCreationTime() - savedRoundData.getElapsedTime(firstAction);
+        }
+        Object[] metadata = { savedRoundData.getRoundParameters(), savedRoundData.getDataModel(), roundStartTime };
+        File temporaryFile = new File(saveFilePath + COLUMNAR_EXTENSION + ".tmp");
+        try {
+            try (OutputStream stream = new FileOutputStream(temporaryFile)) {
+                ColumnarRoundWriter.write(actions, metadata, stream);
+            }
+            moveIntoPlace(temporaryFile, new File(saveFilePath + COLUMNAR_EXTENSION));
+        } catch (IOException exception) {
+            // the copy only speeds up later conversions, so the round is still replayed
+            logger.log(Level.WARNING, "Unable to write columnar copy of " + saveFilePath, exception);
+        } finally {
+            temporaryFile.delete();
+        }
+    }
+
+    private RoundConversion replay(RoundReplay replay, String saveFilePath, List<ReplayProcessor> roundProcessors, long startTime) {
+        List<File> temporaryFiles = new ArrayList<>();
+        List<PrintWriter> writers = new ArrayList<>();
+        try {
+            for (ReplayProcessor processor : roundProcessors) {
+                File temporaryFile = new File(saveFilePath + processor.getOutputFileExtension() + ".tmp");
+                temporaryFiles.add(temporaryFile);
+                PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(temporaryFile)));
+                writers.add(writer);
+                replay.addListener(processor.createListener(replay, writer));
+            }
+            replay.run();
+            for (int i = 0; i < writers.size(); i++) {
+                PrintWriter writer = writers.get(i);
+                writer.close();
+                if (writer.checkError()) {
+                    throw new IOException("Unable to write " + temporaryFiles.get(i));
+                }
+            }
+            for (int i = 0; i < roundProcessors.size(); i++) {
+                moveIntoPlace(temporaryFiles.get(i), new File(saveFilePath + roundProcessors.get(i).getOutputFileExtension()));
+            }
+            return new RoundConversion(saveFilePath, replay.getNumberOfEvents(), System.currentTimeMillis() - startTime, null);
+        } catch (IOException | RuntimeException exception) {
+            logger.log(Level.SEVERE, "Unable to convert " + saveFilePath, exception);
+            return new RoundConversion(saveFilePath, replay.getNumberOfEvents(), System.currentTimeMillis() - startTime, exception);
+        } finally {
+            for (PrintWriter writer : writers) {
+                writer.close();
+            }
+            for (File temporaryFile : temporaryFiles) {
+                temporaryFile.delete();
+            }
+        }
+    }
+
+    static void moveIntoPlace(File source, File target) throws IOException {
+        try {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException exception) {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Waits for every round processed so far and returns their conversions ordered by save file path, regardless of
+     * the order the rounds were processed or finished in.
+     */
+    public List<RoundConversion> awaitConversions() throws InterruptedException {
+        List<RoundConversion> results = new ArrayList<>(conversions.size());
+        for (Future<RoundConversion> conversion : conversions) {
+            try {
+                results.add(conversion.get());
+            } catch (ExecutionException exception) {
+                // replay() reports its own failures, only errors end up here
+                throw new IllegalStateException("Save file conversion failed", exception.getCause());
+            }
+        }
+        conversions.clear();
+        results.sort(Comparator.comparing(RoundConversion::getSaveFilePath));
+        return results;
+    }
+
+    @Override
+    public String getOutputFileExtension() {
+        return "-replay-log.txt";
+    }
+
+    /**
+     * The outcome of replaying a single round.
+     */
+    public static class RoundConversion {
+        private final String saveFilePath;
+        private final int numberOfEvents;
+        private final long elapsedTime;
+        private final Exception error;
+
+        RoundConversion(String saveFilePath, int numberOfEvents, long elapsedTime, Exception error) {
+            this.saveFilePath = saveFilePath;
+            this.numberOfEvents = numberOfEvents;
+            this.elapsedTime = elapsedTime;
+            this.error = error;
+        }
+
+        public String getSaveFilePath() {
+            return saveFilePath;
+        }
+
+        public int getNumberOfEvents() {
+            return numberOfEvents;
+        }
+
+        /**
+         * Returns the time it took to replay the round, in milliseconds.
+         */
+        public long getElapsedTime() {
+            return elapsedTime;
+        }
+
+        public Exception getError() {
+            return error;
+        }
+
+        public boolean isSuccessful() {
+            return error == null;
+        }
+
+        @Override
+        public String toString() {
+            if (isSuccessful()) {
+                return String.format("%s, %d events, %d ms", saveFilePath, numberOfEvents, elapsedTime);
+            }
+            return String.format("%s, failed after %d events: %s", saveFilePath, numberOfEvents, error);
+        }
+    }
+
+}
@@ -7,8 +7,6 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 
 import edu.asu.commons.event.PersistableEvent;
-import edu.asu.commons.experiment.SaveFileProcessor;
-import edu.asu.commons.experiment.SavedRoundData;
 import edu.asu.commons.foraging.conf.RoundConfiguration;
 import edu.asu.commons.foraging.event.MovementEvent;
 import edu.asu.commons.foraging.event.ResourcesAddedEvent;
@@ -25,14 +23,13 @@ import edu.asu.commons.util.Utils;
  * @author <a href='mailto:allen.lee@asu.edu'>Allen Lee</a>
  * @version $Rev: 526 $
  */
-class MovementStatisticsProcessor extends SaveFileProcessor.Base {
-    private Map<Identifier, ClientMovementStatistics> clientStatisticsMap = new LinkedHashMap<>();
-    private Map<GroupDataModel, Integer> resourceCountMap = new HashMap<>();
-
+class MovementStatisticsProcessor extends ReplayProcessor {
     @Override
-    public void process(SavedRoundData savedRoundData, PrintWriter writer) {
-        ServerDataModel serverDataModel = (ServerDataModel) savedRoundData.getDataModel();
-        RoundConfiguration roundConfiguration = (RoundConfiguration) savedRoundData.getRoundParameters();
+    public RoundReplayListener createListener(RoundReplay replay, PrintWriter writer) {
+        ServerDataModel serverDataModel = replay.getServerDataModel();
+        RoundConfiguration roundConfiguration = replay.getRoundConfiguration();
+        Map<Identifier, ClientMovementStatistics> clientStatisticsMap = new LinkedHashMap<>();
+        Map<GroupDataModel, Integer> resourceCountMap = new HashMap<>();
         for (GroupDataModel group: serverDataModel.getGroups()) {
             for (Identifier id: group.getOrderedClientIdentifiers()) {
                 clientStatisticsMap.put(id, new ClientMovementStatistics(id, roundConfiguration));
@@ -42,54 +39,60 @@ class MovementStatisticsProcessor extends SaveFileProcessor.Base {
             }
             resourceCountMap.put(group, 0);
         }
-
-        for (PersistableEvent event: savedRoundData.getActions()) {
-            if (event instanceof MovementEvent) {
-                MovementEvent movementEvent = (MovementEvent) event;
-                Identifier id = movementEvent.getId();
-                GroupDataModel groupDataModel = serverDataModel.getGroup(id);
-                // only count movements when the resource count is > 0
-                if (resourceCountMap.getOrDefault(groupDataModel, 0) > 0) {
-                    clientStatisticsMap.get(id).move(movementEvent.getDirection());
+        return new RoundReplayListener() {
+            @Override
+            public void beforeEvent(PersistableEvent event, long secondsElapsed) {
+                if (event instanceof MovementEvent) {
+                    MovementEvent movementEvent = (MovementEvent) event;
+                    Identifier id = movementEvent.getId();
+                    GroupDataModel groupDataModel = serverDataModel.getGroup(id);
+                    // only count movements when the resource count is > 0
+                    if (resourceCountMap.getOrDefault(groupDataModel, 0) > 0) {
+                        clientStatisticsMap.get(id).move(movementEvent.getDirection());
+                    }
+                    else {
+                        // stop counting for this group.
+                    }
                 }
-                else {
-                    // stop counting for this group.
+                else if (event instanceof ResourcesAddedEvent) {
+                    ResourcesAddedEvent resourcesAddedEvent = (ResourcesAddedEvent) event;
+                    GroupDataModel group = resourcesAddedEvent.getGroup();
+                    int resources = resourceCountMap.getOrDefault(group, 0);
+                    resources += resourcesAddedEvent.getResources().size();
+                    resourceCountMap.put(group, resources);
+                }
+                else if (event instanceof TokenCollectedEvent) {
+                    TokenCollectedEvent tokenCollectedEvent = (TokenCollectedEvent) event;
+                    Identifier id = tokenCollectedEvent.getId();
+                    GroupDataModel groupDataModel = serverDataModel.getGroup(id);
+                    int resources = resourceCountMap.getOrDefault(groupDataModel, 0);
+                    resourceCountMap.put(groupDataModel, resources - 1);
                 }
             }
-            else if (event instanceof ResourcesAddedEvent) {
-                ResourcesAddedEvent resourcesAddedEvent = (ResourcesAddedEvent) event;
-                GroupDataModel group = resourcesAddedEvent.getGroup();
-                int resources = resourceCountMap.getOrDefault(group, 0);
-                resources += resourcesAddedEvent.getResources().size();
-                resourceCountMap.put(group, resources);
-            }
-            else if (event instanceof TokenCollectedEvent) {
-                TokenCollectedEvent tokenCollectedEvent = (TokenCollectedEvent) event;
-                Identifier id = tokenCollectedEvent.getId();
-                GroupDataModel groupDataModel = serverDataModel.getGroup(id);
-                int resources = resourceCountMap.getOrDefault(groupDataModel, 0);
-                resourceCountMap.put(groupDataModel, resources - 1);
-            }
-        }
-        // tally their very last movement counts 
-        // (since ClientMovementStatistics only adds to the movement distribution when they change direction)
-        for (ClientMovementStatistics summary: clientStatisticsMap.values()) {
-            summary.incrementMovementDistribution();
-        }
-        int maximumMoves = Math.max(serverDataModel.getBoardHeight(), serverDataModel.getBoardWidth());
-        final Integer[] movementHeader = new Integer[maximumMoves];
-        for (int iotaIndex = 0; iotaIndex < maximumMoves; iotaIndex++) {
-            movementHeader[iotaIndex] = iotaIndex + 1;
-        }
 
-        // write out the header line.
-        writer.println(Utils.join(',', "Identifier", Utils.join(',', Arrays.asList(movementHeader))));
+            @Override
+            public void roundEnded() {
+                // tally their very last movement counts 
+                // (since ClientMovementStatistics only adds to the movement distribution when they change direction)
+                for (ClientMovementStatistics summary: clientStatisticsMap.values()) {
+                    summary.incrementMovementDistribution();
+                }
+                int maximumMoves = Math.max(serverDataModel.getBoardHeight(), serverDataModel.getBoardWidth());
+                final Integer[] movementHeader = new Integer[maximumMoves];
+                for (int iotaIndex = 0; iotaIndex < maximumMoves; iotaIndex++) {
+                    movementHeader[iotaIndex] = iotaIndex + 1;
+                }
 
-        // and then write out each Identifier's movement distribution.
-        for (Map.Entry<Identifier, ClientMovementStatistics> entry : clientStatisticsMap.entrySet()) {
-            writer.println(Utils.join(',', entry.getKey(), Utils.join(',', 
-                    Arrays.asList(entry.getValue().getMovementDistribution()))));   
-        }
+                // write out the header line.
+                writer.println(Utils.join(',', "Identifier", Utils.join(',', Arrays.asList(movementHeader))));
+
+                // and then write out each Identifier's movement distribution.
+                for (Map.Entry<Identifier, ClientMovementStatistics> entry : clientStatisticsMap.entrySet()) {
+                    writer.println(Utils.join(',', entry.getKey(), Utils.join(',', 
+                            Arrays.asList(entry.getValue().getMovementDistribution()))));   
+                }
+            }
+        };
     }
 
     @Override
@@ -97,10 +100,4 @@ class MovementStatisticsProcessor extends SaveFileProcessor.Base {
         return "-movement-summary-statistics.txt";
     }
 
-    @Override
-    public void dispose() {
-        clientStatisticsMap.clear();
-        resourceCountMap.clear();
-    }
-
 }
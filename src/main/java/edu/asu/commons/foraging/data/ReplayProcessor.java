@@ -0,0 +1,41 @@
+package edu.asu.commons.foraging.data;
+
+import java.io.PrintWriter;
+
+import edu.asu.commons.experiment.SaveFileProcessor;
+import edu.asu.commons.experiment.SavedRoundData;
+
+/**
+ * $Id$
+ *
+ * Base class for save file processors that follow a round's events as they are replayed. Subclasses create a
+ * RoundReplayListener per round instead of iterating over the round's events themselves so that several of them can
+ * share a single RoundReplay, see FusedReplayProcessor. Used on its own, a ReplayProcessor replays each round just
+ * for its own listener.
+ *
+ * @author <a href='mailto:Allen.Lee@asu.edu'>Allen Lee</a>
+ * @version $Revision$
+ */
+public abstract class ReplayProcessor extends SaveFileProcessor.Base {
+
+    /**
+     * Returns a listener that writes this processor's output for the replayed round to the given writer.
+     */
+    public abstract RoundReplayListener createListener(RoundReplay replay, PrintWriter writer);
+
+    /**
+     * Returns true if this processor's listener needs the round's SavedRoundData, which isn't available when the
+     * round is replayed from its columnar copy.
+     */
+    public boolean requiresSavedRoundData() {
+        return false;
+    }
+
+    @Override
+    public void process(SavedRoundData savedRoundData, PrintWriter writer) {
+        RoundReplay replay = new RoundReplay(savedRoundData);
+        replay.addListener(createListener(replay, writer));
+        replay.run();
+    }
+
+}
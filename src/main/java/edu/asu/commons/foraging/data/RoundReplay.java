@@ -0,0 +1,201 @@
+package edu.asu.commons.foraging.data;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edu.asu.commons.event.PersistableEvent;
+import edu.asu.commons.experiment.SavedRoundData;
+import edu.asu.commons.foraging.conf.RoundConfiguration;
+import edu.asu.commons.foraging.event.ClientPoseUpdate;
+import edu.asu.commons.foraging.event.MovementEvent;
+import edu.asu.commons.foraging.event.ResourceAddedEvent;
+import edu.asu.commons.foraging.event.ResourcesAddedEvent;
+import edu.asu.commons.foraging.event.TokenCollectedEvent;
+import edu.asu.commons.foraging.model.ClientData;
+import edu.asu.commons.foraging.model.GroupDataModel;
+import edu.asu.commons.foraging.model.Resource;
+import edu.asu.commons.foraging.model.ServerDataModel;
+
+/**
+ * $Id$
+ *
+ * Replays a single round's events once, keeping the round's data model up to date and notifying every
+ * RoundReplayListener before and after each event is applied. The data model is reset to the start of the round via
+ * ServerDataModel.reinitialize() before the first event, movements and pose updates move their actors, collected
+ * tokens are removed and regrowth is added back.
+ *
+ * A round can also be replayed from its columnar copy, see ColumnarRoundReader, which skips deserializing the save
+ * file. Movements, token collections and regrowth are rebuilt from their columns, so their creation times aren't
+ * preserved, and there is no SavedRoundData to hand to listeners.
+ *
+ * Not thread-safe, a replay and its listeners belong to a single round.
+ *
+ * @author <a href='mailto:Allen.Lee@asu.edu'>Allen Lee</a>
+ * @version $Revision$
+ */
+public class RoundReplay {
+
+    private final SavedRoundData savedRoundData;
+    private final ColumnarRoundReader columnarRound;
+    private final long roundStartTime;
+    private final ServerDataModel serverDataModel;
+    private final RoundConfiguration roundConfiguration;
+    private final List<RoundReplayListener> listeners = new ArrayList<>();
+    private final Map<Long, GroupDataModel> groupsById = new HashMap<>();
+    private int numberOfEvents;
+
+    public RoundReplay(SavedRoundData savedRoundData) {
+        this.savedRoundData = savedRoundData;
+        this.columnarRound = null;
+        this.roundStartTime = 0;
+        this.serverDataModel = (ServerDataModel) savedRoundData.getDataModel();
+        this.roundConfiguration = (RoundConfiguration) savedRoundData.getRoundParameters();
+    }
+
+    /**
+     * Replays a round from a columnar copy written by FusedReplayProcessor, the reader must stay open until the
+     * replay has been run.
+     */
+    public RoundReplay(ColumnarRoundReader columnarRound) throws IOException {
+        Object[] metadata = columnarRound.getMetadata();
+        if (metadata.length < 3) {
+            throw new IOException("Columnar round file is missing its round start time");
+        }
+        this.savedRoundData = null;
+        this.columnarRound = columnarRound;
+        this.roundConfiguration = (RoundConfiguration) metadata[0];
+        this.serverDataModel = (ServerDataModel) metadata[1];
+        this.roundStartTime = (Long) metadata[2];
+        // events were serialized apart from the data model, so their groups are looked up by id
+        for (GroupDataModel group : serverDataModel.getGroups()) {
+            groupsById.put(group.getGroupId(), group);
+        }
+    }
+
+    public void addListener(RoundReplayListener listener) {
+        listeners.add(listener);
+    }
+
+    public void run() {
+        for (RoundReplayListener listener : listeners) {
+            listener.roundLoaded();
+        }
+        serverDataModel.reinitialize(roundConfiguration);
+        for (RoundReplayListener listener : listeners) {
+            listener.roundStarted();
+        }
+        if (columnarRound == null) {
+            for (PersistableEvent event : savedRoundData.getActions()) {
+                replay(event, savedRoundData.getElapsedTimeInSeconds(event));
+            }
+        }
+        else {
+            try {
+                ColumnarRoundReader.Cursor cursor = columnarRound.cursor();
+                while (cursor.next()) {
+                    replay(toEvent(cursor), (cursor.getCreationTime() - roundStartTime) / 1000L);
+                }
+            } catch (IOException exception) {
+                throw new UncheckedIOException("Unable to read columnar round", exception);
+            }
+        }
+        for (RoundReplayListener listener : listeners) {
+            listener.roundEnded();
+        }
+    }
+
+    private void replay(PersistableEvent event, long secondsElapsed) {
+        for (RoundReplayListener listener : listeners) {
+            listener.beforeEvent(event, secondsElapsed);
+        }
+        apply(event);
+        numberOfEvents++;
+        for (RoundReplayListener listener : listeners) {
+            listener.afterEvent(event, secondsElapsed);
+        }
+    }
+
+    private PersistableEvent toEvent(ColumnarRoundReader.Cursor cursor) throws IOException {
+        switch (cursor.getType()) {
+            case ColumnarRoundWriter.MOVEMENT:
+                return new MovementEvent(cursor.getActor(), cursor.getDirection());
+            case ColumnarRoundWriter.TOKEN_COLLECTED:
+                return new TokenCollectedEvent(cursor.getActor(), new Point(cursor.getX(), cursor.getY()));
+            case ColumnarRoundWriter.RESOURCES_ADDED:
+                Set<Resource> resources = new LinkedHashSet<>();
+                for (int i = 0; i < cursor.getNumberOfResources(); i++) {
+                    resources.add(new Resource(cursor.getResourceX(i), cursor.getResourceY(i), cursor.getResourceAge(i)));
+                }
+                return new ResourcesAddedEvent(groupsById.get(cursor.getGroupId()), resources);
+            case ColumnarRoundWriter.RESOURCE_ADDED:
+                Resource resource = new Resource(cursor.getResourceX(0), cursor.getResourceY(0), cursor.getResourceAge(0));
+                return new ResourceAddedEvent(groupsById.get(cursor.getGroupId()), resource);
+            default:
+                return cursor.getEvent();
+        }
+    }
+
+    private GroupDataModel getGroup(GroupDataModel group) {
+        GroupDataModel replayedGroup = groupsById.get(group.getGroupId());
+        return (replayedGroup == null) ? group : replayedGroup;
+    }
+
+    private void apply(PersistableEvent event) {
+        if (event instanceof MovementEvent) {
+            MovementEvent movementEvent = (MovementEvent) event;
+            serverDataModel.moveClient(movementEvent.getId(), movementEvent.getDirection());
+        }
+        else if (event instanceof ClientPoseUpdate) {
+            ClientPoseUpdate clientPoseUpdate = (ClientPoseUpdate) event;
+            ClientData clientData = serverDataModel.getClientDataMap().get(event.getId());
+            if (clientData != null) {
+                clientData.setPosition(clientPoseUpdate.getPosition());
+            }
+        }
+        else if (event instanceof TokenCollectedEvent) {
+            TokenCollectedEvent tokenCollectedEvent = (TokenCollectedEvent) event;
+            GroupDataModel group = serverDataModel.getGroup(tokenCollectedEvent.getId());
+            if (group != null) {
+                group.removeResource(tokenCollectedEvent.getLocation());
+            }
+        }
+        else if (event instanceof ResourceAddedEvent) {
+            ResourceAddedEvent resourceAddedEvent = (ResourceAddedEvent) event;
+            getGroup(resourceAddedEvent.getGroup()).addResource(resourceAddedEvent.getResource());
+        }
+        else if (event instanceof ResourcesAddedEvent) {
+            ResourcesAddedEvent resourcesAddedEvent = (ResourcesAddedEvent) event;
+            getGroup(resourcesAddedEvent.getGroup()).addResources(resourcesAddedEvent.getResources());
+        }
+    }
+
+    /**
+     * Returns the round's save file data, null when the round is replayed from its columnar copy.
+     */
+    public SavedRoundData getSavedRoundData() {
+        return savedRoundData;
+    }
+
+    public ServerDataModel getServerDataModel() {
+        return serverDataModel;
+    }
+
+    public RoundConfiguration getRoundConfiguration() {
+        return roundConfiguration;
+    }
+
+    /**
+     * Returns the number of events applied so far.
+     */
+    public int getNumberOfEvents() {
+        return numberOfEvents;
+    }
+
+}
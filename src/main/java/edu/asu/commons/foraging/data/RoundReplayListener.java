@@ -0,0 +1,46 @@
+package edu.asu.commons.foraging.data;
+
+import edu.asu.commons.event.PersistableEvent;
+
+/**
+ * $Id$
+ *
+ * Receives a single round's events as a RoundReplay applies them to the round's data model, letting several
+ * analyses share one replay instead of each reapplying every event to its own copy of the data model.
+ *
+ * @author <a href='mailto:Allen.Lee@asu.edu'>Allen Lee</a>
+ * @version $Revision$
+ */
+public interface RoundReplayListener {
+
+    /**
+     * Invoked with the data model as it was persisted at the end of the round, before it is reset for the replay.
+     */
+    default void roundLoaded() {
+    }
+
+    /**
+     * Invoked once the data model has been reset to the start of the round.
+     */
+    default void roundStarted() {
+    }
+
+    /**
+     * Invoked before the event has been applied to the data model.
+     */
+    default void beforeEvent(PersistableEvent event, long secondsElapsed) {
+    }
+
+    /**
+     * Invoked after the event has been applied to the data model.
+     */
+    default void afterEvent(PersistableEvent event, long secondsElapsed) {
+    }
+
+    /**
+     * Invoked after the last event has been applied.
+     */
+    default void roundEnded() {
+    }
+
+}
@@ -12,7 +12,6 @@ import java.util.TreeSet;
 
 import edu.asu.commons.event.ChatRequest;
 import edu.asu.commons.event.PersistableEvent;
-import edu.asu.commons.experiment.SaveFileProcessor;
 import edu.asu.commons.experiment.SavedRoundData;
 import edu.asu.commons.foraging.event.RuleSelectedUpdateEvent;
 import edu.asu.commons.foraging.event.RuleVoteRequest;
@@ -30,14 +29,50 @@ import edu.asu.commons.net.Identifier;
  * @author <a href='mailto:allen.lee@asu.edu'>Allen Lee</a>
  * @version $Rev: 526 $
  */
-class SummaryProcessor extends SaveFileProcessor.Base {
+class SummaryProcessor extends ReplayProcessor {
     @Override
-    public void process(SavedRoundData savedRoundData, PrintWriter writer) {
-        ServerDataModel serverDataModel = (ServerDataModel) savedRoundData.getDataModel();
-        List<GroupDataModel> groups = serverDataModel.getOrderedGroups();
-        for (PersistableEvent event: savedRoundData.getActions()) {
-            if (event instanceof SanctionAppliedEvent) {
-                SanctionAppliedEvent sanctionEvent = (SanctionAppliedEvent) event;
+    public RoundReplayListener createListener(RoundReplay replay, PrintWriter writer) {
+        return new SummaryListener(replay, writer);
+    }
+
+    @Override
+    public boolean requiresSavedRoundData() {
+        return true;
+    }
+
+    private static class SummaryListener implements RoundReplayListener {
+        private final SavedRoundData savedRoundData;
+        private final ServerDataModel serverDataModel;
+        private final PrintWriter writer;
+        private final List<GroupDataModel> groups;
+        // the replay collects tokens again, so totals are taken from the data model as it was saved
+        private final Map<ClientData, Integer> totalTokens = new HashMap<ClientData, Integer>();
+        private final Map<GroupDataModel, Integer> resourceDistributionSizes = new HashMap<GroupDataModel, Integer>();
+        private final List<String> actionLines = new ArrayList<String>();
+        private final Map<Identifier, RuleVoteRequest> ruleVoteRequests = new HashMap<Identifier, RuleVoteRequest>();
+        private final ArrayList<RuleSelectedUpdateEvent> ruleSelectedEvents = new ArrayList<RuleSelectedUpdateEvent>();
+
+        SummaryListener(RoundReplay replay, PrintWriter writer) {
+            this.savedRoundData = replay.getSavedRoundData();
+            this.serverDataModel = replay.getServerDataModel();
+            this.writer = writer;
+            this.groups = serverDataModel.getOrderedGroups();
+        }
+
+        @Override
+        public void roundLoaded() {
+            for (GroupDataModel group: groups) {
+                resourceDistributionSizes.put(group, group.getResourceDistributionSize());
+                for (ClientData data: group.getClientDataMap().values()) {
+                    totalTokens.put(data, data.getTotalTokens());
+                }
+            }
+        }
+
+        @Override
+        public void beforeEvent(PersistableEvent action, long secondsElapsed) {
+            if (action instanceof SanctionAppliedEvent) {
+                SanctionAppliedEvent sanctionEvent = (SanctionAppliedEvent) action;
                 Identifier id = sanctionEvent.getId();
                 System.err.println("applying sanction costs and penalties to " + sanctionEvent.getId() + " -> " + sanctionEvent.getTarget());
                 ClientData source = serverDataModel.getClientData(id);
@@ -47,60 +82,12 @@ class SummaryProcessor extends SaveFileProcessor.Base {
                 target.addSanctionPenalties(sanctionEvent.getSanctionPenalty());
                 System.err.println("penalties on client data are now " + target.getSanctionPenalties());
             }
-        }
-
-        writer.println("Participant, Group, Total Cumulative Tokens, Sanction costs, Sanction penalties");
-        for (GroupDataModel group: groups) {
-            int totalTokensHarvested = 0;
-            ArrayList<ClientData> clientDataList = new ArrayList<ClientData>(group.getClientDataMap().values());
-            Collections.sort(clientDataList, new Comparator<ClientData>() {
-            	@Override
-            	public int compare(ClientData a, ClientData b) {
-            		return Integer.valueOf(a.getAssignedNumber()).compareTo(b.getAssignedNumber());
-            	}
-            });
-            for (ClientData data : clientDataList) {
-                writer.println(String.format("%s, %s, %s, %s, %s", data, group, data.getTotalTokens(), data.getSanctionCosts(), data.getSanctionPenalties()));
-                totalTokensHarvested += data.getTotalTokens();
-            }
-            writer.println(String.format("Group %s, %s, %s", group, group.getResourceDistributionSize(), totalTokensHarvested));
-        }
-        Map<GroupDataModel, SortedSet<ChatRequest>> chatRequestMap = new HashMap<GroupDataModel, SortedSet<ChatRequest>>();
-        SortedSet<ChatRequest> allChatRequests = savedRoundData.getChatRequests();
-        if (! allChatRequests.isEmpty()) {
-            ChatRequest first = allChatRequests.first();
-            for (ChatRequest request: savedRoundData.getChatRequests()) {
-                GroupDataModel group = serverDataModel.getGroup(request.getSource());
-                if (chatRequestMap.containsKey(group)) {
-                    chatRequestMap.get(group).add(request);
-                }
-                else {
-                    TreeSet<ChatRequest> chatRequests = new TreeSet<ChatRequest>();
-                    chatRequests.add(request);
-                    chatRequestMap.put(group, chatRequests);
-                }
-            }
-            for (GroupDataModel group: groups) {
-                SortedSet<ChatRequest> chatRequests = chatRequestMap.get(group);
-                if (chatRequests != null) {
-                    writer.println(group.toString());
-                    for (ChatRequest request: chatRequests) {
-                        writer.println(String.format("%s: %s (%s)", request.getSource(), request.toString(), (request.getCreationTime() - first.getCreationTime())/1000L));
-                    }
-                }
-            }
-        }
-        writer.println("=========================================");
-        writer.println("Time, Participant, Token Collected?, Chat");
-        Map<Identifier, RuleVoteRequest> ruleVoteRequests = new HashMap<Identifier, RuleVoteRequest>();
-        ArrayList<RuleSelectedUpdateEvent> ruleSelectedEvents = new ArrayList<RuleSelectedUpdateEvent>();
-        for (PersistableEvent action: savedRoundData.getActions()) {
-            if (action instanceof ChatRequest) {
-                writer.println(String.format("%s, %s, %s, %s", 
+            else if (action instanceof ChatRequest) {
+                actionLines.add(String.format("%s, %s, %s, %s", 
                         savedRoundData.toSecondString(action), action.getId(), 0, action.toString()));
             }
             else if (action instanceof TokenCollectedEvent) {
-                writer.println(String.format("%s, %s, %s", 
+                actionLines.add(String.format("%s, %s, %s", 
                         savedRoundData.toSecondString(action), action.getId(), "token collected"));
             }
             else if (action instanceof RuleVoteRequest) {
@@ -110,12 +97,12 @@ class SummaryProcessor extends SaveFileProcessor.Base {
                 ruleSelectedEvents.add((RuleSelectedUpdateEvent) action);
             }
         }
-        if (! ruleVoteRequests.isEmpty()) {
-            writer.println("=== Selected rules ===");
-            for (RuleSelectedUpdateEvent event: ruleSelectedEvents) {
-                writer.println(event.toString());
-            }
+
+        @Override
+        public void roundEnded() {
+            writer.println("Participant, Group, Total Cumulative Tokens, Sanction costs, Sanction penalties");
             for (GroupDataModel group: groups) {
+                int totalTokensHarvested = 0;
                 ArrayList<ClientData> clientDataList = new ArrayList<ClientData>(group.getClientDataMap().values());
                 Collections.sort(clientDataList, new Comparator<ClientData>() {
                     @Override
@@ -123,17 +110,68 @@ class SummaryProcessor extends SaveFileProcessor.Base {
                         return Integer.valueOf(a.getAssignedNumber()).compareTo(b.getAssignedNumber());
                     }
                 });
-                
-                writer.println("=== Voting results for " + group.toString() + "===");
-                for (ClientData data: clientDataList) {
-                    RuleVoteRequest request = ruleVoteRequests.get(data.getId());
-                    writer.println(String.format("%s, %s", data.getId(), request.getRule()));
+                for (ClientData data : clientDataList) {
+                    int tokens = totalTokens.get(data);
+                    writer.println(String.format("%s, %s, %s, %s, %s", data, group, tokens, data.getSanctionCosts(), data.getSanctionPenalties()));
+                    totalTokensHarvested += tokens;
+                }
+                writer.println(String.format("Group %s, %s, %s", group, resourceDistributionSizes.get(group), totalTokensHarvested));
+            }
+            Map<GroupDataModel, SortedSet<ChatRequest>> chatRequestMap = new HashMap<GroupDataModel, SortedSet<ChatRequest>>();
+            SortedSet<ChatRequest> allChatRequests = savedRoundData.getChatRequests();
+            if (! allChatRequests.isEmpty()) {
+                ChatRequest first = allChatRequests.first();
+                for (ChatRequest request: savedRoundData.getChatRequests()) {
+                    GroupDataModel group = serverDataModel.getGroup(request.getSource());
+                    if (chatRequestMap.containsKey(group)) {
+                        chatRequestMap.get(group).add(request);
+                    }
+                    else {
+                        TreeSet<ChatRequest> chatRequests = new TreeSet<ChatRequest>();
+                        chatRequests.add(request);
+                        chatRequestMap.put(group, chatRequests);
+                    }
+                }
+                for (GroupDataModel group: groups) {
+                    SortedSet<ChatRequest> chatRequests = chatRequestMap.get(group);
+                    if (chatRequests != null) {
+                        writer.println(group.toString());
+                        for (ChatRequest request: chatRequests) {
+                            writer.println(String.format("%s: %s (%s)", request.getSource(), request.toString(), (request.getCreationTime() - first.getCreationTime())/1000L));
+                        }
+                    }
+                }
+            }
+            writer.println("=========================================");
+            writer.println("Time, Participant, Token Collected?, Chat");
+            for (String line: actionLines) {
+                writer.println(line);
+            }
+            if (! ruleVoteRequests.isEmpty()) {
+                writer.println("=== Selected rules ===");
+                for (RuleSelectedUpdateEvent event: ruleSelectedEvents) {
+                    writer.println(event.toString());
+                }
+                for (GroupDataModel group: groups) {
+                    ArrayList<ClientData> clientDataList = new ArrayList<ClientData>(group.getClientDataMap().values());
+                    Collections.sort(clientDataList, new Comparator<ClientData>() {
+                        @Override
+                        public int compare(ClientData a, ClientData b) {
+                            return Integer.valueOf(a.getAssignedNumber()).compareTo(b.getAssignedNumber());
+                        }
+                    });
+
+                    writer.println("=== Voting results for " + group.toString() + "===");
+                    for (ClientData data: clientDataList) {
+                        RuleVoteRequest request = ruleVoteRequests.get(data.getId());
+                        writer.println(String.format("%s, %s", data.getId(), request.getRule()));
+                    }
+
                 }
-                
             }
         }
     }
-    
+
     @Override
     public String getOutputFileExtension() {
         return "-summary.txt";
@@ -0,0 +1,55 @@
+package edu.asu.commons.foraging.event;
+
+import java.util.Arrays;
+import java.util.List;
+
+import edu.asu.commons.event.AbstractEvent;
+import edu.asu.commons.event.ClientRequest;
+import edu.asu.commons.foraging.model.Direction;
+import edu.asu.commons.net.Identifier;
+
+/**
+ * $Id$
+ *
+ * Several consecutive ClientMovementRequests from the same client coalesced into one message. The server applies the
+ * moves in order within the same tick and acknowledges the sequence number of the last one.
+ *
+ * @author <a href='mailto:Allen.Lee@asu.edu'>Allen Lee</a>
+ * @version $Revision$
+ */
+public class ClientMovementBatchRequest extends AbstractEvent implements ClientRequest {
+
+    private static final long serialVersionUID = 3188540245671350264L;
+
+    private final Direction[] directions;
+
+    private final int sequenceNumber;
+
+    public ClientMovementBatchRequest(Identifier source, List<ClientMovementRequest> requests) {
+        super(source);
+        directions = new Direction[requests.size()];
+        int lastSequenceNumber = 0;
+        for (int i = 0; i < directions.length; i++) {
+            ClientMovementRequest request = requests.get(i);
+            directions[i] = request.getDirection();
+            lastSequenceNumber = Math.max(lastSequenceNumber, request.getSequenceNumber());
+        }
+        this.sequenceNumber = lastSequenceNumber;
+    }
+
+    public List<Direction> getDirections() {
+        return Arrays.asList(directions);
+    }
+
+    /**
+     * Returns the sequence number of the last move in this batch, 0 if none of them were tracked.
+     */
+    public int getSequenceNumber() {
+        return sequenceNumber;
+    }
+
+    public String toString() {
+        return "Client batched update: " + getId() + "\n\tDirections: " + Arrays.toString(directions);
+    }
+
+}
@@ -24,6 +24,9 @@ public class ClientMovementRequest extends AbstractEvent implements ClientReques
     private static final long serialVersionUID = -871452113459811998L;
 
     private final Direction direction;
+
+    // assigned by the client so the server can acknowledge the moves it has applied, 0 if the move isn't tracked
+    private final int sequenceNumber;
     
     private Point position;
 
@@ -36,14 +39,23 @@ public class ClientMovementRequest extends AbstractEvent implements ClientReques
     }
 
     public ClientMovementRequest(Identifier source, Direction direction) {
+        this(source, direction, 0);
+    }
+
+    public ClientMovementRequest(Identifier source, Direction direction, int sequenceNumber) {
         super(source);
         this.direction = direction;
+        this.sequenceNumber = sequenceNumber;
     }
 
     public Direction getDirection() {
         return direction;
     }
 
+    public int getSequenceNumber() {
+        return sequenceNumber;
+    }
+
     public String toString() {
         return "Client update: " + getId() + "\n\tDirection: " + direction;
     }
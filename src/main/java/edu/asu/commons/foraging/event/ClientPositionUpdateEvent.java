@@ -1,23 +1,33 @@
 package edu.asu.commons.foraging.event;
 
 import java.awt.Point;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.LinkedList;
 import java.util.Map;
 import java.util.Queue;
+import java.util.function.IntFunction;
 
 import edu.asu.commons.event.AbstractEvent;
 import edu.asu.commons.foraging.model.ClientData;
 import edu.asu.commons.foraging.model.Resource;
+import edu.asu.commons.foraging.util.VarInt;
 import edu.asu.commons.net.Identifier;
 
 
 
 /**
  * $Id$
- * 
+ *
  * Only contains the differences between rounds since this event is sent quite frequently.
- * 
- * FIXME: optimize for space further if possible.
- * 
+ *
+ * Uses a compact binary encoding instead of default serialization. Everything that is the same for the whole group
+ * lives in a GroupUpdateFrame that is encoded once per tick and shared by all of the group's events, followed by
+ * a small per-client trailer with the collected tokens and latest sanctions for this client and the sequence number
+ * of the last ClientMovementRequest the server applied for it, so the client can reconcile its predicted moves. The receiving client
+ * must call resolveActors() before using getClientTokens() or getClientPositions().
+ *
  * @author Deepali Bhagvat
  * @author Allen Lee
  * @version $Revision$
@@ -26,73 +36,134 @@ public class ClientPositionUpdateEvent extends AbstractEvent {
 
     private static final long serialVersionUID = -128693557750400520L;
 
-    private final Point[] collectedTokenPositions;
-    private final Resource[] addedResources;
-    private final Resource[] removedResources;
-    // FIXME: merge these two using a Pair
-    private final Map<Identifier, Integer> clientTokens;
-    private final Map<Identifier, Point> clientPositions;
-//    private final List<Point> collectedTokens;
-    private final Queue<RealTimeSanctionRequest> latestSanctions;
-    
-    private final long timeLeft;
-    
-    public ClientPositionUpdateEvent(ClientData data, 
-            Resource[] addedResources, Resource[] removedResources, 
+    private final int sequenceNumber;
+
+    private transient GroupUpdateFrame frame;
+    private transient Point[] collectedTokenPositions;
+    private transient Queue<RealTimeSanctionRequest> latestSanctions;
+    private transient int lastMovementSequenceNumber;
+
+    public ClientPositionUpdateEvent(ClientData data,
+            Resource[] addedResources, Resource[] removedResources,
             Map<Identifier, Integer> clientTokens,
-            Map<Identifier, Point> clientPositions, 
+            Map<Identifier, Point> clientPositions,
+            Map<Identifier, Integer> actorNumbers,
             long timeLeft) {
+        this(data, new GroupUpdateFrame(addedResources, removedResources, clientTokens, clientPositions, actorNumbers, timeLeft));
+    }
+
+    public ClientPositionUpdateEvent(ClientData data, GroupUpdateFrame frame) {
         super(data.getId());
-        this.addedResources = addedResources;
-        this.removedResources = removedResources;
-        this.clientTokens = clientTokens;
-        this.clientPositions = clientPositions;
-        this.timeLeft = timeLeft;
-        this.latestSanctions = data.getLatestSanctions();
+        this.frame = frame;
+        this.sequenceNumber = data.nextUpdateSequenceNumber();
+        // copy since the client's sanctions and collected tokens are reset right after this event is transmitted.
+        this.latestSanctions = new LinkedList<>(data.getLatestSanctions());
         this.collectedTokenPositions = data.getCollectedTokenPositions().toArray(new Point[0]);
+        this.lastMovementSequenceNumber = data.getLastMovementSequenceNumber();
+    }
+
+    /**
+     * @see GroupUpdateFrame#resolveActors(IntFunction)
+     */
+    public void resolveActors(IntFunction<Identifier> actorIdentifiers) {
+        frame.resolveActors(actorIdentifiers);
+    }
+
+    public int getSequenceNumber() {
+        return sequenceNumber;
+    }
+
+    /**
+     * Returns the sequence number of the last ClientMovementRequest from this client the server had applied when
+     * this update was created.
+     */
+    public int getLastMovementSequenceNumber() {
+        return lastMovementSequenceNumber;
     }
 
     public int getCurrentTokens() {
         return getCurrentTokens( getId() );
     }
-    
+
     public int getCurrentTokens(Identifier id) {
-        return clientTokens.get(id);
+        return getClientTokens().get(id);
     }
-    
+
     public Queue<RealTimeSanctionRequest> getLatestSanctions() {
         return latestSanctions;
     }
 
     public Resource[] getAddedTokens() {
-        return addedResources;
+        return frame.getAddedResources();
     }
 
     public Resource[] getRemovedTokens() {
-        return removedResources;
+        return frame.getRemovedResources();
     }
-    
+
     public Point getClientPosition() {
         return getClientPosition(id);
     }
 
     public Point getClientPosition(Identifier id) {
-        return clientPositions.get(id);
+        return getClientPositions().get(id);
     }
-    
+
     public long getTimeLeft() {
-        return timeLeft;
+        return frame.getTimeLeft();
     }
 
     public Map<Identifier, Point> getClientPositions() {
-        return clientPositions;
+        return frame.getClientPositions();
     }
 
     public Map<Identifier, Integer> getClientTokens() {
-        return clientTokens;
+        return frame.getClientTokens();
     }
 
     public Point[] getCollectedTokenPositions() {
         return collectedTokenPositions;
     }
+
+    /**
+     * Returns the size in bytes of this event's encoded group update, the bulk of what this event puts on the wire.
+     */
+    public int getEncodedFrameSize() {
+        return frame.toByteArray().length;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        byte[] encodedFrame = frame.toByteArray();
+        VarInt.writeVarInt(out, encodedFrame.length);
+        out.write(encodedFrame);
+        VarInt.writeVarInt(out, collectedTokenPositions.length);
+        for (Point point : collectedTokenPositions) {
+            VarInt.writeVarInt(out, point.x);
+            VarInt.writeVarInt(out, point.y);
+        }
+        // sanctions are rare, use default serialization for them
+        VarInt.writeVarInt(out, latestSanctions.size());
+        for (RealTimeSanctionRequest sanctionRequest : latestSanctions) {
+            out.writeObject(sanctionRequest);
+        }
+        VarInt.writeVarInt(out, lastMovementSequenceNumber);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        byte[] encodedFrame = new byte[VarInt.readVarInt(in)];
+        in.readFully(encodedFrame);
+        frame = GroupUpdateFrame.decode(encodedFrame);
+        collectedTokenPositions = new Point[VarInt.readVarInt(in)];
+        for (int i = 0; i < collectedTokenPositions.length; i++) {
+            collectedTokenPositions[i] = new Point(VarInt.readVarInt(in), VarInt.readVarInt(in));
+        }
+        int numberOfSanctions = VarInt.readVarInt(in);
+        latestSanctions = new LinkedList<>();
+        for (int i = 0; i < numberOfSanctions; i++) {
+            latestSanctions.add((RealTimeSanctionRequest) in.readObject());
+        }
+        lastMovementSequenceNumber = VarInt.readVarInt(in);
+    }
 }
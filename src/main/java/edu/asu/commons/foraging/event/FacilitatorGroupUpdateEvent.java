@@ -0,0 +1,70 @@
+package edu.asu.commons.foraging.event;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import edu.asu.commons.event.AbstractEvent;
+import edu.asu.commons.foraging.util.VarInt;
+import edu.asu.commons.net.Identifier;
+
+/**
+ * $Id$
+ *
+ * Live round update for the facilitator. The facilitator receives a full ServerDataModel snapshot in a
+ * FacilitatorUpdateEvent when the round starts and these events afterwards, each carrying one GroupUpdateFrame per
+ * group with the tokens added and removed and the actors that moved or whose token totals changed since the
+ * previous update.
+ *
+ * @author <a href='mailto:Allen.Lee@asu.edu'>Allen Lee</a>
+ * @version $Revision$
+ */
+public class FacilitatorGroupUpdateEvent extends AbstractEvent {
+
+    private static final long serialVersionUID = 2937206715530384734L;
+
+    private final long timeLeft;
+
+    // keyed by group id
+    private transient Map<Long, GroupUpdateFrame> groupUpdates;
+
+    public FacilitatorGroupUpdateEvent(Identifier id, Map<Long, GroupUpdateFrame> groupUpdates, long timeLeft) {
+        super(id);
+        this.groupUpdates = groupUpdates;
+        this.timeLeft = timeLeft;
+    }
+
+    public Map<Long, GroupUpdateFrame> getGroupUpdates() {
+        return groupUpdates;
+    }
+
+    public long getTimeLeft() {
+        return timeLeft;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        VarInt.writeVarInt(out, groupUpdates.size());
+        for (Map.Entry<Long, GroupUpdateFrame> entry : groupUpdates.entrySet()) {
+            VarInt.writeVarLong(out, entry.getKey());
+            byte[] encodedFrame = entry.getValue().toByteArray();
+            VarInt.writeVarInt(out, encodedFrame.length);
+            out.write(encodedFrame);
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        int numberOfGroups = VarInt.readVarInt(in);
+        groupUpdates = new LinkedHashMap<>();
+        for (int i = 0; i < numberOfGroups; i++) {
+            long groupId = VarInt.readVarLong(in);
+            byte[] encodedFrame = new byte[VarInt.readVarInt(in)];
+            in.readFully(encodedFrame);
+            groupUpdates.put(groupId, GroupUpdateFrame.decode(encodedFrame));
+        }
+    }
+
+}
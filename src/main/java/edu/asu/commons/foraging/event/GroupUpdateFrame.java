@@ -0,0 +1,216 @@
+package edu.asu.commons.foraging.event;
+
+import java.awt.Point;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import edu.asu.commons.foraging.model.Resource;
+import edu.asu.commons.foraging.util.VarInt;
+import edu.asu.commons.net.Identifier;
+
+/**
+ * $Id$
+ *
+ * The part of a tick's position update that is the same for every member of a group: added and removed tokens,
+ * actor positions and token counts and the time left in the round. The frame is encoded once into a byte array
+ * that each member's ClientPositionUpdateEvent copies onto the wire, so the cost of encoding it doesn't grow with
+ * the size of the group.
+ *
+ * Token positions are packed into delta encoded cell indices and actor positions and token counts are keyed by
+ * assigned (or bot) number instead of Identifier, all as varints. The receiving client must call resolveActors()
+ * to map actor numbers back to Identifiers before using getClientTokens() or getClientPositions().
+ *
+ * @author <a href='mailto:Allen.Lee@asu.edu'>Allen Lee</a>
+ * @version $Revision$
+ */
+public class GroupUpdateFrame {
+
+    private final long timeLeft;
+    private final Resource[] addedResources;
+    private final Resource[] removedResources;
+
+    // actor numbers, positions and tokens, used on the wire in place of the Identifier keyed maps
+    private final int[] actorNumbers;
+    private final Point[] actorPositions;
+    private final int[] actorTokens;
+
+    private Map<Identifier, Integer> clientTokens;
+    private Map<Identifier, Point> clientPositions;
+
+    private byte[] encoded;
+
+    public GroupUpdateFrame(Resource[] addedResources, Resource[] removedResources,
+            Map<Identifier, Integer> clientTokens,
+            Map<Identifier, Point> clientPositions,
+            Map<Identifier, Integer> actorNumbers,
+            long timeLeft) {
+        this.addedResources = addedResources;
+        this.removedResources = removedResources;
+        this.clientTokens = clientTokens;
+        this.clientPositions = clientPositions;
+        this.timeLeft = timeLeft;
+        int size = clientPositions.size();
+        int[] numbers = new int[size];
+        Point[] positions = new Point[size];
+        int[] tokens = new int[size];
+        int index = 0;
+        for (Map.Entry<Identifier, Point> entry : clientPositions.entrySet()) {
+            Integer actorNumber = actorNumbers.get(entry.getKey());
+            Integer actorTokenCount = clientTokens.get(entry.getKey());
+            if (actorNumber == null || entry.getValue() == null) {
+                continue;
+            }
+            numbers[index] = actorNumber;
+            positions[index] = entry.getValue();
+            tokens[index] = (actorTokenCount == null) ? 0 : actorTokenCount;
+            index++;
+        }
+        this.actorNumbers = Arrays.copyOf(numbers, index);
+        this.actorPositions = Arrays.copyOf(positions, index);
+        this.actorTokens = Arrays.copyOf(tokens, index);
+    }
+
+    private GroupUpdateFrame(long timeLeft, Resource[] addedResources, Resource[] removedResources,
+            int[] actorNumbers, Point[] actorPositions, int[] actorTokens) {
+        this.timeLeft = timeLeft;
+        this.addedResources = addedResources;
+        this.removedResources = removedResources;
+        this.actorNumbers = actorNumbers;
+        this.actorPositions = actorPositions;
+        this.actorTokens = actorTokens;
+    }
+
+    /**
+     * Rebuilds the Identifier keyed token and position maps on the receiving side, using the given function to look
+     * up the Identifier for an actor number. Actors that can't be resolved are skipped.
+     */
+    public void resolveActors(IntFunction<Identifier> actorIdentifiers) {
+        Map<Identifier, Integer> tokens = new HashMap<>();
+        Map<Identifier, Point> positions = new HashMap<>();
+        for (int i = 0; i < actorNumbers.length; i++) {
+            Identifier actorId = actorIdentifiers.apply(actorNumbers[i]);
+            if (actorId != null) {
+                tokens.put(actorId, actorTokens[i]);
+                positions.put(actorId, actorPositions[i]);
+            }
+        }
+        clientTokens = tokens;
+        clientPositions = positions;
+    }
+
+    public long getTimeLeft() {
+        return timeLeft;
+    }
+
+    public Resource[] getAddedResources() {
+        return addedResources;
+    }
+
+    public Resource[] getRemovedResources() {
+        return removedResources;
+    }
+
+    public Map<Identifier, Integer> getClientTokens() {
+        return clientTokens;
+    }
+
+    public Map<Identifier, Point> getClientPositions() {
+        return clientPositions;
+    }
+
+    /**
+     * Returns this frame's wire encoding, encoding it on first use. The returned array is shared and must not be
+     * modified.
+     */
+    public synchronized byte[] toByteArray() {
+        if (encoded == null) {
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + 4 * (addedResources.length + removedResources.length + 4 * actorNumbers.length));
+                encode(new DataOutputStream(bytes));
+                encoded = bytes.toByteArray();
+            } catch (IOException exception) {
+                // can't happen when writing to a byte array
+                throw new UncheckedIOException(exception);
+            }
+        }
+        return encoded;
+    }
+
+    private void encode(DataOutputStream out) throws IOException {
+        VarInt.writeVarLong(out, timeLeft);
+        // cell indices are relative to the smallest width that holds every token in this frame
+        int width = 1;
+        for (Resource resource : addedResources) {
+            width = Math.max(width, resource.getX() + 1);
+        }
+        for (Resource resource : removedResources) {
+            width = Math.max(width, resource.getX() + 1);
+        }
+        VarInt.writeVarInt(out, width);
+        Resource[] sortedAddedResources = addedResources.clone();
+        final int rowWidth = width;
+        Arrays.sort(sortedAddedResources, (a, b) -> Integer.compare(toCellIndex(a, rowWidth), toCellIndex(b, rowWidth)));
+        VarInt.writeDeltas(out, toCellIndices(sortedAddedResources, width));
+        for (Resource resource : sortedAddedResources) {
+            VarInt.writeVarInt(out, resource.getAge());
+        }
+        VarInt.writeDeltas(out, toCellIndices(removedResources, width));
+        VarInt.writeVarInt(out, actorNumbers.length);
+        for (int i = 0; i < actorNumbers.length; i++) {
+            VarInt.writeVarInt(out, actorNumbers[i]);
+            VarInt.writeVarInt(out, actorPositions[i].x);
+            VarInt.writeVarInt(out, actorPositions[i].y);
+            VarInt.writeVarInt(out, actorTokens[i]);
+        }
+    }
+
+    public static GroupUpdateFrame decode(byte[] encoded) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded));
+        long timeLeft = VarInt.readVarLong(in);
+        int width = VarInt.readVarInt(in);
+        int[] addedIndices = VarInt.readDeltas(in);
+        Resource[] addedResources = new Resource[addedIndices.length];
+        for (int i = 0; i < addedIndices.length; i++) {
+            addedResources[i] = new Resource(addedIndices[i] % width, addedIndices[i] / width, VarInt.readVarInt(in));
+        }
+        int[] removedIndices = VarInt.readDeltas(in);
+        Resource[] removedResources = new Resource[removedIndices.length];
+        for (int i = 0; i < removedIndices.length; i++) {
+            removedResources[i] = new Resource(removedIndices[i] % width, removedIndices[i] / width, 0);
+        }
+        int numberOfActors = VarInt.readVarInt(in);
+        int[] actorNumbers = new int[numberOfActors];
+        Point[] actorPositions = new Point[numberOfActors];
+        int[] actorTokens = new int[numberOfActors];
+        for (int i = 0; i < numberOfActors; i++) {
+            actorNumbers[i] = VarInt.readVarInt(in);
+            actorPositions[i] = new Point(VarInt.readVarInt(in), VarInt.readVarInt(in));
+            actorTokens[i] = VarInt.readVarInt(in);
+        }
+        GroupUpdateFrame frame = new GroupUpdateFrame(timeLeft, addedResources, removedResources, actorNumbers, actorPositions, actorTokens);
+        frame.encoded = encoded;
+        return frame;
+    }
+
+    private static int toCellIndex(Resource resource, int width) {
+        return resource.getY() * width + resource.getX();
+    }
+
+    private static int[] toCellIndices(Resource[] resources, int width) {
+        int[] indices = new int[resources.length];
+        for (int i = 0; i < resources.length; i++) {
+            indices[i] = toCellIndex(resources[i], width);
+        }
+        Arrays.sort(indices);
+        return indices;
+    }
+
+}
@@ -21,6 +21,7 @@ import edu.asu.commons.foraging.conf.RoundConfiguration;
 import edu.asu.commons.foraging.conf.ServerConfiguration;
 import edu.asu.commons.foraging.event.BeginChatRoundRequest;
 import edu.asu.commons.foraging.event.FacilitatorEndRoundEvent;
+import edu.asu.commons.foraging.event.FacilitatorGroupUpdateEvent;
 import edu.asu.commons.foraging.event.FacilitatorSanctionUpdateEvent;
 import edu.asu.commons.foraging.event.FacilitatorUpdateEvent;
 import edu.asu.commons.foraging.event.ImposeStrategyEvent;
@@ -84,6 +85,16 @@ public class Facilitator extends BaseFacilitator<ServerConfiguration, RoundConfi
                 } else {
                     serverDataModel = event.getServerDataModel();
                 }
+                facilitatorWindow.displayGroups(serverDataModel);
+            }
+        });
+        addEventProcessor(new EventTypeProcessor<FacilitatorGroupUpdateEvent>(FacilitatorGroupUpdateEvent.class) {
+            public void handle(FacilitatorGroupUpdateEvent event) {
+                if (serverDataModel == null) {
+                    // missed this round's snapshot, nothing to apply the diffs to
+                    return;
+                }
+                facilitatorWindow.updateGroups(event.getGroupUpdates(), event.getTimeLeft());
             }
         });
         addEventProcessor(new EventTypeProcessor<FacilitatorEndRoundEvent>(FacilitatorEndRoundEvent.class) {
@@ -2,10 +2,13 @@ package edu.asu.commons.foraging.facilitator;
 
 import java.awt.BorderLayout;
 import java.awt.Dimension;
+import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.jnlp.ClipboardService;
@@ -23,9 +26,11 @@ import javax.swing.text.BadLocationException;
 
 import edu.asu.commons.foraging.conf.RoundConfiguration;
 import edu.asu.commons.foraging.event.FacilitatorEndRoundEvent;
+import edu.asu.commons.foraging.event.GroupUpdateFrame;
 import edu.asu.commons.foraging.event.QuizCompletedEvent;
 import edu.asu.commons.foraging.event.TrustGameResultsFacilitatorEvent;
 import edu.asu.commons.foraging.event.TrustGameSubmissionEvent;
+import edu.asu.commons.foraging.model.GroupDataModel;
 import edu.asu.commons.foraging.model.ServerDataModel;
 import edu.asu.commons.foraging.rules.Strategy;
 import edu.asu.commons.foraging.rules.iu.ForagingStrategy;
@@ -53,6 +58,10 @@ public class FacilitatorWindow extends JPanel {
 
     private JScrollPane informationScrollPane;
 
+    private JSplitPane splitPane;
+
+    private final List<GroupView> groupViews = new ArrayList<>();
+
     private JEditorPane informationEditorPane;
 
     private JLabel timeLeftLabel;
@@ -327,7 +336,7 @@ public class FacilitatorWindow extends JPanel {
         messageEditorPane = UserInterfaceUtils.createInstructionsEditorPane();
         JScrollPane messageScrollPane = new JScrollPane(messageEditorPane);
         messagePanel.add(messageScrollPane, BorderLayout.CENTER);
-        JSplitPane splitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT, informationScrollPane, messagePanel);
+        splitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT, informationScrollPane, messagePanel);
         add(splitPane, BorderLayout.CENTER);
         double proportion = 0.7d;
         splitPane.setDividerLocation(proportion);
@@ -350,6 +359,55 @@ public class FacilitatorWindow extends JPanel {
         return facilitator;
     }
 
+    /**
+     * Replaces the instructions with a live view of every group for the duration of the round.
+     */
+    public void displayGroups(final ServerDataModel serverDataModel) {
+        SwingUtilities.invokeLater(new Runnable() {
+            public void run() {
+                RoundConfiguration roundConfiguration = serverDataModel.getRoundConfiguration();
+                List<GroupDataModel> groups = serverDataModel.getOrderedGroups();
+                JPanel groupsPanel = new JPanel(new GridLayout(0, Math.max(1, (int) Math.ceil(Math.sqrt(groups.size())))));
+                groupViews.clear();
+                for (GroupDataModel group : groups) {
+                    GroupView groupView = new GroupView(new Dimension(300, 300), group);
+                    groupView.setup(roundConfiguration);
+                    groupView.setIncrementalRendering(roundConfiguration.isIncrementalRenderingEnabled());
+                    groupView.setToolTipText(group.toString());
+                    groupViews.add(groupView);
+                    groupsPanel.add(groupView);
+                }
+                timeLeftLabel = new JLabel("Time left: " + (roundConfiguration.getRoundDuration().getTimeLeft() / 1000));
+                JPanel gamePanel = new JPanel(new BorderLayout());
+                gamePanel.add(timeLeftLabel, BorderLayout.NORTH);
+                gamePanel.add(new JScrollPane(groupsPanel), BorderLayout.CENTER);
+                splitPane.setTopComponent(gamePanel);
+            }
+        });
+    }
+
+    /**
+     * Applies the given group updates, keyed by group id, to the groups on display, repaints what they changed and
+     * updates the time left. Runs on the event dispatch thread since the group views paint the same groups.
+     */
+    public void updateGroups(final Map<Long, GroupUpdateFrame> groupUpdates, final long timeLeft) {
+        SwingUtilities.invokeLater(new Runnable() {
+            public void run() {
+                for (GroupView groupView : groupViews) {
+                    GroupDataModel group = groupView.getGroupDataModel();
+                    GroupUpdateFrame frame = groupUpdates.get(group.getGroupId());
+                    if (frame != null) {
+                        group.applyUpdate(frame);
+                        groupView.repaintChangedCells(frame);
+                    }
+                }
+                if (timeLeftLabel != null) {
+                    timeLeftLabel.setText("Time left: " + (timeLeft / 1000));
+                }
+            }
+        });
+    }
+
     public void updateWindow(long timeLeft) {
         timeLeftLabel.setText("Time left: " + (timeLeft / 1000));
         repaint();
@@ -387,6 +445,12 @@ public class FacilitatorWindow extends JPanel {
     public void endRound(FacilitatorEndRoundEvent endRoundEvent) {
         System.out.println("Ending round: " + endRoundEvent);
         ServerDataModel serverDataModel = endRoundEvent.getServerDataModel();
+        SwingUtilities.invokeLater(new Runnable() {
+            public void run() {
+                groupViews.clear();
+                splitPane.setTopComponent(informationScrollPane);
+            }
+        });
         displayDebriefing(serverDataModel);
         completedQuizzes = 0;
         completedTrustGames = 0;
@@ -5,10 +5,16 @@ import java.awt.Dimension;
 import java.awt.FontMetrics;
 import java.awt.Graphics2D;
 import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
+import edu.asu.commons.foraging.event.GroupUpdateFrame;
 import edu.asu.commons.foraging.model.ClientData;
 import edu.asu.commons.foraging.model.GroupDataModel;
+import edu.asu.commons.foraging.model.Resource;
 import edu.asu.commons.foraging.ui.GridView;
+import edu.asu.commons.foraging.ui.SpriteAtlas.Sprite;
 
 /**
  * $Id$
@@ -24,6 +30,9 @@ public class GroupView extends GridView {
     private static final long serialVersionUID = -8972140468932621959L;
     
     private GroupDataModel groupDataModel;
+
+    // where participants were drawn by the last paint, only touched on the event dispatch thread
+    private List<Point> paintedPositions = new ArrayList<>();
     
     public GroupView(Dimension screenSize) {
         super(screenSize);
@@ -41,11 +50,13 @@ public class GroupView extends GridView {
         int characterHeight = fontMetrics.getAscent();
         int verticalCharacterSpacing = (int) ( (dh - characterHeight) / 2);
         int yOffset = characterHeight - verticalCharacterSpacing;
+        List<Point> positions = new ArrayList<>();
         for (ClientData clientData: groupDataModel.getClientDataMap().values()) {
             Point subjectLocation = clientData.getPosition();
+            positions.add(subjectLocation);
             int scaledX = scaleX(subjectLocation.x);
             int scaledY = scaleY(subjectLocation.y);
-            graphics2D.drawImage(scaledOtherSubjectImage, scaledX, scaledY, this);
+            drawSprite(graphics2D, Sprite.OTHER_SUBJECT, 0, scaledX, scaledY);
             // paint subject number
             graphics2D.setColor(Color.WHITE);
             String subjectNumber = String.valueOf( clientData.getAssignedNumber() );
@@ -55,11 +66,44 @@ public class GroupView extends GridView {
             int y = (int) (scaledY + yOffset);
             graphics2D.drawString(subjectNumber, x, y);
         }
+        paintedPositions = positions;
+    }
+
+    /**
+     * Repaints the cells changed by the given group update, which must already have been applied to the group: where
+     * tokens were added or removed and where participants were drawn last time and are now. Must be invoked on the
+     * event dispatch thread.
+     */
+    public void repaintChangedCells(GroupUpdateFrame frame) {
+        List<Point> cells = new ArrayList<>(paintedPositions);
+        for (Resource resource : frame.getAddedResources()) {
+            cells.add(resource.getPosition());
+        }
+        for (Resource resource : frame.getRemovedResources()) {
+            cells.add(resource.getPosition());
+        }
+        for (ClientData clientData : groupDataModel.getClientDataMap().values()) {
+            cells.add(clientData.getPosition());
+        }
+        repaintCells(cells);
     }
 
     @Override
     protected void paintTokens(Graphics2D graphics2D) {
-        super.paintCollection(groupDataModel.getResourcePositions(), graphics2D, scaledTokenImage);
+        super.paintCollection(groupDataModel.getResourcePositions(), graphics2D, Sprite.TOKEN, 0);
+    }
+
+    @Override
+    protected void paintTokens(Graphics2D graphics2D, Collection<Point> cells) {
+        for (Point cell : cells) {
+            if (groupDataModel.isResourceAt(cell)) {
+                drawSprite(graphics2D, Sprite.TOKEN, 0, scaleX(cell.x), scaleY(cell.y));
+            }
+        }
+    }
+
+    public GroupDataModel getGroupDataModel() {
+        return groupDataModel;
     }
 
     public void setGroupDataModel(GroupDataModel groupDataModel) {
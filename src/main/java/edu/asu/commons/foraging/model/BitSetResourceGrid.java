@@ -0,0 +1,271 @@
+package edu.asu.commons.foraging.model;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ResourceGrid backed by an occupancy BitSet and a parallel array of token ages, both indexed by
+ * <code>y * width + x</code>. Occupancy checks are a single word lookup and adding or removing tokens
+ * does not allocate.
+ *
+ * Also maintains the number of tokens in each cell's Moore neighborhood and the frontier of empty cells
+ * with at least one neighboring token, both updated incrementally as tokens are added and removed. Neither
+ * is serialized, they are rebuilt from the occupancy bits when the grid is read back in.
+ *
+ * @author <a href='mailto:Allen.Lee@asu.edu'>Allen Lee</a>
+ */
+public class BitSetResourceGrid implements ResourceGrid {
+
+    private static final long serialVersionUID = -2290147720418716735L;
+
+    private int width;
+    private int height;
+    private BitSet occupied;
+    private int[] ages;
+
+    private transient byte[] neighborCounts;
+    private transient BitSet frontier;
+
+    public BitSetResourceGrid() {
+        this(0, 0);
+    }
+
+    public BitSetResourceGrid(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.occupied = new BitSet(width * height);
+        this.ages = new int[width * height];
+        this.neighborCounts = new byte[width * height];
+        this.frontier = new BitSet(width * height);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public void ensureCapacity(int newWidth, int newHeight) {
+        if (newWidth <= width && newHeight <= height) {
+            return;
+        }
+        newWidth = Math.max(width, newWidth);
+        newHeight = Math.max(height, newHeight);
+        BitSet newOccupied = new BitSet(newWidth * newHeight);
+        int[] newAges = new int[newWidth * newHeight];
+        for (int index = occupied.nextSetBit(0); index >= 0; index = occupied.nextSetBit(index + 1)) {
+            int newIndex = (index / width) * newWidth + (index % width);
+            newOccupied.set(newIndex);
+            newAges[newIndex] = ages[index];
+        }
+        width = newWidth;
+        height = newHeight;
+        occupied = newOccupied;
+        ages = newAges;
+        rebuildNeighborhoods();
+    }
+
+    private void rebuildNeighborhoods() {
+        neighborCounts = new byte[width * height];
+        frontier = new BitSet(width * height);
+        for (int index = occupied.nextSetBit(0); index >= 0; index = occupied.nextSetBit(index + 1)) {
+            updateNeighborhood(getX(index), getY(index), 1);
+        }
+    }
+
+    /**
+     * Adjusts the neighbor counts of all cells surrounding (x, y) by delta and updates the frontier to match.
+     * The cell at (x, y) must already have been added to or removed from the occupancy bits.
+     */
+    private void updateNeighborhood(int x, int y, int delta) {
+        int startX = Math.max(x - 1, 0);
+        int endX = Math.min(x + 1, width - 1);
+        int startY = Math.max(y - 1, 0);
+        int endY = Math.min(y + 1, height - 1);
+        for (int neighborY = startY; neighborY <= endY; neighborY++) {
+            for (int neighborX = startX; neighborX <= endX; neighborX++) {
+                if (neighborX == x && neighborY == y) {
+                    continue;
+                }
+                int neighborIndex = toIndex(neighborX, neighborY);
+                int count = neighborCounts[neighborIndex] += delta;
+                if (!occupied.get(neighborIndex)) {
+                    frontier.set(neighborIndex, count > 0);
+                }
+            }
+        }
+        int index = toIndex(x, y);
+        frontier.set(index, !occupied.get(index) && neighborCounts[index] > 0);
+    }
+
+    private boolean contains(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    public boolean isResourceAt(int x, int y) {
+        return contains(x, y) && occupied.get(toIndex(x, y));
+    }
+
+    public boolean isResourceAt(Point position) {
+        return isResourceAt(position.x, position.y);
+    }
+
+    public int getAge(int x, int y) {
+        if (isResourceAt(x, y)) {
+            return ages[toIndex(x, y)];
+        }
+        return -1;
+    }
+
+    public void setAge(int x, int y, int age) {
+        if (isResourceAt(x, y)) {
+            ages[toIndex(x, y)] = age;
+        }
+    }
+
+    public boolean add(int x, int y, int age) {
+        if (x < 0 || y < 0) {
+            throw new IllegalArgumentException(String.format("Invalid resource position [%d, %d]", x, y));
+        }
+        ensureCapacity(x + 1, y + 1);
+        int index = toIndex(x, y);
+        boolean added = !occupied.get(index);
+        occupied.set(index);
+        ages[index] = age;
+        if (added) {
+            updateNeighborhood(x, y, 1);
+        }
+        return added;
+    }
+
+    public boolean add(Resource resource) {
+        return add(resource.getX(), resource.getY(), resource.getAge());
+    }
+
+    public boolean remove(int x, int y) {
+        if (isResourceAt(x, y)) {
+            int index = toIndex(x, y);
+            occupied.clear(index);
+            ages[index] = 0;
+            updateNeighborhood(x, y, -1);
+            return true;
+        }
+        return false;
+    }
+
+    public Resource get(int x, int y) {
+        if (isResourceAt(x, y)) {
+            return new Resource(x, y, ages[toIndex(x, y)]);
+        }
+        return null;
+    }
+
+    public int size() {
+        return occupied.cardinality();
+    }
+
+    public boolean isEmpty() {
+        return occupied.isEmpty();
+    }
+
+    public void clear() {
+        occupied.clear();
+        Arrays.fill(ages, 0);
+        Arrays.fill(neighborCounts, (byte) 0);
+        frontier.clear();
+    }
+
+    public void copyFrom(ResourceGrid grid) {
+        if (grid instanceof BitSetResourceGrid) {
+            BitSetResourceGrid other = (BitSetResourceGrid) grid;
+            width = other.width;
+            height = other.height;
+            occupied = (BitSet) other.occupied.clone();
+            ages = other.ages.clone();
+            neighborCounts = other.neighborCounts.clone();
+            frontier = (BitSet) other.frontier.clone();
+            return;
+        }
+        width = 0;
+        height = 0;
+        occupied = new BitSet();
+        ages = new int[0];
+        neighborCounts = new byte[0];
+        frontier = new BitSet();
+        ensureCapacity(grid.getWidth(), grid.getHeight());
+        for (int index = grid.nextResourceIndex(0); index >= 0; index = grid.nextResourceIndex(index + 1)) {
+            int x = grid.getX(index);
+            int y = grid.getY(index);
+            add(x, y, grid.getAge(x, y));
+        }
+    }
+
+    public ResourceGrid copy() {
+        BitSetResourceGrid copy = new BitSetResourceGrid();
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    public int toIndex(int x, int y) {
+        return y * width + x;
+    }
+
+    public int getX(int index) {
+        return index % width;
+    }
+
+    public int getY(int index) {
+        return index / width;
+    }
+
+    public int nextResourceIndex(int fromIndex) {
+        return occupied.nextSetBit(fromIndex);
+    }
+
+    public int getNeighboringResources(int x, int y) {
+        if (contains(x, y)) {
+            return neighborCounts[toIndex(x, y)];
+        }
+        return 0;
+    }
+
+    public int nextFrontierIndex(int fromIndex) {
+        return frontier.nextSetBit(fromIndex);
+    }
+
+    public Set<Point> getResourcePositions() {
+        Set<Point> positions = new HashSet<>();
+        for (int index = occupied.nextSetBit(0); index >= 0; index = occupied.nextSetBit(index + 1)) {
+            positions.add(new Point(getX(index), getY(index)));
+        }
+        return positions;
+    }
+
+    public Map<Point, Resource> toMap() {
+        Map<Point, Resource> resources = new HashMap<>();
+        for (int index = occupied.nextSetBit(0); index >= 0; index = occupied.nextSetBit(index + 1)) {
+            Resource resource = new Resource(getX(index), getY(index), ages[index]);
+            resources.put(resource.getPosition(), resource);
+        }
+        return resources;
+    }
+
+    private void readObject(ObjectInputStream objectInputStream) throws IOException, ClassNotFoundException {
+        objectInputStream.defaultReadObject();
+        rebuildNeighborhoods();
+    }
+
+    public String toString() {
+        return String.format("%d x %d resource grid with %d tokens", width, height, size());
+    }
+
+}
@@ -23,7 +23,7 @@ import edu.asu.commons.util.Duration;
  *
  * @author <a href='mailto:Allen.Lee@asu.edu'>Allen Lee</a>, Deepali Bhagvat
  */
-public class ClientData implements Serializable, Actor {
+public class ClientData implements Serializable, Actor, Cloneable {
 
     private static final long serialVersionUID = 5281922601551921005L;
 
@@ -66,6 +66,12 @@ public class ClientData implements Serializable, Actor {
     private ForagingStrategy votedRule;
     private ArrayList<String> trustGameLog = new ArrayList<>();
     private ArrayList<Point> collectedTokenPositions = new ArrayList<>();
+    // sequence number of the last ClientPositionUpdateEvent sent to this client
+    private transient int updateSequenceNumber;
+    // sequence number of the last ClientMovementRequest applied for this client, echoed back for client-side prediction
+    private int lastMovementSequenceNumber;
+    // the tokens this client has been told about when only sending it the tokens within its field of vision
+    private transient ResourceGrid knownResources;
 
     // String fields to be set and formatted for use in templates.
     private String grandTotalIncome;
@@ -106,6 +112,9 @@ public class ClientData implements Serializable, Actor {
 
     public void setPosition(Point3D position) {
         this.position = position;
+        if (groupDataModel != null) {
+            groupDataModel.actorMoved(this);
+        }
     }
 
     /**
@@ -169,6 +178,29 @@ public class ClientData implements Serializable, Actor {
         }
     }
 
+    /**
+     * Returns the server's record of the tokens this client has been told about, used for field of vision based
+     * interest management.
+     */
+    public ResourceGrid getKnownResources() {
+        if (knownResources == null) {
+            knownResources = new BitSetResourceGrid();
+        }
+        return knownResources;
+    }
+
+    public int nextUpdateSequenceNumber() {
+        return ++updateSequenceNumber;
+    }
+
+    public int getLastMovementSequenceNumber() {
+        return lastMovementSequenceNumber;
+    }
+
+    public void setLastMovementSequenceNumber(int lastMovementSequenceNumber) {
+        this.lastMovementSequenceNumber = lastMovementSequenceNumber;
+    }
+
     public void clearCollectedTokens() {
         synchronized (collectedTokenPositions) {
             collectedTokenPositions.clear();
@@ -334,6 +366,7 @@ public class ClientData implements Serializable, Actor {
      *
      */
     public void reset() {
+        knownResources = null;
         resetCurrentTokens();
         resetLatestSanctions();
         foragingRole = ForagingRole.HARVEST;
@@ -378,6 +411,20 @@ public class ClientData implements Serializable, Actor {
         this.groupDataModel = groupDataModel;
     }
 
+    /**
+     * Returns a shallow copy of this client that belongs to the given group instead, so that serializing the copy
+     * doesn't drag along this client's group.
+     */
+    public ClientData copyFor(GroupDataModel groupDataModel) {
+        try {
+            ClientData copy = (ClientData) clone();
+            copy.groupDataModel = groupDataModel;
+            return copy;
+        } catch (CloneNotSupportedException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
     public RegulationData getRegulationData() {
         return regulationData;
     }
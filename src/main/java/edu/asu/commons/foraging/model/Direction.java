@@ -76,10 +76,21 @@ public enum Direction {
         }
         return Direction.values()[rng.nextInt(4)];
     }
+
+    /**
+     * @return a Direction selected using the given Random
+     */
+    public static Direction random(Random random) {
+        return Direction.values()[random.nextInt(4)];
+    }
     
     public static Direction towards(Point a, Point b) {
-        int dx = a.x - b.x;
-        int dy = a.y - b.y;
+        return towards(a.x, a.y, b.x, b.y);
+    }
+
+    public static Direction towards(int fromX, int fromY, int toX, int toY) {
+        int dx = fromX - toX;
+        int dy = fromY - toY;
         if (dx > 0) {
             return Direction.LEFT;
         }
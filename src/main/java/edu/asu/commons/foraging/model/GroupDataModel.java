@@ -1,19 +1,24 @@
 package edu.asu.commons.foraging.model;
 
 import java.awt.Point;
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
+import edu.asu.commons.event.Event;
 import edu.asu.commons.event.EventChannel;
 import edu.asu.commons.experiment.DataModel;
 import edu.asu.commons.foraging.bot.Bot;
@@ -24,6 +29,7 @@ import edu.asu.commons.foraging.conf.RoundConfiguration;
 import edu.asu.commons.foraging.conf.ServerConfiguration;
 import edu.asu.commons.foraging.event.ClientPositionUpdateEvent;
 import edu.asu.commons.foraging.event.EnforcementRankingRequest;
+import edu.asu.commons.foraging.event.GroupUpdateFrame;
 import edu.asu.commons.foraging.event.LockResourceRequest;
 import edu.asu.commons.foraging.event.MonitorTaxEvent;
 import edu.asu.commons.foraging.event.MovementEvent;
@@ -56,7 +62,7 @@ public class GroupDataModel implements Comparable<GroupDataModel>, DataModel<Ser
     // the subset of clients in ServerDataModel
     private final Map<Identifier, ClientData> clients = new HashMap<>();
     // FIXME: making this transient causes a NPE in the facilitator, should be transient however.
-    private final Map<Point, Resource> resourceDistribution = new HashMap<>();
+    private ResourceGrid resourceGrid = new BitSetResourceGrid();
     private final List<Bot> bots = new ArrayList<>();
 
     private final transient Map<Identifier, Resource> resourceOwners = new HashMap<>();
@@ -64,6 +70,14 @@ public class GroupDataModel implements Comparable<GroupDataModel>, DataModel<Ser
     private transient Set<Resource> addedResources;
 
     private transient ServerDataModel serverDataModel;
+    // actor positions indexed by cell, rebuilt lazily after the group's membership changes or it is deserialized
+    private transient volatile OccupancyGrid occupancyGrid;
+    // shuffles the order bots act in each tick
+    private transient Random botOrderRandom;
+    // picks monitors and breaks ties between rules
+    private transient Random random;
+    // collects bot events while bots are activated off the round thread, see activateBotsDeferringEvents
+    private transient List<Event> deferredBotEvents;
 
     private final long groupId;
     private volatile static long nextGroupId = 0;
@@ -97,6 +111,17 @@ public class GroupDataModel implements Comparable<GroupDataModel>, DataModel<Ser
         this.groupId = groupId;
         this.removedResources = new HashSet<>();
         this.addedResources = new HashSet<>();
+        if (serverDataModel != null) {
+            resizeResourceGrid(serverDataModel.getBoardWidth(), serverDataModel.getBoardHeight());
+            random = serverDataModel.createGroupRandom();
+        }
+    }
+
+    private Random getRandom() {
+        if (random == null) {
+            random = (serverDataModel == null) ? new Random() : serverDataModel.createGroupRandom();
+        }
+        return random;
     }
 
     public void handleSanctionRequest(PostRoundSanctionRequest sanctionRequest) {
@@ -114,24 +139,27 @@ public class GroupDataModel implements Comparable<GroupDataModel>, DataModel<Ser
     }
 
     public int getNumberOfNeighboringTokens(Point referencePoint) {
-        int numberOfNeighboringTokens = 0;
-        int currentX = referencePoint.x;
-        int currentY = referencePoint.y;
-        int endX = currentX + 2;
-        int endY = currentY + 2;
-        for (int x = currentX - 1; x < endX; x++) {
-            for (int y = currentY - 1; y < endY; y++) {
-                Point point = new Point(x, y);
-                if (point.equals(referencePoint))
-                    continue;
-                // only add a point to the neighborhood set if it doesn't already have a resource.
-                if (serverDataModel.isValidPosition(point) && resourceDistribution.containsKey(point)) {
-                    numberOfNeighboringTokens++;
-                }
-            }
+        return getNumberOfNeighboringTokens(referencePoint.x, referencePoint.y);
+    }
+
+    public int getNumberOfNeighboringTokens(int x, int y) {
+        synchronized (resourceGrid) {
+            return resourceGrid.getNeighboringResources(x, y);
         }
-        return numberOfNeighboringTokens;
+    }
 
+    /**
+     * Visits every empty cell that has at least one neighboring token, in row-major order. The resource grid
+     * is locked for the duration of the visit so the visitor must not modify this group's resources.
+     */
+    public void visitResourceFrontier(ResourceGrid.CellVisitor visitor) {
+        synchronized (resourceGrid) {
+            for (int index = resourceGrid.nextFrontierIndex(0); index >= 0; index = resourceGrid.nextFrontierIndex(index + 1)) {
+                int x = resourceGrid.getX(index);
+                int y = resourceGrid.getY(index);
+                visitor.visit(x, y, resourceGrid.getNeighboringResources(x, y));
+            }
+        }
     }
 
     private double rankToValue(int rank) {
@@ -243,7 +271,9 @@ public class GroupDataModel implements Comparable<GroupDataModel>, DataModel<Ser
         if (activeEnforcementMechanism.hasMonitor()) {
             // pick a random person from the clients
             ArrayList<ClientData> clientDataList = new ArrayList<ClientData>(clients.values());
-            Collections.shuffle(clientDataList);
+            // start from a stable order so the same seed picks the same monitor
+            clientDataList.sort(Comparator.comparingInt(ClientData::getAssignedNumber));
+            Collections.shuffle(clientDataList, getRandom());
             // pick the first client from the shuffled list and set their role to MONITOR
             activeMonitor = clientDataList.remove(0);
             activeMonitor.setForagingRole(ForagingRole.MONITOR);
@@ -315,16 +345,20 @@ public class GroupDataModel implements Comparable<GroupDataModel>, DataModel<Ser
         for (ClientData clientState : clients.values()) {
             clientState.reset();
         }
-        getRemovedResources().addAll(resourceDistribution.values());
-        getAddedResources().clear();
-        resourceDistribution.clear();
+        synchronized (resourceGrid) {
+            getRemovedResources().addAll(resourceGrid.toMap().values());
+            getAddedResources().clear();
+            resourceGrid.clear();
+        }
     }
 
     /**
      * Perform all cleanup.
      */
     public void cleanupRound() {
-        resourceDistribution.clear();
+        synchronized (resourceGrid) {
+            resourceGrid.clear();
+        }
         clearDiffLists();
         activeEnforcementMechanism = EnforcementMechanism.NONE;
         activeSanctionMechanism = SanctionMechanism.NONE;
@@ -333,7 +367,23 @@ public class GroupDataModel implements Comparable<GroupDataModel>, DataModel<Ser
     }
 
     public boolean isResourceAt(Point position) {
-        return resourceDistribution.containsKey(position);
+        return isResourceAt(position.x, position.y);
+    }
+
+    public boolean isResourceAt(int x, int y) {
+        synchronized (resourceGrid) {
+            return resourceGrid.isResourceAt(x, y);
+        }
+    }
+
+    /**
+     * Resizes the resource grid to the given board dimensions, e.g., when a new round configuration is
+     * applied. Existing tokens are preserved.
+     */
+    public void resizeResourceGrid(int width, int height) {
+        synchronized (resourceGrid) {
+            resourceGrid.ensureCapacity(width, height);
+        }
     }
 
     public void addResource(Point position) {
@@ -345,42 +395,43 @@ public class GroupDataModel implements Comparable<GroupDataModel>, DataModel<Ser
     }
 
     public void addResource(Resource resource) {
-        Point position = resource.getPosition();
-        synchronized (resourceDistribution) {
-            resourceDistribution.put(position, resource);
+        synchronized (resourceGrid) {
+            resourceGrid.add(resource);
         }
         getAddedResources().add(resource);
     }
 
     void addResources(Collection<Point> locations) {
-        synchronized (resourceDistribution) {
+        synchronized (resourceGrid) {
             for (Point point : locations) {
                 Resource resource = new Resource(point);
-                resourceDistribution.put(point, resource);
+                resourceGrid.add(resource);
                 getAddedResources().add(resource);
             }
         }
     }
 
     public void addResources(Set<Resource> resources) {
-        synchronized (resourceDistribution) {
+        synchronized (resourceGrid) {
             for (Resource resource : resources) {
-                Point position = resource.getPosition();
-                resourceDistribution.put(position, resource);
+                resourceGrid.add(resource);
                 getAddedResources().add(resource);
             }
         }
     }
 
     void moveResources(Collection<Point> removedResources, Collection<Point> addedResources) {
-        synchronized (resourceDistribution) {
+        synchronized (resourceGrid) {
             for (Point oldLocation : removedResources) {
-                Resource oldResource = resourceDistribution.remove(oldLocation);
-                getRemovedResources().add(oldResource);
+                Resource oldResource = resourceGrid.get(oldLocation.x, oldLocation.y);
+                if (oldResource != null) {
+                    resourceGrid.remove(oldLocation.x, oldLocation.y);
+                    getRemovedResources().add(oldResource);
+                }
             }
             for (Point newLocation : addedResources) {
                 Resource newResource = new Resource(newLocation);
-                resourceDistribution.put(newLocation, newResource);
+                resourceGrid.add(newResource);
                 getAddedResources().add(newResource);
             }
         }
@@ -392,8 +443,8 @@ public class GroupDataModel implements Comparable<GroupDataModel>, DataModel<Ser
      * @param position
      */
     public void removeResource(Point position) {
-        synchronized (resourceDistribution) {
-            resourceDistribution.remove(position);
+        synchronized (resourceGrid) {
+            resourceGrid.remove(position.x, position.y);
         }
     }
 
@@ -451,24 +502,72 @@ public class GroupDataModel implements Comparable<GroupDataModel>, DataModel<Ser
     }
 
     public int getResourceDistributionSize() {
-        return resourceDistribution.size();
+        synchronized (resourceGrid) {
+            return resourceGrid.size();
+        }
     }
 
     public Set<Identifier> getClientIdentifiersWithin(Circle circle) {
         HashSet<Identifier> ids = new HashSet<Identifier>();
-        for (ClientData data : clients.values()) {
-            if (circle.contains(data.getPosition())) {
-                ids.add(data.getId());
+        for (Actor actor : getOccupancyGrid().getActorsWithin(circle.getCenter(), circle.getRadius())) {
+            if (actor instanceof ClientData && clients.containsKey(actor.getId())) {
+                ids.add(actor.getId());
             }
         }
         return ids;
     }
 
+    /**
+     * Keeps the occupancy index up to date, invoked by ClientData and bots whenever their position changes.
+     */
+    void actorMoved(Actor actor) {
+        synchronized (clients) {
+            if (occupancyGrid != null) {
+                occupancyGrid.update(actor, actor.getPosition());
+            }
+        }
+    }
+
+    private OccupancyGrid getOccupancyGrid() {
+        OccupancyGrid currentOccupancyGrid = occupancyGrid;
+        if (currentOccupancyGrid != null) {
+            return currentOccupancyGrid;
+        }
+        int width;
+        int height;
+        synchronized (resourceGrid) {
+            width = resourceGrid.getWidth();
+            height = resourceGrid.getHeight();
+        }
+        // same lock order as addBots, where bots are positioned while holding the bots lock
+        synchronized (bots) {
+            synchronized (clients) {
+                if (occupancyGrid == null) {
+                    OccupancyGrid grid = new OccupancyGrid(width, height);
+                    for (ClientData clientData : clients.values()) {
+                        grid.update(clientData, clientData.getPosition());
+                    }
+                    for (Bot bot : bots) {
+                        grid.update(bot, bot.getPosition());
+                    }
+                    occupancyGrid = grid;
+                }
+                return occupancyGrid;
+            }
+        }
+    }
+
+    private void invalidateOccupancyGrid() {
+        synchronized (clients) {
+            occupancyGrid = null;
+        }
+    }
+
     public boolean move(Bot bot, Direction direction) {
         Point newPosition = direction.apply(bot.getPosition());
         if (serverDataModel.isValidPosition(newPosition) && isCellAvailable(newPosition)) {
             bot.setCurrentPosition(newPosition);
-            getEventChannel().handle(new MovementEvent(bot.getId(), direction));
+            handleBotEvent(new MovementEvent(bot.getId(), direction));
             return true;
         }
         return false;
@@ -520,15 +619,7 @@ public class GroupDataModel implements Comparable<GroupDataModel>, DataModel<Ser
         RoundConfiguration currentRoundConfiguration = getRoundConfiguration();
         if (currentRoundConfiguration.shouldCheckOccupancy()) {
             int maximumOccupancyPerCell = currentRoundConfiguration.getMaximumOccupancyPerCell();
-            int currentOccupancy = 0;
-            for (Point otherPosition : getClientPositions().values()) {
-                if (position.equals(otherPosition)) {
-                    currentOccupancy++;
-                }
-                if (currentOccupancy >= maximumOccupancyPerCell) {
-                    return false;
-                }
-            }
+            return getOccupancyGrid().getOccupancy(position) < maximumOccupancyPerCell;
         }
         return true;
     }
@@ -566,9 +657,11 @@ public class GroupDataModel implements Comparable<GroupDataModel>, DataModel<Ser
 
     public void collectToken(ClientData clientData) {
         Point position = clientData.getPoint();
-        synchronized (resourceDistribution) {
-            if (resourceDistribution.containsKey(position)) {
-                getRemovedResources().add(resourceDistribution.remove(position));
+        synchronized (resourceGrid) {
+            Resource resource = resourceGrid.get(position.x, position.y);
+            if (resource != null) {
+                resourceGrid.remove(position.x, position.y);
+                getRemovedResources().add(resource);
                 clientData.addToken(position);
                 getEventChannel().handle(new TokenCollectedEvent(clientData.getId(), position));
             }
@@ -577,11 +670,13 @@ public class GroupDataModel implements Comparable<GroupDataModel>, DataModel<Ser
 
     public void collectToken(Bot bot) {
         Point position = bot.getPosition();
-        synchronized (resourceDistribution) {
-            if (resourceDistribution.containsKey(position)) {
-                getRemovedResources().add(resourceDistribution.remove(position));
+        synchronized (resourceGrid) {
+            Resource resource = resourceGrid.get(position.x, position.y);
+            if (resource != null) {
+                resourceGrid.remove(position.x, position.y);
+                getRemovedResources().add(resource);
                 bot.addToken(position);
-                getEventChannel().handle(new TokenCollectedEvent(bot.getId(), position));
+                handleBotEvent(new TokenCollectedEvent(bot.getId(), position));
             }
         }
     }
@@ -614,10 +709,12 @@ public class GroupDataModel implements Comparable<GroupDataModel>, DataModel<Ser
         clientData.setAssignedNumber(clients.size());
         clientData.setGroupDataModel(this);
         clientData.initializePosition();
+        invalidateOccupancyGrid();
     }
 
     public void removeClient(Identifier id) {
         clients.remove(id);
+        invalidateOccupancyGrid();
     }
 
     public boolean isFull() {
@@ -626,17 +723,22 @@ public class GroupDataModel implements Comparable<GroupDataModel>, DataModel<Ser
 
     public void clear() {
         clients.clear();
+        invalidateOccupancyGrid();
         nextZone = 0;
         currentTeamSize[0] = currentTeamSize[1] = 0;
         cleanupRound();
     }
 
     public boolean isResourceDistributionEmpty() {
-        return resourceDistribution.isEmpty();
+        synchronized (resourceGrid) {
+            return resourceGrid.isEmpty();
+        }
     }
 
     public void setServerDataModel(ServerDataModel state) {
-        resourceDistribution.clear();
+        synchronized (resourceGrid) {
+            resourceGrid.clear();
+        }
         this.serverDataModel = state;
     }
 
@@ -672,7 +774,11 @@ public class GroupDataModel implements Comparable<GroupDataModel>, DataModel<Ser
             ClientData clientData = clients.get(id);
             clientData.addTokens(getRoundConfiguration().ageToTokens(resource.getAge()));
             Point position = resource.getPosition();
-            getRemovedResources().add(resourceDistribution.remove(position));
+            synchronized (resourceGrid) {
+                Resource harvestedResource = resourceGrid.get(position.x, position.y);
+                resourceGrid.remove(position.x, position.y);
+                getRemovedResources().add(harvestedResource);
+            }
             resourceOwners.remove(id);
         }
     }
@@ -681,13 +787,17 @@ public class GroupDataModel implements Comparable<GroupDataModel>, DataModel<Ser
         if (isResourceOwner(id, resource)) {
             ClientData clientData = clients.get(id);
             clientData.addTokens(getRoundConfiguration().getTokensPerFruits());
-            getResourceFromDistribution(resource).setAge(getRoundConfiguration().getMaximumResourceAge() - 1);
+            synchronized (resourceGrid) {
+                resourceGrid.setAge(resource.getX(), resource.getY(), getRoundConfiguration().getMaximumResourceAge() - 1);
+            }
             resourceOwners.remove(id);
         }
     }
 
     private Resource getResourceFromDistribution(Resource remoteResource) {
-        return resourceDistribution.get(remoteResource.getPosition());
+        synchronized (resourceGrid) {
+            return resourceGrid.get(remoteResource.getX(), remoteResource.getY());
+        }
     }
 
     /**
@@ -701,7 +811,7 @@ public class GroupDataModel implements Comparable<GroupDataModel>, DataModel<Ser
         Identifier id = request.getId();
         Resource remoteResource = request.getResource();
         Resource localResource = getResourceFromDistribution(remoteResource);
-        if (!resourceDistribution.containsKey(remoteResource.getPosition())) {
+        if (localResource == null) {
             getLogger().warning(String.format("Trying to lock a resource [%s] that is no longer present.", remoteResource));
             return false;
         }
@@ -723,14 +833,96 @@ public class GroupDataModel implements Comparable<GroupDataModel>, DataModel<Ser
     }
 
     public Set<Point> getResourcePositions() {
-        synchronized (resourceDistribution) {
-            return new HashSet<>(resourceDistribution.keySet());
+        synchronized (resourceGrid) {
+            return resourceGrid.getResourcePositions();
+        }
+    }
+
+    /**
+     * Returns the position of the token nearest to the given position, or null if there are no tokens. Searches in
+     * square rings of increasing size around the position and stops once no unvisited cell could be closer than the
+     * nearest token found so far, so the cost depends on the distance to the nearest token rather than on the
+     * number of tokens, and nothing is allocated unless a token is found.
+     */
+    public Point getNearestResourcePosition(Point position) {
+        synchronized (resourceGrid) {
+            int width = resourceGrid.getWidth();
+            int height = resourceGrid.getHeight();
+            int centerX = position.x;
+            int centerY = position.y;
+            int maxRing = Math.max(Math.max(centerX, width - 1 - centerX), Math.max(centerY, height - 1 - centerY));
+            int nearestX = -1;
+            int nearestY = -1;
+            long nearestDistance = Long.MAX_VALUE;
+            for (int ring = 0; ring <= maxRing; ring++) {
+                // every cell in this ring is at least ring cells away
+                if ((long) ring * ring > nearestDistance) {
+                    break;
+                }
+                int startX = Math.max(centerX - ring, 0);
+                int endX = Math.min(centerX + ring, width - 1);
+                for (int y = centerY - ring; y <= centerY + ring; y++) {
+                    if (y < 0 || y >= height) {
+                        continue;
+                    }
+                    boolean edgeRow = (y == centerY - ring || y == centerY + ring);
+                    // interior rows of the ring only have the two cells at either end
+                    int step = edgeRow ? 1 : Math.max(2 * ring, 1);
+                    for (int x = edgeRow ? startX : centerX - ring; x <= endX; x += step) {
+                        if (x < 0 || ! resourceGrid.isResourceAt(x, y)) {
+                            continue;
+                        }
+                        long dx = x - centerX;
+                        long dy = y - centerY;
+                        long distance = dx * dx + dy * dy;
+                        if (distance < nearestDistance) {
+                            nearestDistance = distance;
+                            nearestX = x;
+                            nearestY = y;
+                        }
+                    }
+                }
+            }
+            return (nearestX < 0) ? null : new Point(nearestX, nearestY);
+        }
+    }
+
+    /**
+     * Copies the square window of cells within radius of the center into the given arrays, row by row, without
+     * allocating. tokens records whether each cell has a token, occupancy the number of actors in each cell or -1 for
+     * cells outside the board. Both arrays must hold at least (2 * radius + 1)^2 cells.
+     */
+    public void copyNeighborhood(int centerX, int centerY, int radius, boolean[] tokens, int[] occupancy) {
+        OccupancyGrid occupancyGrid = getOccupancyGrid();
+        int index = 0;
+        synchronized (resourceGrid) {
+            for (int y = centerY - radius; y <= centerY + radius; y++) {
+                for (int x = centerX - radius; x <= centerX + radius; x++, index++) {
+                    if (serverDataModel.isValidPosition(x, y)) {
+                        tokens[index] = resourceGrid.isResourceAt(x, y);
+                        occupancy[index] = occupancyGrid.getOccupancy(x, y);
+                    }
+                    else {
+                        tokens[index] = false;
+                        occupancy[index] = -1;
+                    }
+                }
+            }
         }
     }
 
     public Map<Point, Resource> getResourceDistribution() {
-        synchronized (resourceDistribution) {
-            return new HashMap<>(resourceDistribution);
+        synchronized (resourceGrid) {
+            return resourceGrid.toMap();
+        }
+    }
+
+    /**
+     * Returns a copy of this group's resource grid.
+     */
+    public ResourceGrid getResourceGrid() {
+        synchronized (resourceGrid) {
+            return resourceGrid.copy();
         }
     }
 
@@ -745,12 +937,12 @@ public class GroupDataModel implements Comparable<GroupDataModel>, DataModel<Ser
             clientData.setCurrentTokens(event.getCurrentTokens(id));
             clientData.setPosition(event.getClientPosition(id));
         }
-        synchronized (resourceDistribution) {
+        synchronized (resourceGrid) {
             for (Resource resource : event.getRemovedTokens()) {
-                resourceDistribution.remove(resource.getPosition());
+                resourceGrid.remove(resource.getX(), resource.getY());
             }
             for (Resource resource : event.getAddedTokens()) {
-                resourceDistribution.put(resource.getPosition(), resource);
+                resourceGrid.add(resource);
             }
         }
     }
@@ -897,7 +1089,8 @@ public class GroupDataModel implements Comparable<GroupDataModel>, DataModel<Ser
         }
         // getLogger().info("tally map is: " + tallyMap);
         getLogger().info("picking first rule from " + selectedRules);
-        Collections.shuffle(selectedRules);
+        selectedRules.sort(Comparator.comparing(Object::toString));
+        Collections.shuffle(selectedRules, getRandom());
         return tallyMap;
     }
 
@@ -941,10 +1134,140 @@ public class GroupDataModel implements Comparable<GroupDataModel>, DataModel<Ser
                     default:
                         bot = BotFactory.getInstance().create(botType, size + i + 1, this);
                 }
+                bot.setRandom(serverDataModel.createBotRandom());
                 bot.initialize(serverDataModel.getRoundConfiguration());
                 bots.add(bot);
             }
+            botOrderRandom = serverDataModel.createBotRandom();
         }
+        invalidateOccupancyGrid();
+    }
+
+    /**
+     * Computes the token changes within the given radius of the client that the client hasn't been told about yet,
+     * i.e., tokens that have appeared in or disappeared from the client's surroundings since it last saw them, and
+     * records them as known. Tokens outside the radius are left as the client last knew them until they come back
+     * into view.
+     */
+    public void diffVisibleResources(ClientData clientData, double radius, List<Resource> addedResources, List<Resource> removedResources) {
+        diffResources(clientData.getKnownResources(), clientData.getPoint(), radius, addedResources, removedResources);
+    }
+
+    /**
+     * Computes the token changes across the whole grid relative to the given record of known tokens and brings the
+     * record up to date, e.g., for a facilitator that is only sent what changed since its last update.
+     */
+    public void diffResources(ResourceGrid knownResources, List<Resource> addedResources, List<Resource> removedResources) {
+        diffResources(knownResources, null, Double.POSITIVE_INFINITY, addedResources, removedResources);
+    }
+
+    private void diffResources(ResourceGrid knownResources, Point center, double radius, List<Resource> addedResources, List<Resource> removedResources) {
+        double radiusSquared = radius * radius;
+        synchronized (resourceGrid) {
+            int startX = 0;
+            int startY = 0;
+            int endX = Math.max(resourceGrid.getWidth(), knownResources.getWidth()) - 1;
+            int endY = Math.max(resourceGrid.getHeight(), knownResources.getHeight()) - 1;
+            if (center != null) {
+                int distance = (int) Math.ceil(radius);
+                startX = Math.max(center.x - distance, 0);
+                startY = Math.max(center.y - distance, 0);
+                endX = Math.min(center.x + distance, endX);
+                endY = Math.min(center.y + distance, endY);
+            }
+            for (int y = startY; y <= endY; y++) {
+                for (int x = startX; x <= endX; x++) {
+                    if (center != null) {
+                        int dx = x - center.x;
+                        int dy = y - center.y;
+                        if (dx * dx + dy * dy > radiusSquared) {
+                            continue;
+                        }
+                    }
+                    boolean present = resourceGrid.isResourceAt(x, y);
+                    if (present && ! knownResources.isResourceAt(x, y)) {
+                        Resource resource = resourceGrid.get(x, y);
+                        knownResources.add(resource);
+                        addedResources.add(resource);
+                    }
+                    else if (! present && knownResources.remove(x, y)) {
+                        removedResources.add(new Resource(x, y, 0));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a copy of this group for synchronizing a client with a limited field of vision. The copy holds shallow
+     * copies of this group's participants and bots that refer to the copy instead of this group, so serializing it
+     * doesn't serialize this group's tokens along with them. It only contains the tokens within the given radius of
+     * the client, which also become exactly the tokens the client is known to have been told about.
+     */
+    public GroupDataModel getVisibleGroupDataModel(ClientData clientData, double radius) {
+        GroupDataModel visibleGroup = new GroupDataModel(null, groupId);
+        visibleGroup.serverDataModel = serverDataModel;
+        clients.forEach((id, data) -> visibleGroup.clients.put(id, data.copyFor(visibleGroup)));
+        synchronized (bots) {
+            for (Bot bot : bots) {
+                visibleGroup.bots.add(bot.copyFor(visibleGroup));
+            }
+        }
+        ResourceGrid knownResources = clientData.getKnownResources();
+        knownResources.clear();
+        List<Resource> visibleResources = new ArrayList<>();
+        diffVisibleResources(clientData, radius, visibleResources, new ArrayList<>());
+        synchronized (resourceGrid) {
+            visibleGroup.resourceGrid.ensureCapacity(resourceGrid.getWidth(), resourceGrid.getHeight());
+        }
+        for (Resource resource : visibleResources) {
+            visibleGroup.resourceGrid.add(resource);
+        }
+        return visibleGroup;
+    }
+
+    /**
+     * Applies a live update from the server to this copy of the group, e.g., on the facilitator. Only actors included
+     * in the frame are moved, bots don't carry a token count that can be set so only their positions are updated.
+     */
+    public void applyUpdate(GroupUpdateFrame frame) {
+        Map<Integer, Identifier> actorIdentifiers = new HashMap<>();
+        getActorNumbers().forEach((id, actorNumber) -> actorIdentifiers.put(actorNumber, id));
+        frame.resolveActors(actorIdentifiers::get);
+        synchronized (resourceGrid) {
+            for (Resource resource : frame.getRemovedResources()) {
+                resourceGrid.remove(resource.getX(), resource.getY());
+            }
+            for (Resource resource : frame.getAddedResources()) {
+                resourceGrid.add(resource);
+            }
+        }
+        Map<Identifier, Bot> botMap = getBotMap();
+        frame.getClientPositions().forEach((id, position) -> {
+            ClientData clientData = clients.get(id);
+            if (clientData != null) {
+                clientData.setPosition(position);
+                clientData.setCurrentTokens(frame.getClientTokens().get(id));
+            }
+            else if (botMap.containsKey(id)) {
+                botMap.get(id).setCurrentPosition(position);
+            }
+        });
+    }
+
+    /**
+     * Returns the assigned number of each participant and the bot number of each bot in this group. Compact client
+     * updates key actors by these numbers instead of by Identifier.
+     */
+    public Map<Identifier, Integer> getActorNumbers() {
+        Map<Identifier, Integer> actorNumbers = new HashMap<>();
+        for (ClientData data : clients.values()) {
+            actorNumbers.put(data.getId(), data.getAssignedNumber());
+        }
+        for (Bot bot : bots) {
+            actorNumbers.put(bot.getId(), bot.getBotNumber());
+        }
+        return actorNumbers;
     }
 
     public Map<Identifier, Bot> getBotMap() {
@@ -955,9 +1278,22 @@ public class GroupDataModel implements Comparable<GroupDataModel>, DataModel<Ser
         return bots.size();
     }
 
+    /**
+     * Lets every bot in this group act once, in a random order so no bot consistently gets first pick of the tokens.
+     */
     public void activateBots(boolean resetBotActions) {
-        // FIXME: should do this in parallel or randomize iteration order for > 1 bot
-        for (Bot bot : bots) {
+        List<Bot> orderedBots;
+        synchronized (bots) {
+            if (bots.isEmpty()) {
+                return;
+            }
+            orderedBots = new ArrayList<>(bots);
+        }
+        if (botOrderRandom == null) {
+            botOrderRandom = new Random();
+        }
+        Collections.shuffle(orderedBots, botOrderRandom);
+        for (Bot bot : orderedBots) {
             bot.act();
             if (resetBotActions) {
                 bot.resetActionsTakenPerSecond();
@@ -965,6 +1301,30 @@ public class GroupDataModel implements Comparable<GroupDataModel>, DataModel<Ser
         }
     }
 
+    /**
+     * Activates this group's bots without publishing their movement and token collection events, which are returned
+     * instead so that bots in different groups can be activated concurrently and their events still handed to the
+     * event channel (and persister) one group at a time, in a deterministic order.
+     */
+    public List<Event> activateBotsDeferringEvents(boolean resetBotActions) {
+        deferredBotEvents = new ArrayList<>();
+        try {
+            activateBots(resetBotActions);
+            return deferredBotEvents;
+        } finally {
+            deferredBotEvents = null;
+        }
+    }
+
+    private void handleBotEvent(Event event) {
+        if (deferredBotEvents != null) {
+            deferredBotEvents.add(event);
+        }
+        else {
+            getEventChannel().handle(event);
+        }
+    }
+
     public void clearBotActionsTaken() {
         for (Bot bot : bots) {
             bot.resetActionsTakenPerSecond();
@@ -975,4 +1335,12 @@ public class GroupDataModel implements Comparable<GroupDataModel>, DataModel<Ser
         return bots.stream().collect(Collectors.toMap(Bot::getId, Bot::getPosition));
     }
 
+    private void readObject(ObjectInputStream objectInputStream) throws IOException, ClassNotFoundException {
+        objectInputStream.defaultReadObject();
+        if (resourceGrid == null) {
+            // save files written before the resource grid was introduced stored a Map<Point, Resource> instead.
+            resourceGrid = new BitSetResourceGrid();
+        }
+    }
+
 }
@@ -0,0 +1,155 @@
+package edu.asu.commons.foraging.model;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * $Id$
+ *
+ * Uniform grid of the actors (participants and bots) standing in each cell of a group's board, kept up to date as
+ * actors move so that occupancy checks are a single array lookup and proximity queries only visit the cells around
+ * the query circle instead of every actor in the group. Actors at negative coordinates aren't indexed.
+ *
+ * @author <a href='mailto:Allen.Lee@asu.edu'>Allen Lee</a>
+ * @version $Revision$
+ */
+public class OccupancyGrid {
+
+    private int width;
+    private int height;
+    private int[] occupancy;
+    // actors in each cell, only allocated for cells that have been occupied
+    private List<List<Actor>> cells;
+    private final Map<Actor, Point> indexedPositions = new IdentityHashMap<>();
+
+    public OccupancyGrid(int width, int height) {
+        this.width = Math.max(width, 0);
+        this.height = Math.max(height, 0);
+        this.occupancy = new int[this.width * this.height];
+        this.cells = new ArrayList<>(occupancy.length);
+        for (int i = 0; i < occupancy.length; i++) {
+            cells.add(null);
+        }
+    }
+
+    /**
+     * Records the actor at the given position, moving it from the cell it was previously indexed in. A null position
+     * removes the actor.
+     */
+    public synchronized void update(Actor actor, Point position) {
+        Point indexedPosition = indexedPositions.get(actor);
+        if (indexedPosition != null) {
+            if (indexedPosition.equals(position)) {
+                return;
+            }
+            removeFromCell(actor, indexedPosition);
+        }
+        if (position == null || position.x < 0 || position.y < 0) {
+            indexedPositions.remove(actor);
+            return;
+        }
+        ensureCapacity(position.x + 1, position.y + 1);
+        // copy so later changes to the caller's point don't desynchronize the index
+        Point cellPosition = new Point(position);
+        indexedPositions.put(actor, cellPosition);
+        int index = toIndex(cellPosition.x, cellPosition.y);
+        occupancy[index]++;
+        List<Actor> actors = cells.get(index);
+        if (actors == null) {
+            actors = new ArrayList<>(2);
+            cells.set(index, actors);
+        }
+        actors.add(actor);
+    }
+
+    public synchronized void remove(Actor actor) {
+        Point indexedPosition = indexedPositions.remove(actor);
+        if (indexedPosition != null) {
+            removeFromCell(actor, indexedPosition);
+        }
+    }
+
+    private void removeFromCell(Actor actor, Point position) {
+        int index = toIndex(position.x, position.y);
+        occupancy[index]--;
+        List<Actor> actors = cells.get(index);
+        for (int i = 0; i < actors.size(); i++) {
+            if (actors.get(i) == actor) {
+                actors.remove(i);
+                break;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of actors in the given cell.
+     */
+    public int getOccupancy(Point position) {
+        return getOccupancy(position.x, position.y);
+    }
+
+    public synchronized int getOccupancy(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return 0;
+        }
+        return occupancy[toIndex(x, y)];
+    }
+
+    /**
+     * Returns the actors whose cell is within the given distance of the center.
+     */
+    public synchronized List<Actor> getActorsWithin(Point center, double radius) {
+        List<Actor> actorsWithin = new ArrayList<>();
+        int distance = (int) Math.floor(radius);
+        double radiusSquared = radius * radius;
+        int endX = Math.min(center.x + distance, width - 1);
+        int endY = Math.min(center.y + distance, height - 1);
+        for (int y = Math.max(center.y - distance, 0); y <= endY; y++) {
+            for (int x = Math.max(center.x - distance, 0); x <= endX; x++) {
+                int index = toIndex(x, y);
+                if (occupancy[index] == 0) {
+                    continue;
+                }
+                int dx = x - center.x;
+                int dy = y - center.y;
+                if (dx * dx + dy * dy <= radiusSquared) {
+                    actorsWithin.addAll(cells.get(index));
+                }
+            }
+        }
+        return actorsWithin;
+    }
+
+    private void ensureCapacity(int newWidth, int newHeight) {
+        if (newWidth <= width && newHeight <= height) {
+            return;
+        }
+        int resizedWidth = Math.max(newWidth, width);
+        int resizedHeight = Math.max(newHeight, height);
+        int[] resizedOccupancy = new int[resizedWidth * resizedHeight];
+        List<List<Actor>> resizedCells = new ArrayList<>(resizedOccupancy.length);
+        for (int i = 0; i < resizedOccupancy.length; i++) {
+            resizedCells.add(null);
+        }
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int index = toIndex(x, y);
+                int resizedIndex = y * resizedWidth + x;
+                resizedOccupancy[resizedIndex] = occupancy[index];
+                resizedCells.set(resizedIndex, cells.get(index));
+            }
+        }
+        width = resizedWidth;
+        height = resizedHeight;
+        occupancy = resizedOccupancy;
+        cells = resizedCells;
+    }
+
+    private int toIndex(int x, int y) {
+        return y * width + x;
+    }
+
+}
@@ -5,10 +5,13 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.logging.Logger;
 
 import edu.asu.commons.foraging.conf.RoundConfiguration;
@@ -64,7 +67,10 @@ public class ResourceDispenser {
 
     private final ServerDataModel serverDataModel;
 
-    private final Random random = new Random();
+    private final Random random;
+    // independent random streams per group, seeded from random in group id order
+    private final Map<GroupDataModel, Random> groupRandoms = new HashMap<>();
+    private boolean parallelGenerationEnabled;
     // FIXME: turn these into factory driven based on configuration parameter.
     private ResourceGenerator currentResourceGenerator;
 
@@ -79,7 +85,12 @@ public class ResourceDispenser {
     // private Generator resourceGenerator;
 
     public ResourceDispenser(final ServerDataModel serverDataModel) {
+        this(serverDataModel, new Random());
+    }
+
+    public ResourceDispenser(final ServerDataModel serverDataModel, final Random random) {
         this.serverDataModel = serverDataModel;
+        this.random = random;
     }
 
     public void resetTokenDistribution(ResetTokenDistributionRequest event) {
@@ -87,7 +98,7 @@ public class ResourceDispenser {
             GroupDataModel group = serverDataModel.getGroup(event.getId());
             group.resetResourceDistribution();
             // FIXME: won't work if practice round is patchy
-            Set<Resource> resources = currentResourceGenerator.generateInitialDistribution(group);
+            Set<Resource> resources = currentResourceGenerator.generateInitialDistribution(group, getRandom(group));
             serverDataModel.addResources(group, resources);
         }
     }
@@ -97,6 +108,9 @@ public class ResourceDispenser {
     }
 
     public void initialize(RoundConfiguration roundConfiguration) {
+        synchronized (groupRandoms) {
+            groupRandoms.clear();
+        }
         ResourceDispenser.Type resourceGeneratorType = ResourceDispenser.Type.find(roundConfiguration.getResourceGeneratorType());
         currentResourceGenerator = getResourceGenerator(resourceGeneratorType);
         currentResourceGenerator.initialize(roundConfiguration);
@@ -117,26 +131,78 @@ public class ResourceDispenser {
         }
     }
 
-    @Deprecated
-    public void updateResourceAge(GroupDataModel group) {
-        for (Resource resource : group.getResourceDistribution().values()) {
-            // FIXME: needs to be modded to wraparound.
-            resource.setAge(resource.getAge() + 1);
-        }
-    }
-
     public Map<GroupDataModel, Set<Resource>> generateResources() {
         return generateResources(getCurrentResourceGenerator());
     }
 
     public Map<GroupDataModel, Set<Resource>> generateResources(ResourceGenerator generator) {
+        if (parallelGenerationEnabled && generator instanceof NeighborhoodDensityDependentResourceGenerator) {
+            return generateResourcesInParallel((NeighborhoodDensityDependentResourceGenerator) generator);
+        }
         Map<GroupDataModel, Set<Resource>> map = new HashMap<>();
-        for (GroupDataModel group : serverDataModel.getGroups()) {
+        for (GroupDataModel group : serverDataModel.getOrderedGroups()) {
             map.put(group, generator.generate(group));
         }
         return map;
     }
 
+    /**
+     * Samples each group's regrowth concurrently on the common ForkJoinPool using that group's own random stream,
+     * then adds the new tokens to each group in group id order so the ResourcesAddedEvents reach the persister in
+     * a deterministic order. Produces the same tokens as sequential generation with the same seed.
+     * 
+     * Only the neighborhood density dependent generators support this, the other generators interleave sampling with
+     * updates to the server data model and are always run sequentially.
+     */
+    private Map<GroupDataModel, Set<Resource>> generateResourcesInParallel(final NeighborhoodDensityDependentResourceGenerator generator) {
+        List<GroupDataModel> groups = serverDataModel.getOrderedGroups();
+        List<ForkJoinTask<Set<Resource>>> tasks = new ArrayList<>(groups.size());
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        for (final GroupDataModel group : groups) {
+            final Random groupRandom = getRandom(group);
+            tasks.add(pool.submit(() -> generator.sample(group, groupRandom)));
+        }
+        Map<GroupDataModel, Set<Resource>> map = new LinkedHashMap<>();
+        for (int i = 0; i < groups.size(); i++) {
+            GroupDataModel group = groups.get(i);
+            Set<Resource> resources = tasks.get(i).join();
+            serverDataModel.addResources(group, resources);
+            map.put(group, resources);
+        }
+        return map;
+    }
+
+    /**
+     * Returns the random stream for the given group. Streams are assigned to all current groups at once in group id
+     * order so that each group's stream only depends on the dispenser's seed and not on the order groups are visited.
+     */
+    protected Random getRandom(GroupDataModel group) {
+        synchronized (groupRandoms) {
+            Random groupRandom = groupRandoms.get(group);
+            if (groupRandom == null) {
+                for (GroupDataModel orderedGroup : serverDataModel.getOrderedGroups()) {
+                    if (! groupRandoms.containsKey(orderedGroup)) {
+                        groupRandoms.put(orderedGroup, new Random(random.nextLong()));
+                    }
+                }
+                groupRandom = groupRandoms.get(group);
+                if (groupRandom == null) {
+                    groupRandom = new Random(random.nextLong());
+                    groupRandoms.put(group, groupRandom);
+                }
+            }
+            return groupRandom;
+        }
+    }
+
+    public boolean isParallelGenerationEnabled() {
+        return parallelGenerationEnabled;
+    }
+
+    public void setParallelGenerationEnabled(boolean parallelGenerationEnabled) {
+        this.parallelGenerationEnabled = parallelGenerationEnabled;
+    }
+
     public ResourceGenerator getCurrentResourceGenerator() {
         return currentResourceGenerator;
     }
@@ -148,8 +214,8 @@ public class ResourceDispenser {
         public void initialize(RoundConfiguration roundConfiguration) {
             this.tokenMovementProbability = roundConfiguration.getTokenMovementProbability();
             this.tokenBirthProbability = roundConfiguration.getTokenBirthProbability();
-            for (GroupDataModel group : serverDataModel.getGroups()) {
-                Set<Resource> resources = generateInitialDistribution(group);
+            for (GroupDataModel group : serverDataModel.getOrderedGroups()) {
+                Set<Resource> resources = generateInitialDistribution(group, getRandom(group));
                 serverDataModel.addResources(group, resources);
             }
         }
@@ -163,6 +229,7 @@ public class ResourceDispenser {
          * @param group
          */
         public Set<Resource> generate(GroupDataModel group) {
+            final Random random = getRandom(group);
             // getResourcePositions() returns a new HashSet
             // this Set will contain the most up-to-date resource positions as a working copy.
             final Set<Point> currentResourcePositions = group.getResourcePositions();
@@ -172,7 +239,7 @@ public class ResourceDispenser {
             // we need to update them one-at-a-time, otherwise a resource might move to a location that
             // has already been moved to...
             final List<Point> shuffledCopy = new ArrayList<>(currentResourcePositions);
-            Collections.shuffle(shuffledCopy);
+            Collections.shuffle(shuffledCopy, random);
             // iterate through a new randomized copy of the points
             for (Point currentResourcePosition : shuffledCopy) {
                 if (random.nextDouble() < tokenMovementProbability) {
@@ -196,7 +263,7 @@ public class ResourceDispenser {
             serverDataModel.moveResources(group, removedResources, addedResources);
             shuffledCopy.clear();
             shuffledCopy.addAll(currentResourcePositions);
-            Collections.shuffle(shuffledCopy);
+            Collections.shuffle(shuffledCopy, random);
             Set<Resource> addedOffspring = new HashSet<>();
             // next, generate offspring.
             // use current resource positions.
@@ -262,8 +329,8 @@ public class ResourceDispenser {
             setBottomRate(configuration.getBottomRegrowthScalingFactor());
             setTopDistribution(configuration.getTopInitialResourceDistribution());
             setTopRate(configuration.getTopRegrowthScalingFactor());
-            for (GroupDataModel group : serverDataModel.getGroups()) {
-                Set<Resource> resources = generateInitialDistribution(group);
+            for (GroupDataModel group : serverDataModel.getOrderedGroups()) {
+                Set<Resource> resources = generateInitialDistribution(group, getRandom(group));
                 serverDataModel.addResources(group, resources);
             }
         }
@@ -273,7 +340,7 @@ public class ResourceDispenser {
          * configuration parameters.
          */
         @Override
-        public Set<Resource> generateInitialDistribution(GroupDataModel group) {
+        public Set<Resource> generateInitialDistribution(GroupDataModel group, Random random) {
             int width = serverDataModel.getBoardWidth();
             int height = serverDataModel.getBoardHeight() / 2;
             int topTokensNeeded = (int) (width * height * topDistribution);
@@ -293,42 +360,27 @@ public class ResourceDispenser {
             return newResources;
         }
 
+        /**
+         * Partitions the grid into north and south halves, regrowing the top half at the top rate and the bottom
+         * half at the bottom rate.
+         */
         @Override
-        public Set<Resource> generate(GroupDataModel group) {
-            // partition the grid into north and south halves.
-            // regenerate food for the top half.
-            int divisionPoint = serverDataModel.getBoardHeight() / 2;
-            Set<Resource> newResources = new HashSet<>();
-            for (int y = 0; y < divisionPoint; y++) {
-                for (int x = 0; x < serverDataModel.getBoardWidth(); x++) {
-                    Point currentPoint = new Point(x, y);
-                    if (!group.isResourceAt(currentPoint)) {
-                        if (random.nextDouble() < getProbabilityForCell(group, x, y, topRate)) {
-                            newResources.add(new Resource(currentPoint));
-                        }
-                    }
-                }
-            }
-            // regenerate food for the bottom half
-            for (int y = divisionPoint; y < serverDataModel.getBoardHeight(); y++) {
-                for (int x = 0; x < serverDataModel.getBoardWidth(); x++) {
-                    Point currentPoint = new Point(x, y);
-                    if (!group.isResourceAt(currentPoint)) {
-                        if (random.nextDouble() < getProbabilityForCell(group, x, y, bottomRate)) {
-                            newResources.add(new Resource(currentPoint));
-                        }
-                    }
-                }
-            }
-            // add all resources to the server
-            serverDataModel.addResources(group, newResources);
-            return newResources;
+        protected double getProbabilityForCell(int x, int y, int neighboringTokens) {
+            return getRate(y) * (neighboringTokens / (double) getMaximumNeighbors(x, y));
         }
 
         @Override
         public double getProbabilityForCell(GroupDataModel group, int x, int y) {
-            return getProbabilityForCell(group, x, y,
-                    (y < serverDataModel.getBoardHeight() / 2) ? topRate : bottomRate);
+            return getProbabilityForCell(group, x, y, getRate(y));
+        }
+
+        @Override
+        protected int getRegrowthAge() {
+            return 0;
+        }
+
+        private double getRate(int y) {
+            return (y < serverDataModel.getBoardHeight() / 2) ? topRate : bottomRate;
         }
 
     }
@@ -346,14 +398,15 @@ public class ResourceDispenser {
 
         public void initialize(RoundConfiguration roundConfiguration) {
             regrowthRate = roundConfiguration.getRegrowthRate();
-            for (GroupDataModel group : serverDataModel.getGroups()) {
-                Set<Resource> resources = generateInitialDistribution(group);
+            for (GroupDataModel group : serverDataModel.getOrderedGroups()) {
+                Set<Resource> resources = generateInitialDistribution(group, getRandom(group));
                 serverDataModel.addResources(group, resources);
             }
         }
 
         @Override
         public Set<Resource> generate(GroupDataModel group) {
+            final Random random = getRandom(group);
             Set<Resource> newResources = new HashSet<>();
             Map<Point, Resource> resourceDistribution = group.getResourceDistribution();
             int totalNumberOfResources = resourceDistribution.size();
@@ -377,7 +430,7 @@ public class ResourceDispenser {
                     }
                 }
                 availableLocations.remove(resourceDistribution.keySet());
-                Collections.shuffle(availableLocations);
+                Collections.shuffle(availableLocations, random);
                 for (Point point : availableLocations.subList(0, regrowth)) {
                     newResources.add(new Resource(point, 1));
                 }
@@ -390,8 +443,8 @@ public class ResourceDispenser {
 
     /**
      * Algorithm:
-     * 1. for each cell in the grid, calculate ratio of token-occupied neighboring cells
-     * to max number of cells
+     * 1. for each empty cell in the grid with at least one neighboring token, calculate ratio of token-occupied
+     * neighboring cells to max number of cells
      * 2. multiply ratio by regrowth rate configuration parameter
      * 3. if result > random.nextDouble(), add token to that grid cell.
      */
@@ -400,8 +453,8 @@ public class ResourceDispenser {
 
         public void initialize(RoundConfiguration roundConfiguration) {
             this.rate = roundConfiguration.getRegrowthRate();
-            for (GroupDataModel group : serverDataModel.getGroups()) {
-                Set<Resource> resources = generateInitialDistribution(group);
+            for (GroupDataModel group : serverDataModel.getOrderedGroups()) {
+                Set<Resource> resources = generateInitialDistribution(group, getRandom(group));
                 logger.info("density dependent resource generator initialized with " + resources.size() + " resources.");
                 serverDataModel.addResources(group, resources);
             }
@@ -416,50 +469,61 @@ public class ResourceDispenser {
         }
 
         protected double getNeighborsTokenRatio(final GroupDataModel group, final int currentX, final int currentY) {
-            double neighborsWithTokens = 0;
-            // start off at -1 to offset the off-by-one we get from adding the
-            // current cell.
-            double maxNeighbors = -1;
-            // use the Moore neighborhood (all 8 cells surrounding the empty cell).
-            for (int x = currentX - 1; x < currentX + 2; x++) {
-                for (int y = currentY - 1; y < currentY + 2; y++) {
-                    Point neighbor = new Point(x, y);
-                    // FIXME: if we ever decide to have Group-specific boundaries/territorial
-                    // sizes, then we will need to change this.
-                    if (serverDataModel.isValidPosition(neighbor)) {
-                        maxNeighbors++;
-                        if (group.isResourceAt(neighbor)) {
-                            neighborsWithTokens++;
-                        }
-                    }
-                }
+            double neighborsWithTokens = group.getNumberOfNeighboringTokens(currentX, currentY);
+            // the current cell has always been counted as part of its own neighborhood.
+            if (group.isResourceAt(currentX, currentY)) {
+                neighborsWithTokens++;
             }
-            // logger.info(String.format("[%f / % f] = %f", neighborsWithFood,
-            // maxNeighbors, neighborsWithFood / maxNeighbors));
-            return neighborsWithTokens / maxNeighbors;
+            return neighborsWithTokens / getMaximumNeighbors(currentX, currentY);
+        }
+
+        /**
+         * Returns the size of the Moore neighborhood (up to all 8 cells surrounding the given cell) that lies within the board.
+         * FIXME: if we ever decide to have Group-specific boundaries/territorial sizes, then we will need to change this.
+         */
+        protected int getMaximumNeighbors(final int x, final int y) {
+            int columns = 1 + (x > 0 ? 1 : 0) + (x < serverDataModel.getBoardWidth() - 1 ? 1 : 0);
+            int rows = 1 + (y > 0 ? 1 : 0) + (y < serverDataModel.getBoardHeight() - 1 ? 1 : 0);
+            return (columns * rows) - 1;
         }
 
-        // FIXME: can make this algorithm more efficient. Instead of scanning
-        // across the entire grid, look at existing set of Food points and check
-        // their neighbor probabilities
+        /**
+         * Returns the probability that the empty cell at (x, y) with the given number of neighboring tokens regrows a token.
+         */
+        protected double getProbabilityForCell(int x, int y, int neighboringTokens) {
+            return rate * (neighboringTokens / (double) getMaximumNeighbors(x, y));
+        }
+
+        /**
+         * Empty cells without any neighboring tokens have a regrowth probability of 0, so instead of scanning the
+         * entire board we only sample the frontier of empty cells with at least one neighboring token, which the
+         * group's resource grid maintains incrementally. Each frontier cell still regrows independently with
+         * the same probability as before, computed against the token distribution at the start of the tick.
+         */
         public Set<Resource> generate(GroupDataModel group) {
-            // FIXME: extremely important - add to a scratch space first and then copy over all at once to avoid copy problem.
+            Set<Resource> newResources = sample(group, getRandom(group));
+            serverDataModel.addResources(group, newResources);
+            return newResources;
+        }
+
+        /**
+         * Returns the tokens that regrow in the given group this tick without adding them to the group. Only reads
+         * the group's resource grid, so it is safe to sample different groups concurrently with different Randoms.
+         */
+        public Set<Resource> sample(GroupDataModel group, final Random random) {
             Set<Resource> newResources = new HashSet<>();
-            for (int y = 0; y < serverDataModel.getBoardHeight(); y++) {
-                for (int x = 0; x < serverDataModel.getBoardWidth(); x++) {
-                    Point currentPoint = new Point(x, y);
-                    if (! group.isResourceAt(currentPoint)) {
-                        random.doubles();
-                        if (random.nextDouble() < getProbabilityForCell(group, x, y)) {
-                            // FIXME: should initial age be parameterizable?
-                            newResources.add(new Resource(currentPoint, 1));
-                        }
-                    }
+            group.visitResourceFrontier((x, y, neighboringTokens) -> {
+                if (serverDataModel.isValidPosition(x, y) && random.nextDouble() < getProbabilityForCell(x, y, neighboringTokens)) {
+                    newResources.add(new Resource(x, y, getRegrowthAge()));
                 }
-            }
-            serverDataModel.addResources(group, newResources);
+            });
             return newResources;
         }
+
+        // FIXME: should initial age be parameterizable?
+        protected int getRegrowthAge() {
+            return 1;
+        }
     }
 
     public StochasticGenerator getDensityDependentGenerator() {
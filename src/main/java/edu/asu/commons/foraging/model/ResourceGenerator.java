@@ -18,11 +18,25 @@ import edu.asu.commons.foraging.conf.RoundConfiguration;
 public interface ResourceGenerator {
     public void initialize(RoundConfiguration roundConfiguration);
     public Set<Resource> generateInitialDistribution(GroupDataModel group);
+    public Set<Resource> generateInitialDistribution(GroupDataModel group, Random random);
     public Set<Resource> generate(GroupDataModel group);
     
     public static abstract class Base implements ResourceGenerator {
-        private final Random random = new Random();
+        private Random random = new Random();
+
+        /**
+         * Replaces the source of randomness used by generateInitialDistribution(GroupDataModel), e.g., with a stream
+         * derived from the experiment's random seed.
+         */
+        public void setRandom(Random random) {
+            this.random = random;
+        }
+
         public Set<Resource> generateInitialDistribution(GroupDataModel group) {
+            return generateInitialDistribution(group, random);
+        }
+
+        public Set<Resource> generateInitialDistribution(GroupDataModel group, Random random) {
             RoundConfiguration configuration = group.getRoundConfiguration();
             int width = configuration.getResourceWidth();
             int height = configuration.getResourceDepth();
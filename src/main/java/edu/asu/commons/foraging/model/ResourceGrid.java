@@ -0,0 +1,109 @@
+package edu.asu.commons.foraging.model;
+
+import java.awt.Point;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dense representation of the resource tokens on a single resource grid. Cells are addressed either
+ * by (x, y) coordinates or by their cell index, <code>y * width + x</code>.
+ *
+ * Implementations are not thread-safe, callers are responsible for synchronizing access to a shared grid.
+ *
+ * @author <a href='mailto:Allen.Lee@asu.edu'>Allen Lee</a>
+ */
+public interface ResourceGrid extends Serializable {
+
+    public int getWidth();
+
+    public int getHeight();
+
+    /**
+     * Grows this grid so that it can hold at least width x height cells, preserving all existing tokens.
+     */
+    public void ensureCapacity(int width, int height);
+
+    public boolean isResourceAt(int x, int y);
+
+    public boolean isResourceAt(Point position);
+
+    /**
+     * Returns the age of the token at the given cell, or -1 if there is no token there.
+     */
+    public int getAge(int x, int y);
+
+    public void setAge(int x, int y, int age);
+
+    /**
+     * Adds a token with the given age at (x, y), growing the grid if needed. Returns true if the cell was previously empty.
+     */
+    public boolean add(int x, int y, int age);
+
+    public boolean add(Resource resource);
+
+    /**
+     * Removes the token at (x, y). Returns true if there was a token at that cell.
+     */
+    public boolean remove(int x, int y);
+
+    /**
+     * Returns a new Resource representing the token at (x, y), or null if the cell is empty.
+     */
+    public Resource get(int x, int y);
+
+    public int size();
+
+    public boolean isEmpty();
+
+    public void clear();
+
+    /**
+     * Replaces the contents of this grid with the contents of the given grid.
+     */
+    public void copyFrom(ResourceGrid grid);
+
+    public ResourceGrid copy();
+
+    public int toIndex(int x, int y);
+
+    public int getX(int index);
+
+    public int getY(int index);
+
+    /**
+     * Returns the index of the first occupied cell at or after fromIndex, or -1 if there are none.
+     * Use to iterate over all tokens without allocating, e.g.,
+     * <code>for (int i = grid.nextResourceIndex(0); i >= 0; i = grid.nextResourceIndex(i + 1))</code>
+     */
+    public int nextResourceIndex(int fromIndex);
+
+    /**
+     * Returns the number of tokens in the Moore neighborhood of (x, y), not counting (x, y) itself.
+     */
+    public int getNeighboringResources(int x, int y);
+
+    /**
+     * Returns the index of the first empty cell at or after fromIndex with at least one neighboring token,
+     * or -1 if there are none. Only frontier cells can regrow under neighborhood density dependent regrowth.
+     */
+    public int nextFrontierIndex(int fromIndex);
+
+    /**
+     * Returns a new Set containing the positions of all tokens in this grid.
+     */
+    public Set<Point> getResourcePositions();
+
+    /**
+     * Returns a new Map of positions to Resources for all tokens in this grid.
+     */
+    public Map<Point, Resource> toMap();
+
+    /**
+     * Callback used to visit cells without allocating a Point per cell.
+     */
+    public interface CellVisitor {
+        public void visit(int x, int y, int neighboringResources);
+    }
+
+}
@@ -26,6 +26,7 @@ import edu.asu.commons.event.PersistableEvent;
 import edu.asu.commons.foraging.bot.Bot;
 import edu.asu.commons.foraging.bot.BotIdentifier;
 import edu.asu.commons.foraging.conf.RoundConfiguration;
+import edu.asu.commons.foraging.conf.ServerConfiguration;
 import edu.asu.commons.foraging.event.AddClientEvent;
 import edu.asu.commons.foraging.event.ExplicitCollectionModeRequest;
 import edu.asu.commons.foraging.event.HarvestFruitRequest;
@@ -58,10 +59,16 @@ public class ServerDataModel extends ForagingDataModel {
     
     private transient Logger logger = Logger.getLogger( getClass().getName() );
     private transient Random random = new Random();
+    private transient Random botRandom = new Random();
+    private transient Random groupRandom = new Random();
+    // experiment-level seed used to derive this model's random streams, persisted with the save file. null when unseeded.
+    private Long randomSeed;
     private transient boolean dirty = false;
     
 	// Maps client Identifiers to the GroupDataModel that the client belongs to 
     private final Map<Identifier, GroupDataModel> clientsToGroups = new HashMap<Identifier, GroupDataModel>();
+    // groups without any participants, e.g., bot-only groups in a headless simulation
+    private List<GroupDataModel> botGroups = new ArrayList<GroupDataModel>();
 
     private Map<Strategy, Integer> imposedStrategyDistribution;
 
@@ -81,6 +88,50 @@ public class ServerDataModel extends ForagingDataModel {
 		this.dirty = dirty;
 	}
 
+    public Long getRandomSeed() {
+        return randomSeed;
+    }
+
+    /**
+     * Reseeds this model's random streams (initial client positions, imposed strategies, groups and bots) from the
+     * given experiment-level seed.
+     */
+    public void setRandomSeed(long randomSeed) {
+        this.randomSeed = randomSeed;
+        random = new Random(ServerConfiguration.deriveSeed(randomSeed, "server-data-model"));
+        botRandom = new Random(ServerConfiguration.deriveSeed(randomSeed, "bots"));
+        groupRandom = new Random(ServerConfiguration.deriveSeed(randomSeed, "groups"));
+    }
+
+    /**
+     * Returns a new Random for a bot. Bots get successive streams from this model's bot stream, so bots
+     * added in the same order get the same streams for the same seed.
+     */
+    public Random createBotRandom() {
+        synchronized (botRandom) {
+            return new Random(botRandom.nextLong());
+        }
+    }
+
+    /**
+     * Returns a new Random for a group. Groups get successive streams from this model's group stream, so groups
+     * created in the same order get the same streams for the same seed.
+     */
+    public Random createGroupRandom() {
+        synchronized (groupRandom) {
+            return new Random(groupRandom.nextLong());
+        }
+    }
+
+    @Override
+    public void setRoundConfiguration(RoundConfiguration configuration) {
+        super.setRoundConfiguration(configuration);
+        // size each group's resource grid to the new board up front instead of growing it one token at a time
+        for (GroupDataModel group : getGroups()) {
+            group.resizeResourceGrid(getBoardWidth(), getBoardHeight());
+        }
+    }
+
     /**
      * Invoked when we try to reconstruct a server game state given a time-ordered Set of
      * PersistableEvents that was previously saved.  
@@ -192,7 +243,7 @@ public class ServerDataModel extends ForagingDataModel {
     }
 
     public void cleanupRound() {
-        for (GroupDataModel group: clientsToGroups.values()) {
+        for (GroupDataModel group: getGroups()) {
             group.cleanupRound();
         }
     }
@@ -215,6 +266,20 @@ public class ServerDataModel extends ForagingDataModel {
             group.clear();
             iter.remove();
         }
+        for (GroupDataModel group : botGroups) {
+            group.clear();
+        }
+        botGroups.clear();
+    }
+
+    /**
+     * Adds a group that has no participants, e.g., a group of bots in a headless simulation. Groups with
+     * participants are added implicitly via addClient.
+     */
+    public void addBotGroup(GroupDataModel group) {
+        group.setServerDataModel(this);
+        group.resizeResourceGrid(getBoardWidth(), getBoardHeight());
+        botGroups.add(group);
     }
 
     public Map<Identifier, ClientData> getClientDataMap() {
@@ -249,6 +314,26 @@ public class ServerDataModel extends ForagingDataModel {
         channel.handle(new MovementEvent(id, d));
     }
 
+    /**
+     * Applies a client's moves in order and then acknowledges the given prediction sequence number, whether or not
+     * the moves succeeded, so the client can reconcile its predictions with its next position update. Sequence
+     * numbers of 0 aren't tracked and aren't acknowledged.
+     */
+    public void moveClient(Identifier id, List<Direction> directions, int sequenceNumber) {
+        GroupDataModel group = getGroup(id);
+        if (group == null) {
+            // disconnected before its moves were applied
+            return;
+        }
+        for (Direction direction : directions) {
+            moveClient(id, direction);
+        }
+        ClientData clientData = group.getClientData(id);
+        if (sequenceNumber > 0 && clientData != null) {
+            clientData.setLastMovementSequenceNumber(sequenceNumber);
+        }
+    }
+
     public Point getClientPosition(Identifier id) {
         GroupDataModel group = clientsToGroups.get(id);
         return group.getClientPosition(id);
@@ -263,11 +348,13 @@ public class ServerDataModel extends ForagingDataModel {
     }
 
     public Set<GroupDataModel> getGroups() {
-        return new LinkedHashSet<GroupDataModel>(clientsToGroups.values());
+        Set<GroupDataModel> groups = new LinkedHashSet<GroupDataModel>(clientsToGroups.values());
+        groups.addAll(botGroups);
+        return groups;
     }
     
     public List<GroupDataModel> getOrderedGroups() {
-        return new ArrayList<GroupDataModel>(new TreeSet<GroupDataModel>(clientsToGroups.values()));
+        return new ArrayList<GroupDataModel>(new TreeSet<GroupDataModel>(getGroups()));
     }
 
     public ClientData getClientData(Identifier id) {
@@ -391,6 +478,9 @@ public class ServerDataModel extends ForagingDataModel {
 
     private void readObject(ObjectInputStream objectInputStream) throws IOException, ClassNotFoundException {
         objectInputStream.defaultReadObject();
+        if (botGroups == null) {
+            botGroups = new ArrayList<GroupDataModel>();
+        }
         for (GroupDataModel group: getGroups()) {
             group.setServerDataModel(this);
             // should we clear the resource distribution for all groups as well?  However, this means we won't be able to get the residual token counts
@@ -399,7 +489,14 @@ public class ServerDataModel extends ForagingDataModel {
         }
         super.channel = new EventTypeChannel();
         logger = Logger.getLogger( getClass().getName() );
-        random = new Random();
+        if (randomSeed == null) {
+            random = new Random();
+            botRandom = new Random();
+            groupRandom = new Random();
+        }
+        else {
+            setRandomSeed(randomSeed);
+        }
     }
 
     public void unapply(PersistableEvent persistableEvent) {
@@ -497,7 +594,7 @@ public class ServerDataModel extends ForagingDataModel {
         }
         List<GroupDataModel> groups = getOrderedGroups();
         int numberOfGroups = groups.size();
-        Collections.shuffle(groups);
+        Collections.shuffle(groups, random);
         Iterator<GroupDataModel> groupIterator = groups.iterator();
         int numberOfStrategies = 0;
         for (Map.Entry<Strategy, Integer> entry : imposedStrategyDistribution.entrySet()) {
@@ -527,7 +624,11 @@ public class ServerDataModel extends ForagingDataModel {
         return imposedStrategyDistribution;
     }
 
-    public synchronized void handleTokenCollectionRequest(ClientData clientData) {
+    /**
+     * Collects the token at the client's position. ForagingServer only calls this from the round thread, which is the
+     * only thread that modifies a group during a round.
+     */
+    public void handleTokenCollectionRequest(ClientData clientData) {
         GroupDataModel group = getGroup(clientData.getId());
         group.collectToken(clientData);
     }
@@ -0,0 +1,458 @@
+package edu.asu.commons.foraging.server;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import edu.asu.commons.event.PersistableEvent;
+import edu.asu.commons.foraging.event.MovementEvent;
+import edu.asu.commons.foraging.event.ResourcesAddedEvent;
+import edu.asu.commons.foraging.event.TokenCollectedEvent;
+import edu.asu.commons.foraging.model.Direction;
+import edu.asu.commons.foraging.model.Resource;
+import edu.asu.commons.foraging.util.VarInt;
+import edu.asu.commons.net.Identifier;
+
+/**
+ * $Id$
+ *
+ * Append-only binary journal of the PersistableEvents stored during a round, written as they happen so that a crash
+ * mid-round loses at most the last few milliseconds instead of the whole round.
+ *
+ * Callers only enqueue events; a dedicated writer thread drains everything queued since its last write, encodes it,
+ * appends it to the file and forces it to disk once per batch (group commit), so a burst of events costs a single
+ * fsync. Movement, token collection and resource regrowth, the bulk of a round, use a compact varint encoding with
+ * actors replaced by small per-journal indices, every other event is stored Java-serialized. Those are serialized
+ * on the calling thread when they are appended, since they may refer to state, e.g., a GroupDataModel, that the
+ * round keeps changing.
+ *
+ * Each record is a type byte followed by the zig-zag encoded difference between the event's creation time and the
+ * previous record's, then the type specific fields. Use {@link Reader} to read a journal back.
+ *
+ * @author <a href='mailto:Allen.Lee@asu.edu'>Allen Lee</a>
+ * @version $Revision$
+ */
+public class EventJournal implements Closeable {
+
+    private final static Logger logger = Logger.getLogger(EventJournal.class.getName());
+
+    private final static int MAGIC = 0x464a4e4c;
+    private final static int VERSION = 1;
+
+    public final static byte ACTOR = 0;
+    public final static byte MOVEMENT = 1;
+    public final static byte TOKEN_COLLECTED = 2;
+    public final static byte RESOURCES_ADDED = 3;
+    public final static byte SERIALIZED = 4;
+
+    // marks the end of the queue, never written
+    private final static QueuedEvent CLOSE = new QueuedEvent(null, null);
+
+    private final File file;
+    private final FileChannel channel;
+    private final BlockingQueue<QueuedEvent> queue = new LinkedBlockingQueue<>();
+    private final Thread writerThread;
+
+    // only touched by the writer thread
+    private final Map<Identifier, Integer> actorIndices = new HashMap<>();
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(8192);
+    private final DataOutputStream out = new DataOutputStream(buffer);
+    private long previousTime;
+
+    private volatile boolean closed;
+    private volatile boolean failed;
+
+    public EventJournal(File file) throws IOException {
+        this.file = file;
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && ! parent.isDirectory() && ! parent.mkdirs()) {
+            throw new IOException("Unable to create journal directory " + parent);
+        }
+        channel = new FileOutputStream(file).getChannel();
+        previousTime = System.currentTimeMillis();
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        VarInt.writeVarLong(out, previousTime);
+        flush();
+        writerThread = new Thread(this::drain, "foraging-event-journal");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Queues the event to be appended to the journal. Safe to call from any thread, never blocks on I/O. Events
+     * without a compact encoding are serialized right away, events that can't be serialized are skipped.
+     */
+    public void append(PersistableEvent event) {
+        if (event == null || closed || failed) {
+            return;
+        }
+        byte[] serializedEvent = null;
+        if (! isCompact(event)) {
+            try {
+                serializedEvent = serialize(event);
+            } catch (IOException | RuntimeException exception) {
+                // e.g., a ConcurrentModificationException, the rest of the round is still worth journaling
+                logger.log(Level.WARNING, "Unable to journal " + event + ", skipping it", exception);
+                return;
+            }
+        }
+        queue.offer(new QueuedEvent(event, serializedEvent));
+    }
+
+    /**
+     * Returns true if the journal stopped writing events, e.g., because the disk is full.
+     */
+    public boolean isFailed() {
+        return failed;
+    }
+
+    /**
+     * Writes out every queued event and closes the journal.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        queue.offer(CLOSE);
+        try {
+            writerThread.join();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            channel.close();
+        } catch (IOException exception) {
+            logger.log(Level.WARNING, "Unable to close event journal " + file, exception);
+        }
+    }
+
+    private void drain() {
+        List<QueuedEvent> batch = new ArrayList<>();
+        boolean done = false;
+        try {
+            while (! done) {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+                for (QueuedEvent queuedEvent : batch) {
+                    if (queuedEvent == CLOSE) {
+                        done = true;
+                        break;
+                    }
+                    try {
+                        write(queuedEvent);
+                    } catch (NotSerializableException | RuntimeException exception) {
+                        // nothing was written for it, the rest of the round is still worth journaling
+                        logger.log(Level.WARNING, "Unable to journal " + queuedEvent.event + ", skipping it", exception);
+                    }
+                }
+                batch.clear();
+                flush();
+            }
+        } catch (InterruptedException exception) {
+            logger.log(Level.SEVERE, "Event journal writer for " + file + " was interrupted, no longer journaling this round");
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException exception) {
+            logger.log(Level.SEVERE, "Unable to write event journal " + file + ", no longer journaling this round", exception);
+        } finally {
+            if (! done) {
+                // nothing drains the queue anymore, so stop queueing
+                failed = true;
+                queue.clear();
+            }
+        }
+    }
+
+    private void flush() throws IOException {
+        if (buffer.size() == 0) {
+            return;
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        channel.force(false);
+        buffer.reset();
+    }
+
+    private static boolean isCompact(PersistableEvent event) {
+        return (event instanceof MovementEvent && ((MovementEvent) event).getDirection() != null)
+                || (event instanceof TokenCollectedEvent && ((TokenCollectedEvent) event).getLocation() != null)
+                || (event instanceof ResourcesAddedEvent && ((ResourcesAddedEvent) event).getGroup() != null);
+    }
+
+    private void write(QueuedEvent queuedEvent) throws IOException {
+        PersistableEvent event = queuedEvent.event;
+        if (queuedEvent.serializedEvent != null) {
+            writeHeader(SERIALIZED, event);
+            VarInt.writeVarInt(out, queuedEvent.serializedEvent.length);
+            out.write(queuedEvent.serializedEvent);
+        }
+        else if (event instanceof MovementEvent) {
+            MovementEvent movementEvent = (MovementEvent) event;
+            int actor = getActorIndex(event.getId());
+            writeHeader(MOVEMENT, event);
+            VarInt.writeVarInt(out, actor);
+            out.writeByte(movementEvent.getDirection().ordinal());
+        }
+        else if (event instanceof TokenCollectedEvent) {
+            TokenCollectedEvent tokenCollectedEvent = (TokenCollectedEvent) event;
+            int actor = getActorIndex(event.getId());
+            writeHeader(TOKEN_COLLECTED, event);
+            VarInt.writeVarInt(out, actor);
+            VarInt.writeVarInt(out, tokenCollectedEvent.getLocation().x);
+            VarInt.writeVarInt(out, tokenCollectedEvent.getLocation().y);
+        }
+        else {
+            ResourcesAddedEvent resourcesAddedEvent = (ResourcesAddedEvent) event;
+            List<Resource> resources = new ArrayList<>(resourcesAddedEvent.getResources());
+            writeHeader(RESOURCES_ADDED, event);
+            VarInt.writeVarLong(out, resourcesAddedEvent.getGroup().getGroupId());
+            VarInt.writeVarInt(out, resources.size());
+            for (Resource resource : resources) {
+                VarInt.writeVarInt(out, resource.getX());
+                VarInt.writeVarInt(out, resource.getY());
+                VarInt.writeVarInt(out, resource.getAge());
+            }
+        }
+    }
+
+    private void writeHeader(byte type, PersistableEvent event) throws IOException {
+        long time = event.getCreationTime();
+        out.writeByte(type);
+        VarInt.writeVarLong(out, zigZag(time - previousTime));
+        previousTime = time;
+    }
+
+    private int getActorIndex(Identifier id) throws IOException {
+        Integer index = actorIndices.get(id);
+        if (index == null) {
+            // serialized first so an actor that can't be written doesn't get an index
+            byte[] bytes = serialize(id);
+            index = actorIndices.size();
+            actorIndices.put(id, index);
+            out.writeByte(ACTOR);
+            VarInt.writeVarLong(out, 0L);
+            VarInt.writeVarInt(out, index);
+            VarInt.writeVarInt(out, bytes.length);
+            out.write(bytes);
+        }
+        return index;
+    }
+
+    private static byte[] serialize(Object object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOut = new ObjectOutputStream(bytes)) {
+            objectOut.writeObject(object);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * An event waiting to be written along with its serialized form, if it has no compact encoding.
+     */
+    private static class QueuedEvent {
+        private final PersistableEvent event;
+        private final byte[] serializedEvent;
+
+        QueuedEvent(PersistableEvent event, byte[] serializedEvent) {
+            this.event = event;
+            this.serializedEvent = serializedEvent;
+        }
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Cursor over the records in a journal. Compact records are exposed through primitive getters without creating
+     * events; serialized records are only deserialized on request. A journal cut short by a crash ends at its last
+     * complete record.
+     */
+    public static class Reader implements Closeable {
+
+        private final DataInputStream in;
+        private final List<Identifier> actors = new ArrayList<>();
+
+        private byte type;
+        private long time;
+        private int actor;
+        private int x;
+        private int y;
+        private Direction direction;
+        private long groupId;
+        private int[] resources = new int[0];
+        private int numberOfResources;
+        private byte[] serializedEvent;
+
+        public Reader(File file) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != MAGIC) {
+                in.close();
+                throw new IOException(file + " is not an event journal");
+            }
+            int version = in.readByte();
+            if (version != VERSION) {
+                in.close();
+                throw new IOException("Unsupported event journal version " + version);
+            }
+            time = VarInt.readVarLong(in);
+        }
+
+        /**
+         * Advances to the next event, returning false at the end of the journal.
+         */
+        public boolean next() throws IOException {
+            try {
+                while (true) {
+                    type = in.readByte();
+                    time += unZigZag(VarInt.readVarLong(in));
+                    switch (type) {
+                        case ACTOR:
+                            int index = VarInt.readVarInt(in);
+                            Identifier id = (Identifier) deserialize(readBytes());
+                            while (actors.size() <= index) {
+                                actors.add(null);
+                            }
+                            actors.set(index, id);
+                            continue;
+                        case MOVEMENT:
+                            actor = VarInt.readVarInt(in);
+                            direction = Direction.values()[in.readByte()];
+                            return true;
+                        case TOKEN_COLLECTED:
+                            actor = VarInt.readVarInt(in);
+                            x = VarInt.readVarInt(in);
+                            y = VarInt.readVarInt(in);
+                            return true;
+                        case RESOURCES_ADDED:
+                            groupId = VarInt.readVarLong(in);
+                            numberOfResources = VarInt.readVarInt(in);
+                            if (resources.length < numberOfResources * 3) {
+                                resources = new int[numberOfResources * 3];
+                            }
+                            for (int i = 0; i < numberOfResources * 3; i++) {
+                                resources[i] = VarInt.readVarInt(in);
+                            }
+                            return true;
+                        case SERIALIZED:
+                            serializedEvent = readBytes();
+                            return true;
+                        default:
+                            throw new IOException("Unknown event journal record type " + type);
+                    }
+                }
+            } catch (EOFException exception) {
+                // end of journal or a record truncated by a crash
+                return false;
+            }
+        }
+
+        private byte[] readBytes() throws IOException {
+            byte[] bytes = new byte[VarInt.readVarInt(in)];
+            in.readFully(bytes);
+            return bytes;
+        }
+
+        public byte getType() {
+            return type;
+        }
+
+        public long getCreationTime() {
+            return time;
+        }
+
+        /**
+         * Returns the actor of the current movement or token collection event.
+         */
+        public Identifier getActor() {
+            return actors.get(actor);
+        }
+
+        public Direction getDirection() {
+            return direction;
+        }
+
+        public int getX() {
+            return x;
+        }
+
+        public int getY() {
+            return y;
+        }
+
+        public long getGroupId() {
+            return groupId;
+        }
+
+        public int getNumberOfResources() {
+            return numberOfResources;
+        }
+
+        public int getResourceX(int index) {
+            return resources[index * 3];
+        }
+
+        public int getResourceY(int index) {
+            return resources[index * 3 + 1];
+        }
+
+        public int getResourceAge(int index) {
+            return resources[index * 3 + 2];
+        }
+
+        /**
+         * Deserializes the current serialized event.
+         */
+        public PersistableEvent getEvent() throws IOException {
+            return (PersistableEvent) deserialize(serializedEvent);
+        }
+
+        private static Object deserialize(byte[] bytes) throws IOException {
+            try (ObjectInputStream objectIn = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                return objectIn.readObject();
+            } catch (ClassNotFoundException exception) {
+                throw new IOException(exception);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+    }
+
+}
@@ -0,0 +1,83 @@
+package edu.asu.commons.foraging.server;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import edu.asu.commons.foraging.event.FacilitatorGroupUpdateEvent;
+import edu.asu.commons.foraging.event.GroupUpdateFrame;
+import edu.asu.commons.foraging.model.BitSetResourceGrid;
+import edu.asu.commons.foraging.model.GroupDataModel;
+import edu.asu.commons.foraging.model.Resource;
+import edu.asu.commons.foraging.model.ResourceGrid;
+import edu.asu.commons.net.Identifier;
+
+/**
+ * $Id$
+ *
+ * Tracks what the facilitator has been told about each group so that, after the snapshot sent at the start of a
+ * round, it only needs to be sent what changed. Per-tick diff lists on GroupDataModel are cleared every tick, so the
+ * feed keeps its own record of known tokens, actor positions and token totals and diffs against the live groups
+ * whenever an update is due, which lets the feed run at a slower rate than the round loop.
+ *
+ * @author <a href='mailto:Allen.Lee@asu.edu'>Allen Lee</a>
+ * @version $Revision$
+ */
+public class FacilitatorFeed {
+
+    private static class GroupState {
+        private final ResourceGrid knownResources = new BitSetResourceGrid();
+        private final Map<Identifier, Point> positions = new HashMap<>();
+        private final Map<Identifier, Integer> tokens = new HashMap<>();
+    }
+
+    private final Map<Long, GroupState> groupStates = new HashMap<>();
+
+    /**
+     * Records the given groups as known to the facilitator, i.e., just after sending it a full snapshot.
+     */
+    public void reset(Iterable<GroupDataModel> groups) {
+        groupStates.clear();
+        for (GroupDataModel group : groups) {
+            diff(group);
+        }
+    }
+
+    /**
+     * Creates an update with everything that changed in the given groups since the last update or reset.
+     */
+    public FacilitatorGroupUpdateEvent createUpdateEvent(Identifier facilitatorId, Iterable<GroupDataModel> groups, long timeLeft) {
+        Map<Long, GroupUpdateFrame> groupUpdates = new LinkedHashMap<>();
+        for (GroupDataModel group : groups) {
+            groupUpdates.put(group.getGroupId(), diff(group));
+        }
+        return new FacilitatorGroupUpdateEvent(facilitatorId, groupUpdates, timeLeft);
+    }
+
+    private GroupUpdateFrame diff(GroupDataModel group) {
+        GroupState state = groupStates.computeIfAbsent(group.getGroupId(), (groupId) -> new GroupState());
+        List<Resource> addedResources = new ArrayList<>();
+        List<Resource> removedResources = new ArrayList<>();
+        group.diffResources(state.knownResources, addedResources, removedResources);
+        Map<Identifier, Point> positions = group.getClientPositions();
+        Map<Identifier, Integer> tokens = group.getClientTokens();
+        Map<Identifier, Point> changedPositions = new HashMap<>();
+        for (Map.Entry<Identifier, Point> entry : positions.entrySet()) {
+            Identifier id = entry.getKey();
+            if (! Objects.equals(entry.getValue(), state.positions.get(id)) || ! Objects.equals(tokens.get(id), state.tokens.get(id))) {
+                changedPositions.put(id, entry.getValue());
+            }
+        }
+        // copy in case an actor's position is updated in place
+        changedPositions.forEach((id, position) -> state.positions.put(id, (position == null) ? null : new Point(position)));
+        state.tokens.putAll(tokens);
+        return new GroupUpdateFrame(addedResources.toArray(new Resource[addedResources.size()]),
+                removedResources.toArray(new Resource[removedResources.size()]),
+                tokens, changedPositions, group.getActorNumbers(), 0L);
+    }
+
+}
@@ -1,18 +1,83 @@
 package edu.asu.commons.foraging.server;
 
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
 import edu.asu.commons.event.EventChannel;
+import edu.asu.commons.event.PersistableEvent;
 import edu.asu.commons.experiment.Persister;
 import edu.asu.commons.foraging.conf.RoundConfiguration;
 import edu.asu.commons.foraging.conf.ServerConfiguration;
 
 public class ForagingPersister extends Persister<ServerConfiguration, RoundConfiguration> {
+
+    private final static Logger logger = Logger.getLogger(ForagingPersister.class.getName());
+
+    private final ServerConfiguration serverConfiguration;
+    private boolean journalEnabled;
+    private volatile EventJournal journal;
     
     public ForagingPersister(ServerConfiguration configuration) {
         super(configuration);
+        this.serverConfiguration = configuration;
+        this.journalEnabled = configuration.isEventJournalEnabled();
     }
     
     public ForagingPersister(EventChannel channel, ServerConfiguration configuration) {
         super(channel, configuration);
+        this.serverConfiguration = configuration;
+        this.journalEnabled = configuration.isEventJournalEnabled();
+    }
+
+    /**
+     * Starts a new journal for the round, closing the previous round's journal if it's still open.
+     */
+    @Override
+    public void initialize(RoundConfiguration roundConfiguration) {
+        super.initialize(roundConfiguration);
+        closeJournal();
+        if (journalEnabled) {
+            String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+            File file = new File(serverConfiguration.getEventJournalDirectory(),
+                    String.format("%s-%s.journal", timestamp, roundConfiguration.getRoundIndexLabel().replaceAll("[^A-Za-z0-9_-]+", "-")));
+            try {
+                journal = new EventJournal(file);
+            } catch (IOException exception) {
+                logger.log(Level.SEVERE, "Unable to create event journal " + file + ", this round won't be journaled", exception);
+            }
+        }
+    }
+
+    @Override
+    public void store(PersistableEvent event) {
+        super.store(event);
+        EventJournal currentJournal = journal;
+        if (currentJournal != null) {
+            currentJournal.append(event);
+        }
+    }
+
+    /**
+     * Flushes and closes the current round's journal, e.g., once the round has been persisted.
+     */
+    public void closeJournal() {
+        EventJournal currentJournal = journal;
+        journal = null;
+        if (currentJournal != null) {
+            currentJournal.close();
+        }
+    }
+
+    public boolean isJournalEnabled() {
+        return journalEnabled;
+    }
+
+    public void setJournalEnabled(boolean journalEnabled) {
+        this.journalEnabled = journalEnabled;
     }
 
     // FIXME: path only works for unix.  Should detect OS instead and have a Windows-safe fail safe directory.
@@ -6,14 +6,20 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
@@ -21,14 +27,15 @@ import java.util.logging.Level;
 import edu.asu.commons.event.*;
 import edu.asu.commons.experiment.AbstractExperiment;
 import edu.asu.commons.experiment.IPersister;
-import edu.asu.commons.experiment.Persister;
 import edu.asu.commons.experiment.StateMachine;
+import edu.asu.commons.foraging.bot.BotScheduler;
 import edu.asu.commons.foraging.bot.BotType;
 import edu.asu.commons.foraging.conf.RoundConfiguration;
 import edu.asu.commons.foraging.conf.ServerConfiguration;
 import edu.asu.commons.foraging.data.ForagingSaveFileConverter;
 import edu.asu.commons.foraging.event.AgentInfoRequest;
 import edu.asu.commons.foraging.event.BeginChatRoundRequest;
+import edu.asu.commons.foraging.event.ClientMovementBatchRequest;
 import edu.asu.commons.foraging.event.ClientMovementRequest;
 import edu.asu.commons.foraging.event.ClientPoseUpdate;
 import edu.asu.commons.foraging.event.ClientPositionUpdateEvent;
@@ -39,6 +46,7 @@ import edu.asu.commons.foraging.event.FacilitatorCensoredChatRequest;
 import edu.asu.commons.foraging.event.FacilitatorEndRoundEvent;
 import edu.asu.commons.foraging.event.FacilitatorSanctionUpdateEvent;
 import edu.asu.commons.foraging.event.FacilitatorUpdateEvent;
+import edu.asu.commons.foraging.event.GroupUpdateFrame;
 import edu.asu.commons.foraging.event.HarvestFruitRequest;
 import edu.asu.commons.foraging.event.HarvestResourceRequest;
 import edu.asu.commons.foraging.event.ImposeStrategyEvent;
@@ -74,6 +82,7 @@ import edu.asu.commons.foraging.model.ServerDataModel;
 import edu.asu.commons.foraging.model.TrustGameResult;
 import edu.asu.commons.foraging.rules.Strategy;
 import edu.asu.commons.foraging.ui.Circle;
+import edu.asu.commons.foraging.util.TokenBucket;
 import edu.asu.commons.net.Dispatcher;
 import edu.asu.commons.net.Identifier;
 import edu.asu.commons.net.SocketIdentifier;
@@ -106,7 +115,9 @@ public class ForagingServer extends AbstractExperiment<ServerConfiguration, Roun
 
     private StateMachine stateMachine = new ForagingStateMachine();
 
-    private Persister<ServerConfiguration, RoundConfiguration> persister;
+    private final TickMetrics tickMetrics = new TickMetrics();
+
+    private ForagingPersister persister;
 
     private volatile int numberOfSubmittedQuizzes;
     private volatile int numberOfCompletedSanctions;
@@ -153,11 +164,16 @@ public class ForagingServer extends AbstractExperiment<ServerConfiguration, Roun
         } else if (input.equals("skip-post-round-sanction")) {
             System.out.println("Skipping post round sanctioning");
             Utils.notify(facilitatorSignal);
+        } else if (input.equals("metrics")) {
+            System.out.print(tickMetrics.dump());
+        } else if (input.equals("reset-metrics")) {
+            System.out.println("Resetting tick metrics");
+            tickMetrics.reset();
         } else if (input.equals("process-savefiles")) {
             System.out.print("Please enter the save directory path: ");
             try {
                 String path = reader.readLine();
-                boolean converted = ForagingSaveFileConverter.convert(path, false);
+                boolean converted = ForagingSaveFileConverter.convert(path, false, getConfiguration().getSaveFileConversionThreads());
                 if (!converted) {
                     System.out.println("Unable to convert from path: " + path);
                 }
@@ -195,10 +211,22 @@ public class ForagingServer extends AbstractExperiment<ServerConfiguration, Roun
     private class ForagingStateMachine implements StateMachine {
         private ServerDataModel serverDataModel;
         private ResourceDispenser resourceDispenser;
+        private BotScheduler botScheduler;
+        private Random shuffleRandom;
+        private Random trustGameRandom;
         private ServerState serverState;
         private final Duration secondTick = Duration.create(1000L);
         private final Duration botTick = Duration.create(100L);
         private volatile boolean groupsInitialized;
+        private TickScheduler tickScheduler;
+        // transmits each tick's position updates so that slow sends don't hold up the next tick
+        private ExecutorService sendExecutor;
+        private Future<?> pendingSend;
+        private final FacilitatorFeed facilitatorFeed = new FacilitatorFeed();
+        private final GroupCommandQueues groupCommandQueues = new GroupCommandQueues();
+        // the server side of the clients' message throttling, see ForagingClient.MessageQueue
+        private final Map<Identifier, TokenBucket> movementBuckets = new ConcurrentHashMap<>();
+        private Duration facilitatorTick;
 
         /**
          * Initializes the state machine before the experiment ever begins.
@@ -207,11 +235,45 @@ public class ForagingServer extends AbstractExperiment<ServerConfiguration, Roun
             serverState = ServerState.WAITING_FOR_CONNECTIONS;
             serverDataModel = new ServerDataModel(getEventChannel());
             serverDataModel.setRoundConfiguration(getCurrentRoundConfiguration());
-            resourceDispenser = new ResourceDispenser(serverDataModel);
+            long randomSeed = getConfiguration().getRandomSeed();
+            getLogger().info("Using random seed: " + randomSeed);
+            serverDataModel.setRandomSeed(randomSeed);
+            resourceDispenser = new ResourceDispenser(serverDataModel, getConfiguration().createRandom("resource-dispenser"));
+            shuffleRandom = getConfiguration().createRandom("shuffle-participants");
+            trustGameRandom = getConfiguration().createRandom("trust-game");
+            resourceDispenser.setParallelGenerationEnabled(getConfiguration().isParallelResourceGenerationEnabled());
+            botScheduler = new BotScheduler(serverDataModel);
+            botScheduler.setParallelActivationEnabled(getConfiguration().isParallelBotActivationEnabled());
+            tickScheduler = new TickScheduler(getConfiguration().getTickInterval(), TimeUnit.MILLISECONDS, getConfiguration().getMaxCatchUpTicks());
+            sendExecutor = Executors.newSingleThreadExecutor((runnable) -> {
+                Thread thread = new Thread(runnable, "foraging-server-send");
+                thread.setDaemon(true);
+                return thread;
+            });
+            tickMetrics.setTickScheduler(tickScheduler);
+            tickMetrics.register();
             initializeClientHandlers();
             initializeFacilitatorHandlers();
         }
 
+        /**
+         * Returns the moves the given client may make right now, dropping the rest once it has used up the
+         * client-message-burst and client-messages-per-second budget its own MessageQueue is supposed to keep to.
+         * Dropped moves are still acknowledged with the rest, the client's next position update corrects its
+         * predictions.
+         */
+        private List<Direction> throttleMovements(Identifier id, List<Direction> directions) {
+            TokenBucket bucket = movementBuckets.computeIfAbsent(id, (key) -> new TokenBucket(
+                    Math.max(getConfiguration().getClientMessagesPerSecond(), 1),
+                    Math.max(getConfiguration().getClientMessageBurst(), 1)));
+            int allowed = bucket.tryAcquire(directions.size());
+            if (allowed < directions.size()) {
+                getLogger().warning(String.format("Dropping %d of %d moves from %s, over its message rate", directions.size() - allowed, directions.size(), id));
+                return directions.subList(0, allowed);
+            }
+            return directions;
+        }
+
         private void initializeClientHandlers() {
             addEventProcessor(new EventTypeProcessor<SocketIdentifierUpdateRequest>(SocketIdentifierUpdateRequest.class) {
                 @Override
@@ -260,6 +322,7 @@ public class ForagingServer extends AbstractExperiment<ServerConfiguration, Roun
                         }
                         clients.remove(id);
                         serverDataModel.removeClient(id);
+                        movementBuckets.remove(id);
                     }
                 }
             });
@@ -349,8 +412,23 @@ public class ForagingServer extends AbstractExperiment<ServerConfiguration, Roun
                     if (serverState == ServerState.IN_BETWEEN_ROUNDS)
                         return;
                     Identifier id = event.getId();
-                    Direction direction = event.getDirection();
-                    serverDataModel.moveClient(id, direction);
+                    List<Direction> directions = throttleMovements(id, Collections.singletonList(event.getDirection()));
+                    int sequenceNumber = event.getSequenceNumber();
+                    // applied on the next tick by the round thread
+                    groupCommandQueues.submit(serverDataModel.getGroup(id),
+                            () -> serverDataModel.moveClient(id, directions, sequenceNumber));
+                }
+            });
+            addEventProcessor(new EventTypeProcessor<ClientMovementBatchRequest>(ClientMovementBatchRequest.class) {
+                public void handle(ClientMovementBatchRequest event) {
+                    if (serverState == ServerState.IN_BETWEEN_ROUNDS)
+                        return;
+                    Identifier id = event.getId();
+                    List<Direction> directions = throttleMovements(id, event.getDirections());
+                    int sequenceNumber = event.getSequenceNumber();
+                    // all moves are applied in order on the next tick, as if they had arrived separately
+                    groupCommandQueues.submit(serverDataModel.getGroup(id),
+                            () -> serverDataModel.moveClient(id, directions, sequenceNumber));
                 }
             });
 
@@ -361,12 +439,17 @@ public class ForagingServer extends AbstractExperiment<ServerConfiguration, Roun
             });
             addEventProcessor(new EventTypeProcessor<CollectTokenRequest>(CollectTokenRequest.class) {
                 @Override
-                public void handleInExperimentThread(CollectTokenRequest event) {
+                public void handle(CollectTokenRequest event) {
+                    if (serverState == ServerState.IN_BETWEEN_ROUNDS)
+                        return;
                     ClientData clientData = clients.get(event.getId());
-                    if (event.isSinglePlayer()) {
-                        clientData.setPosition(event.getPosition());
-                    }
-                    serverDataModel.handleTokenCollectionRequest(clientData);
+                    // applied on the next tick by the round thread, after any movement that arrived before it
+                    groupCommandQueues.submit(clientData.getGroupDataModel(), () -> {
+                        if (event.isSinglePlayer()) {
+                            clientData.setPosition(event.getPosition());
+                        }
+                        serverDataModel.handleTokenCollectionRequest(clientData);
+                    });
                 }
             });
             addEventProcessor(new EventTypeProcessor<ResetTokenDistributionRequest>(ResetTokenDistributionRequest.class) {
@@ -730,9 +813,10 @@ public class ForagingServer extends AbstractExperiment<ServerConfiguration, Roun
          */
         protected void processTrustGame() {
             List<TrustGameResult> allTrustGameResults = new ArrayList<TrustGameResult>();
-            for (GroupDataModel group : serverDataModel.getGroups()) {
+            for (GroupDataModel group : serverDataModel.getOrderedGroups()) {
                 LinkedList<ClientData> clientList = new LinkedList<ClientData>(group.getClientDataMap().values());
-                Collections.shuffle(clientList);
+                clientList.sort(Comparator.comparingInt(ClientData::getAssignedNumber));
+                Collections.shuffle(clientList, trustGameRandom);
                 getLogger().info("TRUST GAME shuffled client list: " + clientList);
                 ClientData first = clientList.getFirst();
 
@@ -831,17 +915,33 @@ public class ForagingServer extends AbstractExperiment<ServerConfiguration, Roun
                 case ROUND_IN_PROGRESS:
                     // process incoming information
                     if (currentRoundDuration.hasExpired()) {
+                        // apply any requests that arrived during the final tick
+                        groupCommandQueues.drain(serverDataModel.getGroups());
                         // perform token adjustment if needed.
                         for (GroupDataModel group : serverDataModel.getGroups()) {
                             if (group.getActiveEnforcementMechanism().hasMonitor()) {
                                 group.applyMonitorTax();
                             }
                         }
+                        // make sure every position update has gone out before the end of round events
+                        awaitPendingSend();
+                        getLogger().info("Round tick statistics: " + tickScheduler);
                         stopRound();
                         break;
                     }
+                    long tickStart = System.nanoTime();
                     processRound();
-                    Utils.sleep(SERVER_SLEEP_INTERVAL);
+                    tickMetrics.record(TickMetrics.Phase.TICK, System.nanoTime() - tickStart);
+                    try {
+                        if (! tickScheduler.awaitNextTick()) {
+                            getLogger().fine("Tick overran its deadline: " + tickScheduler);
+                        }
+                    } catch (InterruptedException exception) {
+                        // the experiment thread is being shut down, don't keep running ticks without any pacing
+                        getLogger().log(Level.WARNING, "Round loop interrupted, stopping the server", exception);
+                        Thread.currentThread().interrupt();
+                        ForagingServer.this.stop();
+                    }
                     break;
                 case IN_BETWEEN_ROUNDS:
                     // FIXME: there is an inherent nastiness going on with this model of control flow
@@ -921,6 +1021,7 @@ public class ForagingServer extends AbstractExperiment<ServerConfiguration, Roun
                 Utils.waitOn(facilitatorSignal);
             }
             persister.persist(serverDataModel);
+            persister.closeJournal();
             cleanupRound();
             // FIXME: make sure this is needed and document.
             // Utils.sleep(2000);
@@ -930,6 +1031,7 @@ public class ForagingServer extends AbstractExperiment<ServerConfiguration, Roun
         private void cleanupRound() {
             numberOfSubmittedQuizzes = 0;
             groupsInitialized = false;
+            groupCommandQueues.clear();
             serverDataModel.cleanupRound();
             for (ClientData clientData : clients.values()) {
                 clientData.reset();
@@ -965,7 +1067,7 @@ public class ForagingServer extends AbstractExperiment<ServerConfiguration, Roun
             // activate bots
             botTick.onTick((duration) -> {
                 // only activate bots every 100 ms or so, otherwise they frontload all their actions.
-                serverDataModel.getGroups().forEach((group) -> group.activateBots(duration.isModulo(10))); 
+                botScheduler.activateBots(duration.isModulo(10));
             });
             // update client with bot positions and updated resource totals
             for (GroupDataModel group : serverDataModel.getGroups()) {
@@ -994,6 +1096,9 @@ public class ForagingServer extends AbstractExperiment<ServerConfiguration, Roun
         }
 
         private void processRound() {
+            long commandStart = System.nanoTime();
+            groupCommandQueues.drain(serverDataModel.getGroups());
+            tickMetrics.record(TickMetrics.Phase.COMMAND_PROCESSING, System.nanoTime() - commandStart);
             if (singlePlayer) {
                 processSinglePlayerRound();
                 return;
@@ -1003,22 +1108,28 @@ public class ForagingServer extends AbstractExperiment<ServerConfiguration, Roun
                         for (ClientData data : clients.values()) {
                             if (shouldSynchronize(data, duration)) {
                                 getLogger().info("Sending full sync to: " + data.getId());
-                                transmit(new SynchronizeClientEvent(data, currentRoundDuration.getTimeLeft()));
+                                // don't let the sync overtake position updates from the previous tick
+                                awaitPendingSend();
+                                transmit(createSynchronizeClientEvent(data));
                                 synchronizedClients.add(data.getId());
                             }
                         }
+                        long generationStart = System.nanoTime();
                         resourceDispenser.generateResources();
+                        tickMetrics.record(TickMetrics.Phase.RESOURCE_GENERATION, System.nanoTime() - generationStart);
                     });
             if (botGroupsEnabled) {
                 botTick.onTick((duration) -> {
-                    for (GroupDataModel group : serverDataModel.getGroups()) {
-                        // only activate bots every 100 ms or so, otherwise they frontload all their actions.
-                        // and clear all bot action taken counters every 1 s
-                        boolean resetBotActions = duration.isModulo(10);
-                        group.activateBots(resetBotActions);
-                    }
+                    long activationStart = System.nanoTime();
+                    // only activate bots every 100 ms or so, otherwise they frontload all their actions.
+                    // and clear all bot action taken counters every 1 s
+                    botScheduler.activateBots(duration.isModulo(10));
+                    tickMetrics.record(TickMetrics.Phase.BOT_ACTIVATION, System.nanoTime() - activationStart);
                 });
             }
+            long diffStart = System.nanoTime();
+            long serializationNanos = 0;
+            List<ClientPositionUpdateEvent> updates = new ArrayList<>();
             for (GroupDataModel group : serverDataModel.getGroups()) {
                 Set<Resource> addedTokensSet = group.getAddedResources();
                 Resource[] addedResources = addedTokensSet.toArray(new Resource[addedTokensSet.size()]);
@@ -1026,31 +1137,103 @@ public class ForagingServer extends AbstractExperiment<ServerConfiguration, Roun
                 Resource[] removedResources = removedTokensSet.toArray(new Resource[removedTokensSet.size()]);
                 Map<Identifier, Integer> clientTokens = group.getClientTokens();
                 Map<Identifier, Point> clientPositions = group.getClientPositions();
-                group.getClientDataMap().forEach((id, data) -> {
+                Map<Identifier, Integer> actorNumbers = group.getActorNumbers();
+                long timeLeft = currentRoundDuration.getTimeLeft();
+                // the group-wide part of the update is encoded once and shared by every member's event
+                GroupUpdateFrame frame = new GroupUpdateFrame(addedResources, removedResources, clientTokens, clientPositions,
+                        actorNumbers, timeLeft);
+                // encode now, while this tick's state is still current, rather than on the send thread
+                long encodeStart = System.nanoTime();
+                frame.toByteArray();
+                serializationNanos += System.nanoTime() - encodeStart;
+                for (Map.Entry<Identifier, ClientData> entry : group.getClientDataMap().entrySet()) {
+                    Identifier id = entry.getKey();
+                    ClientData data = entry.getValue();
                     if (synchronizedClients.contains(id)) {
                         // skip this update, then remove them from the sync set.
                         synchronizedClients.remove(id);
+                    } else if (data.isTokensFieldOfVisionEnabled()) {
+                        // only tell the client about token changes within its field of vision
+                        List<Resource> visibleAddedResources = new ArrayList<>();
+                        List<Resource> visibleRemovedResources = new ArrayList<>();
+                        group.diffVisibleResources(data, getTokensFieldOfVisionRadius(data), visibleAddedResources, visibleRemovedResources);
+                        GroupUpdateFrame visibleFrame = new GroupUpdateFrame(
+                                visibleAddedResources.toArray(new Resource[visibleAddedResources.size()]),
+                                visibleRemovedResources.toArray(new Resource[visibleRemovedResources.size()]),
+                                clientTokens, clientPositions, actorNumbers, timeLeft);
+                        encodeStart = System.nanoTime();
+                        visibleFrame.toByteArray();
+                        serializationNanos += System.nanoTime() - encodeStart;
+                        updates.add(new ClientPositionUpdateEvent(data, visibleFrame));
                     } else {
-                        transmit(new ClientPositionUpdateEvent(data, addedResources, removedResources, clientTokens, clientPositions,
-                                currentRoundDuration.getTimeLeft()));
+                        updates.add(new ClientPositionUpdateEvent(data, frame));
                     }
                     // post-process cleanup of transient data structures on ClientData
                     data.clearCollectedTokens();
                     data.resetLatestSanctions();
-                });
-                // after transmitting all the changes to the group, make sure to cleanup
+                }
+                // after collecting all the changes to the group, make sure to cleanup
                 group.clearDiffLists();
             }
-            // FIXME: reduce network traffic by only sending diffs / selective updates to the facilitator
+            tickMetrics.record(TickMetrics.Phase.DIFF_BUILDING, System.nanoTime() - diffStart - serializationNanos);
+            tickMetrics.record(TickMetrics.Phase.SERIALIZATION, serializationNanos);
+            sendUpdates(updates);
             if (shouldUpdateFacilitator()) {
-                transmit(new FacilitatorUpdateEvent(getFacilitatorId(), serverDataModel, currentRoundDuration.getTimeLeft()));
+                // the facilitator got a full snapshot at the start of the round, only send it what changed since
+                facilitatorTick.onTick((duration) -> transmit(facilitatorFeed.createUpdateEvent(getFacilitatorId(), serverDataModel.getOrderedGroups(),
+                        currentRoundDuration.getTimeLeft())));
             }
         }
 
+        /**
+         * Hands this tick's position updates off to the send thread. Only one batch is in flight at a time so updates
+         * reach each client in order.
+         */
+        private void sendUpdates(List<ClientPositionUpdateEvent> updates) {
+            awaitPendingSend();
+            tickMetrics.addToSendQueue(updates.size());
+            pendingSend = sendExecutor.submit(() -> {
+                long transmitStart = System.nanoTime();
+                for (ClientPositionUpdateEvent update : updates) {
+                    transmit(update);
+                    tickMetrics.recordSent(update.getId(), update.getEncodedFrameSize());
+                    tickMetrics.removeFromSendQueue(1);
+                }
+                tickMetrics.record(TickMetrics.Phase.TRANSMIT, System.nanoTime() - transmitStart);
+            });
+        }
+
+        private void awaitPendingSend() {
+            if (pendingSend == null) {
+                return;
+            }
+            try {
+                pendingSend.get();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException exception) {
+                getLogger().log(Level.SEVERE, "Unable to send position updates", exception.getCause());
+            }
+            pendingSend = null;
+        }
+
+        /**
+         * Creates a full sync for the given client. Clients with a tokens field of vision only get the tokens they can see.
+         */
+        private SynchronizeClientEvent createSynchronizeClientEvent(ClientData data) {
+            if (data.isTokensFieldOfVisionEnabled()) {
+                GroupDataModel visibleGroup = data.getGroupDataModel().getVisibleGroupDataModel(data, getTokensFieldOfVisionRadius(data));
+                return new SynchronizeClientEvent(data.getId(), visibleGroup, currentRoundDuration.getTimeLeft());
+            }
+            return new SynchronizeClientEvent(data, currentRoundDuration.getTimeLeft());
+        }
+
+        private double getTokensFieldOfVisionRadius(ClientData data) {
+            return data.getViewTokensRadius() + getCurrentRoundConfiguration().getViewTokensMargin();
+        }
+
         private boolean shouldUpdateFacilitator() {
-            // currently disabled to minimize network traffic. revisit if networking optimizations ever get
-            // off the ground
-            return false;
+            return facilitatorTick != null && getFacilitatorId() != null;
         }
 
         private boolean shouldSynchronize(ClientData data, Duration duration) {
@@ -1087,7 +1270,7 @@ public class ForagingServer extends AbstractExperiment<ServerConfiguration, Roun
 
         private void shuffleParticipants() {
             List<ClientData> randomizedClients = new ArrayList<>(clients.values());
-            Collections.shuffle(randomizedClients);
+            Collections.shuffle(randomizedClients, shuffleRandom);
             // clear all existing group linkages
             serverDataModel.clear();
             // generate new group linkages
@@ -1122,7 +1305,8 @@ public class ForagingServer extends AbstractExperiment<ServerConfiguration, Roun
                 // add bots to each GroupDataModel
                 int botsPerGroup = roundConfiguration.getBotsPerGroup();
                 BotType botType = BotType.valueOf(roundConfiguration.getBotType());
-                for (GroupDataModel group : serverDataModel.getGroups()) {
+                // add in group id order so each bot gets the same random stream for the same seed
+                for (GroupDataModel group : serverDataModel.getOrderedGroups()) {
                     group.addBots(botsPerGroup, botType);
                 }
             }
@@ -1156,10 +1340,17 @@ public class ForagingServer extends AbstractExperiment<ServerConfiguration, Roun
             }
             currentRoundDuration.start();
             transmit(new FacilitatorUpdateEvent(getFacilitatorId(), serverDataModel, currentRoundDuration.getTimeLeft()));
+            facilitatorTick = null;
+            if (getConfiguration().shouldUpdateFacilitator()) {
+                facilitatorFeed.reset(serverDataModel.getOrderedGroups());
+                facilitatorTick = Duration.create(getConfiguration().getFacilitatorUpdateInterval()).start();
+            }
             secondTick.start();
             if (roundConfiguration.isBotGroupsEnabled()) {
                 botTick.start();
             }
+            tickMetrics.reset();
+            tickScheduler.start();
         }
     }
 
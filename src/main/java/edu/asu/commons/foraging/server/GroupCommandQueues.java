@@ -0,0 +1,71 @@
+package edu.asu.commons.foraging.server;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import edu.asu.commons.foraging.model.GroupDataModel;
+
+/**
+ * $Id$
+ *
+ * Per-group inboxes for commands that mutate a group during a round, e.g., client movement and token collection.
+ * Dispatcher threads only append to a group's lock-free queue and the round thread drains every queue in a batch at
+ * the start of each tick, so each group is only ever modified by a single thread and requests no longer contend
+ * with bots and resource regeneration for the group's locks. Commands for a group are applied in arrival order.
+ *
+ * @author <a href='mailto:Allen.Lee@asu.edu'>Allen Lee</a>
+ * @version $Revision$
+ */
+public class GroupCommandQueues {
+
+    private final static Logger logger = Logger.getLogger(GroupCommandQueues.class.getName());
+
+    private final Map<GroupDataModel, Queue<Runnable>> queues = new ConcurrentHashMap<>();
+
+    /**
+     * Queues the given command to be applied to the group on the next tick. Safe to call from any thread.
+     */
+    public void submit(GroupDataModel group, Runnable command) {
+        if (group == null) {
+            logger.warning("Ignoring command for an actor that isn't in a group");
+            return;
+        }
+        queues.computeIfAbsent(group, (key) -> new ConcurrentLinkedQueue<>()).offer(command);
+    }
+
+    /**
+     * Applies every queued command to the given groups, must only be called from the round thread. Returns the
+     * number of commands applied.
+     */
+    public int drain(Iterable<GroupDataModel> groups) {
+        int numberOfCommands = 0;
+        for (GroupDataModel group : groups) {
+            Queue<Runnable> queue = queues.get(group);
+            if (queue == null) {
+                continue;
+            }
+            Runnable command;
+            while ((command = queue.poll()) != null) {
+                try {
+                    command.run();
+                } catch (RuntimeException exception) {
+                    logger.log(Level.SEVERE, "Unable to apply command to " + group, exception);
+                }
+                numberOfCommands++;
+            }
+        }
+        return numberOfCommands;
+    }
+
+    /**
+     * Discards all queued commands, e.g., those that arrived after the round ended.
+     */
+    public void clear() {
+        queues.clear();
+    }
+
+}
@@ -0,0 +1,154 @@
+package edu.asu.commons.foraging.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+import edu.asu.commons.event.EventChannel;
+import edu.asu.commons.event.EventTypeChannel;
+import edu.asu.commons.event.RoundStartedMarkerEvent;
+import edu.asu.commons.foraging.bot.Bot;
+import edu.asu.commons.foraging.bot.BotType;
+import edu.asu.commons.foraging.conf.RoundConfiguration;
+import edu.asu.commons.foraging.conf.ServerConfiguration;
+import edu.asu.commons.foraging.model.GroupDataModel;
+import edu.asu.commons.foraging.model.ResourceDispenser;
+import edu.asu.commons.foraging.model.ServerDataModel;
+import edu.asu.commons.util.Duration;
+
+/**
+ * $Id$
+ *
+ * Headless runner for bot-only rounds. Reuses the ServerDataModel, ResourceDispenser and Bot implementations but
+ * advances a virtual clock as fast as possible instead of sleeping on the wall clock like ForagingServer, so rounds
+ * of bots can be used to calibrate regrowth rates ahead of a study. Every simulated round gets its own
+ * ServerDataModel, event channel and ForagingPersister and independent rounds are run in parallel.
+ *
+ * Each round is seeded from the experiment-level random seed, the round index and the replication, so a simulation
+ * can be reproduced by setting random-seed in the server configuration.
+ *
+ * Persistable events are timestamped with the wall clock when they're created, so a simulated round's save file
+ * holds the round's final state and the order of its events, but not their timing; analyses that bucket events by
+ * elapsed time don't apply to it.
+ *
+ * @author <a href='mailto:Allen.Lee@asu.edu'>Allen Lee</a>
+ * @version $Revision$
+ */
+public class SimulationRunner {
+
+    private final static Logger logger = Logger.getLogger(SimulationRunner.class.getName());
+
+    // mirrors the secondTick and botTick durations in ForagingServer
+    public final static int BOT_TICKS_PER_SECOND = 10;
+
+    private final ServerConfiguration configuration;
+    private final int numberOfGroups;
+
+    public SimulationRunner(ServerConfiguration configuration, int numberOfGroups) {
+        this.configuration = configuration;
+        this.numberOfGroups = numberOfGroups;
+    }
+
+    /**
+     * Runs the given number of replications of every bot-enabled round in the configuration using the given number of
+     * threads, and returns the final ServerDataModel of each simulated round.
+     */
+    public List<ServerDataModel> run(int replications, int threads) throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<ServerDataModel>> futures = new ArrayList<>();
+            List<RoundConfiguration> roundConfigurations = configuration.getAllParameters();
+            for (int roundIndex = 0; roundIndex < roundConfigurations.size(); roundIndex++) {
+                final RoundConfiguration roundConfiguration = roundConfigurations.get(roundIndex);
+                if (! roundConfiguration.isBotGroupsEnabled()) {
+                    continue;
+                }
+                for (int replication = 0; replication < replications; replication++) {
+                    final long seed = ServerConfiguration.deriveSeed(configuration.getRandomSeed(), "simulation-" + roundIndex + "-" + replication);
+                    futures.add(executor.submit(() -> simulate(roundConfiguration, seed)));
+                }
+            }
+            List<ServerDataModel> results = new ArrayList<>(futures.size());
+            for (Future<ServerDataModel> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Simulates a single bot-only round and persists it with a ForagingPersister, see the note on event times above.
+     */
+    public ServerDataModel simulate(RoundConfiguration roundConfiguration, long seed) {
+        EventChannel channel = new EventTypeChannel();
+        ForagingPersister persister = new ForagingPersister(channel, configuration);
+        // simulations are reproducible from their seed, nothing to recover
+        persister.setJournalEnabled(false);
+        ServerDataModel serverDataModel = new ServerDataModel(channel);
+        serverDataModel.setRandomSeed(seed);
+        serverDataModel.setRoundConfiguration(roundConfiguration);
+        persister.initialize(roundConfiguration);
+        BotType botType = BotType.valueOf(roundConfiguration.getBotType());
+        for (int groupId = 0; groupId < numberOfGroups; groupId++) {
+            // explicit group ids, the shared group id counter isn't safe to use from concurrent simulations
+            GroupDataModel group = new GroupDataModel(serverDataModel, groupId);
+            serverDataModel.addBotGroup(group);
+            group.addBots(roundConfiguration.getBotsPerGroup(), botType);
+        }
+        ResourceDispenser resourceDispenser = new ResourceDispenser(serverDataModel,
+                new Random(ServerConfiguration.deriveSeed(seed, "resource-dispenser")));
+        resourceDispenser.initialize(roundConfiguration);
+        persister.store(new RoundStartedMarkerEvent());
+        long ticks = Duration.toSeconds(roundConfiguration.getRoundDuration().getTimeLeft()) * BOT_TICKS_PER_SECOND;
+        for (long tick = 1; tick <= ticks; tick++) {
+            boolean secondElapsed = tick % BOT_TICKS_PER_SECOND == 0;
+            if (secondElapsed) {
+                resourceDispenser.generateResources();
+            }
+            for (GroupDataModel group : serverDataModel.getOrderedGroups()) {
+                group.activateBots(secondElapsed);
+                group.clearDiffLists();
+            }
+        }
+        persister.persist(serverDataModel);
+        return serverDataModel;
+    }
+
+    /**
+     * Usage: SimulationRunner &lt;configuration-directory&gt; [groups] [replications] [threads]
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage: SimulationRunner <configuration-directory> [groups] [replications] [threads]");
+            System.exit(1);
+        }
+        ServerConfiguration configuration = new ServerConfiguration(args[0]);
+        int groups = (args.length > 1) ? Integer.parseInt(args[1]) : 1;
+        int replications = (args.length > 2) ? Integer.parseInt(args[2]) : 1;
+        int threads = (args.length > 3) ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        logger.info(String.format("Simulating %d replications with %d groups on %d threads using random seed %d",
+                replications, groups, threads, configuration.getRandomSeed()));
+        long start = System.currentTimeMillis();
+        List<ServerDataModel> results = new SimulationRunner(configuration, groups).run(replications, threads);
+        System.out.println("round,seed,group,bot tokens,remaining tokens");
+        for (ServerDataModel serverDataModel : results) {
+            for (GroupDataModel group : serverDataModel.getOrderedGroups()) {
+                int botTokens = 0;
+                for (Bot bot : group.getBotMap().values()) {
+                    botTokens += bot.getCurrentTokens();
+                }
+                System.out.println(String.format("%s,%d,%d,%d,%d", serverDataModel.getRoundConfiguration().getRoundIndexLabel(),
+                        serverDataModel.getRandomSeed(), group.getGroupId(), botTokens, group.getResourceDistributionSize()));
+            }
+        }
+        logger.info(String.format("Simulated %d rounds in %d ms", results.size(), System.currentTimeMillis() - start));
+    }
+
+}
@@ -0,0 +1,204 @@
+package edu.asu.commons.foraging.server;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import edu.asu.commons.foraging.util.LatencyHistogram;
+import edu.asu.commons.net.Identifier;
+
+/**
+ * $Id$
+ *
+ * Latency and throughput instrumentation for the server's round loop so a facilitator can tell when a session is
+ * about to fall behind. Records a latency histogram for each phase of a tick, counts the position updates sent
+ * along with their encoded payload size (overall and per client) and tracks the depth of the send queue.
+ *
+ * Exposed over JMX as edu.asu.commons.foraging:type=TickMetrics and as plain text through the server's "metrics"
+ * REPL command. Rates are computed since the last reset, which happens at the start of every round.
+ *
+ * @author <a href='mailto:Allen.Lee@asu.edu'>Allen Lee</a>
+ * @version $Revision$
+ */
+public class TickMetrics implements TickMetricsMBean {
+
+    private final static Logger logger = Logger.getLogger(TickMetrics.class.getName());
+
+    public final static String OBJECT_NAME = "edu.asu.commons.foraging:type=TickMetrics";
+
+    public enum Phase {
+        TICK, COMMAND_PROCESSING, RESOURCE_GENERATION, BOT_ACTIVATION, DIFF_BUILDING, SERIALIZATION, TRANSMIT;
+    }
+
+    private final Map<Phase, LatencyHistogram> phaseHistograms = new EnumMap<>(Phase.class);
+    private final Map<Identifier, LongAdder> bytesPerClient = new ConcurrentHashMap<>();
+    private final LongAdder eventsSent = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final AtomicInteger sendQueueDepth = new AtomicInteger();
+    private final AtomicInteger maxSendQueueDepth = new AtomicInteger();
+
+    private volatile TickScheduler tickScheduler;
+    private volatile long startTime = System.nanoTime();
+
+    public TickMetrics() {
+        for (Phase phase : Phase.values()) {
+            phaseHistograms.put(phase, new LatencyHistogram());
+        }
+    }
+
+    public void setTickScheduler(TickScheduler tickScheduler) {
+        this.tickScheduler = tickScheduler;
+    }
+
+    /**
+     * Registers this instance with the platform MBeanServer, replacing any previously registered instance.
+     */
+    public void register() {
+        try {
+            MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(OBJECT_NAME);
+            if (mbeanServer.isRegistered(objectName)) {
+                mbeanServer.unregisterMBean(objectName);
+            }
+            mbeanServer.registerMBean(this, objectName);
+        } catch (JMException exception) {
+            logger.log(Level.WARNING, "Unable to register tick metrics with JMX", exception);
+        }
+    }
+
+    public void record(Phase phase, long nanos) {
+        phaseHistograms.get(phase).record(nanos);
+    }
+
+    public void recordSent(Identifier id, int bytes) {
+        eventsSent.increment();
+        bytesSent.add(bytes);
+        bytesPerClient.computeIfAbsent(id, (key) -> new LongAdder()).add(bytes);
+    }
+
+    public void addToSendQueue(int events) {
+        int depth = sendQueueDepth.addAndGet(events);
+        maxSendQueueDepth.accumulateAndGet(depth, Math::max);
+    }
+
+    public void removeFromSendQueue(int events) {
+        sendQueueDepth.addAndGet(-events);
+    }
+
+    public LatencyHistogram getHistogram(Phase phase) {
+        return phaseHistograms.get(phase);
+    }
+
+    @Override
+    public long getTicks() {
+        TickScheduler scheduler = tickScheduler;
+        return (scheduler == null) ? 0 : scheduler.getTicks();
+    }
+
+    @Override
+    public long getTickOverruns() {
+        TickScheduler scheduler = tickScheduler;
+        return (scheduler == null) ? 0 : scheduler.getOverruns();
+    }
+
+    @Override
+    public long getSkippedTicks() {
+        TickScheduler scheduler = tickScheduler;
+        return (scheduler == null) ? 0 : scheduler.getSkippedTicks();
+    }
+
+    @Override
+    public double getTickPercentile(double percentile) {
+        return getHistogram(Phase.TICK).getPercentile(percentile, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public double getPhasePercentile(String phase, double percentile) {
+        return getHistogram(Phase.valueOf(phase)).getPercentile(percentile, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public long getEventsSent() {
+        return eventsSent.sum();
+    }
+
+    @Override
+    public long getBytesSent() {
+        return bytesSent.sum();
+    }
+
+    @Override
+    public double getEventsPerSecond() {
+        return perSecond(getEventsSent());
+    }
+
+    @Override
+    public double getBytesPerSecond() {
+        return perSecond(getBytesSent());
+    }
+
+    @Override
+    public int getSendQueueDepth() {
+        return sendQueueDepth.get();
+    }
+
+    @Override
+    public int getMaxSendQueueDepth() {
+        return maxSendQueueDepth.get();
+    }
+
+    private double perSecond(long count) {
+        double elapsedSeconds = (System.nanoTime() - startTime) / 1.0e9d;
+        return (elapsedSeconds > 0) ? count / elapsedSeconds : 0.0d;
+    }
+
+    @Override
+    public String dump() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("%-20s %10s %10s %10s %10s %10s %10s%n", "phase (ms)", "count", "p50", "p90", "p99", "p99.9", "max"));
+        for (Map.Entry<Phase, LatencyHistogram> entry : phaseHistograms.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            builder.append(String.format("%-20s %10d %10.3f %10.3f %10.3f %10.3f %10.3f%n", entry.getKey(), histogram.getCount(),
+                    histogram.getPercentile(50, TimeUnit.MILLISECONDS), histogram.getPercentile(90, TimeUnit.MILLISECONDS),
+                    histogram.getPercentile(99, TimeUnit.MILLISECONDS), histogram.getPercentile(99.9, TimeUnit.MILLISECONDS),
+                    histogram.getMax(TimeUnit.MICROSECONDS) / 1000.0d));
+        }
+        TickScheduler scheduler = tickScheduler;
+        if (scheduler != null) {
+            builder.append("ticks: ").append(scheduler).append('\n');
+        }
+        builder.append(String.format("sent: %d events (%.1f/s), %d bytes (%.1f/s)%n", getEventsSent(), getEventsPerSecond(), getBytesSent(),
+                getBytesPerSecond()));
+        builder.append(String.format("send queue: %d events, max %d%n", getSendQueueDepth(), getMaxSendQueueDepth()));
+        Map<String, LongAdder> sortedBytesPerClient = new TreeMap<>();
+        bytesPerClient.forEach((id, bytes) -> sortedBytesPerClient.put(String.valueOf(id), bytes));
+        for (Map.Entry<String, LongAdder> entry : sortedBytesPerClient.entrySet()) {
+            builder.append(String.format("\t%s: %.1f bytes/s%n", entry.getKey(), perSecond(entry.getValue().sum())));
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram histogram : phaseHistograms.values()) {
+            histogram.reset();
+        }
+        bytesPerClient.clear();
+        eventsSent.reset();
+        bytesSent.reset();
+        maxSendQueueDepth.set(sendQueueDepth.get());
+        startTime = System.nanoTime();
+    }
+
+}
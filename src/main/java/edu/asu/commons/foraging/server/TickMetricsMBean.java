@@ -0,0 +1,42 @@
+package edu.asu.commons.foraging.server;
+
+/**
+ * $Id$
+ *
+ * JMX management interface for TickMetrics. Latencies are reported in milliseconds.
+ *
+ * @author <a href='mailto:Allen.Lee@asu.edu'>Allen Lee</a>
+ * @version $Revision$
+ */
+public interface TickMetricsMBean {
+
+    long getTicks();
+
+    long getTickOverruns();
+
+    long getSkippedTicks();
+
+    double getTickPercentile(double percentile);
+
+    /**
+     * @param phase the name of a TickMetrics.Phase, e.g., RESOURCE_GENERATION
+     */
+    double getPhasePercentile(String phase, double percentile);
+
+    long getEventsSent();
+
+    long getBytesSent();
+
+    double getEventsPerSecond();
+
+    double getBytesPerSecond();
+
+    int getSendQueueDepth();
+
+    int getMaxSendQueueDepth();
+
+    String dump();
+
+    void reset();
+
+}
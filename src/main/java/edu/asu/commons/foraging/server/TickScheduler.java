@@ -0,0 +1,124 @@
+package edu.asu.commons.foraging.server;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+
+/**
+ * $Id$
+ *
+ * Paces the server's round loop at a fixed rate. Unlike sleeping for a fixed interval after each tick, deadlines are
+ * computed from the start of the round (start + n * period) so the time spent processing a tick doesn't accumulate
+ * as drift.
+ *
+ * A tick that finishes after the next deadline is an overrun. Missed deadlines are caught up by running the
+ * following ticks back to back, up to maxCatchUpTicks; past that the schedule is reset to the current time instead
+ * of bursting to make up the backlog.
+ *
+ * @author <a href='mailto:Allen.Lee@asu.edu'>Allen Lee</a>
+ * @version $Revision$
+ */
+public class TickScheduler {
+
+    private final static Logger logger = Logger.getLogger(TickScheduler.class.getName());
+
+    private final long periodNanos;
+    private final int maxCatchUpTicks;
+    private final LongSupplier clock;
+
+    private long nextDeadline;
+    private volatile long ticks;
+    private volatile long overruns;
+    private volatile long skippedTicks;
+    private volatile long maxLatenessNanos;
+
+    public TickScheduler(long period, TimeUnit unit, int maxCatchUpTicks) {
+        this(period, unit, maxCatchUpTicks, System::nanoTime);
+    }
+
+    /**
+     * @param clock returns the current time in nanoseconds, e.g., System::nanoTime
+     */
+    public TickScheduler(long period, TimeUnit unit, int maxCatchUpTicks, LongSupplier clock) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Tick period must be positive: " + period);
+        }
+        this.periodNanos = unit.toNanos(period);
+        this.maxCatchUpTicks = maxCatchUpTicks;
+        this.clock = clock;
+    }
+
+    /**
+     * Resets the schedule and its statistics, the first tick is due one period from now.
+     */
+    public void start() {
+        ticks = 0;
+        overruns = 0;
+        skippedTicks = 0;
+        maxLatenessNanos = 0;
+        nextDeadline = clock.getAsLong() + periodNanos;
+    }
+
+    /**
+     * Blocks until the next tick is due. Returns false if the previous tick overran its deadline, in which case this
+     * method returns immediately.
+     * 
+     * @throws InterruptedException if the calling thread is interrupted while waiting, the schedule is left as is
+     */
+    public boolean awaitNextTick() throws InterruptedException {
+        long now = clock.getAsLong();
+        long lateness = now - nextDeadline;
+        ticks++;
+        if (lateness > 0) {
+            overruns++;
+            maxLatenessNanos = Math.max(maxLatenessNanos, lateness);
+            long missedTicks = lateness / periodNanos;
+            if (missedTicks > maxCatchUpTicks) {
+                skippedTicks += missedTicks;
+                logger.warning(String.format("Tick %d overran by %d ms, skipping %d ticks", ticks, TimeUnit.NANOSECONDS.toMillis(lateness), missedTicks));
+                nextDeadline = now + periodNanos;
+            }
+            else {
+                nextDeadline += periodNanos;
+            }
+            return false;
+        }
+        long remaining;
+        while ((remaining = nextDeadline - clock.getAsLong()) > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.interrupted()) {
+                throw new InterruptedException("Interrupted while waiting for tick " + ticks);
+            }
+        }
+        nextDeadline += periodNanos;
+        return true;
+    }
+
+    public long getPeriod(TimeUnit unit) {
+        return unit.convert(periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public long getOverruns() {
+        return overruns;
+    }
+
+    public long getSkippedTicks() {
+        return skippedTicks;
+    }
+
+    public long getMaxLateness(TimeUnit unit) {
+        return unit.convert(maxLatenessNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d ticks every %d ms, %d overruns (max %d ms late), %d skipped", ticks, getPeriod(TimeUnit.MILLISECONDS),
+                overruns, getMaxLateness(TimeUnit.MILLISECONDS), skippedTicks);
+    }
+
+}
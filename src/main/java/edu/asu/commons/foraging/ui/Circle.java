@@ -34,5 +34,13 @@ public class Circle implements Serializable {
     public void setCenter(Point center) {
         this.center = center;
     }
+
+    public Point getCenter() {
+        return center;
+    }
+
+    public double getRadius() {
+        return radius;
+    }
     
 }
@@ -156,9 +156,8 @@ public class GameWindow2D implements GameWindow {
             public void run() {
                 informationLabel.setText(getInformationLabelText());
                 timeLeftLabel.setText(getTimeLeftLabelText(roundTimeLeft));
-                // FIXME: subjectView.repaint() causes graphical glitches here
-                // only when we transition from 3D -> 2D experiment. Find out why.
-                getPanel().repaint();
+                // only redraw the parts of the board that changed
+                subjectView.repaintChangedCells();
             }
         });
     }
@@ -543,11 +542,13 @@ public class GameWindow2D implements GameWindow {
                 else if (singlePlayer) {
                     dataModel.moveClient(direction);
                     event = new MovementEvent(client.getId(), direction);
-                    subjectView.repaint();
+                    subjectView.repaintChangedCells();
 //                    SwingUtilities.invokeLater(() -> subjectView.repaint());
                 }
-                else {
-                    event = new ClientMovementRequest(client.getId(), direction);
+                else if (keyReleased) {
+                    // show the move right away instead of waiting for the server to echo it back
+                    event = new ClientMovementRequest(client.getId(), direction, dataModel.predictMove(direction));
+                    subjectView.repaintChangedCells();
                 }
                 if (keyReleased) {
                     channel.handle(event);
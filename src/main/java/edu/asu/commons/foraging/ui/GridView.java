@@ -8,18 +8,23 @@ import java.awt.Graphics2D;
 import java.awt.Image;
 import java.awt.Paint;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.TexturePaint;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
-import java.awt.image.ImageObserver;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import javax.imageio.ImageIO;
 import javax.swing.JPanel;
 
 import edu.asu.commons.foraging.conf.RoundConfiguration;
+import edu.asu.commons.foraging.ui.SpriteAtlas.Sprite;
 import edu.asu.commons.util.ResourceLoader;
 
 /**
@@ -30,6 +35,12 @@ import edu.asu.commons.util.ResourceLoader;
  * 
  *          Superclass for experimenter and subject views of the simulation
  *          world.
+ * 
+ *          With incremental rendering enabled the background and tokens are
+ *          kept in a back buffer and only the cells passed to repaintCells()
+ *          are redrawn into it, so a paint copies the damaged region from the
+ *          buffer and draws the subjects on top. Subclasses that enable it
+ *          must report every changed cell.
  */
 @SuppressWarnings("serial")
 public abstract class GridView extends JPanel {
@@ -41,16 +52,13 @@ public abstract class GridView extends JPanel {
     protected Image tokenImage, otherSubjectImage, selfImage, selfExplicitCollectionModeImage, beingSanctionedImage,
             sanctioningImage, monitorImage;
 
-    protected Image scaledTokenImage, scaledOtherSubjectImage, scaledSelfImage, scaledSelfExplicitCollectionModeImage,
-            scaledBeingSanctionedImage, scaledSanctioningImage, scaledMonitorImage;
-
     // The following are different versions of the images above to be shown in
     // Zone B.
     protected Image tokenImageB, otherSubjectImageB, selfImageB, selfExplicitCollectionModeImageB,
             beingSanctionedImageB, sanctioningImageB, monitorImageB;
-    protected Image scaledTokenImageB, scaledOtherSubjectImageB, scaledSelfImageB,
-            scaledSelfExplicitCollectionModeImageB, scaledBeingSanctionedImageB, scaledSanctioningImageB,
-            scaledMonitorImageB;
+
+    // the images above at the current cell size
+    protected final SpriteAtlas spriteAtlas = new SpriteAtlas();
     
     private Paint background;
     
@@ -64,6 +72,10 @@ public abstract class GridView extends JPanel {
 
     protected int yoffset = 0;
 
+    // pixel coordinates of each column and row, see scaleX and scaleY
+    private int[] columnOffsets = new int[0];
+    private int[] rowOffsets = new int[0];
+
     protected Font font;
     protected int fontSize;
 
@@ -77,14 +89,24 @@ public abstract class GridView extends JPanel {
     // the conceptual size of the resource grid (e.g., 13 x 13)
     protected Dimension boardSize;
 
+    // above this many damaged cells the whole board buffer is redrawn, looking up each cell gets more expensive than drawing
+    private final static int MAXIMUM_DAMAGED_CELLS = 64;
+
+    private boolean incrementalRendering;
+
+    // background and tokens as of the last paint, only used with incremental rendering
+    private BufferedImage boardBuffer;
+
+    // cells that need to be redrawn into the board buffer, guarded by itself
+    private final Set<Point> damagedCells = new HashSet<>();
+    private boolean boardDamaged = true;
+
     public GridView(Dimension screenSize) {
         loadImages();
         this.screenSize = screenSize;
         setPreferredSize(screenSize);
     }
 
-    public final static int IMAGE_SCALING_STRATEGY = Image.SCALE_SMOOTH;
-
     public void setImageSizes() {
         if (boardSize == null)
             return;
@@ -109,31 +131,32 @@ public abstract class GridView extends JPanel {
         font = new Font("sansserif", Font.BOLD, fontSize);
 
         setPreferredSize(screenSize);
-        // FIXME: reduce code duplication
-        // get scaled instances of the originals
-        int cellWidth = (int) dw;
-        int cellHeight = (int) dh;
-
-        scaledTokenImage = tokenImage.getScaledInstance(cellWidth, cellHeight, IMAGE_SCALING_STRATEGY);
-        scaledOtherSubjectImage = otherSubjectImage.getScaledInstance(cellWidth, cellHeight, IMAGE_SCALING_STRATEGY);
-        scaledSelfImage = selfImage.getScaledInstance(cellWidth, cellHeight, IMAGE_SCALING_STRATEGY);
-        scaledSelfExplicitCollectionModeImage = selfExplicitCollectionModeImage.getScaledInstance(cellWidth, cellHeight,
-                IMAGE_SCALING_STRATEGY);
-        scaledBeingSanctionedImage = beingSanctionedImage.getScaledInstance(cellWidth, cellHeight,
-                IMAGE_SCALING_STRATEGY);
-        scaledSanctioningImage = sanctioningImage.getScaledInstance(cellWidth, cellHeight, IMAGE_SCALING_STRATEGY);
-        scaledMonitorImage = monitorImage.getScaledInstance(cellWidth, cellHeight, IMAGE_SCALING_STRATEGY);
-
-        // Scale the Zone B images
-        scaledTokenImageB = tokenImageB.getScaledInstance(cellWidth, cellHeight, IMAGE_SCALING_STRATEGY);
-        scaledOtherSubjectImageB = otherSubjectImageB.getScaledInstance(cellWidth, cellHeight, IMAGE_SCALING_STRATEGY);
-        scaledSelfImageB = selfImageB.getScaledInstance(cellWidth, cellHeight, IMAGE_SCALING_STRATEGY);
-        scaledSelfExplicitCollectionModeImageB = selfExplicitCollectionModeImageB.getScaledInstance(cellWidth,
-                cellHeight, IMAGE_SCALING_STRATEGY);
-        scaledBeingSanctionedImageB = beingSanctionedImageB.getScaledInstance(cellWidth, cellHeight,
-                IMAGE_SCALING_STRATEGY);
-        scaledSanctioningImageB = sanctioningImageB.getScaledInstance(cellWidth, cellHeight, IMAGE_SCALING_STRATEGY);
-        scaledMonitorImageB = monitorImageB.getScaledInstance(cellWidth, cellHeight, IMAGE_SCALING_STRATEGY);
+        invalidateBoard();
+        columnOffsets = new int[(int) boardSize.getWidth() + 1];
+        for (int x = 0; x < columnOffsets.length; x++) {
+            columnOffsets[x] = (int) ((dw * x) + xoffset);
+        }
+        rowOffsets = new int[(int) boardSize.getHeight() + 1];
+        for (int y = 0; y < rowOffsets.length; y++) {
+            rowOffsets[y] = (int) ((dh * y) + yoffset);
+        }
+
+        spriteAtlas.setSource(Sprite.TOKEN, 0, tokenImage);
+        spriteAtlas.setSource(Sprite.OTHER_SUBJECT, 0, otherSubjectImage);
+        spriteAtlas.setSource(Sprite.SELF, 0, selfImage);
+        spriteAtlas.setSource(Sprite.SELF_EXPLICIT_COLLECTION_MODE, 0, selfExplicitCollectionModeImage);
+        spriteAtlas.setSource(Sprite.BEING_SANCTIONED, 0, beingSanctionedImage);
+        spriteAtlas.setSource(Sprite.SANCTIONING, 0, sanctioningImage);
+        spriteAtlas.setSource(Sprite.MONITOR, 0, monitorImage);
+        // Zone B images
+        spriteAtlas.setSource(Sprite.TOKEN, 1, tokenImageB);
+        spriteAtlas.setSource(Sprite.OTHER_SUBJECT, 1, otherSubjectImageB);
+        spriteAtlas.setSource(Sprite.SELF, 1, selfImageB);
+        spriteAtlas.setSource(Sprite.SELF_EXPLICIT_COLLECTION_MODE, 1, selfExplicitCollectionModeImageB);
+        spriteAtlas.setSource(Sprite.BEING_SANCTIONED, 1, beingSanctionedImageB);
+        spriteAtlas.setSource(Sprite.SANCTIONING, 1, sanctioningImageB);
+        spriteAtlas.setSource(Sprite.MONITOR, 1, monitorImageB);
+        spriteAtlas.render(getCellWidth(), getCellHeight(), getGraphicsConfiguration());
     }
 
     /**
@@ -232,17 +255,115 @@ public abstract class GridView extends JPanel {
     protected void paintComponent(Graphics graphics) {
         Graphics2D graphics2D = (Graphics2D) graphics;
         graphics2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        // FIXME: can be made more efficient.
-        // Could just update the parts that have changed (tokens removed,
-        // subjects moved)
-        // paint the background
-        paintBackground(graphics2D);
-        // paint resources
-        paintTokens(graphics2D);
+        if (isIncrementalRendering()) {
+            // the clip set by the RepaintManager limits the copy to the damaged region
+            updateBoardBuffer();
+            graphics2D.drawImage(boardBuffer, 0, 0, null);
+        }
+        else {
+            // paint the background
+            paintBackground(graphics2D);
+            // paint resources
+            paintTokens(graphics2D);
+        }
         // paint subjects last (covering up tokens as needed)
         paintSubjects(graphics2D);
     }
 
+    /**
+     * Redraws the damaged cells into the board buffer, or the whole board if it was invalidated.
+     */
+    private void updateBoardBuffer() {
+        int width = Math.max(xoffset + actualWidth, 1);
+        int height = Math.max(yoffset + actualHeight, 1);
+        List<Point> cells;
+        synchronized (damagedCells) {
+            if (boardBuffer == null || boardBuffer.getWidth() != width || boardBuffer.getHeight() != height) {
+                boardBuffer = getGraphicsConfiguration() == null
+                        ? new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB)
+                        : getGraphicsConfiguration().createCompatibleImage(width, height);
+                boardDamaged = true;
+            }
+            if (!boardDamaged && damagedCells.isEmpty()) {
+                return;
+            }
+            cells = (boardDamaged || damagedCells.size() > MAXIMUM_DAMAGED_CELLS) ? null : new ArrayList<>(damagedCells);
+            boardDamaged = false;
+            damagedCells.clear();
+        }
+        Graphics2D bufferGraphics = boardBuffer.createGraphics();
+        try {
+            bufferGraphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            if (cells != null) {
+                for (Point cell : cells) {
+                    paintBackground(bufferGraphics, getCellArea(cell));
+                }
+                paintTokens(bufferGraphics, cells);
+            }
+            else {
+                // the margins around the board
+                bufferGraphics.setColor(getBackground());
+                bufferGraphics.fillRect(0, 0, width, height);
+                paintBackground(bufferGraphics);
+                paintTokens(bufferGraphics);
+            }
+        } finally {
+            bufferGraphics.dispose();
+        }
+    }
+
+    /**
+     * Redraws the given cells, e.g., where tokens were added or removed or subjects moved, instead of the whole
+     * board. Repaints everything when incremental rendering is disabled.
+     */
+    public void repaintCells(Collection<Point> cells) {
+        if (!isIncrementalRendering()) {
+            repaint();
+            return;
+        }
+        synchronized (damagedCells) {
+            damagedCells.addAll(cells);
+        }
+        // the RepaintManager coalesces these into a single paint
+        for (Point cell : cells) {
+            repaint(getCellBounds(cell));
+        }
+    }
+
+    /**
+     * Marks the whole board as changed, e.g., after a full synchronization.
+     */
+    public void invalidateBoard() {
+        synchronized (damagedCells) {
+            boardDamaged = true;
+            damagedCells.clear();
+        }
+        repaint();
+    }
+
+    public void setIncrementalRendering(boolean incrementalRendering) {
+        this.incrementalRendering = incrementalRendering;
+        invalidateBoard();
+    }
+
+    public boolean isIncrementalRendering() {
+        return incrementalRendering;
+    }
+
+    protected Rectangle getCellBounds(Point cell) {
+        int x = scaleX(cell.x);
+        int y = scaleY(cell.y);
+        // include the pixel that rounding may add to the next cell
+        return new Rectangle(x, y, getCellWidth() + 1, getCellHeight() + 1);
+    }
+
+    // the pixels that belong to the given cell and no other, they cover anything drawn at the cell's size
+    protected Rectangle getCellArea(Point cell) {
+        int x = scaleX(cell.x);
+        int y = scaleY(cell.y);
+        return new Rectangle(x, y, scaleX(cell.x + 1) - x, scaleY(cell.y + 1) - y);
+    }
+
     /**
      * Uses filled s
      * 
@@ -265,32 +386,28 @@ public abstract class GridView extends JPanel {
         graphics2D.setPaint(originalPaint);
     }
 
-    protected void paintCollection(Collection<Point> collection, Graphics2D graphics2D, Image image) {
-        paintCollection(collection, graphics2D, image, this);
-    }
-
-    protected void paintCollection(Collection<Point> collection, Graphics2D graphics2D, Image image, ImageObserver observer) {
+    protected void paintCollection(Collection<Point> collection, Graphics2D graphics2D, Sprite sprite, int zone) {
         synchronized (collection) {
             for (Point point : collection) {
-                int x = scaleX(point.x);
-                int y = scaleY(point.y);
-                graphics2D.drawImage(image, x, y, observer);
+                spriteAtlas.draw(graphics2D, sprite, zone, scaleX(point.x), scaleY(point.y));
             }
         }
     }
 
-    protected void paintCollection(Collection<Point> collection, Graphics2D graphics2D, Image image, ImageObserver observer, Circle fieldOfView) {
+    protected void paintCollection(Collection<Point> collection, Graphics2D graphics2D, Sprite sprite, int zone, Circle fieldOfView) {
         synchronized (collection) {
             for (Point point : collection) {
                 if (fieldOfView.contains(point)) {
-                    int x = scaleX(point.x);
-                    int y = scaleY(point.y);
-                    graphics2D.drawImage(image, x, y, observer);
+                    spriteAtlas.draw(graphics2D, sprite, zone, scaleX(point.x), scaleY(point.y));
                 }
             }
         }
     }
 
+    protected void drawSprite(Graphics2D graphics2D, Sprite sprite, int zone, int x, int y) {
+        spriteAtlas.draw(graphics2D, sprite, zone, x, y);
+    }
+
     protected int getCellWidth() {
         return (int) dw;
     }
@@ -299,10 +416,11 @@ public abstract class GridView extends JPanel {
         return (int) dh;
     }
 
-    // FIXME: profiling shows that both scaleX and scaleY are called a lot at
-    // runtime,
-    // should see if we can optimize them further.
+    // called a lot at runtime, so cells on the board are looked up in the offsets computed by setImageSizes
     protected int scaleX(int x) {
+        if (x >= 0 && x < columnOffsets.length) {
+            return columnOffsets[x];
+        }
         return (int) ((dw * x) + xoffset);
     }
 
@@ -311,6 +429,9 @@ public abstract class GridView extends JPanel {
     }
 
     protected int scaleY(int y) {
+        if (y >= 0 && y < rowOffsets.length) {
+            return rowOffsets[y];
+        }
         return (int) ((dh * y) + yoffset);
     }
 
@@ -320,6 +441,12 @@ public abstract class GridView extends JPanel {
 
     protected abstract void paintTokens(Graphics2D graphics2D);
 
+    /**
+     * Paints the tokens in the given cells only, their background has already been painted. Used by incremental
+     * rendering to redraw damaged cells without going through every token on the board.
+     */
+    protected abstract void paintTokens(Graphics2D graphics2D, Collection<Point> cells);
+
     protected abstract void paintSubjects(Graphics2D graphics2D);
 
     /**
@@ -327,8 +454,15 @@ public abstract class GridView extends JPanel {
      * background.
      */
     protected void paintBackground(Graphics2D graphics2D) {
+        paintBackground(graphics2D, new Rectangle(xoffset, yoffset, actualWidth, actualHeight));
+    }
+
+    /**
+     * Paints the background of the given part of the board.
+     */
+    protected void paintBackground(Graphics2D graphics2D, Rectangle bounds) {
         graphics2D.setPaint(background);
-        graphics2D.fillRect(xoffset, yoffset, actualWidth, actualHeight);
+        graphics2D.fill(bounds);
     }
 
 }
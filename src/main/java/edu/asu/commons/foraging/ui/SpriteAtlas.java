@@ -0,0 +1,130 @@
+package edu.asu.commons.foraging.ui;
+
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+/**
+ * $Id$
+ *
+ * The token and avatar images of a GridView, rendered once at the current cell size into a single compatible image
+ * with a column per sprite and a row per zone. Drawing a sprite is one unscaled blit out of the atlas, so paint cost
+ * doesn't depend on the size of the original images. Rendering is synchronous, unlike Image.getScaledInstance(), so
+ * there are no half scaled images right after a resize. The atlas is a managed image that Java2D caches in video
+ * memory where it can.
+ *
+ * @author <a href='mailto:Allen.Lee@asu.edu'>Allen Lee</a>
+ * @version $Revision$
+ */
+public class SpriteAtlas {
+
+    public enum Sprite {
+        TOKEN, SELF, OTHER_SUBJECT, SELF_EXPLICIT_COLLECTION_MODE, BEING_SANCTIONED, SANCTIONING, MONITOR
+    }
+
+    public final static int NUMBER_OF_ZONES = 2;
+
+    private final Image[][] sources = new Image[NUMBER_OF_ZONES][Sprite.values().length];
+
+    private BufferedImage atlas;
+    private int cellWidth;
+    private int cellHeight;
+
+    public synchronized void setSource(Sprite sprite, int zone, Image image) {
+        if (sources[zone][sprite.ordinal()] != image) {
+            sources[zone][sprite.ordinal()] = image;
+            atlas = null;
+        }
+    }
+
+    /**
+     * Renders every sprite at the given cell size, unless the atlas is already rendered at that size.
+     */
+    public synchronized void render(int cellWidth, int cellHeight, GraphicsConfiguration configuration) {
+        cellWidth = Math.max(cellWidth, 1);
+        cellHeight = Math.max(cellHeight, 1);
+        if (atlas != null && this.cellWidth == cellWidth && this.cellHeight == cellHeight) {
+            return;
+        }
+        int width = cellWidth * Sprite.values().length;
+        int height = cellHeight * NUMBER_OF_ZONES;
+        BufferedImage image = (configuration == null)
+                ? new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB)
+                : configuration.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            for (int zone = 0; zone < NUMBER_OF_ZONES; zone++) {
+                for (int index = 0; index < sources[zone].length; index++) {
+                    Image source = sources[zone][index];
+                    if (source != null) {
+                        graphics.drawImage(shrink(source, cellWidth, cellHeight), index * cellWidth, zone * cellHeight, cellWidth, cellHeight, null);
+                    }
+                }
+            }
+        } finally {
+            graphics.dispose();
+        }
+        this.cellWidth = cellWidth;
+        this.cellHeight = cellHeight;
+        atlas = image;
+    }
+
+    /**
+     * Halves images much larger than the target size until they're within a factor of two, a single bicubic pass
+     * drops too many pixels when shrinking a lot.
+     */
+    private static Image shrink(Image source, int targetWidth, int targetHeight) {
+        int width = source.getWidth(null);
+        int height = source.getHeight(null);
+        Image image = source;
+        while (width >= targetWidth * 2 && height >= targetHeight * 2) {
+            width /= 2;
+            height /= 2;
+            BufferedImage half = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D graphics = half.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.drawImage(image, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            image = half;
+        }
+        return image;
+    }
+
+    /**
+     * Draws the given sprite with its top left corner at x, y. Zones other than 0 and 1 use zone 0's sprites.
+     */
+    public void draw(Graphics graphics, Sprite sprite, int zone, int x, int y) {
+        BufferedImage currentAtlas;
+        int width;
+        int height;
+        synchronized (this) {
+            currentAtlas = atlas;
+            width = cellWidth;
+            height = cellHeight;
+        }
+        if (currentAtlas == null) {
+            return;
+        }
+        int sourceX = sprite.ordinal() * width;
+        int sourceY = (zone == 1) ? height : 0;
+        graphics.drawImage(currentAtlas, x, y, x + width, y + height, sourceX, sourceY, sourceX + width, sourceY + height, null);
+    }
+
+    public int getCellWidth() {
+        return cellWidth;
+    }
+
+    public int getCellHeight() {
+        return cellHeight;
+    }
+
+}
@@ -6,20 +6,23 @@ import java.awt.Composite;
 import java.awt.Dimension;
 import java.awt.FontMetrics;
 import java.awt.Graphics2D;
-import java.awt.Image;
 import java.awt.Paint;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.Shape;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.Line2D;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import edu.asu.commons.foraging.client.ClientDataModel;
 import edu.asu.commons.foraging.conf.RoundConfiguration;
+import edu.asu.commons.foraging.ui.SpriteAtlas.Sprite;
 import edu.asu.commons.net.Identifier;
 import edu.asu.commons.util.Duration;
 
@@ -82,6 +85,8 @@ public class SubjectView extends GridView {
     private Color sanctionedParticipantColor;
     private Color sanctionerParticipantColor;
 
+    // where participants were drawn by the last paint, only touched on the event dispatch thread
+    private List<Point> paintedPositions = new ArrayList<>();
 
     public SubjectView(Dimension screenSize, ClientDataModel dataModel) {
         super(screenSize);
@@ -120,6 +125,7 @@ public class SubjectView extends GridView {
         sanctionerBackgroundColor = configuration.getSanctionerBackgroundColor();
         sanctionedParticipantColor = configuration.getSanctionedParticipantColor();
         sanctionerParticipantColor = configuration.getSanctionerParticipantColor();
+        setIncrementalRendering(configuration.isIncrementalRenderingEnabled());
 
         super.setup(configuration);
 
@@ -128,6 +134,38 @@ public class SubjectView extends GridView {
         }
     }
 
+    /**
+     * The field of vision moves with the participant, so rendering is only incremental without one.
+     */
+    @Override
+    public boolean isIncrementalRendering() {
+        return super.isIncrementalRendering() && !tokenFieldOfVisionEnabled && !subjectFieldOfVisionEnabled;
+    }
+
+    /**
+     * Repaints the cells that may have changed since the last paint: where tokens were added or removed, where the
+     * participants were drawn last time and where they are now. Must be invoked on the event dispatch thread.
+     */
+    public void repaintChangedCells() {
+        Set<Point> changedTokenPositions = dataModel.drainChangedTokenPositions();
+        if (!isIncrementalRendering()) {
+            repaint();
+            return;
+        }
+        if (changedTokenPositions == null) {
+            invalidateBoard();
+            return;
+        }
+        List<Point> cells = new ArrayList<>(changedTokenPositions);
+        cells.addAll(paintedPositions);
+        for (Point position : dataModel.getClientPositions().values()) {
+            if (position != null) {
+                cells.add(position);
+            }
+        }
+        repaintCells(cells);
+    }
+
     public void collectTokens(Point... positions) {
         if (dataModel.getRoundConfiguration().showTokenAnimation()) {
             synchronized (collectedTokens) {
@@ -139,43 +177,68 @@ public class SubjectView extends GridView {
     }
 
     protected void paintTokens(Graphics2D graphics2D) {
-
         // When showing the resource zones, paint top and bottom tokens using different images,
         // and draw a line between the zones.
-        HashSet<Point> resourcePositionsA = new HashSet<>();
-        HashSet<Point> resourcePositionsB = new HashSet<>();
-        int midHeight = (int) boardSize.getHeight() / 2;
         if (showResourceZones) {
-            for (Point point : dataModel.getResourcePositions()) {
-                if (point.y < midHeight) {
-                    resourcePositionsA.add(point);
-                } else {
-                    resourcePositionsB.add(point);
-                }
-            }
-            double lineY = scaleYDouble((double) midHeight);
             graphics2D.setColor(Color.WHITE);
-            graphics2D.draw(new Line2D.Double(0, lineY, scaleXDouble(boardSize.getWidth()), lineY));
+            graphics2D.draw(getZoneBoundary());
         }
         // three cases - show all food on the game board, show all food within
         // visible radius of the current player, or don't show any food.
         // UAA added resource zones support for 2014 experiments
         if (tokenFieldOfVisionEnabled) {
             viewTokensField.setCenter(dataModel.getCurrentPosition());
-            if (showResourceZones) {
-                paintCollection(resourcePositionsA, graphics2D, scaledTokenImage, this, viewTokensField);
-                paintCollection(resourcePositionsB, graphics2D, scaledTokenImageB, this, viewTokensField);
-            } else {
-                paintCollection(dataModel.getResourcePositions(), graphics2D, scaledTokenImage, this, viewTokensField);
+        }
+        Paint originalPaint = graphics2D.getPaint();
+        graphics2D.setPaint(TOKEN_COLOR);
+        for (Point point : dataModel.getResourcePositions()) {
+            if (!tokenFieldOfVisionEnabled || viewTokensField.contains(point)) {
+                paintToken(graphics2D, point);
             }
-        } else if (showResourceZones) {
-            paintCollection(resourcePositionsA, graphics2D, scaledTokenImage);
-            paintCollection(resourcePositionsB, graphics2D, scaledTokenImageB);
-        } else if (useTokenImage) {
-            paintCollection(dataModel.getResourcePositions(), graphics2D, scaledTokenImage);
-        } else {
-            paintCollection(dataModel.getResourcePositions(), graphics2D, TOKEN_COLOR);
         }
+        graphics2D.setPaint(originalPaint);
+    }
+
+    /**
+     * Only used with incremental rendering, i.e., without a field of vision.
+     */
+    @Override
+    protected void paintTokens(Graphics2D graphics2D, Collection<Point> cells) {
+        int midHeight = (int) boardSize.getHeight() / 2;
+        Paint originalPaint = graphics2D.getPaint();
+        Shape originalClip = graphics2D.getClip();
+        for (Point cell : cells) {
+            if (showResourceZones && (cell.y == midHeight - 1 || cell.y == midHeight)) {
+                // the part of the zone boundary running through this cell
+                graphics2D.setColor(Color.WHITE);
+                graphics2D.clip(getCellArea(cell));
+                graphics2D.draw(getZoneBoundary());
+                graphics2D.setClip(originalClip);
+            }
+            if (dataModel.isResourceAt(cell.x, cell.y)) {
+                graphics2D.setPaint(TOKEN_COLOR);
+                paintToken(graphics2D, cell);
+            }
+        }
+        graphics2D.setPaint(originalPaint);
+    }
+
+    // tokens are drawn as sprites unless they're just green squares on the whole board
+    private void paintToken(Graphics2D graphics2D, Point point) {
+        int x = scaleX(point.x);
+        int y = scaleY(point.y);
+        if (tokenFieldOfVisionEnabled || showResourceZones || useTokenImage) {
+            int zone = (showResourceZones && point.y >= (int) boardSize.getHeight() / 2) ? 1 : 0;
+            drawSprite(graphics2D, Sprite.TOKEN, zone, x, y);
+        }
+        else {
+            graphics2D.fillRect(x, y, getCellWidth(), getCellHeight());
+        }
+    }
+
+    private Line2D getZoneBoundary() {
+        double lineY = scaleYDouble((double) ((int) boardSize.getHeight() / 2));
+        return new Line2D.Double(0, lineY, scaleXDouble(boardSize.getWidth()), lineY);
     }
 
     private void animateCollectedTokens(Graphics2D graphics2D) {
@@ -218,14 +281,9 @@ public class SubjectView extends GridView {
         int y = scaleY(point.y);
 
         if (useTokenImage) {
-            Image image;
-            if (showResourceZones) {
-                // Use token image for zone A or zone B depending on board position
-                image = (point.y < (int) boardSize.getHeight() / 2) ? scaledTokenImage : scaledTokenImageB;
-            } else {
-                image = scaledTokenImage;
-            }
-            graphics2D.drawImage(image, x, y, width, height, null);
+            // Use token image for zone A or zone B depending on board position
+            int zone = (showResourceZones && point.y >= (int) boardSize.getHeight() / 2) ? 1 : 0;
+            drawSprite(graphics2D, Sprite.TOKEN, zone, x, y);
         } else {
             graphics2D.fillRect(x, y, width, height);
         }
@@ -255,9 +313,14 @@ public class SubjectView extends GridView {
             graphics2D.fill(circle);
             graphics2D.setPaint(originalPaint);
         }
+        List<Point> positions = new ArrayList<>();
         for (Map.Entry<Identifier, Point> entry : dataModel.getClientPositions().entrySet()) {
             Identifier id = entry.getKey();
             Point subjectLocation = entry.getValue();
+            if (subjectLocation == null) {
+                continue;
+            }
+            positions.add(subjectLocation);
             // optimized conditional
             if (viewSubjectsField == null || id.equals(dataModel.getId()) || viewSubjectsField.contains(subjectLocation)) {
                 // only draw if:
@@ -279,6 +342,7 @@ public class SubjectView extends GridView {
                 }
             }
         }
+        paintedPositions = positions;
     }
 
     private Color getSubjectNumberColor(Identifier id) {
@@ -324,29 +388,23 @@ public class SubjectView extends GridView {
             return;
         }
         // The image to use is determined based on the client's assigned zone.
-        Image image;
+        int zone = dataModel.getClientZone(id) == 1 ? 1 : 0;
         if (dataModel.isBeingSanctioned(id)) {
             graphics2D.setColor(Color.CYAN);
             graphics2D.fillRect(x, y, getCellWidth(), getCellHeight());
-            image = dataModel.getClientZone(id) == 1 ? scaledBeingSanctionedImageB : scaledBeingSanctionedImage;
-            graphics2D.drawImage(image, x, y, this);
+            drawSprite(graphics2D, Sprite.BEING_SANCTIONED, zone, x, y);
         } else if (dataModel.isSanctioning(id)) {
             graphics2D.setColor(Color.WHITE);
             graphics2D.fillRect(x, y, getCellWidth(), getCellHeight());
-            image = dataModel.getClientZone(id) == 1 ? scaledSanctioningImageB : scaledSanctioningImage;
-            graphics2D.drawImage(image, x, y, this);
+            drawSprite(graphics2D, Sprite.SANCTIONING, zone, x, y);
         } else if (id.equals(dataModel.getId())) {
             if (dataModel.isExplicitCollectionMode()) {
-                image = dataModel.getClientZone(id) == 1 ? scaledSelfExplicitCollectionModeImageB : scaledSelfExplicitCollectionModeImage;
-                graphics2D.drawImage(image, x, y, this);
+                drawSprite(graphics2D, Sprite.SELF_EXPLICIT_COLLECTION_MODE, zone, x, y);
             } else {
-                // System.out.println("Is a self image");
-                image = dataModel.getClientZone(id) == 1 ? scaledSelfImageB : scaledSelfImage;
-                graphics2D.drawImage(image, x, y, this);
+                drawSprite(graphics2D, Sprite.SELF, zone, x, y);
             }
         } else {
-            image = dataModel.getClientZone(id) == 1 ? scaledOtherSubjectImageB : scaledOtherSubjectImage;
-            graphics2D.drawImage(image, x, y, this);
+            drawSprite(graphics2D, Sprite.OTHER_SUBJECT, zone, x, y);
         }
     }
 
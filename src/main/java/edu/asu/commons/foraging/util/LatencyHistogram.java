@@ -0,0 +1,97 @@
+package edu.asu.commons.foraging.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * $Id$
+ *
+ * Fixed size, lock free histogram of nanosecond latencies in the style of HdrHistogram. Each power of two range is
+ * split into 16 linear sub-buckets, so percentiles are reported to within about 6% of the recorded value using a
+ * thousand counters regardless of how many values are recorded. Values below 32 ns are counted exactly.
+ *
+ * @author <a href='mailto:Allen.Lee@asu.edu'>Allen Lee</a>
+ * @version $Revision$
+ */
+public class LatencyHistogram {
+
+    private final static int SUB_BUCKET_BITS = 5;
+    private final static int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private final static int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+    private final static int NUMBER_OF_BUCKETS = (64 - SUB_BUCKET_BITS + 2) * SUB_BUCKET_HALF_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(NUMBER_OF_BUCKETS);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong maxValue = new AtomicLong();
+
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0L);
+        counts.incrementAndGet(indexOf(value));
+        totalCount.incrementAndGet();
+        maxValue.accumulateAndGet(value, Math::max);
+    }
+
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    public long getMax(TimeUnit unit) {
+        return unit.convert(maxValue.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the smallest recorded value (up to bucket precision) that the given percentage of recorded values are
+     * less than or equal to, in nanoseconds, or 0 if nothing has been recorded.
+     */
+    public long getPercentile(double percentile) {
+        long total = totalCount.get();
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1L, (long) Math.ceil(Math.min(percentile, 100.0d) / 100.0d * total));
+        long cumulativeCount = 0;
+        for (int index = 0; index < NUMBER_OF_BUCKETS; index++) {
+            cumulativeCount += counts.get(index);
+            if (cumulativeCount >= target) {
+                return Math.min(highestEquivalentValue(index), maxValue.get());
+            }
+        }
+        return maxValue.get();
+    }
+
+    public double getPercentile(double percentile, TimeUnit unit) {
+        return getPercentile(percentile) / (double) TimeUnit.NANOSECONDS.convert(1, unit);
+    }
+
+    /**
+     * Clears all recorded values. Values recorded concurrently with a reset may or may not survive it.
+     */
+    public void reset() {
+        for (int index = 0; index < NUMBER_OF_BUCKETS; index++) {
+            counts.set(index, 0);
+        }
+        totalCount.set(0);
+        maxValue.set(0);
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        // shift the highest bit down to the top of a half-range of sub-buckets
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        int subBucket = (int) (value >>> shift);
+        return (shift + 1) * SUB_BUCKET_HALF_COUNT + (subBucket - SUB_BUCKET_HALF_COUNT);
+    }
+
+    static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_HALF_COUNT - 1;
+        long subBucket = index % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+}
@@ -0,0 +1,99 @@
+package edu.asu.commons.foraging.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * $Id$
+ *
+ * Token bucket rate limiter: holds up to capacity tokens, refilled continuously at a fixed rate, and each permit
+ * takes one token. A full bucket allows a burst of capacity permits, after that permits are handed out at the refill
+ * rate. Starts out full.
+ *
+ * @author <a href='mailto:Allen.Lee@asu.edu'>Allen Lee</a>
+ * @version $Revision$
+ */
+public class TokenBucket {
+
+    private final double tokensPerNanosecond;
+    private final double capacity;
+    private final LongSupplier clock;
+
+    private double tokens;
+    private long lastRefillTime;
+
+    public TokenBucket(double tokensPerSecond, int capacity) {
+        this(tokensPerSecond, capacity, System::nanoTime);
+    }
+
+    /**
+     * @param clock returns the current time in nanoseconds, e.g., System::nanoTime
+     */
+    public TokenBucket(double tokensPerSecond, int capacity, LongSupplier clock) {
+        if (tokensPerSecond <= 0 || capacity < 1) {
+            throw new IllegalArgumentException("Token buckets need a positive rate and room for at least one token: " + tokensPerSecond + ", " + capacity);
+        }
+        this.tokensPerNanosecond = tokensPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = capacity;
+        this.clock = clock;
+        this.tokens = capacity;
+        this.lastRefillTime = clock.getAsLong();
+    }
+
+    private void refill() {
+        long now = clock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - lastRefillTime) * tokensPerNanosecond);
+        lastRefillTime = now;
+    }
+
+    /**
+     * Takes a token if one is available right now.
+     */
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens >= 1.0d) {
+            tokens -= 1.0d;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Takes up to the given number of tokens that are available right now and returns how many were taken.
+     */
+    public synchronized int tryAcquire(int permits) {
+        refill();
+        int acquired = (int) Math.min(permits, Math.floor(tokens));
+        if (acquired <= 0) {
+            return 0;
+        }
+        tokens -= acquired;
+        return acquired;
+    }
+
+    /**
+     * Returns how long until the next token is available, in nanoseconds, 0 if one is available now.
+     */
+    public synchronized long getWaitTime() {
+        refill();
+        if (tokens >= 1.0d) {
+            return 0L;
+        }
+        return (long) Math.ceil((1.0d - tokens) / tokensPerNanosecond);
+    }
+
+    /**
+     * Blocks until a token is available and takes it.
+     */
+    public void acquire() throws InterruptedException {
+        while (! tryAcquire()) {
+            TimeUnit.NANOSECONDS.sleep(Math.max(getWaitTime(), 1L));
+        }
+    }
+
+    public synchronized int getAvailableTokens() {
+        refill();
+        return (int) tokens;
+    }
+
+}
@@ -0,0 +1,84 @@
+package edu.asu.commons.foraging.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * $Id$
+ *
+ * Variable-length encoding for non-negative ints and longs, 7 bits per byte with the high bit set on every byte
+ * but the last, so small values like grid coordinates and token counts take a single byte on the wire.
+ *
+ * @author <a href='mailto:Allen.Lee@asu.edu'>Allen Lee</a>
+ * @version $Revision$
+ */
+public final class VarInt {
+
+    private VarInt() {
+    }
+
+    public static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    public static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    public static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    public static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varlong");
+    }
+
+    /**
+     * Writes the length of the given ascending array followed by the gaps between successive values, e.g., the
+     * sorted cell indices of tokens added to a grid, which are usually close together.
+     */
+    public static void writeDeltas(DataOutput out, int[] sortedValues) throws IOException {
+        writeVarInt(out, sortedValues.length);
+        int previous = 0;
+        for (int value : sortedValues) {
+            writeVarInt(out, value - previous);
+            previous = value;
+        }
+    }
+
+    public static int[] readDeltas(DataInput in) throws IOException {
+        int[] values = new int[readVarInt(in)];
+        int previous = 0;
+        for (int i = 0; i < values.length; i++) {
+            previous += readVarInt(in);
+            values[i] = previous;
+        }
+        return values;
+    }
+
+}
@@ -0,0 +1,54 @@
+package edu.asu.commons.foraging.bot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.awt.Point;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.asu.commons.foraging.conf.RoundConfiguration;
+import edu.asu.commons.foraging.conf.ServerConfiguration;
+import edu.asu.commons.foraging.model.Direction;
+import edu.asu.commons.foraging.model.GroupDataModel;
+import edu.asu.commons.foraging.model.ServerDataModel;
+
+public class DecisionTablePolicyTest {
+
+    private GroupDataModel group;
+
+    @Before
+    public void setUp() {
+        ServerDataModel serverDataModel = new ServerDataModel();
+        ServerConfiguration serverConfiguration = new ServerConfiguration("configuration/asu/2011/t1");
+        RoundConfiguration roundConfiguration = serverConfiguration.getAllParameters().get(4);
+        serverDataModel.setRoundConfiguration(roundConfiguration);
+        group = new GroupDataModel(serverDataModel);
+    }
+
+    @Test
+    public void testFirstMatchingRuleWins() {
+        DecisionTablePolicy policy = DecisionTablePolicy.compile(
+                "on-token -> harvest; token-in-view & !actor-in-view -> pursue; token-in-view -> random", 2);
+        BotNeighborhood neighborhood = new BotNeighborhood(policy.getRadius());
+        // nothing in view, falls back to explore
+        neighborhood.update(group, 5, 5, 0);
+        assertNull(neighborhood.getDirectionToNearestToken());
+        assertEquals(BotAction.EXPLORE, policy.decide(neighborhood));
+        group.addResource(new Point(5, 7));
+        neighborhood.update(group, 5, 5, 0);
+        assertEquals(BotAction.PURSUE, policy.decide(neighborhood));
+        assertEquals(Direction.DOWN, neighborhood.getDirectionToNearestToken());
+        group.addResource(new Point(5, 5));
+        neighborhood.update(group, 5, 5, 0);
+        assertEquals(BotAction.HARVEST, policy.decide(neighborhood));
+        assertEquals(2, neighborhood.getTokensInView());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownCondition() {
+        DecisionTablePolicy.compile("on-tokens -> harvest", 2);
+    }
+
+}
@@ -0,0 +1,150 @@
+package edu.asu.commons.foraging.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Point;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.asu.commons.event.EventTypeChannel;
+import edu.asu.commons.foraging.conf.RoundConfiguration;
+import edu.asu.commons.foraging.conf.ServerConfiguration;
+import edu.asu.commons.foraging.event.ClientPositionUpdateEvent;
+import edu.asu.commons.foraging.model.ClientData;
+import edu.asu.commons.foraging.model.Direction;
+import edu.asu.commons.foraging.model.GroupDataModel;
+import edu.asu.commons.foraging.model.Resource;
+import edu.asu.commons.foraging.model.ServerDataModel;
+import edu.asu.commons.net.Identifier;
+
+public class ClientDataModelTest {
+
+    private final static Point START = new Point(5, 5);
+    private final static Point TOKEN = new Point(6, 5);
+
+    private GroupDataModel group;
+    private ClientData serverClientData;
+    private ClientDataModel dataModel;
+    private long now;
+
+    @Before
+    public void setUp() throws Exception {
+        ServerConfiguration serverConfiguration = new ServerConfiguration("configuration/asu/2011/t1");
+        RoundConfiguration roundConfiguration = serverConfiguration.getAllParameters().get(4);
+        roundConfiguration.setProperty("always-explicit", "false");
+        roundConfiguration.setProperty("client-side-prediction", "true");
+        ServerDataModel serverDataModel = new ServerDataModel();
+        serverDataModel.setRoundConfiguration(roundConfiguration);
+        serverClientData = new ClientData(new Identifier.Base());
+        serverDataModel.addClient(serverClientData);
+        serverClientData.setPosition(START);
+        group = serverDataModel.getGroup(serverClientData.getId());
+        group.addResource(TOKEN);
+        dataModel = new ClientDataModel(new EventTypeChannel(), serverClientData.getId(), () -> now);
+        dataModel.setRoundConfiguration(roundConfiguration);
+        dataModel.initialize(copy(group));
+    }
+
+    @Test
+    public void testAcknowledgedMove() throws Exception {
+        int sequenceNumber = dataModel.predictMove(Direction.UP);
+        assertEquals(new Point(5, 4), dataModel.getCurrentPosition());
+        serverClientData.setPosition(new Point(5, 4));
+        serverClientData.setLastMovementSequenceNumber(sequenceNumber);
+        sendUpdate();
+        assertEquals(new Point(5, 4), dataModel.getCurrentPosition());
+        // acknowledged moves aren't replayed again
+        sendUpdate();
+        assertEquals(new Point(5, 4), dataModel.getCurrentPosition());
+        assertEquals(0, dataModel.getMispredictions());
+    }
+
+    @Test
+    public void testRejectedMoveRestoresToken() throws Exception {
+        int sequenceNumber = dataModel.predictMove(Direction.RIGHT);
+        assertEquals(TOKEN, dataModel.getCurrentPosition());
+        assertEquals(1, dataModel.getCurrentTokens());
+        assertFalse(dataModel.getResourcePositions().contains(TOKEN));
+        // the server applied the move but left the client where it was
+        serverClientData.setLastMovementSequenceNumber(sequenceNumber);
+        sendUpdate();
+        assertEquals(START, dataModel.getCurrentPosition());
+        assertEquals(0, dataModel.getCurrentTokens());
+        assertTrue(dataModel.getResourcePositions().contains(TOKEN));
+        assertEquals(1, dataModel.getMispredictions());
+    }
+
+    @Test
+    public void testCollectedTokenStaysCollected() throws Exception {
+        int sequenceNumber = dataModel.predictMove(Direction.RIGHT);
+        serverClientData.setPosition(TOKEN);
+        serverClientData.addToken(TOKEN);
+        serverClientData.setLastMovementSequenceNumber(sequenceNumber);
+        group.removeResource(TOKEN);
+        sendUpdate();
+        assertEquals(TOKEN, dataModel.getCurrentPosition());
+        assertEquals(serverClientData.getCurrentTokens(), dataModel.getCurrentTokens());
+        assertFalse(dataModel.getResourcePositions().contains(TOKEN));
+        assertEquals(0, dataModel.getMispredictions());
+    }
+
+    @Test
+    public void testUnacknowledgedMoveTimesOut() throws Exception {
+        dataModel.predictMove(Direction.UP);
+        // still in flight, replayed on top of the server's position
+        now += 1000;
+        sendUpdate();
+        assertEquals(new Point(5, 4), dataModel.getCurrentPosition());
+        // never made it to the server
+        now += 1500;
+        sendUpdate();
+        assertEquals(START, dataModel.getCurrentPosition());
+        assertEquals(1, dataModel.getMispredictions());
+    }
+
+    @Test
+    public void testFullSynchronizationClearsCollectedTokens() throws Exception {
+        int sequenceNumber = dataModel.predictMove(Direction.RIGHT);
+        assertEquals(1, dataModel.getCurrentTokens());
+        // someone else collected the token before the server got to this client's move
+        group.removeResource(TOKEN);
+        dataModel.setGroupDataModel(copy(group));
+        assertEquals(TOKEN, dataModel.getCurrentPosition());
+        assertEquals(0, dataModel.getCurrentTokens());
+        assertFalse(dataModel.getResourcePositions().contains(TOKEN));
+        // the token the move predicted is gone for good, it must not be put back once the move is acknowledged
+        serverClientData.setPosition(TOKEN);
+        serverClientData.setLastMovementSequenceNumber(sequenceNumber);
+        sendUpdate();
+        assertEquals(TOKEN, dataModel.getCurrentPosition());
+        assertEquals(0, dataModel.getCurrentTokens());
+        assertFalse(dataModel.getResourcePositions().contains(TOKEN));
+    }
+
+    private void sendUpdate() throws Exception {
+        ClientPositionUpdateEvent event = new ClientPositionUpdateEvent(serverClientData, new Resource[0], new Resource[0],
+                group.getClientTokens(), group.getClientPositions(), group.getActorNumbers(), 0L);
+        serverClientData.clearCollectedTokens();
+        dataModel.update(copy(event));
+    }
+
+    // the client only ever sees serialized copies of the server's state
+    @SuppressWarnings("unchecked")
+    private static <T> T copy(T object) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (T) in.readObject();
+        }
+    }
+
+}
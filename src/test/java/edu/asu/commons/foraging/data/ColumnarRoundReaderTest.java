@@ -0,0 +1,174 @@
+package edu.asu.commons.foraging.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Point;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import edu.asu.commons.event.PersistableEvent;
+import edu.asu.commons.foraging.bot.BotIdentifier;
+import edu.asu.commons.foraging.event.ClientPoseUpdate;
+import edu.asu.commons.foraging.event.MovementEvent;
+import edu.asu.commons.foraging.event.ResourceAddedEvent;
+import edu.asu.commons.foraging.event.ResourcesAddedEvent;
+import edu.asu.commons.foraging.event.TokenCollectedEvent;
+import edu.asu.commons.foraging.graphics.Point3D;
+import edu.asu.commons.foraging.model.Direction;
+import edu.asu.commons.foraging.model.GroupDataModel;
+import edu.asu.commons.foraging.model.Resource;
+import edu.asu.commons.net.Identifier;
+
+public class ColumnarRoundReaderTest {
+
+    @Test
+    public void testRoundTripAcrossBlocks() throws Exception {
+        Identifier id = new BotIdentifier();
+        List<PersistableEvent> events = new ArrayList<>();
+        for (int i = 0; i < ColumnarRoundWriter.BLOCK_SIZE + 10; i++) {
+            events.add(new MovementEvent(id, Direction.values()[i % Direction.values().length]));
+            if (i % 10 == 0) {
+                events.add(new TokenCollectedEvent(id, new Point(i % 20, i % 13)));
+            }
+        }
+        File file = write(events);
+        try (ColumnarRoundReader reader = new ColumnarRoundReader(file)) {
+            assertEquals(events.size(), reader.getNumberOfEvents());
+            assertEquals(2, reader.getNumberOfBlocks());
+            assertEquals("round", reader.getMetadata()[0]);
+            ColumnarRoundReader.Cursor cursor = reader.cursor();
+            for (PersistableEvent event : events) {
+                assertTrue(cursor.next());
+                assertEquals(event.getCreationTime(), cursor.getCreationTime());
+                assertEquals(id, cursor.getActor());
+                if (event instanceof MovementEvent) {
+                    assertEquals(ColumnarRoundWriter.MOVEMENT, cursor.getType());
+                    assertEquals(((MovementEvent) event).getDirection(), cursor.getDirection());
+                }
+                else {
+                    Point location = ((TokenCollectedEvent) event).getLocation();
+                    assertEquals(ColumnarRoundWriter.TOKEN_COLLECTED, cursor.getType());
+                    assertEquals(location.x, cursor.getX());
+                    assertEquals(location.y, cursor.getY());
+                }
+            }
+            assertFalse(cursor.next());
+        }
+    }
+
+    @Test
+    public void testResourcesAddedAndSerializedEvents() throws Exception {
+        Identifier id = new BotIdentifier();
+        Set<Resource> resources = new LinkedHashSet<>();
+        resources.add(new Resource(3, 4, 1));
+        resources.add(new Resource(0, 27, 0));
+        List<PersistableEvent> events = new ArrayList<>();
+        events.add(new ResourcesAddedEvent(new GroupDataModel(null, 42L), resources));
+        events.add(new ClientPoseUpdate(id, new Point3D(1.5f, 2, 3)));
+        try (ColumnarRoundReader reader = new ColumnarRoundReader(write(events))) {
+            ColumnarRoundReader.Cursor cursor = reader.cursor();
+            assertTrue(cursor.next());
+            assertEquals(ColumnarRoundWriter.RESOURCES_ADDED, cursor.getType());
+            assertNull(cursor.getActor());
+            assertEquals(42L, cursor.getGroupId());
+            assertEquals(resources.size(), cursor.getNumberOfResources());
+            int index = 0;
+            for (Resource resource : resources) {
+                assertEquals(resource.getX(), cursor.getResourceX(index));
+                assertEquals(resource.getY(), cursor.getResourceY(index));
+                assertEquals(resource.getAge(), cursor.getResourceAge(index));
+                index++;
+            }
+            assertTrue(cursor.next());
+            assertEquals(ColumnarRoundWriter.SERIALIZED, cursor.getType());
+            assertEquals(id, cursor.getActor());
+            ClientPoseUpdate poseUpdate = (ClientPoseUpdate) cursor.getEvent();
+            assertEquals(id, poseUpdate.getId());
+            assertEquals(events.get(1).getCreationTime(), poseUpdate.getCreationTime());
+            assertTrue(poseUpdate.getPosition().equals(new Point3D(1.5f, 2, 3)));
+            assertFalse(cursor.next());
+        }
+    }
+
+    @Test
+    public void testResourceAddedEventsAreCompact() throws Exception {
+        GroupDataModel group = new GroupDataModel(null, 7L);
+        for (int x = 0; x < 20; x++) {
+            for (int y = 0; y < 20; y++) {
+                group.addResource(new Point(x, y));
+            }
+        }
+        List<PersistableEvent> events = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            events.add(new ResourceAddedEvent(group, new Resource(i % 20, i % 13, i % 3)));
+        }
+        File file = write(events);
+        // each event used to carry a serialized copy of its group and all of its tokens
+        assertTrue(file.length() + " bytes", file.length() < events.size() * 16);
+        try (ColumnarRoundReader reader = new ColumnarRoundReader(file)) {
+            ColumnarRoundReader.Cursor cursor = reader.cursor();
+            for (int i = 0; i < events.size(); i++) {
+                assertTrue(cursor.next());
+                assertEquals(ColumnarRoundWriter.RESOURCE_ADDED, cursor.getType());
+                assertNull(cursor.getActor());
+                assertEquals(7L, cursor.getGroupId());
+                assertEquals(1, cursor.getNumberOfResources());
+                assertEquals(i % 20, cursor.getResourceX(0));
+                assertEquals(i % 13, cursor.getResourceY(0));
+                assertEquals(i % 3, cursor.getResourceAge(0));
+            }
+            assertFalse(cursor.next());
+        }
+    }
+
+    @Test
+    public void testCursorSkipsToBlock() throws Exception {
+        Identifier id = new BotIdentifier();
+        List<PersistableEvent> events = new ArrayList<>();
+        for (int i = 0; i < ColumnarRoundWriter.BLOCK_SIZE * 2; i++) {
+            if (i == ColumnarRoundWriter.BLOCK_SIZE) {
+                // so the second block starts strictly later than the first
+                Thread.sleep(5);
+            }
+            events.add(new MovementEvent(id, Direction.UP));
+        }
+        long secondBlockStartTime = events.get(ColumnarRoundWriter.BLOCK_SIZE).getCreationTime();
+        try (ColumnarRoundReader reader = new ColumnarRoundReader(write(events))) {
+            assertEquals(events.size(), count(reader.cursor(Long.MIN_VALUE)));
+            assertEquals(events.size(), count(reader.cursor(secondBlockStartTime - 1)));
+            assertEquals(ColumnarRoundWriter.BLOCK_SIZE, count(reader.cursor(secondBlockStartTime)));
+            assertEquals(ColumnarRoundWriter.BLOCK_SIZE, count(reader.cursor(Long.MAX_VALUE)));
+            ColumnarRoundReader.Cursor cursor = reader.cursor(secondBlockStartTime);
+            assertTrue(cursor.next());
+            assertEquals(secondBlockStartTime, cursor.getCreationTime());
+        }
+    }
+
+    private static int count(ColumnarRoundReader.Cursor cursor) throws Exception {
+        int count = 0;
+        while (cursor.next()) {
+            count++;
+        }
+        return count;
+    }
+
+    private static File write(List<PersistableEvent> events) throws Exception {
+        File file = File.createTempFile("foraging", ".columnar");
+        file.deleteOnExit();
+        try (OutputStream stream = new FileOutputStream(file)) {
+            ColumnarRoundWriter.write(events, new Object[] { "round" }, stream);
+        }
+        return file;
+    }
+
+}
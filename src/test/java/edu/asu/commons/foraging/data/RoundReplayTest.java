@@ -0,0 +1,230 @@
+package edu.asu.commons.foraging.data;
+
+import static org.junit.Assert.assertEquals;
+
+import java.awt.Point;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.asu.commons.event.PersistableEvent;
+import edu.asu.commons.event.RoundStartedMarkerEvent;
+import edu.asu.commons.experiment.SavedRoundData;
+import edu.asu.commons.foraging.conf.RoundConfiguration;
+import edu.asu.commons.foraging.conf.ServerConfiguration;
+import edu.asu.commons.foraging.event.MovementEvent;
+import edu.asu.commons.foraging.event.ResourceAddedEvent;
+import edu.asu.commons.foraging.event.ResourcesAddedEvent;
+import edu.asu.commons.foraging.event.TokenCollectedEvent;
+import edu.asu.commons.foraging.model.ClientData;
+import edu.asu.commons.foraging.model.Direction;
+import edu.asu.commons.foraging.model.GroupDataModel;
+import edu.asu.commons.foraging.model.Resource;
+import edu.asu.commons.foraging.model.ServerDataModel;
+import edu.asu.commons.net.Identifier;
+import edu.asu.commons.util.Utils;
+
+/**
+ * Replays a small synthetic round with two participants: movement, explicit token collection and regrowth spread
+ * across two aggregate time intervals. The analyses' output is pinned line by line, both when replaying the save file
+ * and its columnar copy.
+ */
+public class RoundReplayTest {
+
+    private ServerDataModel serverDataModel;
+    private RoundConfiguration roundConfiguration;
+    private GroupDataModel group;
+    private ClientData a;
+    private ClientData b;
+    private long roundStartTime;
+    private int sequence;
+    private SortedSet<PersistableEvent> actions;
+    private final List<TokenCollectedEvent> tokensCollected = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        serverDataModel = new ServerDataModel();
+        ServerConfiguration serverConfiguration = new ServerConfiguration("configuration/asu/2011/t1");
+        roundConfiguration = serverConfiguration.getAllParameters().get(4);
+        serverDataModel.setRoundConfiguration(roundConfiguration);
+        // initially at (2, 14) and (8, 14), always in explicit collection mode
+        a = new ClientData(new Identifier.Base());
+        b = new ClientData(new Identifier.Base());
+        serverDataModel.addClient(a);
+        serverDataModel.addClient(b);
+        group = serverDataModel.getGroup(a.getId());
+
+        RoundStartedMarkerEvent roundStarted = new RoundStartedMarkerEvent();
+        roundStartTime = roundStarted.getCreationTime();
+        actions = new TreeSet<>(Comparator.comparingLong(PersistableEvent::getCreationTime));
+        actions.add(roundStarted);
+        Set<Resource> initialDistribution = new LinkedHashSet<>(Arrays.asList(
+                new Resource(3, 14, 0), new Resource(9, 14, 0), new Resource(0, 0, 0), new Resource(20, 20, 0)));
+        actions.add(resourcesAdded(0, initialDistribution));
+        actions.add(move(1, a, Direction.RIGHT));
+        actions.add(collect(2, a, 3, 14));
+        actions.add(move(3, b, Direction.RIGHT));
+        actions.add(collect(6, b, 9, 14));
+        actions.add(resourceAdded(7, new Resource(3, 14, 0)));
+        actions.add(move(8, a, Direction.LEFT));
+        actions.add(move(11, a, Direction.RIGHT));
+        actions.add(collect(12, a, 3, 14));
+
+        // the data model as it was saved at the end of the round
+        a.setTotalTokens(2);
+        b.setTotalTokens(1);
+        group.addResource(new Point(0, 0));
+        group.addResource(new Point(20, 20));
+    }
+
+    @Test
+    public void testReplayedAnalyses() throws Exception {
+        File columnarFile = File.createTempFile("round", FusedReplayProcessor.COLUMNAR_EXTENSION);
+        columnarFile.deleteOnExit();
+        // written first, the replay changes the data model
+        try (OutputStream stream = new FileOutputStream(columnarFile)) {
+            ColumnarRoundWriter.write(actions, new Object[] { roundConfiguration, serverDataModel, roundStartTime }, stream);
+        }
+
+        SavedRoundData savedRoundData = new SavedRoundData(columnarFile.getPath());
+        savedRoundData.setRoundParameters(roundConfiguration);
+        savedRoundData.setDataModel(serverDataModel);
+        savedRoundData.setActions(actions);
+        RoundReplay replay = new RoundReplay(savedRoundData);
+        StringWriter aggregateTimeInterval = addListener(replay, new AggregateTimeIntervalProcessor());
+        StringWriter resourceOverTime = addListener(replay, new ResourceOverTimeProcessor());
+        StringWriter summary = addListener(replay, new SummaryProcessor());
+        replay.run();
+
+        assertEquals(actions.size(), replay.getNumberOfEvents());
+        assertEquals(getExpectedAggregateTimeIntervals(), lines(aggregateTimeInterval));
+        assertEquals(getExpectedResourceOverTime(), lines(resourceOverTime));
+        List<String> expectedSummary = new ArrayList<>(Arrays.asList(
+                "Participant, Group, Total Cumulative Tokens, Sanction costs, Sanction penalties",
+                String.format("%s, %s, 2, 0, 0", a, group),
+                String.format("%s, %s, 1, 0, 0", b, group),
+                String.format("Group %s, 2, 3", group),
+                "=========================================",
+                "Time, Participant, Token Collected?, Chat"));
+        for (TokenCollectedEvent event : tokensCollected) {
+            expectedSummary.add(String.format("%s, %s, token collected", savedRoundData.toSecondString(event), event.getId()));
+        }
+        assertEquals(expectedSummary, lines(summary));
+
+        try (ColumnarRoundReader reader = new ColumnarRoundReader(columnarFile)) {
+            RoundReplay columnarReplay = new RoundReplay(reader);
+            aggregateTimeInterval = addListener(columnarReplay, new AggregateTimeIntervalProcessor());
+            resourceOverTime = addListener(columnarReplay, new ResourceOverTimeProcessor());
+            columnarReplay.run();
+            assertEquals(actions.size(), columnarReplay.getNumberOfEvents());
+            assertEquals(getExpectedAggregateTimeIntervals(), lines(aggregateTimeInterval));
+            assertEquals(getExpectedResourceOverTime(), lines(resourceOverTime));
+        }
+    }
+
+    private List<String> getExpectedAggregateTimeIntervals() {
+        List<Identifier> ids = new ArrayList<>(new TreeSet<>(Arrays.asList(a.getId(), b.getId())));
+        boolean aFirst = ids.get(0).equals(a.getId());
+        return Arrays.asList(
+                Utils.join(',', "Period", ids.get(0) + " moves", ids.get(1) + " moves",
+                        ids.get(0) + " tokens collected", ids.get(1) + " tokens collected",
+                        group + " avg token P", group + " tokens left",
+                        String.format("%s (%s -> %s)", group, ids.get(0), ids.get(1))),
+                // interval statistics are written before the first event past the interval end is applied, expected
+                // token probabilities come from a ResourceDispenser that was never initialized with a regrowth rate
+                interval(aFirst, 10, 1, 1, 1, 0, 3, 6.0d),
+                interval(aFirst, 15, 1, 0, 0, 1, 3, 7.0d),
+                interval(aFirst, 15, 1, 0, 1, 0, 2, 6.0d));
+    }
+
+    private String interval(boolean aFirst, int period, int aMoves, int bMoves, int aTokens, int bTokens, int tokensLeft, double distance) {
+        return Utils.join(',', period,
+                aFirst ? aMoves : bMoves, aFirst ? bMoves : aMoves,
+                aFirst ? aTokens : bTokens, aFirst ? bTokens : aTokens,
+                0.0d, tokensLeft, distance);
+    }
+
+    private List<String> getExpectedResourceOverTime() {
+        return Arrays.asList(
+                "Group, Time, Resource Size",
+                Utils.join(',', group, 1, 4),
+                Utils.join(',', group, 2, 4),
+                Utils.join(',', group, 3, 3),
+                Utils.join(',', group, 6, 3),
+                Utils.join(',', group, 7, 2),
+                Utils.join(',', group, 8, 3),
+                Utils.join(',', group, 11, 3),
+                Utils.join(',', group, 12, 3));
+    }
+
+    private StringWriter addListener(RoundReplay replay, ReplayProcessor processor) {
+        StringWriter output = new StringWriter();
+        replay.addListener(processor.createListener(replay, new PrintWriter(output)));
+        return output;
+    }
+
+    private List<String> lines(StringWriter output) {
+        return Arrays.asList(output.toString().split("\\R"));
+    }
+
+    // events can't be created in the past, so their creation times are moved to the given second of the round
+    private long getCreationTime(long seconds) {
+        return roundStartTime + (seconds * 1000L) + (++sequence);
+    }
+
+    private MovementEvent move(long seconds, ClientData data, Direction direction) {
+        long creationTime = getCreationTime(seconds);
+        return new MovementEvent(data.getId(), direction) {
+            @Override
+            public long getCreationTime() {
+                return creationTime;
+            }
+        };
+    }
+
+    private TokenCollectedEvent collect(long seconds, ClientData data, int x, int y) {
+        long creationTime = getCreationTime(seconds);
+        TokenCollectedEvent event = new TokenCollectedEvent(data.getId(), new Point(x, y)) {
+            @Override
+            public long getCreationTime() {
+                return creationTime;
+            }
+        };
+        tokensCollected.add(event);
+        return event;
+    }
+
+    private ResourcesAddedEvent resourcesAdded(long seconds, Set<Resource> resources) {
+        long creationTime = getCreationTime(seconds);
+        return new ResourcesAddedEvent(group, resources) {
+            @Override
+            public long getCreationTime() {
+                return creationTime;
+            }
+        };
+    }
+
+    private ResourceAddedEvent resourceAdded(long seconds, Resource resource) {
+        long creationTime = getCreationTime(seconds);
+        return new ResourceAddedEvent(group, resource) {
+            @Override
+            public long getCreationTime() {
+                return creationTime;
+            }
+        };
+    }
+
+}
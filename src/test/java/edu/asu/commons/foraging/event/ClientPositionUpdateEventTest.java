@@ -0,0 +1,98 @@
+package edu.asu.commons.foraging.event;
+
+import java.awt.Point;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.asu.commons.foraging.model.ClientData;
+import edu.asu.commons.foraging.model.Resource;
+import edu.asu.commons.net.Identifier;
+import static org.junit.Assert.*;
+
+public class ClientPositionUpdateEventTest {
+
+    private final static int NUMBER_OF_CLIENTS = 5;
+
+    private ClientData data;
+    private Resource[] addedResources;
+    private Resource[] removedResources;
+    private Map<Identifier, Integer> clientTokens = new HashMap<>();
+    private Map<Identifier, Point> clientPositions = new HashMap<>();
+    private Map<Identifier, Integer> actorNumbers = new HashMap<>();
+    private Map<Integer, Identifier> actorIdentifiers = new HashMap<>();
+
+    @Before
+    public void setUp() {
+        Random random = new Random(0);
+        addedResources = createResources(random, 40);
+        removedResources = createResources(random, 25);
+        for (int assignedNumber = 1; assignedNumber <= NUMBER_OF_CLIENTS; assignedNumber++) {
+            ClientData clientData = new ClientData(new Identifier.Base());
+            if (data == null) {
+                data = clientData;
+            }
+            Identifier id = clientData.getId();
+            clientTokens.put(id, random.nextInt(200));
+            clientPositions.put(id, new Point(random.nextInt(28), random.nextInt(28)));
+            actorNumbers.put(id, assignedNumber);
+            actorIdentifiers.put(assignedNumber, id);
+        }
+    }
+
+    private Resource[] createResources(Random random, int size) {
+        Set<Resource> resources = new HashSet<>();
+        while (resources.size() < size) {
+            resources.add(new Resource(random.nextInt(28), random.nextInt(28), random.nextInt(3)));
+        }
+        return resources.toArray(new Resource[size]);
+    }
+
+    @Test
+    public void testCompactSerialization() throws Exception {
+        data.setLastMovementSequenceNumber(300);
+        ClientPositionUpdateEvent event = new ClientPositionUpdateEvent(data, addedResources, removedResources, clientTokens, clientPositions,
+                actorNumbers, 42000L);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(bytes);
+        oos.writeObject(event);
+        oos.close();
+        ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        ClientPositionUpdateEvent persistedEvent = (ClientPositionUpdateEvent) ois.readObject();
+        persistedEvent.resolveActors(actorIdentifiers::get);
+        assertEquals(event.getSequenceNumber(), persistedEvent.getSequenceNumber());
+        assertEquals(42000L, persistedEvent.getTimeLeft());
+        assertEquals(clientTokens, persistedEvent.getClientTokens());
+        assertEquals(clientPositions, persistedEvent.getClientPositions());
+        assertResourcesEqual(addedResources, persistedEvent.getAddedTokens(), true);
+        assertResourcesEqual(removedResources, persistedEvent.getRemovedTokens(), false);
+        assertEquals(0, persistedEvent.getCollectedTokenPositions().length);
+        assertTrue(persistedEvent.getLatestSanctions().isEmpty());
+        assertEquals(300, persistedEvent.getLastMovementSequenceNumber());
+        assertTrue(event.getSequenceNumber() < new ClientPositionUpdateEvent(data, addedResources, removedResources, clientTokens,
+                clientPositions, actorNumbers, 0L).getSequenceNumber());
+    }
+
+    private void assertResourcesEqual(Resource[] expected, Resource[] actual, boolean compareAges) {
+        Map<Point, Integer> expectedAges = new HashMap<>();
+        for (Resource resource : expected) {
+            expectedAges.put(resource.getPosition(), resource.getAge());
+        }
+        assertEquals(expected.length, actual.length);
+        for (Resource resource : actual) {
+            assertTrue(expectedAges.containsKey(resource.getPosition()));
+            if (compareAges) {
+                assertEquals(expectedAges.get(resource.getPosition()).intValue(), resource.getAge());
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package edu.asu.commons.foraging.event;
+
+import java.awt.Point;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import edu.asu.commons.foraging.model.ClientData;
+import edu.asu.commons.foraging.model.Resource;
+import edu.asu.commons.net.Identifier;
+
+/**
+ * Measures the cost of serializing one tick's worth of position updates for a single group, comparing an update
+ * that encodes the group-wide state once per client (as ForagingServer.processRound used to) against a single
+ * shared GroupUpdateFrame fanned out to every member. Reports ticks per second (invert for us per tick) and the
+ * bytes per second written in the bytes counter.
+ *
+ * Run with <code>mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=edu.asu.commons.foraging.event.GroupUpdateFrameBenchmark</code>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GroupUpdateFrameBenchmark {
+
+    @Param({ "5", "10", "20", "40" })
+    public int groupSize;
+
+    @Param({ "20" })
+    public int changedTokens;
+
+    private List<ClientData> clients;
+    private Resource[] addedResources;
+    private Resource[] removedResources;
+    private Map<Identifier, Integer> clientTokens;
+    private Map<Identifier, Point> clientPositions;
+    private Map<Identifier, Integer> actorNumbers;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class BytesWritten {
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(0);
+        clients = new ArrayList<>();
+        clientTokens = new HashMap<>();
+        clientPositions = new HashMap<>();
+        actorNumbers = new HashMap<>();
+        for (int assignedNumber = 1; assignedNumber <= groupSize; assignedNumber++) {
+            ClientData data = new ClientData(new Identifier.Base());
+            clients.add(data);
+            clientTokens.put(data.getId(), random.nextInt(200));
+            clientPositions.put(data.getId(), new Point(random.nextInt(28), random.nextInt(28)));
+            actorNumbers.put(data.getId(), assignedNumber);
+        }
+        addedResources = createResources(random);
+        removedResources = createResources(random);
+    }
+
+    private Resource[] createResources(Random random) {
+        Set<Resource> resources = new HashSet<>();
+        while (resources.size() < changedTokens) {
+            resources.add(new Resource(random.nextInt(28), random.nextInt(28), 1));
+        }
+        return resources.toArray(new Resource[changedTokens]);
+    }
+
+    @Benchmark
+    public void perClientEncoding(BytesWritten counter) throws IOException {
+        for (ClientData data : clients) {
+            counter.bytes += serialize(new ClientPositionUpdateEvent(data, addedResources, removedResources, clientTokens, clientPositions,
+                    actorNumbers, 1000L));
+        }
+    }
+
+    @Benchmark
+    public void sharedFrame(BytesWritten counter) throws IOException {
+        GroupUpdateFrame frame = new GroupUpdateFrame(addedResources, removedResources, clientTokens, clientPositions, actorNumbers, 1000L);
+        for (ClientData data : clients) {
+            counter.bytes += serialize(new ClientPositionUpdateEvent(data, frame));
+        }
+    }
+
+    private int serialize(ClientPositionUpdateEvent event) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(event);
+        out.close();
+        return bytes.size();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(GroupUpdateFrameBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
@@ -0,0 +1,85 @@
+package edu.asu.commons.foraging.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Point;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class BitSetResourceGridTest {
+
+    private final static int WIDTH = 28;
+    private final static int HEIGHT = 28;
+
+    private ResourceGrid grid;
+    private Map<Point, Resource> expected;
+
+    @Before
+    public void setUp() {
+        grid = new BitSetResourceGrid(WIDTH, HEIGHT);
+        expected = new HashMap<>();
+        Random random = new Random(0);
+        for (int i = 0; i < 300; i++) {
+            Resource resource = new Resource(random.nextInt(WIDTH), random.nextInt(HEIGHT), random.nextInt(10));
+            grid.add(resource);
+            expected.put(resource.getPosition(), resource);
+        }
+    }
+
+    @Test
+    public void testOccupancy() {
+        assertEquals(expected.size(), grid.size());
+        for (int x = 0; x < WIDTH; x++) {
+            for (int y = 0; y < HEIGHT; y++) {
+                Resource resource = expected.get(new Point(x, y));
+                assertEquals(resource != null, grid.isResourceAt(x, y));
+                if (resource != null) {
+                    assertEquals(resource.getAge(), grid.getAge(x, y));
+                }
+            }
+        }
+        assertFalse(grid.isResourceAt(-1, 0));
+        assertFalse(grid.isResourceAt(WIDTH, HEIGHT));
+        assertEquals(expected, grid.toMap());
+        assertEquals(expected.keySet(), grid.getResourcePositions());
+    }
+
+    @Test
+    public void testRemoval() {
+        for (Point point : expected.keySet()) {
+            assertTrue(grid.remove(point.x, point.y));
+            assertFalse(grid.remove(point.x, point.y));
+            assertNull(grid.get(point.x, point.y));
+        }
+        assertTrue(grid.isEmpty());
+        assertEquals(-1, grid.nextResourceIndex(0));
+    }
+
+    @Test
+    public void testGrowPreservesTokens() {
+        grid.ensureCapacity(WIDTH * 2, HEIGHT + 3);
+        assertEquals(WIDTH * 2, grid.getWidth());
+        assertEquals(expected, grid.toMap());
+        grid.add(WIDTH * 3, HEIGHT * 3, 1);
+        assertTrue(grid.isResourceAt(WIDTH * 3, HEIGHT * 3));
+        assertEquals(expected.size() + 1, grid.size());
+    }
+
+    @Test
+    public void testCopy() {
+        ResourceGrid copy = grid.copy();
+        assertEquals(grid.toMap(), copy.toMap());
+        copy.clear();
+        assertEquals(expected.size(), grid.size());
+        copy.copyFrom(grid);
+        assertEquals(expected, copy.toMap());
+    }
+
+}
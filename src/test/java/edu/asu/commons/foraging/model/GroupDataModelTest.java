@@ -1,23 +1,33 @@
 package edu.asu.commons.foraging.model;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.awt.Point;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import edu.asu.commons.foraging.bot.BotType;
 import edu.asu.commons.foraging.conf.RoundConfiguration;
 import edu.asu.commons.foraging.conf.ServerConfiguration;
+import edu.asu.commons.foraging.event.SynchronizeClientEvent;
 import edu.asu.commons.foraging.rules.Strategy;
 import edu.asu.commons.foraging.rules.iu.ForagingStrategy;
+import edu.asu.commons.foraging.ui.Circle;
 import edu.asu.commons.net.Identifier;
 
 
@@ -51,6 +61,120 @@ public class GroupDataModelTest {
         }
     }
 
+    @Test
+    public void testVisibleResourceDiffs() {
+        GroupDataModel group = serverDataModel.getOrderedGroups().get(0);
+        ClientData data = group.getClientDataMap().values().iterator().next();
+        data.setPosition(new Point(5, 5));
+        group.addResource(new Point(5, 6));
+        group.addResource(new Point(0, 0));
+        List<Resource> added = new ArrayList<>();
+        List<Resource> removed = new ArrayList<>();
+        // only the nearby token is within view
+        group.diffVisibleResources(data, 2.0d, added, removed);
+        assertEquals(Arrays.asList(new Resource(new Point(5, 6))), added);
+        assertTrue(removed.isEmpty());
+        // nothing changed, nothing to tell
+        added.clear();
+        group.diffVisibleResources(data, 2.0d, added, removed);
+        assertTrue(added.isEmpty());
+        assertTrue(removed.isEmpty());
+        group.removeResource(new Point(5, 6));
+        group.removeResource(new Point(0, 0));
+        group.diffVisibleResources(data, 2.0d, added, removed);
+        assertTrue(added.isEmpty());
+        assertEquals(Arrays.asList(new Resource(new Point(5, 6))), removed);
+    }
+
+    @Test
+    public void testMovementBatchAcknowledgement() {
+        GroupDataModel group = serverDataModel.getOrderedGroups().get(0);
+        ClientData data = group.getClientDataMap().values().iterator().next();
+        Identifier id = data.getId();
+        data.setPosition(new Point(5, 5));
+        serverDataModel.moveClient(id, Arrays.asList(Direction.RIGHT, Direction.RIGHT, Direction.DOWN), 7);
+        assertEquals(new Point(7, 6), data.getPosition());
+        assertEquals(7, data.getLastMovementSequenceNumber());
+        // a batch whose moves were all throttled away is still acknowledged
+        serverDataModel.moveClient(id, Collections.<Direction>emptyList(), 9);
+        assertEquals(new Point(7, 6), data.getPosition());
+        assertEquals(9, data.getLastMovementSequenceNumber());
+        // unsequenced moves leave the acknowledgement alone
+        serverDataModel.moveClient(id, Collections.singletonList(Direction.LEFT), 0);
+        assertEquals(new Point(6, 6), data.getPosition());
+        assertEquals(9, data.getLastMovementSequenceNumber());
+    }
+
+    @Test
+    public void testVisibleGroupOnlySerializesVisibleTokens() throws IOException {
+        GroupDataModel group = serverDataModel.getOrderedGroups().get(0);
+        group.addBots(1, BotType.NORMAL);
+        ClientData data = group.getClientDataMap().values().iterator().next();
+        data.setPosition(new Point(5, 5));
+        group.addResource(new Point(5, 6));
+        for (int x = 15; x < 25; x++) {
+            group.addResource(new Point(x, 20));
+        }
+        List<GroupDataModel> serializedGroups = new ArrayList<>();
+        try (ObjectOutputStream out = new ObjectOutputStream(new ByteArrayOutputStream()) {
+            {
+                enableReplaceObject(true);
+            }
+
+            @Override
+            protected Object replaceObject(Object object) {
+                if (object instanceof GroupDataModel) {
+                    serializedGroups.add((GroupDataModel) object);
+                }
+                return object;
+            }
+        }) {
+            out.writeObject(new SynchronizeClientEvent(data.getId(), group.getVisibleGroupDataModel(data, 2.0d), 0L));
+        }
+        // the participants and bots in the copy must not drag the whole group along with them
+        assertEquals(1, serializedGroups.size());
+        GroupDataModel visibleGroup = serializedGroups.get(0);
+        assertEquals(Collections.singleton(new Point(5, 6)), visibleGroup.getResourcePositions());
+        assertEquals(group.getClientDataMap().keySet(), visibleGroup.getClientDataMap().keySet());
+        assertEquals(1, visibleGroup.getNumberOfBots());
+        assertEquals(11, group.getResourcePositions().size());
+        assertSame(group, data.getGroupDataModel());
+    }
+
+    @Test
+    public void testClientIdentifiersWithin() {
+        GroupDataModel group = serverDataModel.getOrderedGroups().get(0);
+        List<ClientData> clients = new ArrayList<>(group.getClientDataMap().values());
+        for (int i = 0; i < clients.size(); i++) {
+            clients.get(i).setPosition(new Point(i * 4, 0));
+        }
+        Circle circle = new Circle(new Point(0, 0), 4.0d);
+        assertEquals(new HashSet<>(Arrays.asList(clients.get(0).getId(), clients.get(1).getId())), group.getClientIdentifiersWithin(circle));
+        // moving is reflected in the index
+        clients.get(1).setPosition(new Point(0, 5));
+        assertEquals(Collections.singleton(clients.get(0).getId()), group.getClientIdentifiersWithin(circle));
+    }
+
+    @Test
+    public void testNearestResourcePositionMatchesScan() {
+        GroupDataModel group = serverDataModel.getOrderedGroups().get(0);
+        Random random = new Random(11);
+        assertEquals(null, group.getNearestResourcePosition(new Point(3, 3)));
+        for (int i = 0; i < 15; i++) {
+            group.addResource(new Point(random.nextInt(28), random.nextInt(28)));
+        }
+        for (int i = 0; i < 200; i++) {
+            Point position = new Point(random.nextInt(28), random.nextInt(28));
+            double nearestDistance = Double.MAX_VALUE;
+            for (Point resourcePosition : group.getResourcePositions()) {
+                nearestDistance = Math.min(nearestDistance, position.distanceSq(resourcePosition));
+            }
+            Point nearest = group.getNearestResourcePosition(position);
+            assertTrue(group.isResourceAt(nearest));
+            assertEquals(nearestDistance, position.distanceSq(nearest), 0.0d);
+        }
+    }
+
     private void addClients(int numberOfParticipants) {
         serverDataModel.clear();
         for (int i = 0; i < numberOfParticipants; i++) {
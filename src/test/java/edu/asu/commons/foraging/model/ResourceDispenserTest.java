@@ -1,5 +1,11 @@
 package edu.asu.commons.foraging.model;
 
+import java.awt.Point;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -31,7 +37,7 @@ public class ResourceDispenserTest {
             ClientData clientData = new ClientData(new Identifier.Base());
             serverDataModel.addClient(clientData);        
         }
-        resourceDispenser = new ResourceDispenser(serverDataModel);
+        resourceDispenser = new ResourceDispenser(serverDataModel, new Random(17));
         resourceDispenser.initialize();
     }
     
@@ -43,6 +49,131 @@ public class ResourceDispenserTest {
 
     }
     
+    /**
+     * Frontier sampling must visit exactly the empty cells with a nonzero chance of regrowth and compute the
+     * same probability as a brute-force scan of each cell's Moore neighborhood.
+     */
+    @Test
+    public void testFrontierMatchesNeighborhoodScan() {
+        double rate = serverDataModel.getRoundConfiguration().getRegrowthRate();
+        StochasticGenerator generator = resourceDispenser.getDensityDependentGenerator();
+        int width = serverDataModel.getBoardWidth();
+        int height = serverDataModel.getBoardHeight();
+        for (GroupDataModel group : serverDataModel.getGroups()) {
+            final Set<Point> frontier = new HashSet<>();
+            group.visitResourceFrontier((x, y, neighboringTokens) -> frontier.add(new Point(x, y)));
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    if (group.isResourceAt(x, y)) {
+                        assertFalse(frontier.contains(new Point(x, y)));
+                        continue;
+                    }
+                    int neighbors = 0;
+                    int maximumNeighbors = 0;
+                    for (int i = x - 1; i <= x + 1; i++) {
+                        for (int j = y - 1; j <= y + 1; j++) {
+                            if ((i == x && j == y) || !serverDataModel.isValidPosition(i, j)) {
+                                continue;
+                            }
+                            maximumNeighbors++;
+                            if (group.isResourceAt(i, j)) {
+                                neighbors++;
+                            }
+                        }
+                    }
+                    assertEquals(neighbors > 0, frontier.contains(new Point(x, y)));
+                    assertEquals(rate * neighbors / maximumNeighbors, generator.getProbabilityForCell(group, x, y), 1e-9);
+                }
+            }
+        }
+    }
+
+    /**
+     * Regrowing the same distribution many times with a seeded dispenser should add, on average, the sum
+     * of the per-cell regrowth probabilities.
+     */
+    @Test
+    public void testRegrowthIsStatisticallyUnbiased() {
+        int trials = 2000;
+        GroupDataModel group = serverDataModel.getOrderedGroups().get(0);
+        StochasticGenerator generator = resourceDispenser.getDensityDependentGenerator();
+        double expected = 0.0d;
+        double variance = 0.0d;
+        for (int x = 0; x < serverDataModel.getBoardWidth(); x++) {
+            for (int y = 0; y < serverDataModel.getBoardHeight(); y++) {
+                if (!group.isResourceAt(x, y)) {
+                    double probability = generator.getProbabilityForCell(group, x, y);
+                    expected += probability;
+                    variance += probability * (1.0d - probability);
+                }
+            }
+        }
+        long total = 0;
+        for (int trial = 0; trial < trials; trial++) {
+            Set<Resource> added = resourceDispenser.generateResources().get(group);
+            total += added.size();
+            for (Resource resource : added) {
+                group.removeResource(resource.getPosition());
+            }
+        }
+        double mean = total / (double) trials;
+        assertEquals(expected, mean, 4 * Math.sqrt(variance / trials));
+    }
+
+    @Test
+    public void testParallelGenerationMatchesSequential() {
+        ServerDataModel parallelServerDataModel = new ServerDataModel();
+        parallelServerDataModel.setRoundConfiguration(serverConfiguration.getCurrentParameters());
+        for (int i = 0; i < NUMBER_OF_CLIENTS; i++) {
+            parallelServerDataModel.addClient(new ClientData(new Identifier.Base()));
+        }
+        ResourceDispenser parallelResourceDispenser = new ResourceDispenser(parallelServerDataModel, new Random(17));
+        parallelResourceDispenser.setParallelGenerationEnabled(true);
+        parallelResourceDispenser.initialize();
+        List<GroupDataModel> groups = serverDataModel.getOrderedGroups();
+        List<GroupDataModel> parallelGroups = parallelServerDataModel.getOrderedGroups();
+        assertEquals(groups.size(), parallelGroups.size());
+        // both start from the same initial distribution since it is drawn from the same per-group streams
+        for (int i = 0; i < groups.size(); i++) {
+            assertEquals(groups.get(i).getResourcePositions(), parallelGroups.get(i).getResourcePositions());
+        }
+        for (int tick = 0; tick < 20; tick++) {
+            resourceDispenser.generateResources();
+            parallelResourceDispenser.generateResources();
+            for (int i = 0; i < groups.size(); i++) {
+                assertEquals(groups.get(i).getResourcePositions(), parallelGroups.get(i).getResourcePositions());
+            }
+        }
+    }
+
+    /**
+     * Two servers started with the same experiment seed lay out the same initial tokens in every group.
+     */
+    @Test
+    public void testSameSeedProducesSameInitialDistribution() {
+        long seed = 20120501L;
+        List<GroupDataModel> groups = createSeededGroups(seed);
+        List<GroupDataModel> otherGroups = createSeededGroups(seed);
+        assertEquals(groups.size(), otherGroups.size());
+        for (int i = 0; i < groups.size(); i++) {
+            assertEquals(groups.get(i).getResourcePositions(), otherGroups.get(i).getResourcePositions());
+        }
+        List<GroupDataModel> differentGroups = createSeededGroups(seed + 1);
+        assertFalse(groups.get(0).getResourcePositions().equals(differentGroups.get(0).getResourcePositions()));
+    }
+
+    private List<GroupDataModel> createSeededGroups(long seed) {
+        ServerDataModel seededServerDataModel = new ServerDataModel();
+        seededServerDataModel.setRandomSeed(seed);
+        seededServerDataModel.setRoundConfiguration(serverConfiguration.getCurrentParameters());
+        for (int i = 0; i < NUMBER_OF_CLIENTS; i++) {
+            seededServerDataModel.addClient(new ClientData(new Identifier.Base()));
+        }
+        Random random = new Random(ServerConfiguration.deriveSeed(seed, "resource-dispenser"));
+        new ResourceDispenser(seededServerDataModel, random).initialize();
+        return seededServerDataModel.getOrderedGroups();
+    }
+
     @After
     public void tearDown() {
         
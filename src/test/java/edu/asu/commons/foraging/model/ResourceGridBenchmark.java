@@ -0,0 +1,126 @@
+package edu.asu.commons.foraging.model;
+
+import java.awt.Point;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the BitSetResourceGrid against the HashMap<Point, Resource> it replaced in GroupDataModel for the
+ * two hot paths on the server: a full-board occupancy scan (as done by the resource generators every second)
+ * and token collection / regrowth churn (as done by participants and bots every tick).
+ *
+ * Run with <code>mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=edu.asu.commons.foraging.model.ResourceGridBenchmark</code>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResourceGridBenchmark {
+
+    @Param({ "28", "64", "200" })
+    public int boardSize;
+
+    @Param({ "0.25" })
+    public double initialDistribution;
+
+    private Map<Point, Resource> resourceMap;
+    private ResourceGrid resourceGrid;
+    private int[] churnX;
+    private int[] churnY;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(0);
+        resourceMap = new HashMap<>();
+        resourceGrid = new BitSetResourceGrid(boardSize, boardSize);
+        int tokens = (int) (boardSize * boardSize * initialDistribution);
+        while (resourceMap.size() < tokens) {
+            Resource resource = new Resource(random.nextInt(boardSize), random.nextInt(boardSize), 1);
+            resourceMap.put(resource.getPosition(), resource);
+            resourceGrid.add(resource);
+        }
+        churnX = new int[1024];
+        churnY = new int[1024];
+        for (int i = 0; i < churnX.length; i++) {
+            churnX[i] = random.nextInt(boardSize);
+            churnY[i] = random.nextInt(boardSize);
+        }
+    }
+
+    @Benchmark
+    public int mapOccupancyScan() {
+        int occupied = 0;
+        for (int y = 0; y < boardSize; y++) {
+            for (int x = 0; x < boardSize; x++) {
+                if (resourceMap.containsKey(new Point(x, y))) {
+                    occupied++;
+                }
+            }
+        }
+        return occupied;
+    }
+
+    @Benchmark
+    public int gridOccupancyScan() {
+        int occupied = 0;
+        for (int y = 0; y < boardSize; y++) {
+            for (int x = 0; x < boardSize; x++) {
+                if (resourceGrid.isResourceAt(x, y)) {
+                    occupied++;
+                }
+            }
+        }
+        return occupied;
+    }
+
+    @Benchmark
+    public int mapCollectAndRegrow() {
+        int collected = 0;
+        for (int i = 0; i < churnX.length; i++) {
+            Point position = new Point(churnX[i], churnY[i]);
+            if (resourceMap.remove(position) != null) {
+                collected++;
+            } else {
+                resourceMap.put(position, new Resource(position, 1));
+            }
+        }
+        return collected;
+    }
+
+    @Benchmark
+    public int gridCollectAndRegrow() {
+        int collected = 0;
+        for (int i = 0; i < churnX.length; i++) {
+            if (resourceGrid.remove(churnX[i], churnY[i])) {
+                collected++;
+            } else {
+                resourceGrid.add(churnX[i], churnY[i], 1);
+            }
+        }
+        return collected;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ResourceGridBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
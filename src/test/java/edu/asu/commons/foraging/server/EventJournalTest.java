@@ -0,0 +1,142 @@
+package edu.asu.commons.foraging.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Point;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+
+import org.junit.Test;
+
+import edu.asu.commons.foraging.bot.BotIdentifier;
+import edu.asu.commons.foraging.event.MovementEvent;
+import edu.asu.commons.foraging.event.TokenCollectedEvent;
+import edu.asu.commons.foraging.model.Direction;
+import edu.asu.commons.net.Identifier;
+
+public class EventJournalTest {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        File file = File.createTempFile("foraging", ".journal");
+        file.deleteOnExit();
+        Identifier id = new BotIdentifier();
+        MovementEvent movementEvent = new MovementEvent(id, Direction.LEFT);
+        TokenCollectedEvent tokenCollectedEvent = new TokenCollectedEvent(id, new Point(3, 4));
+        EventJournal journal = new EventJournal(file);
+        journal.append(movementEvent);
+        journal.append(tokenCollectedEvent);
+        journal.close();
+        try (EventJournal.Reader reader = new EventJournal.Reader(file)) {
+            assertTrue(reader.next());
+            assertEquals(EventJournal.MOVEMENT, reader.getType());
+            assertEquals(id, reader.getActor());
+            assertEquals(Direction.LEFT, reader.getDirection());
+            assertEquals(movementEvent.getCreationTime(), reader.getCreationTime());
+            assertTrue(reader.next());
+            assertEquals(EventJournal.TOKEN_COLLECTED, reader.getType());
+            assertEquals(id, reader.getActor());
+            assertEquals(3, reader.getX());
+            assertEquals(4, reader.getY());
+            assertEquals(tokenCollectedEvent.getCreationTime(), reader.getCreationTime());
+            assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    public void testSkipsEventsThatCantBeSerialized() throws Exception {
+        File file = File.createTempFile("foraging", ".journal");
+        file.deleteOnExit();
+        Identifier id = new BotIdentifier();
+        EventJournal journal = new EventJournal(file);
+        journal.append(new MovementEvent(id, Direction.LEFT));
+        journal.append(new UnserializableEvent(id));
+        journal.append(new TokenCollectedEvent(id, new Point(3, 4)));
+        journal.close();
+        try (EventJournal.Reader reader = new EventJournal.Reader(file)) {
+            assertTrue(reader.next());
+            assertEquals(EventJournal.MOVEMENT, reader.getType());
+            assertTrue(reader.next());
+            assertEquals(EventJournal.TOKEN_COLLECTED, reader.getType());
+            assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    public void testSkipsEventsThatFailToSerialize() throws Exception {
+        File file = File.createTempFile("foraging", ".journal");
+        file.deleteOnExit();
+        Identifier id = new BotIdentifier();
+        EventJournal journal = new EventJournal(file);
+        ChangingEvent changingEvent = new ChangingEvent(id);
+        changingEvent.failing = true;
+        journal.append(new MovementEvent(id, Direction.LEFT));
+        journal.append(changingEvent);
+        journal.append(new TokenCollectedEvent(id, new Point(3, 4)));
+        journal.close();
+        assertFalse(journal.isFailed());
+        try (EventJournal.Reader reader = new EventJournal.Reader(file)) {
+            assertTrue(reader.next());
+            assertEquals(EventJournal.MOVEMENT, reader.getType());
+            assertTrue(reader.next());
+            assertEquals(EventJournal.TOKEN_COLLECTED, reader.getType());
+            assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    public void testSerializesEventsWhenAppended() throws Exception {
+        File file = File.createTempFile("foraging", ".journal");
+        file.deleteOnExit();
+        Identifier id = new BotIdentifier();
+        EventJournal journal = new EventJournal(file);
+        ChangingEvent changingEvent = new ChangingEvent(id);
+        changingEvent.values.add(1);
+        journal.append(changingEvent);
+        // changes made after the event was stored don't end up in the journal
+        changingEvent.values.add(2);
+        journal.close();
+        try (EventJournal.Reader reader = new EventJournal.Reader(file)) {
+            assertTrue(reader.next());
+            assertEquals(EventJournal.SERIALIZED, reader.getType());
+            assertEquals(Arrays.asList(1), ((ChangingEvent) reader.getEvent()).values);
+            assertFalse(reader.next());
+        }
+    }
+
+    private static class ChangingEvent extends TokenCollectedEvent {
+        private static final long serialVersionUID = 1L;
+        private final List<Integer> values = new ArrayList<>();
+        private boolean failing;
+
+        ChangingEvent(Identifier id) {
+            super(id, null);
+        }
+
+        private void writeObject(ObjectOutputStream out) throws IOException {
+            if (failing) {
+                // as if the round thread changed the event's state while it was being serialized
+                throw new ConcurrentModificationException();
+            }
+            out.defaultWriteObject();
+        }
+    }
+
+    private static class UnserializableEvent extends TokenCollectedEvent {
+        private static final long serialVersionUID = 1L;
+        private final Object lock = new Object();
+
+        UnserializableEvent(Identifier id) {
+            // without a location it is journaled serialized
+            super(id, null);
+        }
+    }
+
+}
@@ -0,0 +1,60 @@
+package edu.asu.commons.foraging.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import edu.asu.commons.foraging.server.TickMetrics.Phase;
+import edu.asu.commons.net.Identifier;
+
+public class TickMetricsTest {
+
+    @Test
+    public void testPhasePercentilesInMilliseconds() {
+        TickMetrics metrics = new TickMetrics();
+        for (int i = 1; i <= 100; i++) {
+            metrics.record(Phase.TICK, TimeUnit.MILLISECONDS.toNanos(i));
+            metrics.record(Phase.SERIALIZATION, TimeUnit.MICROSECONDS.toNanos(i));
+        }
+        assertWithinPrecision(50.0d, metrics.getTickPercentile(50));
+        assertWithinPrecision(99.0d, metrics.getTickPercentile(99));
+        assertEquals(100.0d, metrics.getTickPercentile(100), 0.0d);
+        assertWithinPrecision(0.05d, metrics.getPhasePercentile("SERIALIZATION", 50));
+        // phases are recorded separately
+        assertEquals(100, metrics.getHistogram(Phase.SERIALIZATION).getCount());
+        assertEquals(0, metrics.getHistogram(Phase.TRANSMIT).getCount());
+        assertEquals(0.0d, metrics.getPhasePercentile("TRANSMIT", 99), 0.0d);
+    }
+
+    private void assertWithinPrecision(double expected, double actual) {
+        assertTrue(actual + " < " + expected, actual >= expected);
+        assertTrue(actual + " isn't within 1/16 of " + expected, actual - expected <= expected / 16);
+    }
+
+    @Test
+    public void testSendQueueDepthAndReset() {
+        TickMetrics metrics = new TickMetrics();
+        Identifier id = new Identifier.Base();
+        metrics.addToSendQueue(3);
+        metrics.addToSendQueue(2);
+        metrics.removeFromSendQueue(4);
+        metrics.recordSent(id, 100);
+        metrics.recordSent(id, 50);
+        metrics.record(Phase.TICK, 1000);
+        assertEquals(1, metrics.getSendQueueDepth());
+        assertEquals(5, metrics.getMaxSendQueueDepth());
+        assertEquals(2, metrics.getEventsSent());
+        assertEquals(150, metrics.getBytesSent());
+        metrics.reset();
+        // whatever is still queued carries over into the next round
+        assertEquals(1, metrics.getSendQueueDepth());
+        assertEquals(1, metrics.getMaxSendQueueDepth());
+        assertEquals(0, metrics.getEventsSent());
+        assertEquals(0, metrics.getBytesSent());
+        assertEquals(0, metrics.getHistogram(Phase.TICK).getCount());
+    }
+
+}
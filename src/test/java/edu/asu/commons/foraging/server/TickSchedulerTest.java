@@ -0,0 +1,68 @@
+package edu.asu.commons.foraging.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TickSchedulerTest {
+
+    private final static long PERIOD = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private long now;
+
+    private TickScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        now = 0;
+        scheduler = new TickScheduler(100, TimeUnit.MILLISECONDS, 3, () -> now);
+        scheduler.start();
+    }
+
+    @Test
+    public void testDeadlinesDontDrift() throws InterruptedException {
+        now = PERIOD;
+        assertTrue(scheduler.awaitNextTick());
+        // a late tick is caught up on the original schedule, not pushed back
+        now = PERIOD * 2 + PERIOD / 2;
+        assertFalse(scheduler.awaitNextTick());
+        now = PERIOD * 3;
+        assertTrue(scheduler.awaitNextTick());
+        assertEquals(3, scheduler.getTicks());
+        assertEquals(1, scheduler.getOverruns());
+        assertEquals(0, scheduler.getSkippedTicks());
+        assertEquals(50, scheduler.getMaxLateness(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testResetsScheduleAfterTooManyMissedTicks() throws InterruptedException {
+        now = PERIOD * 6;
+        assertFalse(scheduler.awaitNextTick());
+        assertEquals(5, scheduler.getSkippedTicks());
+        // the next deadline is one period after the overrun instead of bursting through the backlog
+        now = PERIOD * 7;
+        assertTrue(scheduler.awaitNextTick());
+        assertEquals(1, scheduler.getOverruns());
+    }
+
+    @Test
+    public void testInterruptLeavesScheduleAsIs() throws InterruptedException {
+        Thread.currentThread().interrupt();
+        try {
+            scheduler.awaitNextTick();
+            fail("awaitNextTick should throw when interrupted");
+        } catch (InterruptedException expected) {
+            assertFalse(Thread.currentThread().isInterrupted());
+        }
+        now = PERIOD;
+        assertTrue(scheduler.awaitNextTick());
+        assertEquals(0, scheduler.getOverruns());
+    }
+
+}
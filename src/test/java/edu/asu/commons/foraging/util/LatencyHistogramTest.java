@@ -0,0 +1,84 @@
+package edu.asu.commons.foraging.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testSmallValuesAreExact() {
+        for (long value = 0; value < 32; value++) {
+            assertEquals(value, LatencyHistogram.indexOf(value));
+            assertEquals(value, LatencyHistogram.highestEquivalentValue(LatencyHistogram.indexOf(value)));
+        }
+    }
+
+    @Test
+    public void testBucketsCoverValuesWithinPrecision() {
+        Random random = new Random(0);
+        int previousIndex = 0;
+        for (long value = 0; value < 100000; value++) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(index >= previousIndex);
+            assertBucketCovers(value, index);
+            previousIndex = index;
+        }
+        for (int i = 0; i < 100000; i++) {
+            long value = (random.nextLong() >>> 1) >>> random.nextInt(63);
+            assertBucketCovers(value, LatencyHistogram.indexOf(value));
+        }
+        assertBucketCovers(Long.MAX_VALUE, LatencyHistogram.indexOf(Long.MAX_VALUE));
+    }
+
+    private void assertBucketCovers(long value, int index) {
+        long highestEquivalentValue = LatencyHistogram.highestEquivalentValue(index);
+        assertTrue(value + " isn't covered by bucket " + index, highestEquivalentValue >= value);
+        // 16 linear sub-buckets per power of two
+        assertTrue(value + " is off by more than a sub-bucket", highestEquivalentValue - value <= value / 16);
+        if (index > 0) {
+            assertTrue(LatencyHistogram.highestEquivalentValue(index - 1) < value);
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0L, histogram.getPercentile(50));
+        for (int i = 1000; i >= 1; i--) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+        assertEquals(1000, histogram.getCount());
+        assertWithinPrecision(TimeUnit.MICROSECONDS.toNanos(1), histogram.getPercentile(0));
+        assertWithinPrecision(TimeUnit.MICROSECONDS.toNanos(500), histogram.getPercentile(50));
+        assertWithinPrecision(TimeUnit.MICROSECONDS.toNanos(990), histogram.getPercentile(99));
+        // capped at the largest value actually recorded
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1), histogram.getPercentile(100));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1), histogram.getPercentile(150));
+        assertEquals(1.0d, histogram.getPercentile(100, TimeUnit.MILLISECONDS), 0.0d);
+        assertEquals(1L, histogram.getMax(TimeUnit.MILLISECONDS));
+    }
+
+    private void assertWithinPrecision(long expected, long actual) {
+        assertTrue(actual + " < " + expected, actual >= expected);
+        assertTrue(actual + " isn't within 1/16 of " + expected, actual - expected <= expected / 16);
+    }
+
+    @Test
+    public void testNegativeValuesAndReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        assertEquals(1, histogram.getCount());
+        assertEquals(0L, histogram.getPercentile(100));
+        histogram.record(42);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0L, histogram.getPercentile(99));
+        assertEquals(0L, histogram.getMax(TimeUnit.NANOSECONDS));
+    }
+
+}
@@ -0,0 +1,45 @@
+package edu.asu.commons.foraging.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class TokenBucketTest {
+
+    private long now;
+
+    @Test
+    public void testBurstThenRefill() {
+        TokenBucket bucket = new TokenBucket(10, 3, () -> now);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(bucket.tryAcquire());
+        }
+        assertFalse(bucket.tryAcquire());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), bucket.getWaitTime());
+        now += TimeUnit.MILLISECONDS.toNanos(50);
+        assertFalse(bucket.tryAcquire());
+        now += TimeUnit.MILLISECONDS.toNanos(50);
+        assertTrue(bucket.tryAcquire());
+        // never refills past its capacity
+        now += TimeUnit.SECONDS.toNanos(10);
+        assertEquals(3, bucket.getAvailableTokens());
+        assertEquals(0L, bucket.getWaitTime());
+    }
+
+    @Test
+    public void testPartialAcquire() {
+        TokenBucket bucket = new TokenBucket(10, 3, () -> now);
+        assertEquals(3, bucket.tryAcquire(5));
+        assertEquals(0, bucket.tryAcquire(5));
+        now += TimeUnit.MILLISECONDS.toNanos(150);
+        assertEquals(1, bucket.tryAcquire(5));
+        // the half token left over carries into the next refill
+        now += TimeUnit.MILLISECONDS.toNanos(50);
+        assertEquals(1, bucket.tryAcquire(1));
+    }
+
+}